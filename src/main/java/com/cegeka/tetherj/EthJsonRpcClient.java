@@ -0,0 +1,297 @@
+package com.cegeka.tetherj;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.cegeka.tetherj.transport.EthRpcAsyncTransport;
+import com.cegeka.tetherj.transport.EthRpcTransport;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.googlecode.jsonrpc4j.HttpException;
+import com.googlecode.jsonrpc4j.IJsonRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
+
+/**
+ * Json rpc client on top of a pluggable {@link EthRpcTransport}. Besides single calls, it can
+ * send JSON-RPC 2.0 batches (one request carrying an array of calls, answered by an array of
+ * responses correlated by id). Transport failures are reported as {@link HttpException}, same
+ * as the jsonrpc4j http client. On an {@link EthRpcAsyncTransport}, requests can also be sent
+ * without blocking.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+class EthJsonRpcClient extends JsonRpcClient implements IJsonRpcClient {
+
+    /**
+     * Json rpc error code for an internal error.
+     */
+    static final int INTERNAL_ERROR = -32603;
+
+    private final EthRpcTransport transport;
+    private final AtomicLong nextId = new AtomicLong();
+
+    EthJsonRpcClient(EthRpcTransport transport) {
+        this.transport = transport;
+    }
+
+    EthRpcTransport getTransport() {
+        return transport;
+    }
+
+    boolean isAsync() {
+        return transport instanceof EthRpcAsyncTransport;
+    }
+
+    @Override
+    public void invoke(String methodName, Object argument) throws Throwable {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        writeNotification(methodName, argument, request);
+        send(request.toByteArray());
+    }
+
+    @Override
+    public Object invoke(String methodName, Object argument, Type returnType) throws Throwable {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        invoke(methodName, argument, request);
+        byte[] response = send(request.toByteArray());
+        return readResponse(returnType, new ByteArrayInputStream(response));
+    }
+
+    @Override
+    public Object invoke(String methodName, Object argument, Type returnType,
+            Map<String, String> extraHeaders) throws Throwable {
+        return invoke(methodName, argument, returnType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T invoke(String methodName, Object argument, Class<T> clazz) throws Throwable {
+        return (T) invoke(methodName, argument, (Type) clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T invoke(String methodName, Object argument, Class<T> clazz,
+            Map<String, String> extraHeaders) throws Throwable {
+        return (T) invoke(methodName, argument, (Type) clazz);
+    }
+
+    private byte[] send(byte[] request) {
+        try {
+            return transport.send(request);
+        } catch (IOException ex) {
+            throw new HttpException("Rpc request failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Send a request without blocking, the transport must be an {@link EthRpcAsyncTransport}.
+     * The returned future is completed on the transport I/O thread.
+     *
+     * @param request
+     *            to send.
+     * @return Returns future for the converted result, completed exceptionally with the rpc
+     *         error or an {@link HttpException}.
+     */
+    <T> CompletableFuture<T> invokeAsync(EthRpcRequest<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        byte[] payload;
+        try {
+            payload = serialize(createRequest(request.getMethod(), request.getParams(),
+                    Long.toString(nextId.incrementAndGet())));
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        ((EthRpcAsyncTransport) transport).sendAsync(payload).whenComplete((response, ex) -> {
+            if (ex != null) {
+                IOException cause = ex instanceof IOException ? (IOException) ex
+                        : new IOException(ex);
+                result.completeExceptionally(new HttpException("Rpc request failed: "
+                        + cause.getMessage(), cause));
+                return;
+            }
+
+            try {
+                result.complete(request.convert(readResponse(request.getResultType(),
+                        new ByteArrayInputStream(response))));
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Send a request whose result is a json array and hand the elements to the consumer one at
+     * a time, while the response is read from the transport. The response is parsed token by
+     * token, only the current element is held in memory.
+     *
+     * @param request
+     *            to send, its result must be a json array.
+     * @param elementType
+     *            to map each element to.
+     * @param consumer
+     *            called with each element, in order, on the calling thread.
+     * @return Returns number of elements consumed, 0 for a null result.
+     */
+    <E> int invokeStreaming(EthRpcRequest<?> request, Class<E> elementType,
+            Consumer<? super E> consumer) {
+        byte[] payload = serialize(createRequest(request.getMethod(), request.getParams(),
+                Long.toString(nextId.incrementAndGet())));
+
+        try (InputStream input = transport.sendStreaming(payload);
+                JsonParser parser = getObjectMapper().getFactory().createParser(input)) {
+            return readStreaming(parser, elementType, consumer);
+        } catch (IOException ex) {
+            throw new HttpException("Rpc request failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    private <E> int readStreaming(JsonParser parser, Class<E> elementType,
+            Consumer<? super E> consumer) throws IOException {
+        ObjectMapper mapper = getObjectMapper();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonRpcClientException(INTERNAL_ERROR, "Invalid response", null);
+        }
+
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("result".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    consumer.accept(mapper.readValue(parser, elementType));
+                    count++;
+                }
+            } else if ("error".equals(field) && value != JsonToken.VALUE_NULL) {
+                ObjectNode response = mapper.createObjectNode();
+                response.set("error", mapper.readTree(parser));
+                throw readError(response);
+            } else if ("result".equals(field) && value != JsonToken.VALUE_NULL) {
+                throw new JsonRpcClientException(INTERNAL_ERROR, "Result is not an array", null);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return count;
+    }
+
+    private RuntimeException readError(ObjectNode response) {
+        try {
+            readResponse(Object.class, response);
+        } catch (RuntimeException ex) {
+            return ex;
+        } catch (Throwable ex) {
+            return new UndeclaredThrowableException(ex);
+        }
+
+        return new JsonRpcClientException(INTERNAL_ERROR, "Invalid error response", response);
+    }
+
+    /**
+     * Send all requests in one http round trip. Every future gets completed, either with its
+     * converted result or with the error for that particular request.
+     *
+     * @param requests
+     *            to send, in order.
+     * @param futures
+     *            to complete, same order as requests.
+     */
+    void invokeBatch(List<EthRpcRequest<?>> requests, List<CompletableFuture<Object>> futures) {
+        ArrayNode batch = getObjectMapper().createArrayNode();
+        for (int i = 0; i < requests.size(); i++) {
+            EthRpcRequest<?> request = requests.get(i);
+            batch.add(createRequest(request.getMethod(), request.getParams(), Integer.toString(i)));
+        }
+
+        JsonNode response;
+        try {
+            response = post(batch);
+        } catch (HttpException ex) {
+            futures.forEach(future -> future.completeExceptionally(ex));
+            return;
+        }
+
+        if (!response.isArray()) {
+            /* servers without batch support answer with a single error object */
+            Throwable error = readBatchError(response);
+            futures.forEach(future -> future.completeExceptionally(error));
+            return;
+        }
+
+        Map<String, ObjectNode> responsesById = new HashMap<>();
+        for (JsonNode node : response) {
+            if (node.isObject() && node.hasNonNull("id")) {
+                responsesById.put(node.get("id").asText(), (ObjectNode) node);
+            }
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            EthRpcRequest<?> request = requests.get(i);
+            ObjectNode node = responsesById.get(Integer.toString(i));
+
+            if (node == null) {
+                futures.get(i).completeExceptionally(new JsonRpcClientException(INTERNAL_ERROR,
+                        "No response in batch for " + request.getMethod(), null));
+                continue;
+            }
+
+            try {
+                futures.get(i).complete(request.convert(readResponse(request.getResultType(),
+                        node)));
+            } catch (Throwable ex) {
+                futures.get(i).completeExceptionally(ex);
+            }
+        }
+    }
+
+    private Throwable readBatchError(JsonNode response) {
+        if (response.isObject()) {
+            try {
+                readResponse(Object.class, (ObjectNode) response);
+            } catch (Throwable ex) {
+                return ex;
+            }
+        }
+
+        return new JsonRpcClientException(INTERNAL_ERROR, "Invalid batch response", response);
+    }
+
+    private JsonNode post(JsonNode payload) {
+        byte[] response = send(serialize(payload));
+        try {
+            return getObjectMapper().readTree(response);
+        } catch (IOException ex) {
+            throw new HttpException("Bad batch response: " + ex.getMessage(), ex);
+        }
+    }
+
+    private byte[] serialize(JsonNode payload) {
+        try {
+            return getObjectMapper().writeValueAsBytes(payload);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Cannot serialize request", ex);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.cegeka.tetherj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Builder for a JSON-RPC batch. Add requests, then execute them; every added request gets a
+ * future completed with its own result (or error) once the batch ran. The batch is sent in as
+ * few http round trips as the client max batch size allows.
+ *
+ * <p>Example:
+ * <pre>
+ * EthRpcBatch batch = rpcClient.newBatch();
+ * CompletableFuture&lt;String&gt; balance =
+ *     batch.add(rpc -&gt; rpc.eth_getBalance(address, "latest"));
+ * batch.execute();
+ * </pre>
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class EthRpcBatch {
+
+    private final EthRpcClient client;
+    private final List<EthRpcRequest<?>> requests = new ArrayList<>();
+    private final List<CompletableFuture<Object>> futures = new ArrayList<>();
+
+    EthRpcBatch(EthRpcClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Add a request to this batch.
+     *
+     * @param request
+     *            to add.
+     * @return Returns future completed when the batch is executed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> add(EthRpcRequest<T> request) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        requests.add(request);
+        futures.add(future);
+        return (CompletableFuture<T>) future;
+    }
+
+    /**
+     * Add a request to this batch, described by an rpc interface invocation.
+     *
+     * @param invocation
+     *            Invokes exactly one method of the rpc interface.
+     * @return Returns future completed when the batch is executed.
+     */
+    public <T> CompletableFuture<T> add(Function<EthRpcInterface, T> invocation) {
+        return add(EthRpcRequest.of(invocation));
+    }
+
+    /**
+     * @return Returns number of requests in this batch.
+     */
+    public int size() {
+        return requests.size();
+    }
+
+    /**
+     * Blocking send all added requests. Errors are delivered through the request futures.
+     */
+    public void execute() {
+        int maxBatchSize = client.getMaxBatchSize();
+
+        for (int from = 0; from < requests.size(); from += maxBatchSize) {
+            int to = Math.min(from + maxBatchSize, requests.size());
+            client.invokeBatch(requests.subList(from, to), futures.subList(from, to));
+        }
+    }
+
+    /**
+     * Get the result of an executed batch request, rethrowing its rpc error as is (instead of
+     * wrapped in a completion exception).
+     *
+     * @param future
+     *            returned by {@link #add(EthRpcRequest)}, after the batch was executed.
+     * @return Returns the request result.
+     */
+    public static <T> T getResult(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+}
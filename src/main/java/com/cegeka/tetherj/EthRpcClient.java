@@ -1,10 +1,14 @@
 package com.cegeka.tetherj;
 
+import java.lang.reflect.UndeclaredThrowableException;
 import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -12,16 +16,21 @@ import com.cegeka.tetherj.crypto.CryptoUtil;
 import com.cegeka.tetherj.pojo.Block;
 import com.cegeka.tetherj.pojo.CompileOutput;
 import com.cegeka.tetherj.pojo.FilterLogObject;
+import com.cegeka.tetherj.pojo.FilterLogQuery;
 import com.cegeka.tetherj.pojo.FilterLogRequest;
 import com.cegeka.tetherj.pojo.Transaction;
 import com.cegeka.tetherj.pojo.TransactionCall;
 import com.cegeka.tetherj.pojo.TransactionReceipt;
+import com.cegeka.tetherj.transport.EthRpcAsyncTransport;
+import com.cegeka.tetherj.transport.EthRpcTransport;
+import com.cegeka.tetherj.transport.HttpUrlConnectionTransport;
+import com.googlecode.jsonrpc4j.HttpException;
 import com.googlecode.jsonrpc4j.JsonRpcClientException;
-import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
-import com.googlecode.jsonrpc4j.ProxyUtil;
 
 /**
- * Class for rpc request invoker to ethereum client.
+ * Class for rpc request invoker to ethereum client. Every operation is also available as an
+ * {@link EthRpcRequest} (see the static {@code ...Request} factories), which can be executed
+ * blocking, asynchronously or as part of a batch.
  *
  * @author Andrei Grigoriu
  *
@@ -31,11 +40,19 @@ public class EthRpcClient {
     /**
      * Ethereum rpc interface.
      */
-    JsonRpcHttpClient rpcClient;
-    private EthRpcInterface rpc;
+    EthJsonRpcClient rpcClient;
     public static final String DEFAULT_HOSTNAME = Optional
             .ofNullable(System.getProperty("geth.address")).orElse("127.0.0.1");
     public static final int DEFAULT_PORT = 8545;
+
+    /**
+     * Max requests sent in one JSON-RPC batch http request.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private final RequestCoalescer coalescer;
+    private volatile boolean coalescing = true;
+    private volatile ResponseCache responseCache;
     private static final Logger log = Logger.getLogger(EthRpcClient.class.getName());
 
     public EthRpcClient() {
@@ -51,19 +68,245 @@ public class EthRpcClient {
      *            Port for ethereum client.
      */
     public EthRpcClient(String hostname, int port) {
-        URL url;
-        log.log(Level.INFO, "Geth address: " + hostname + ":" + port);
-        try {
-            url = new URL("http://" + hostname + ":" + port + "/");
-            rpcClient = new JsonRpcHttpClient(url);
-            rpc = ProxyUtil.createClientProxy(getClass().getClassLoader(), EthRpcInterface.class,
-                    rpcClient);
+        this(new HttpUrlConnectionTransport(createUrl(hostname, port)));
+    }
 
+    /**
+     * Constructor to specify a custom transport, for example a
+     * {@link com.cegeka.tetherj.transport.PooledHttpTransport}, a non blocking
+     * {@link com.cegeka.tetherj.transport.NioHttpTransport} or a
+     * {@link com.cegeka.tetherj.transport.MultiEndpointTransport} over several replicas.
+     *
+     * @param transport
+     *            Transport to the ethereum client.
+     */
+    public EthRpcClient(EthRpcTransport transport) {
+        log.log(Level.INFO, "Geth transport: " + transport);
+        rpcClient = new EthJsonRpcClient(transport);
+        coalescer = new RequestCoalescer(RequestCoalescer.DEFAULT_COALESCED_METHODS);
+    }
+
+    /**
+     * Create the ethereum client http url.
+     *
+     * @param hostname
+     *            Hostname for ethereum client.
+     * @param port
+     *            Port for ethereum client.
+     * @return Returns the url.
+     */
+    public static URL createUrl(String hostname, int port) {
+        try {
+            return new URL("http://" + hostname + ":" + port + "/");
         } catch (MalformedURLException exception) {
-            exception.printStackTrace();
+            throw new IllegalArgumentException("Bad geth address " + hostname + ":" + port,
+                    exception);
         }
     }
 
+    /**
+     * @return Returns the transport used to reach the ethereum client.
+     */
+    public EthRpcTransport getTransport() {
+        return rpcClient.getTransport();
+    }
+
+    /**
+     * @return Returns true if the transport sends requests without blocking, see
+     *         {@link #executeAsync(EthRpcRequest)}.
+     */
+    public boolean isAsync() {
+        return rpcClient.isAsync();
+    }
+
+    /**
+     * Blocking execute a single request. An identical read already in flight is waited for
+     * instead of sent again, see {@link #setCoalescing(boolean)}, and immutable results may come
+     * from the {@link #setResponseCache(ResponseCache) response cache}.
+     *
+     * @param request
+     *            to execute.
+     * @return Returns the converted result.
+     * @throws JsonRpcClientException
+     *             In case of rpc errors.
+     * @throws HttpException
+     *             In case of connection errors.
+     */
+    public <T> T execute(EthRpcRequest<T> request) throws JsonRpcClientException {
+        try {
+            return request.convert(executeRaw(request.raw()));
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable throwable) {
+            throw new UndeclaredThrowableException(throwable);
+        }
+    }
+
+    /**
+     * Execute a request through the response cache and the coalescer.
+     */
+    private Object executeRaw(EthRpcRequest<Object> raw) throws Throwable {
+        ResponseCache cache = responseCache;
+        boolean cacheable = cache != null && cache.isCacheable(raw);
+        boolean coalesce = coalescing && coalescer.isCoalesced(raw);
+        String key = cacheable || coalesce ? raw.key(rpcClient.getObjectMapper()) : null;
+
+        if (key != null && cacheable) {
+            Object cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Object result;
+        if (key != null && coalesce) {
+            result = coalescer.execute(key, () -> invoke(raw));
+        } else {
+            result = invoke(raw);
+        }
+
+        if (cache != null) {
+            cache.onResult(raw, cacheable ? key : null, result);
+        }
+        return result;
+    }
+
+    private CompletableFuture<Object> executeRawAsync(EthRpcRequest<Object> raw) {
+        ResponseCache cache = responseCache;
+        boolean cacheable = cache != null && cache.isCacheable(raw);
+        boolean coalesce = coalescing && coalescer.isCoalesced(raw);
+        String key = cacheable || coalesce ? raw.key(rpcClient.getObjectMapper()) : null;
+
+        if (key != null && cacheable) {
+            Object cached = cache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        CompletableFuture<Object> result;
+        if (key != null && coalesce) {
+            result = coalescer.executeAsync(key, () -> rpcClient.invokeAsync(raw));
+        } else {
+            result = rpcClient.invokeAsync(raw);
+        }
+
+        if (cache != null) {
+            result.thenAccept(value -> cache.onResult(raw, cacheable ? key : null, value));
+        }
+        return result;
+    }
+
+    private Object invoke(EthRpcRequest<Object> raw) throws Throwable {
+        return rpcClient.invoke(raw.getMethod(), raw.getParams(), raw.getResultType());
+    }
+
+    /**
+     * Execute a single request without blocking. With an {@link EthRpcAsyncTransport} no thread
+     * waits for the answer and the future is completed on the transport I/O thread, so actions
+     * chained on it must not block. Other transports execute the request blocking, on the
+     * calling thread.
+     *
+     * @param request
+     *            to execute.
+     * @return Returns future for the converted result, completed exceptionally with the same
+     *         errors {@link #execute(EthRpcRequest)} throws.
+     */
+    public <T> CompletableFuture<T> executeAsync(EthRpcRequest<T> request) {
+        if (isAsync()) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            executeRawAsync(request.raw()).whenComplete((raw, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                    return;
+                }
+                try {
+                    result.complete(request.convert(raw));
+                } catch (RuntimeException | Error convertEx) {
+                    result.completeExceptionally(convertEx);
+                }
+            });
+            return result;
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(request));
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * @return Returns max requests sent in one batch http request.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Set max requests sent in one batch http request, larger batches are split.
+     *
+     * @param maxBatchSize
+     *            Max batch size, at least 1.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return Returns the coalescer of identical in flight reads, for its hit rate.
+     */
+    public RequestCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * Enable or disable coalescing of identical in flight reads, enabled by default. See
+     * {@link RequestCoalescer}.
+     *
+     * @param coalescing
+     *            true to coalesce.
+     */
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    /**
+     * @return Returns the cache of immutable results, null if results are not cached.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Set a cache for results that can no longer change, see {@link ResponseCache}. Batches and
+     * streamed requests bypass the cache.
+     *
+     * @param responseCache
+     *            to use, null to disable caching (the default).
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Create a new JSON-RPC batch to be executed by this client.
+     *
+     * @return Returns an empty batch.
+     */
+    public EthRpcBatch newBatch() {
+        return new EthRpcBatch(this);
+    }
+
+    void invokeBatch(List<EthRpcRequest<?>> requests, List<CompletableFuture<Object>> futures) {
+        rpcClient.invokeBatch(requests, futures);
+    }
+
     /**
      * Get the ethereum client coinbase.
      *
@@ -72,7 +315,14 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public String getCoinbase() throws JsonRpcClientException {
-        return rpc.eth_coinbase();
+        return execute(getCoinbaseRequest());
+    }
+
+    /**
+     * @return Returns request for the ethereum client coinbase.
+     */
+    public static EthRpcRequest<String> getCoinbaseRequest() {
+        return EthRpcRequest.of(rpc -> rpc.eth_coinbase());
     }
 
     /**
@@ -83,7 +333,14 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public String[] getAccounts() throws JsonRpcClientException {
-        return rpc.eth_accounts();
+        return execute(getAccountsRequest());
+    }
+
+    /**
+     * @return Returns request for the wallets registered in the ethereum client.
+     */
+    public static EthRpcRequest<String[]> getAccountsRequest() {
+        return EthRpcRequest.of(rpc -> rpc.eth_accounts());
     }
 
     /**
@@ -94,7 +351,14 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public BigInteger getLatestBlockNumber() throws JsonRpcClientException {
-        return CryptoUtil.hexToBigInteger(rpc.eth_blockNumber());
+        return execute(getLatestBlockNumberRequest());
+    }
+
+    /**
+     * @return Returns request for the latest block number.
+     */
+    public static EthRpcRequest<BigInteger> getLatestBlockNumberRequest() {
+        return EthRpcRequest.of(rpc -> rpc.eth_blockNumber()).map(CryptoUtil::hexToBigInteger);
     }
 
     /**
@@ -107,8 +371,19 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public BigInteger getAccountNonce(String address) throws JsonRpcClientException {
-        String txCount = rpc.eth_getTransactionCount(address, "latest");
-        return CryptoUtil.hexToBigInteger(txCount);
+        return execute(getAccountNonceRequest(address));
+    }
+
+    /**
+     * Request for the nonce of an address, only counting mined transactions.
+     *
+     * @param address
+     *            Address to get transaction count for.
+     * @return Returns the request.
+     */
+    public static EthRpcRequest<BigInteger> getAccountNonceRequest(String address) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getTransactionCount(address, "latest"))
+                .map(CryptoUtil::hexToBigInteger);
     }
 
     /**
@@ -121,8 +396,19 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public BigInteger getAccountNonceWithPending(String address) throws JsonRpcClientException {
-        String txCount = rpc.eth_getTransactionCount(address, "pending");
-        return CryptoUtil.hexToBigInteger(txCount);
+        return execute(getAccountNonceWithPendingRequest(address));
+    }
+
+    /**
+     * Request for the nonce of an address, also counting pending transactions.
+     *
+     * @param address
+     *            Address to get transaction count for.
+     * @return Returns the request.
+     */
+    public static EthRpcRequest<BigInteger> getAccountNonceWithPendingRequest(String address) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getTransactionCount(address, "pending"))
+                .map(CryptoUtil::hexToBigInteger);
     }
 
     /**
@@ -137,7 +423,7 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public boolean unlockAccount(String address, String secret) throws JsonRpcClientException {
-        return rpc.personal_unlockAccount(address, secret);
+        return execute(EthRpcRequest.of(rpc -> rpc.personal_unlockAccount(address, secret)));
     }
 
     /**
@@ -157,7 +443,7 @@ public class EthRpcClient {
      */
     public String sendTransaction(String from, String fromSecret, String to, BigInteger valueWei)
             throws JsonRpcClientException {
-        boolean unlock = rpc.personal_unlockAccount(from, fromSecret);
+        boolean unlock = unlockAccount(from, fromSecret);
 
         if (unlock) {
             return this.sendTransaction(from, to, valueWei);
@@ -186,7 +472,7 @@ public class EthRpcClient {
         transaction.setTo(to);
         transaction.setValue(valueWei.toString());
 
-        return rpc.eth_sendTransaction(transaction);
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_sendTransaction(transaction)));
     }
 
     /**
@@ -200,7 +486,7 @@ public class EthRpcClient {
      */
     public String sendRawTransaction(String encodedSignedTransaction)
             throws JsonRpcClientException {
-        return rpc.eth_sendRawTransaction(encodedSignedTransaction);
+        return execute(sendRawTransactionRequest(encodedSignedTransaction));
     }
 
     /**
@@ -214,7 +500,31 @@ public class EthRpcClient {
      */
     public String sendRawTransaction(byte[] encodedSignedTransaction)
             throws JsonRpcClientException {
-        return sendRawTransaction(CryptoUtil.byteToHex(encodedSignedTransaction));
+        return execute(sendRawTransactionRequest(encodedSignedTransaction));
+    }
+
+    /**
+     * Request to send a self encoded transaction.
+     *
+     * @param encodedSignedTransaction
+     *            encoded data as hex
+     * @return Returns request for the transaction hash.
+     */
+    public static EthRpcRequest<String> sendRawTransactionRequest(
+            String encodedSignedTransaction) {
+        return EthRpcRequest.of(rpc -> rpc.eth_sendRawTransaction(encodedSignedTransaction));
+    }
+
+    /**
+     * Request to send a self encoded transaction.
+     *
+     * @param encodedSignedTransaction
+     *            encoded data
+     * @return Returns request for the transaction hash.
+     */
+    public static EthRpcRequest<String> sendRawTransactionRequest(
+            byte[] encodedSignedTransaction) {
+        return sendRawTransactionRequest(CryptoUtil.byteToHex(encodedSignedTransaction));
     }
 
     /**
@@ -227,8 +537,19 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public BigInteger getBalance(String address) throws JsonRpcClientException {
-        String balance = rpc.eth_getBalance(address, "latest");
-        return CryptoUtil.hexToBigInteger(balance);
+        return execute(getBalanceRequest(address));
+    }
+
+    /**
+     * Request for the balance of an address.
+     *
+     * @param address
+     *            Address to get balance of.
+     * @return Returns request for the balance as wei.
+     */
+    public static EthRpcRequest<BigInteger> getBalanceRequest(String address) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getBalance(address, "latest"))
+                .map(CryptoUtil::hexToBigInteger);
     }
 
     /**
@@ -241,7 +562,18 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public TransactionReceipt getTransactionReceipt(String txHash) throws JsonRpcClientException {
-        return rpc.eth_getTransactionReceipt(txHash);
+        return execute(getTransactionReceiptRequest(txHash));
+    }
+
+    /**
+     * Request for a transaction receipt, the result is null if the transaction is not mined.
+     *
+     * @param txHash
+     *            to get receipt of
+     * @return Returns the request.
+     */
+    public static EthRpcRequest<TransactionReceipt> getTransactionReceiptRequest(String txHash) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getTransactionReceipt(txHash));
     }
 
     /**
@@ -254,7 +586,18 @@ public class EthRpcClient {
      *             In case of rpc errors.
      */
     public Transaction getTransaction(String txHash) throws JsonRpcClientException {
-        return rpc.eth_getTransactionByHash(txHash);
+        return execute(getTransactionRequest(txHash));
+    }
+
+    /**
+     * Request for transaction data by transaction hash.
+     *
+     * @param txHash
+     *            to get data by.
+     * @return Returns the request.
+     */
+    public static EthRpcRequest<Transaction> getTransactionRequest(String txHash) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getTransactionByHash(txHash));
     }
 
     /**
@@ -265,7 +608,7 @@ public class EthRpcClient {
      * @return output encoded
      */
     public String callMethod(TransactionCall call) {
-        return rpc.eth_call(call, "latest");
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_call(call, "latest")));
     }
 
     /**
@@ -276,7 +619,46 @@ public class EthRpcClient {
      * @return output encoded
      */
     public String callMethod(EthCall call) {
-        return rpc.eth_call(call.getCall(), "latest");
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_call(call.getCall(), "latest")));
+    }
+
+    /**
+     * Request to call a contract method or dry call it.
+     *
+     * @param call
+     *            to make
+     * @return Returns request for the decoded output.
+     */
+    public static EthRpcRequest<Object[]> callMethodRequest(EthCall call) {
+        return EthRpcRequest.of(rpc -> rpc.eth_call(call.getCall(), "latest"))
+                .map(call::decodeOutput);
+    }
+
+    /**
+     * Call multiple contract methods or dry call them, in batched round trips.
+     *
+     * @param calls
+     *            to make
+     * @return outputs decoded, in the same order as calls
+     * @throws JsonRpcClientException
+     *             In case of rpc errors, the first failed call is reported.
+     */
+    public List<Object[]> callMethods(List<EthCall> calls) throws JsonRpcClientException {
+        EthRpcBatch batch = newBatch();
+        List<CompletableFuture<Object[]>> outputs = new ArrayList<>();
+
+        for (EthCall call : calls) {
+            outputs.add(batch.add(callMethodRequest(call)));
+        }
+
+        batch.execute();
+
+        List<Object[]> results = new ArrayList<>();
+        for (CompletableFuture<Object[]> output : outputs) {
+            results.add(EthRpcBatch.getResult(output));
+        }
+
+        return results;
     }
 
     /**
@@ -285,7 +667,26 @@ public class EthRpcClient {
      * @return The latest block object
      */
     public Block getLatestBlock() {
-        return rpc.eth_getBlockByNumber("latest", true);
+        return execute(getLatestBlockRequest());
+    }
+
+    /**
+     * @return Returns request for the latest block, with full transactions.
+     */
+    public static EthRpcRequest<Block> getLatestBlockRequest() {
+        return EthRpcRequest.of(rpc -> rpc.eth_getBlockByNumber("latest", true));
+    }
+
+    /**
+     * Request for a block by number, with transaction hashes only.
+     *
+     * @param blockNumber
+     *            Number of the block.
+     * @return Returns request for the block, null if there is no such block yet.
+     */
+    public static EthRpcRequest<Block> getBlockByNumberRequest(BigInteger blockNumber) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getBlockByNumber("0x" + blockNumber.toString(16),
+                false));
     }
 
     /**
@@ -294,7 +695,7 @@ public class EthRpcClient {
      * @return The gas limit of latest block on ethereum client
      */
     public BigInteger getLatestBlockGasLimit() {
-        Block block = rpc.eth_getBlockByNumber("latest", true);
+        Block block = getLatestBlock();
         if (block != null) {
             return CryptoUtil.hexToBigInteger(block.gasLimit);
         }
@@ -310,7 +711,18 @@ public class EthRpcClient {
      * @return Compile output.
      */
     public CompileOutput compileSolidity(String sourceCode) {
-        return rpc.eth_compileSolidity(sourceCode);
+        return execute(compileSolidityRequest(sourceCode));
+    }
+
+    /**
+     * Request to compile solidity source on ethereum client.
+     *
+     * @param sourceCode
+     *            Source code to compile.
+     * @return Returns request for the compile output.
+     */
+    public static EthRpcRequest<CompileOutput> compileSolidityRequest(String sourceCode) {
+        return EthRpcRequest.of(rpc -> rpc.eth_compileSolidity(sourceCode));
     }
 
     /**
@@ -319,7 +731,7 @@ public class EthRpcClient {
      * @return Returns filter id from ethereum client.
      */
     public String newFilter() {
-        return rpc.eth_newFilter(FilterLogRequest.DEFAULT);
+        return newFilter(FilterLogRequest.DEFAULT);
     }
 
     /**
@@ -330,7 +742,19 @@ public class EthRpcClient {
      * @return Returns filter id from ethereum client.
      */
     public String newFilter(FilterLogRequest filterLogRequest) {
-        return rpc.eth_newFilter(filterLogRequest);
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_newFilter(filterLogRequest)));
+    }
+
+    /**
+     * Request to create an ethereum filter.
+     *
+     * @param filterLogRequest
+     *            The filter log request to send.
+     * @return Returns request for the filter id.
+     */
+    public static EthRpcRequest<BigInteger> newFilterRequest(FilterLogRequest filterLogRequest) {
+        return EthRpcRequest.of(rpc -> rpc.eth_newFilter(filterLogRequest))
+                .map(CryptoUtil::hexToBigInteger);
     }
 
     /**
@@ -339,7 +763,15 @@ public class EthRpcClient {
      * @return Returns filter id from ethereum client.
      */
     public String newPendingTransactionFilter() {
-        return rpc.eth_newPendingTransactionFilter();
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_newPendingTransactionFilter()));
+    }
+
+    /**
+     * @return Returns request to create a pending transactions filter, for the filter id.
+     */
+    public static EthRpcRequest<BigInteger> newPendingTransactionFilterRequest() {
+        return EthRpcRequest.of(rpc -> rpc.eth_newPendingTransactionFilter())
+                .map(CryptoUtil::hexToBigInteger);
     }
 
     /**
@@ -350,7 +782,18 @@ public class EthRpcClient {
      * @return Returns true for success.
      */
     public Boolean uninstallFilter(BigInteger filterId) {
-        return rpc.eth_uninstallFilter(filterId);
+        return execute(uninstallFilterRequest(filterId));
+    }
+
+    /**
+     * Request to remove ethereum filter from ethereum client.
+     *
+     * @param filterId
+     *            Filter to be removed.
+     * @return Returns request for the success flag.
+     */
+    public static EthRpcRequest<Boolean> uninstallFilterRequest(BigInteger filterId) {
+        return EthRpcRequest.of(rpc -> rpc.eth_uninstallFilter("0x" + filterId.toString(16)));
     }
 
     /**
@@ -361,8 +804,7 @@ public class EthRpcClient {
      * @return Retuns the filter log object.
      */
     public List<FilterLogObject> getFilterChanges(String filterId) {
-        return rpc
-                .eth_getFilterChanges(filterId);
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_getFilterChanges(filterId)));
     }
 
     /**
@@ -373,7 +815,19 @@ public class EthRpcClient {
      * @return Returns a filter log object.
      */
     public List<FilterLogObject> getFilterChanges(BigInteger filterId) {
-        return rpc.eth_getFilterChanges("0x" + filterId.toString(16));
+        return execute(getFilterChangesRequest(filterId));
+    }
+
+    /**
+     * Request for ethereum filter changes.
+     *
+     * @param filterId
+     *            id to fetch changes of.
+     * @return Returns request for the filter log objects.
+     */
+    public static EthRpcRequest<List<FilterLogObject>> getFilterChangesRequest(
+            BigInteger filterId) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getFilterChanges("0x" + filterId.toString(16)));
     }
 
     /**
@@ -384,7 +838,7 @@ public class EthRpcClient {
      * @return Returns a filter log object
      */
     public List<String> getPendingTransactionFilterChanges(String filterId) {
-        return rpc.eth_getFilterChangesTransactions(filterId);
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_getFilterChangesTransactions(filterId)));
     }
 
     /**
@@ -395,7 +849,20 @@ public class EthRpcClient {
      * @return a filter log object
      */
     public List<String> getPendingTransactionFilterChanges(BigInteger filterId) {
-        return rpc.eth_getFilterChangesTransactions("0x" + filterId.toString(16));
+        return execute(getPendingTransactionFilterChangesRequest(filterId));
+    }
+
+    /**
+     * Request for pending transaction filter changes.
+     *
+     * @param filterId
+     *            id to fetch changes of
+     * @return Returns request for the transaction hashes.
+     */
+    public static EthRpcRequest<List<String>> getPendingTransactionFilterChangesRequest(
+            BigInteger filterId) {
+        return EthRpcRequest.of(rpc -> rpc
+                .eth_getFilterChangesTransactions("0x" + filterId.toString(16)));
     }
 
     /**
@@ -406,8 +873,7 @@ public class EthRpcClient {
      * @return Retuns the filter log object.
      */
     public List<FilterLogObject> getFilterLogs(String filterId) {
-        return rpc
-                .eth_getFilterLogs(filterId);
+        return execute(EthRpcRequest.of(rpc -> rpc.eth_getFilterLogs(filterId)));
     }
 
     /**
@@ -418,6 +884,93 @@ public class EthRpcClient {
      * @return Returns a filter log object.
      */
     public List<FilterLogObject> getFilterLogs(BigInteger filterId) {
-        return rpc.eth_getFilterLogs("0x" + filterId.toString(16));
+        return execute(getFilterLogsRequest(filterId));
+    }
+
+    /**
+     * Request for all logs of an ethereum filter.
+     *
+     * @param filterId
+     *            id to fetch logs of.
+     * @return Returns request for the filter log objects.
+     */
+    public static EthRpcRequest<List<FilterLogObject>> getFilterLogsRequest(BigInteger filterId) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getFilterLogs("0x" + filterId.toString(16)));
+    }
+
+    /**
+     * Get logs matching a filter request directly, without installing a filter on the ethereum
+     * client.
+     *
+     * @param filterLogRequest
+     *            Block range, address and topics to match.
+     * @return Returns the matching filter log objects.
+     */
+    public List<FilterLogObject> getLogs(FilterLogRequest filterLogRequest) {
+        return execute(getLogsRequest(filterLogRequest));
+    }
+
+    /**
+     * Request for logs matching a filter request, without installing a filter.
+     *
+     * @param filterLogRequest
+     *            Block range, address and topics to match.
+     * @return Returns request for the matching filter log objects.
+     */
+    public static EthRpcRequest<List<FilterLogObject>> getLogsRequest(
+            FilterLogRequest filterLogRequest) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getLogs(filterLogRequest));
+    }
+
+    /**
+     * Request for logs matching a query over several addresses, without installing a filter.
+     *
+     * @param query
+     *            Block range, addresses and topics to match.
+     * @return Returns request for the matching filter log objects.
+     */
+    public static EthRpcRequest<List<FilterLogObject>> getLogsRequest(FilterLogQuery query) {
+        return EthRpcRequest.of(rpc -> rpc.eth_getLogs(query));
+    }
+
+    /**
+     * Stream logs matching a filter request, without installing a filter. The response is
+     * parsed while it is read, each log is handed to the consumer as soon as it is decoded, so
+     * memory is bounded by one log instead of the whole response.
+     *
+     * @param filterLogRequest
+     *            Block range, address and topics to match.
+     * @param consumer
+     *            called with each log, in order, on the calling thread.
+     * @return Returns number of logs consumed.
+     * @throws JsonRpcClientException
+     *             In case of rpc errors.
+     * @throws HttpException
+     *             In case of connection errors.
+     */
+    public int streamLogs(FilterLogRequest filterLogRequest,
+            Consumer<? super FilterLogObject> consumer) throws JsonRpcClientException {
+        return rpcClient.invokeStreaming(getLogsRequest(filterLogRequest), FilterLogObject.class,
+                consumer);
+    }
+
+    /**
+     * Stream all logs of an ethereum filter, same as {@link #streamLogs(FilterLogRequest,
+     * Consumer)}.
+     *
+     * @param filterId
+     *            id to fetch logs of.
+     * @param consumer
+     *            called with each log, in order, on the calling thread.
+     * @return Returns number of logs consumed.
+     * @throws JsonRpcClientException
+     *             In case of rpc errors.
+     * @throws HttpException
+     *             In case of connection errors.
+     */
+    public int streamFilterLogs(BigInteger filterId, Consumer<? super FilterLogObject> consumer)
+            throws JsonRpcClientException {
+        return rpcClient.invokeStreaming(getFilterLogsRequest(filterId), FilterLogObject.class,
+                consumer);
     }
 }
@@ -1,11 +1,11 @@
 package com.cegeka.tetherj;
 
-import java.math.BigInteger;
 import java.util.List;
 
 import com.cegeka.tetherj.pojo.Block;
 import com.cegeka.tetherj.pojo.CompileOutput;
 import com.cegeka.tetherj.pojo.FilterLogObject;
+import com.cegeka.tetherj.pojo.FilterLogQuery;
 import com.cegeka.tetherj.pojo.FilterLogRequest;
 import com.cegeka.tetherj.pojo.Transaction;
 import com.cegeka.tetherj.pojo.TransactionCall;
@@ -48,7 +48,7 @@ public interface EthRpcInterface {
 
     String eth_newPendingTransactionFilter();
 
-    Boolean eth_uninstallFilter(BigInteger filterId);
+    Boolean eth_uninstallFilter(String filterId);
 
     List<FilterLogObject> eth_getFilterChanges(String filterId);
 
@@ -57,6 +57,10 @@ public interface EthRpcInterface {
 
     List<FilterLogObject> eth_getFilterLogs(String filterId);
 
+    List<FilterLogObject> eth_getLogs(FilterLogRequest request);
+
+    List<FilterLogObject> eth_getLogs(FilterLogQuery query);
+
     /**
      * Experimental, remote unlocking.
      */
@@ -0,0 +1,164 @@
+package com.cegeka.tetherj;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.jsonrpc4j.JsonRpcMethod;
+
+/**
+ * Describes a single json rpc request (method, params and expected result type), detached from
+ * the client that executes it. Requests are described by invoking a method of
+ * {@link EthRpcInterface}, so they stay in sync with the rpc interface definition.
+ *
+ * <p>Example: {@code EthRpcRequest.of(rpc -> rpc.eth_getBalance(address, "latest"))}
+ *
+ * @author Andrei Grigoriu
+ *
+ * @param <T>
+ *            type of the converted result.
+ */
+public class EthRpcRequest<T> {
+
+    private final String method;
+    private final Object[] params;
+    private final Type resultType;
+    private final Function<Object, T> converter;
+
+    private EthRpcRequest(String method, Object[] params, Type resultType,
+            Function<Object, T> converter) {
+        this.method = method;
+        this.params = params;
+        this.resultType = resultType;
+        this.converter = converter;
+    }
+
+    /**
+     * Describe a request by invoking a method of the rpc interface. The invocation is only
+     * recorded, nothing is sent.
+     *
+     * @param invocation
+     *            Invokes exactly one method of the rpc interface.
+     * @return Returns the request description.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EthRpcRequest<T> of(Function<EthRpcInterface, T> invocation) {
+        Recorder recorder = new Recorder();
+        EthRpcInterface proxy = (EthRpcInterface) Proxy.newProxyInstance(
+                EthRpcInterface.class.getClassLoader(), new Class<?>[] { EthRpcInterface.class },
+                recorder);
+        invocation.apply(proxy);
+
+        if (recorder.method == null) {
+            throw new IllegalArgumentException("No rpc method was invoked");
+        }
+
+        JsonRpcMethod annotation = recorder.method.getAnnotation(JsonRpcMethod.class);
+        String name = annotation != null ? annotation.value() : recorder.method.getName();
+        Object[] params = recorder.args != null ? recorder.args : new Object[0];
+
+        Function<Object, T> cast = result -> (T) result;
+        return new EthRpcRequest<>(name, params, recorder.method.getGenericReturnType(), cast);
+    }
+
+    /**
+     * Create a request with the same rpc call that converts the result further.
+     *
+     * @param mapper
+     *            Conversion to apply on the result.
+     * @return Returns the new request.
+     */
+    public <U> EthRpcRequest<U> map(Function<? super T, ? extends U> mapper) {
+        Function<Object, U> mapped = result -> mapper.apply(converter.apply(result));
+        return new EthRpcRequest<>(method, params, resultType, mapped);
+    }
+
+    /**
+     * @return Returns the json rpc method name.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return Returns the json rpc params.
+     */
+    public Object[] getParams() {
+        return params;
+    }
+
+    /**
+     * @return Returns the type the raw json result is deserialized to.
+     */
+    public Type getResultType() {
+        return resultType;
+    }
+
+    /**
+     * Convert a deserialized raw result into the final result.
+     *
+     * @param result
+     *            Deserialized raw result.
+     * @return Returns the converted result.
+     */
+    public T convert(Object result) {
+        return converter.apply(result);
+    }
+
+    /**
+     * @return Returns the same rpc call without conversion, resulting in the deserialized raw
+     *         result.
+     */
+    EthRpcRequest<Object> raw() {
+        return new EthRpcRequest<>(method, params, resultType, Function.identity());
+    }
+
+    /**
+     * Key identifying identical rpc calls: same method, params and result type.
+     *
+     * @param mapper
+     *            to serialize the params with.
+     * @return Returns the key, null if the params cannot be serialized.
+     */
+    String key(ObjectMapper mapper) {
+        try {
+            return method + mapper.writeValueAsString(params) + resultType.getTypeName();
+        } catch (JsonProcessingException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EthRpcRequest [method=" + method + ", params=" + Arrays.toString(params) + "]";
+    }
+
+    /**
+     * Records the invoked rpc interface method.
+     */
+    private static class Recorder implements InvocationHandler {
+        private Method method;
+        private Object[] args;
+
+        @Override
+        public Object invoke(Object proxy, Method invoked, Object[] invokedArgs) {
+            if (invoked.getDeclaringClass() == Object.class) {
+                throw new UnsupportedOperationException(invoked.getName());
+            }
+
+            method = invoked;
+            args = invokedArgs;
+
+            if (invoked.getReturnType() == boolean.class) {
+                return false;
+            }
+
+            return null;
+        }
+    }
+}
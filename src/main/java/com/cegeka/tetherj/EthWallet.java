@@ -3,6 +3,7 @@ package com.cegeka.tetherj;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,6 +13,7 @@ import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
 import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.cegeka.tetherj.crypto.WalletKeyCache;
 import com.cegeka.tetherj.crypto.WalletStoragePojoV3;
 
 import lombok.Getter;
@@ -125,8 +127,23 @@ public class EthWallet implements Serializable {
      * @return Returns true if succeeded.
      */
     public boolean unlock(String passphrase) {
+        return unlock(passphrase, null);
+    }
+
+    /**
+     * Decrypt private key and store it in memory, skipping the key derivation if the cache holds
+     * the key derived from the passphrase for this keystore.
+     * 
+     * @param passphrase
+     *            Passphrase to decrypt with.
+     * @param cache
+     *            Derived keys to look in and add to, null to always derive.
+     * @return Returns true if succeeded.
+     */
+    public boolean unlock(String passphrase, WalletKeyCache cache) {
         if (storage.getCrypto() != null) {
-            privateKey = storage.getPrivateKey(passphrase);
+            privateKey = cache != null ? cache.getPrivateKey(storage, passphrase)
+                : storage.getPrivateKey(passphrase);
             if (privateKey == null) {
                 logger.debug("Failed to unlock wallet " + storage.toString());
                 return false;
@@ -160,7 +177,10 @@ public class EthWallet implements Serializable {
      */
     public void lock() {
         logger.debug("Locked wallet " + storage.toString());
-        storage = null;
+        if (privateKey != null) {
+            Arrays.fill(privateKey, (byte) 0);
+            privateKey = null;
+        }
     }
 
     /**
@@ -0,0 +1,183 @@
+package com.cegeka.tetherj;
+
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.googlecode.jsonrpc4j.HttpException;
+
+/**
+ * Single flight coalescing of identical in flight reads. While a read request is in flight, an
+ * identical one (same method, params and result type) does not become another rpc: it waits for
+ * the one in flight and gets the same raw result or error. Each caller then applies its own
+ * conversion, converted results that are not newly created objects (pojos, arrays) are shared
+ * between the callers.
+ *
+ * <p>Only idempotent read methods are coalesced, see {@link #DEFAULT_COALESCED_METHODS}.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class RequestCoalescer {
+
+    /**
+     * Read methods coalesced by default. Filter changes are not idempotent, polling consumes
+     * them, so they are never coalesced.
+     */
+    public static final Set<String> DEFAULT_COALESCED_METHODS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("eth_blockNumber", "eth_getBalance", "eth_call",
+                    "eth_getTransactionReceipt", "eth_getTransactionByHash",
+                    "eth_getBlockByNumber", "eth_getTransactionCount", "eth_accounts",
+                    "eth_coinbase", "eth_getLogs")));
+
+    private final Set<String> methods;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param methods
+     *            to coalesce.
+     */
+    RequestCoalescer(Set<String> methods) {
+        this.methods = methods;
+    }
+
+    /**
+     * @return Returns true if the request is an idempotent read to coalesce.
+     */
+    boolean isCoalesced(EthRpcRequest<?> request) {
+        return methods.contains(request.getMethod());
+    }
+
+    /**
+     * Blocking execute a call, or wait for the identical call in flight.
+     *
+     * @param key
+     *            identifying the request, see {@link EthRpcRequest#key}.
+     * @param call
+     *            executing the request.
+     * @return Returns the raw result.
+     * @throws HttpException
+     *             If interrupted while waiting for the call in flight, with the interrupt flag
+     *             set.
+     * @throws Throwable
+     *             The error of the call.
+     */
+    Object execute(String key, RawCall call) throws Throwable {
+        requests.incrementAndGet();
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return existing.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new HttpException("Rpc request failed: Interrupted while waiting for the"
+                        + " identical request in flight", new InterruptedIOException());
+            } catch (ExecutionException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        try {
+            Object result = call.call();
+            inFlight.remove(key, flight);
+            flight.complete(result);
+            return result;
+        } catch (Throwable throwable) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(throwable);
+            throw throwable;
+        }
+    }
+
+    /**
+     * Execute a call without blocking, or share the identical call in flight.
+     *
+     * @param key
+     *            identifying the request, see {@link EthRpcRequest#key}.
+     * @param call
+     *            sending the request.
+     * @return Returns future for the raw result.
+     */
+    CompletableFuture<Object> executeAsync(String key, Supplier<CompletableFuture<Object>> call) {
+        requests.incrementAndGet();
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+
+        CompletableFuture<Object> sent;
+        try {
+            sent = call.get();
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(ex);
+            return flight;
+        }
+
+        sent.whenComplete((result, ex) -> {
+            inFlight.remove(key, flight);
+            if (ex != null) {
+                flight.completeExceptionally(ex);
+            } else {
+                flight.complete(result);
+            }
+        });
+        return flight;
+    }
+
+    /**
+     * @return Returns number of coalescable requests executed.
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return Returns number of requests that shared a request in flight instead of an rpc.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return Returns share of coalescable requests that shared a request in flight.
+     */
+    public double getHitRate() {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) coalesced.get() / total;
+    }
+
+    /**
+     * @return Returns number of distinct requests in flight.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Blocking rpc call.
+     */
+    @FunctionalInterface
+    interface RawCall {
+        Object call() throws Throwable;
+    }
+}
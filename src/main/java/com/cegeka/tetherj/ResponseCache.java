@@ -0,0 +1,274 @@
+package com.cegeka.tetherj;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.cegeka.tetherj.pojo.Block;
+import com.cegeka.tetherj.pojo.Transaction;
+import com.cegeka.tetherj.pojo.TransactionReceipt;
+
+/**
+ * Size bounded cache of rpc results that can no longer change, evicting the least recently used
+ * entry. A result is cached if it is immutable according to its method and block tag:
+ *
+ * <ul>
+ * <li>eth_getTransactionByHash and eth_getTransactionReceipt once mined (with a block number)
+ * <li>eth_getBlockByNumber, eth_call, eth_getBalance and eth_getTransactionCount for an explicit
+ * block number at least {@link #getConfirmations()} blocks below the latest block seen
+ * </ul>
+ *
+ * <p>Requests for "latest", "pending" or "earliest" are never cached. The latest block is learnt
+ * from the eth_blockNumber and eth_getBlockByNumber results passing through the client, until
+ * one was seen no block bound result is cached. Cached results are shared between callers and
+ * must not be modified.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class ResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * Blocks below the latest block after which a block is considered final.
+     */
+    public static final int DEFAULT_CONFIRMATIONS = 12;
+
+    private static final Set<String> MINED_RESULT_METHODS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("eth_getTransactionByHash",
+                    "eth_getTransactionReceipt")));
+
+    private static final Map<String, Integer> BLOCK_PARAM_INDEX = new HashMap<>();
+
+    static {
+        BLOCK_PARAM_INDEX.put("eth_getBlockByNumber", 0);
+        BLOCK_PARAM_INDEX.put("eth_call", 1);
+        BLOCK_PARAM_INDEX.put("eth_getBalance", 1);
+        BLOCK_PARAM_INDEX.put("eth_getTransactionCount", 1);
+    }
+
+    private final int maxEntries;
+    private final int confirmations;
+    private final Map<String, Object> entries;
+    private volatile BigInteger latestBlock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Cache with default size and confirmations.
+     */
+    public ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_CONFIRMATIONS);
+    }
+
+    /**
+     * Cache with custom size and confirmations.
+     *
+     * @param maxEntries
+     *            Max cached results, at least 1.
+     * @param confirmations
+     *            Blocks below the latest block after which a block is final.
+     */
+    public ResponseCache(int maxEntries, int confirmations) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be at least 1");
+        }
+
+        this.maxEntries = maxEntries;
+        this.confirmations = confirmations;
+        this.entries = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Check if a request may have a cached result, before computing its key.
+     *
+     * @param request
+     *            to check.
+     * @return Returns true if the result of the request is cached once immutable.
+     */
+    boolean isCacheable(EthRpcRequest<?> request) {
+        if (MINED_RESULT_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+
+        return blockParam(request) != null;
+    }
+
+    /**
+     * Get a cached result, counting a hit or a miss.
+     *
+     * @param key
+     *            of the request, see {@link EthRpcRequest#key}.
+     * @return Returns the cached raw result, null if none.
+     */
+    Object get(String key) {
+        Object result;
+        synchronized (entries) {
+            result = entries.get(key);
+        }
+
+        if (result != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Learn the latest block from a result and cache the result if it is immutable.
+     *
+     * @param request
+     *            executed.
+     * @param key
+     *            of the request, null if it is not cacheable.
+     * @param result
+     *            Raw result of the request.
+     */
+    void onResult(EthRpcRequest<?> request, String key, Object result) {
+        if ("eth_blockNumber".equals(request.getMethod()) && result instanceof String) {
+            observeBlock(CryptoUtil.hexToBigInteger((String) result));
+        } else if (result instanceof Block && ((Block) result).getNumber() != null) {
+            observeBlock(CryptoUtil.hexToBigInteger(((Block) result).getNumber()));
+        }
+
+        if (key != null && result != null && isImmutable(request, result)) {
+            synchronized (entries) {
+                entries.put(key, result);
+            }
+        }
+    }
+
+    private boolean isImmutable(EthRpcRequest<?> request, Object result) {
+        if (result instanceof Transaction) {
+            return ((Transaction) result).getBlockNumber() != null;
+        }
+        if (result instanceof TransactionReceipt) {
+            return ((TransactionReceipt) result).getBlockNumber() != null;
+        }
+
+        BigInteger block = blockParam(request);
+        BigInteger latest = latestBlock;
+        return block != null && latest != null
+                && block.add(BigInteger.valueOf(confirmations)).compareTo(latest) <= 0;
+    }
+
+    private synchronized void observeBlock(BigInteger block) {
+        if (latestBlock == null || block.compareTo(latestBlock) > 0) {
+            latestBlock = block;
+        }
+    }
+
+    /**
+     * @return Returns the explicit block number the request is bound to, null for a tag or if
+     *         the method is not block bound.
+     */
+    private static BigInteger blockParam(EthRpcRequest<?> request) {
+        Integer index = BLOCK_PARAM_INDEX.get(request.getMethod());
+        Object[] params = request.getParams();
+        if (index == null || params.length <= index || !(params[index] instanceof String)) {
+            return null;
+        }
+
+        String block = (String) params[index];
+        if (!block.startsWith("0x")) {
+            return null;
+        }
+
+        try {
+            return new BigInteger(block.substring(2), 16);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Drop all cached results, for example after switching to another chain.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        latestBlock = null;
+    }
+
+    /**
+     * @return Returns number of cached results.
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return Returns max cached results.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return Returns blocks below the latest block after which a block is final.
+     */
+    public int getConfirmations() {
+        return confirmations;
+    }
+
+    /**
+     * @return Returns the latest block seen, null if none yet.
+     */
+    public BigInteger getLatestBlock() {
+        return latestBlock;
+    }
+
+    /**
+     * @return Returns number of requests answered from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns number of cacheable requests not found in the cache.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns number of results evicted to bound the size.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return Returns share of cacheable requests answered from the cache.
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+}
@@ -0,0 +1,429 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcBatch;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.cegeka.tetherj.pojo.Block;
+import com.cegeka.tetherj.pojo.FilterLogObject;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event watch that delivers each event once it is a number of blocks deep, following the
+ * canonical chain across reorganizations. Every poll fetches the headers of the new blocks and
+ * their logs in one batch, logs are buffered per block hash and each header must link to the
+ * previous one by its parent hash. When it does not, the tracked blocks the node no longer has
+ * are dropped back to the common ancestor and the chain is followed again from there.
+ *
+ * <p>Events of an orphaned block that were not delivered yet are discarded. Events already
+ * delivered, for reorganizations deeper than the confirmations, are delivered again as
+ * retractions: copies with {@link FilterLogObject#isRemoved()} set, newest first, before the
+ * newly confirmed events of the same call.
+ *
+ * <p>A numeric to block ends the stream: blocks after it are only followed until it is confirmed,
+ * and once its events are delivered the watch is cancelled. Reorganizations after that are not
+ * retracted.
+ *
+ * @author Andrei Grigoriu
+ */
+public class ConfirmedEventStream {
+
+    /* delivered blocks kept to detect reorganizations of, beyond the unconfirmed ones */
+    public static final int REORG_HISTORY = 64;
+
+    /* headers fetched in one batch while catching up */
+    public static final int MAX_BLOCKS_PER_POLL = 100;
+
+    private static final Logger logger = LogManager.getLogger(ConfirmedEventStream.class);
+
+    private final EthRpcClient rpc;
+    private final ScheduledExecutorService executor;
+    private final FilterLogRequest request;
+    private final int confirmations;
+    /* last block watched, null if unbounded */
+    private final BigInteger lastBlock;
+    private final PollScheduler scheduler;
+    private final TetherjFilterWatch watch;
+
+    /* tracked canonical blocks, oldest first, only touched by the polling thread */
+    private final Deque<TrackedBlock> chain = new ArrayDeque<>();
+    private volatile BigInteger tipBlock;
+
+    private final AtomicLong reorgs = new AtomicLong();
+    private final AtomicLong retracted = new AtomicLong();
+
+    /**
+     * A canonical block with the events matching the request.
+     */
+    private static class TrackedBlock {
+        final BigInteger number;
+        final String hash;
+        final String parentHash;
+        final List<EthEvent> events;
+        boolean delivered;
+
+        TrackedBlock(Block block, List<EthEvent> events) {
+            this.number = CryptoUtil.hexToBigInteger(block.getNumber());
+            this.hash = block.getHash();
+            this.parentHash = block.getParentHash();
+            this.events = events;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rpc           client to query with
+     * @param executor      to poll on
+     * @param request       describing the events, a numeric from block resumes from there and
+     *                      a numeric to block ends the stream
+     * @param confirmations blocks mined on top of a block before its events are delivered
+     * @param pollMillis    interval between polls once at the chain head
+     * @param eventHandle   called with retractions and confirmed events, or the failure
+     */
+    public ConfirmedEventStream(EthRpcClient rpc, ScheduledExecutorService executor,
+        FilterLogRequest request, int confirmations, long pollMillis,
+        TetherjHandle<List<EthEvent>> eventHandle) {
+        this(rpc, executor, request, confirmations, PollScheduler.fixed(pollMillis), eventHandle);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rpc           client to query with
+     * @param executor      to poll on
+     * @param request       describing the events, a numeric from block resumes from there and
+     *                      a numeric to block ends the stream
+     * @param confirmations blocks mined on top of a block before its events are delivered
+     * @param scheduler     deciding the delay between polls once at the chain head
+     * @param eventHandle   called with retractions and confirmed events, or the failure
+     */
+    public ConfirmedEventStream(EthRpcClient rpc, ScheduledExecutorService executor,
+        FilterLogRequest request, int confirmations, PollScheduler scheduler,
+        TetherjHandle<List<EthEvent>> eventHandle) {
+        if (confirmations < 0) {
+            throw new IllegalArgumentException("Confirmations must not be negative");
+        }
+
+        this.rpc = rpc;
+        this.executor = executor;
+        this.request = request;
+        this.confirmations = confirmations;
+        this.lastBlock = lastBlock(request.getToBlock());
+        this.scheduler = scheduler;
+        this.watch = new TetherjFilterWatch(eventHandle);
+    }
+
+    /**
+     * Fetch the block before the first one watched, blocking, and start polling.
+     *
+     * @return watch, cancel it to stop
+     */
+    public TetherjFilterWatch start() {
+        BigInteger anchor = anchorBlock(request.getFromBlock());
+        Block block = rpc.execute(EthRpcClient.getBlockByNumberRequest(anchor));
+        if (block == null) {
+            throw new IllegalArgumentException("No block " + anchor + " to start from");
+        }
+
+        TrackedBlock tracked = new TrackedBlock(block, new ArrayList<>());
+        tracked.delivered = true;
+        chain.add(tracked);
+        tipBlock = tracked.number;
+        schedule(scheduler.delayMillis());
+        return watch;
+    }
+
+    private BigInteger anchorBlock(String fromBlock) {
+        if (fromBlock == null || "latest".equals(fromBlock) || "pending".equals(fromBlock)) {
+            return rpc.getLatestBlockNumber();
+        }
+        if ("earliest".equals(fromBlock)) {
+            return BigInteger.ZERO;
+        }
+        return CryptoUtil.hexToBigInteger(fromBlock).subtract(BigInteger.ONE).max(BigInteger.ZERO);
+    }
+
+    private static BigInteger lastBlock(String toBlock) {
+        if (toBlock == null || "latest".equals(toBlock) || "pending".equals(toBlock)) {
+            return null;
+        }
+        return "earliest".equals(toBlock) ? BigInteger.ZERO : CryptoUtil.hexToBigInteger(toBlock);
+    }
+
+    /**
+     * Check if the events up to the last block watched are all delivered.
+     */
+    private boolean finished() {
+        return lastBlock != null && chain.getLast().number.compareTo(lastBlock.add(BigInteger
+            .valueOf(confirmations))) >= 0;
+    }
+
+    private void schedule(long delayMillis) {
+        try {
+            executor.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Executor rejected confirmed event poll", ex);
+        }
+    }
+
+    private void poll() {
+        if (watch.getIsCancelled().get()) {
+            return;
+        }
+
+        boolean behind = false;
+        List<EthEvent> events = new ArrayList<>();
+        try {
+            behind = advance(events);
+        } catch (RuntimeException ex) {
+            call(EthereumService.failureResponse(ex));
+        }
+        tipBlock = chain.getLast().number;
+
+        if (!events.isEmpty() && !watch.getIsCancelled().get()) {
+            call(TetherjResponse.success(events));
+        }
+        if (finished()) {
+            watch.cancel();
+            return;
+        }
+        schedule(behind ? 0 : scheduler.delayMillis());
+    }
+
+    /**
+     * Follow the chain one step: unwind a reorganization, or track the next blocks and deliver
+     * the events that became confirmed.
+     *
+     * @param events to add retractions and confirmed events to
+     * @return true if blocks are left before the chain head
+     */
+    private boolean advance(List<EthEvent> events) {
+        BigInteger latest = rpc.getLatestBlockNumber();
+        scheduler.observe(latest);
+        TrackedBlock tip = chain.getLast();
+        if (latest.compareTo(tip.number) < 0) {
+            /* the node is on a shorter fork, the tip itself may be orphaned */
+            unwind(events);
+            return true;
+        }
+        if (latest.equals(tip.number)) {
+            return false;
+        }
+
+        BigInteger next = tip.number.add(BigInteger.ONE);
+        BigInteger toBlock = latest.min(next.add(BigInteger.valueOf(MAX_BLOCKS_PER_POLL - 1)));
+        BigInteger logsToBlock = toBlock;
+        if (lastBlock != null) {
+            /* past the last block only the headers confirming it */
+            toBlock = toBlock.min(lastBlock.add(BigInteger.valueOf(confirmations)));
+            logsToBlock = toBlock.min(lastBlock);
+        }
+
+        EthRpcBatch batch = rpc.newBatch();
+        List<CompletableFuture<Block>> headers = new ArrayList<>();
+        for (BigInteger number = next; number.compareTo(toBlock) <= 0;
+            number = number.add(BigInteger.ONE)) {
+            headers.add(batch.add(EthRpcClient.getBlockByNumberRequest(number)));
+        }
+        CompletableFuture<List<FilterLogObject>> logs = null;
+        if (logsToBlock.compareTo(next) >= 0) {
+            FilterLogRequest range = new FilterLogRequest();
+            range.setAddress(request.getAddress());
+            range.setTopics(request.getTopics());
+            range.setFromBlock(next);
+            range.setToBlock(logsToBlock);
+            logs = batch.add(EthRpcClient.getLogsRequest(range));
+        }
+        batch.execute();
+
+        Map<String, List<EthEvent>> eventsByBlock = new HashMap<>();
+        List<FilterLogObject> found = logs != null ? EthRpcBatch.getResult(logs) : null;
+        if (found != null) {
+            for (FilterLogObject log : found) {
+                if (!log.isRemoved()) {
+                    eventsByBlock.computeIfAbsent(log.getBlockHash(), hash -> new ArrayList<>())
+                        .add(EthereumService.toEvent(request, log));
+                }
+            }
+        }
+
+        String parentHash = tip.hash;
+        int matched = 0;
+        for (CompletableFuture<Block> header : headers) {
+            Block block = EthRpcBatch.getResult(header);
+            if (block == null || !parentHash.equals(block.getParentHash())) {
+                break;
+            }
+            List<EthEvent> blockEvents = eventsByBlock.remove(block.getHash());
+            chain.add(new TrackedBlock(block, blockEvents != null ? blockEvents
+                : new ArrayList<>()));
+            parentHash = block.getHash();
+            matched++;
+        }
+
+        if (matched == 0) {
+            /* the first new block does not link to the tip, the tip was orphaned */
+            unwind(events);
+            return true;
+        }
+        if (!eventsByBlock.isEmpty()) {
+            /* logs of blocks the headers do not know, the chain moved between the calls */
+            dropUndelivered(matched);
+            return true;
+        }
+
+        confirm(events);
+        trim();
+        return matched < headers.size() || toBlock.compareTo(latest) < 0;
+    }
+
+    /**
+     * Drop tracked blocks from the tip until one is still canonical, retracting the delivered
+     * events of the dropped ones.
+     */
+    private void unwind(List<EthEvent> events) {
+        reorgs.incrementAndGet();
+        while (chain.size() > 1) {
+            TrackedBlock tip = chain.getLast();
+            Block canonical = rpc.execute(EthRpcClient.getBlockByNumberRequest(tip.number));
+            if (canonical != null && tip.hash.equals(canonical.getHash())) {
+                return;
+            }
+
+            chain.removeLast();
+            if (tip.delivered) {
+                for (int i = tip.events.size() - 1; i >= 0; i--) {
+                    events.add(retraction(tip.events.get(i)));
+                }
+                retracted.addAndGet(tip.events.size());
+            }
+        }
+
+        TrackedBlock oldest = chain.getLast();
+        Block canonical = rpc.execute(EthRpcClient.getBlockByNumberRequest(oldest.number));
+        if (canonical != null && !oldest.hash.equals(canonical.getHash())) {
+            /* deeper than the history, continue on the new chain from the same height */
+            logger.warn("Reorganization deeper than " + REORG_HISTORY
+                + " delivered blocks, events of block " + oldest.number + " may be stale");
+            chain.removeLast();
+            TrackedBlock anchor = new TrackedBlock(canonical, new ArrayList<>());
+            anchor.delivered = true;
+            chain.add(anchor);
+        }
+    }
+
+    private void dropUndelivered(int count) {
+        for (int i = 0; i < count; i++) {
+            chain.removeLast();
+        }
+    }
+
+    private void confirm(List<EthEvent> events) {
+        BigInteger confirmedBlock = chain.getLast().number.subtract(BigInteger.valueOf(
+            confirmations));
+        for (TrackedBlock block : chain) {
+            if (block.number.compareTo(confirmedBlock) > 0) {
+                break;
+            }
+            if (!block.delivered) {
+                block.delivered = true;
+                events.addAll(block.events);
+            }
+        }
+    }
+
+    /**
+     * Forget the oldest delivered blocks beyond the history.
+     */
+    private void trim() {
+        int keep = confirmations + REORG_HISTORY;
+        Iterator<TrackedBlock> iterator = chain.iterator();
+        while (chain.size() > keep && iterator.hasNext()) {
+            if (!iterator.next().delivered) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static EthEvent retraction(EthEvent event) {
+        FilterLogObject log = event.getFilterLogObject();
+        FilterLogObject removed = new FilterLogObject();
+        removed.setType(log.getType());
+        removed.setLogIndex(log.getLogIndex());
+        removed.setTransactionIndex(log.getTransactionIndex());
+        removed.setTransactionHash(log.getTransactionHash());
+        removed.setBlockHash(log.getBlockHash());
+        removed.setBlockNumber(log.getBlockNumber());
+        removed.setAddress(log.getAddress());
+        removed.setData(log.getData());
+        removed.setTopics(log.getTopics());
+        removed.setRemoved(true);
+
+        EthEvent retraction = new EthEvent();
+        retraction.setData(event.getData());
+        retraction.setFilterLogObject(removed);
+        return retraction;
+    }
+
+    private void call(TetherjResponse<List<EthEvent>> response) {
+        try {
+            watch.getWatchHandle().call(response);
+        } catch (RuntimeException ex) {
+            logger.error("Confirmed event handle failed", ex);
+        }
+    }
+
+    /**
+     * Get the reorganizations unwound so far.
+     *
+     * @return times the tracked tip was found orphaned
+     */
+    public long getReorgs() {
+        return reorgs.get();
+    }
+
+    /**
+     * Get the delivered events retracted so far.
+     *
+     * @return events delivered again as removed
+     */
+    public long getRetracted() {
+        return retracted.get();
+    }
+
+    /**
+     * Get the tracked block the stream continues from.
+     *
+     * @return number of the last canonical block fetched
+     */
+    public BigInteger getTipBlock() {
+        return tipBlock;
+    }
+
+    /**
+     * Get the watch of the stream.
+     *
+     * @return watch, cancel it to stop
+     */
+    public TetherjFilterWatch getWatch() {
+        return watch;
+    }
+}
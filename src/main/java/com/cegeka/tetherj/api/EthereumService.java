@@ -3,6 +3,7 @@ package com.cegeka.tetherj.api;
 import com.cegeka.tetherj.EthCall;
 import com.cegeka.tetherj.EthEvent;
 import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthRpcRequest;
 import com.cegeka.tetherj.EthSignedTransaction;
 import com.cegeka.tetherj.EthTransaction;
 import com.cegeka.tetherj.EthWallet;
@@ -17,6 +18,7 @@ import com.googlecode.jsonrpc4j.HttpException;
 import com.googlecode.jsonrpc4j.JsonRpcClientException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.ethereum.crypto.HashUtil;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -24,17 +26,34 @@ import java.lang.reflect.UndeclaredThrowableException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * Implementation for an Ethereum service api.
  *
+ * <p>Async and future calls run on the executor, unless the rpc client uses a non blocking
+ * transport (see {@link com.cegeka.tetherj.transport.NioHttpTransport}): then no thread waits
+ * for the ethereum client and handles are called from the transport I/O thread, so they must not
+ * call blocking methods of this service.
+ *
+ * <p>The {@code ...Async} variants return a {@link CompletionStage} completed on that same path,
+ * the transport I/O thread or the executor thread that ran the rpc, so operations chain without
+ * blocking a thread, for example sign, send, await the receipt and decode the logs. A failed
+ * operation completes the stage normally with a failure response, chain on success with
+ * {@link TetherjResponse#compose} and {@link TetherjResponse#map}.
+ *
  * @author Andrei Grigoriu
  */
 public class EthereumService {
@@ -59,17 +78,26 @@ public class EthereumService {
     }
 
     /**
-     * Interval between receipt check polls.
+     * Nominal interval between receipt check polls, the actual polls follow the block cadence
+     * learned by the service's {@link PollScheduler}.
      */
     public static final int RECEIPT_CHECK_INTERVAL_MILLIS = 1000;
 
     /**
-     * Max receipt checks to do.
+     * Max receipt checks to do, the default listen timeout is this many check intervals.
      */
     public static final int RECEIPT_MAX_CHECKS = 60 * 1000 * 10 / RECEIPT_CHECK_INTERVAL_MILLIS;
 
     private final EthRpcClient rpc;
     private final ScheduledExecutorService executor;
+    private final TxReceiptTracker receiptTracker;
+    private final EventRangeScanner eventScanner;
+    private final FilterMultiplexer filterMultiplexer;
+    private final PollScheduler pollScheduler = new PollScheduler();
+    private final NonceManager nonceManager;
+    /* nonces held by signed transactions handed to the caller, by hash of the signed data */
+    private final Map<String, AllocatedNonce> allocatedSigned = new ConcurrentHashMap<>();
+    private final TransactionPipeline transactionPipeline;
 
     private static final Logger logger = LogManager.getLogger(EthereumService.class);
 
@@ -98,6 +126,17 @@ public class EthereumService {
      * @param port            of the ethereum client
      */
     public EthereumService(int executorThreads, String rpcHostname, int port) {
+        this(executorThreads, new EthRpcClient(rpcHostname, port));
+    }
+
+    /**
+     * Creates custom number of threads and uses a custom rpc client (for example on a pooled
+     * transport).
+     *
+     * @param executorThreads to spawn, 0 to disable async support
+     * @param rpc             client for the ethereum client
+     */
+    public EthereumService(int executorThreads, EthRpcClient rpc) {
 
         if (executorThreads > 0) {
             ScheduledExecutorService executor = Executors.newScheduledThreadPool(executorThreads,
@@ -120,7 +159,13 @@ public class EthereumService {
             logger.info("Created ethereum service with no async support!");
         }
 
-        rpc = new EthRpcClient(rpcHostname, port);
+        this.rpc = rpc;
+        this.nonceManager = new NonceManager(rpc);
+        this.receiptTracker = createReceiptTracker();
+        this.transactionPipeline = createTransactionPipeline(ForkJoinPool.commonPool(),
+            TransactionPipeline.DEFAULT_BATCH_SIZE);
+        this.eventScanner = new EventRangeScanner(rpc, executor);
+        this.filterMultiplexer = new FilterMultiplexer(rpc, executor, pollScheduler);
         logger.info("Created ethereum service");
     }
 
@@ -153,8 +198,25 @@ public class EthereumService {
      * @param port        ethereum client port
      */
     public EthereumService(ScheduledExecutorService executor, String rpcHostname, int port) {
+        this(executor, new EthRpcClient(rpcHostname, port));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor to use for async and future calls, also for polling, null to disable
+     *                 async support
+     * @param rpc      client for the ethereum client
+     */
+    public EthereumService(ScheduledExecutorService executor, EthRpcClient rpc) {
         this.executor = executor;
-        rpc = new EthRpcClient(rpcHostname, port);
+        this.rpc = rpc;
+        this.nonceManager = new NonceManager(rpc);
+        this.receiptTracker = createReceiptTracker();
+        this.transactionPipeline = createTransactionPipeline(ForkJoinPool.commonPool(),
+            TransactionPipeline.DEFAULT_BATCH_SIZE);
+        this.eventScanner = new EventRangeScanner(rpc, executor);
+        this.filterMultiplexer = new FilterMultiplexer(rpc, executor, pollScheduler);
 
         if (this.executor != null) {
             logger.info("Created ethereum service with async support on custom executor!");
@@ -163,6 +225,14 @@ public class EthereumService {
         }
     }
 
+    private TxReceiptTracker createReceiptTracker() {
+        if (executor == null) {
+            return null;
+        }
+
+        return new TxReceiptTracker(rpc, executor, pollScheduler);
+    }
+
     /**
      * Call this when you don't know what to do with ex.
      *
@@ -220,24 +290,48 @@ public class EthereumService {
      * @return response
      */
     private <T> TetherjResponse<T> performBlockingRpcAction(RpcAction<T> rpcAction) {
-        ErrorType err = null;
-        Exception ex = null;
-        T rpcResponse = null;
-
         try {
-            rpcResponse = rpcAction.call();
-        } catch (JsonRpcClientException rpcException) {
-            err = ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR;
-            ex = rpcException;
-        } catch (UndeclaredThrowableException | HttpException httpException) {
-            err = ErrorType.BLOCKCHAIN_CLIENT_BAD_CONNECTION;
-            ex = httpException;
-        } catch (Exception generalException) {
-            err = ErrorType.UNKNOWN_ERROR;
-            ex = generalException;
+            return TetherjResponse.success(rpcAction.call());
+        } catch (Exception ex) {
+            return failureResponse(ex);
+        }
+    }
+
+    /**
+     * Blocking execute of rpc request. Wraps errors into a tetherj response.
+     *
+     * @param request to execute
+     * @return response
+     */
+    private <T> TetherjResponse<T> performBlockingRpcAction(EthRpcRequest<T> request) {
+        return performBlockingRpcAction(() -> rpc.execute(request));
+    }
+
+    /**
+     * Wrap an rpc error into a tetherj response.
+     *
+     * @param throwable thrown by the rpc client, possibly wrapped by a future
+     * @return failure response
+     */
+    static <T> TetherjResponse<T> failureResponse(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof JsonRpcClientException) {
+            return new TetherjResponse<>(ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR,
+                (Exception) cause);
+        } else if (cause instanceof UndeclaredThrowableException
+            || cause instanceof HttpException) {
+            return new TetherjResponse<>(ErrorType.BLOCKCHAIN_CLIENT_BAD_CONNECTION,
+                (Exception) cause);
+        } else if (cause instanceof Exception) {
+            return new TetherjResponse<>(ErrorType.UNKNOWN_ERROR, (Exception) cause);
         }
 
-        return new TetherjResponse<>(err, ex, rpcResponse);
+        return new TetherjResponse<>(ErrorType.UNKNOWN_ERROR, new ExecutionException(cause));
     }
 
     /**
@@ -261,6 +355,28 @@ public class EthereumService {
         }
     }
 
+    /**
+     * Async execute of rpc request. Runs callable handle when done, from the transport I/O
+     * thread if the rpc client is non blocking.
+     *
+     * @param request  to execute
+     * @param callable to execute after the request ends
+     */
+    private <T> void performAsyncRpcAction(EthRpcRequest<T> request, TetherjHandle<T> callable) {
+        if (!rpc.isAsync()) {
+            performAsyncRpcAction(() -> rpc.execute(request), callable);
+            return;
+        }
+
+        rpc.executeAsync(request).whenComplete((value, ex) -> {
+            try {
+                callable.call(ex == null ? TetherjResponse.success(value) : failureResponse(ex));
+            } catch (Throwable throwable) {
+                handleUnknownThrowables(throwable);
+            }
+        });
+    }
+
     private boolean executorAsync(Runnable runnable) {
         if (executor != null && !executor.isShutdown()) {
             synchronized (executor) {
@@ -277,41 +393,43 @@ public class EthereumService {
         return false;
     }
 
-    private boolean executorAsyncTimed(Runnable runnable, long millis) {
+    /**
+     * Async execute of rpc action. Returns a future completed by the executor thread running
+     * the action, or already completed if no executor is available.
+     *
+     * @param rpcAction to execute
+     */
+    private <T> CompletableFuture<TetherjResponse<T>> performFutureRpcAction(
+        RpcAction<T> rpcAction) {
         if (executor != null && !executor.isShutdown()) {
             synchronized (executor) {
                 try {
-                    executor.schedule(runnable, millis, TimeUnit.MILLISECONDS);
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    return false;
+                    return CompletableFuture.supplyAsync(() -> performBlockingRpcAction(rpcAction),
+                        executor);
+                } catch (RejectedExecutionException ex) {
+                    logger.warn("Executor rejected rpc action, executing it blocking", ex);
                 }
             }
-
-            return true;
         }
 
-        return false;
+        return CompletableFuture.completedFuture(performBlockingRpcAction(rpcAction));
     }
 
     /**
-     * Async execute of rpc action. Returns a future to get when operation ends.
+     * Async execute of rpc request. Returns a future completed when the request ends, from the
+     * transport I/O thread if the rpc client is non blocking, so dependent stages run without a
+     * thread hop.
      *
-     * @param rpcAction to execute
+     * @param request to execute
      */
-    private <T> Future<TetherjResponse<T>> performFutureRpcAction(RpcAction<T> rpcAction) {
-        if (executor != null && !executor.isShutdown()) {
-            synchronized (executor) {
-                try {
-                    return executor.submit(() -> performBlockingRpcAction(rpcAction));
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    return null;
-                }
-            }
-        } else {
-            return CompletableFuture.completedFuture(performBlockingRpcAction(rpcAction));
+    private <T> CompletableFuture<TetherjResponse<T>> performFutureRpcAction(
+        EthRpcRequest<T> request) {
+        if (!rpc.isAsync()) {
+            return performFutureRpcAction(() -> rpc.execute(request));
         }
+
+        return rpc.executeAsync(request).handle((value, ex) -> ex == null
+            ? TetherjResponse.success(value) : failureResponse(ex));
     }
 
     /**
@@ -320,7 +438,7 @@ public class EthereumService {
      * @param callable to call after the accounts are fetched
      */
     public void getAccounts(TetherjHandle<String[]> callable) {
-        performAsyncRpcAction(rpc::getAccounts, callable);
+        performAsyncRpcAction(EthRpcClient.getAccountsRequest(), callable);
     }
 
     /**
@@ -329,7 +447,7 @@ public class EthereumService {
      * @return rpc accounts response
      */
     public TetherjResponse<String[]> getAccounts() {
-        return performBlockingRpcAction(rpc::getAccounts);
+        return performBlockingRpcAction(EthRpcClient.getAccountsRequest());
     }
 
     /**
@@ -338,7 +456,16 @@ public class EthereumService {
      * @return Future for the accounts response.
      */
     public Future<TetherjResponse<String[]>> getAccountsFuture() {
-        return performFutureRpcAction(rpc::getAccounts);
+        return performFutureRpcAction(EthRpcClient.getAccountsRequest());
+    }
+
+    /**
+     * Completion stage get accounts registered in the ethereum client.
+     *
+     * @return stage completing with the accounts response.
+     */
+    public CompletionStage<TetherjResponse<String[]>> getAccountsAsync() {
+        return performFutureRpcAction(EthRpcClient.getAccountsRequest());
     }
 
     /**
@@ -347,7 +474,7 @@ public class EthereumService {
      * @param callable to call after the block number is fetched
      */
     public void getLatestBlockNumber(TetherjHandle<BigInteger> callable) {
-        performAsyncRpcAction(rpc::getLatestBlockNumber, callable);
+        performAsyncRpcAction(EthRpcClient.getLatestBlockNumberRequest(), callable);
     }
 
     /**
@@ -356,7 +483,7 @@ public class EthereumService {
      * @return latest block number response
      */
     public TetherjResponse<BigInteger> getLatestBlockNumber() {
-        return performBlockingRpcAction(rpc::getLatestBlockNumber);
+        return performBlockingRpcAction(EthRpcClient.getLatestBlockNumberRequest());
     }
 
     /**
@@ -365,7 +492,16 @@ public class EthereumService {
      * @return Future for the accounts response.
      */
     public Future<TetherjResponse<BigInteger>> getLatestBlockNumberFuture() {
-        return performFutureRpcAction(rpc::getLatestBlockNumber);
+        return performFutureRpcAction(EthRpcClient.getLatestBlockNumberRequest());
+    }
+
+    /**
+     * Completion stage get latest block number from ethereum client.
+     *
+     * @return stage completing with the block number response.
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> getLatestBlockNumberAsync() {
+        return performFutureRpcAction(EthRpcClient.getLatestBlockNumberRequest());
     }
 
     /**
@@ -375,7 +511,7 @@ public class EthereumService {
      * @param callable to execute when balance is fetched
      */
     public void getBalance(final String address, TetherjHandle<BigInteger> callable) {
-        performAsyncRpcAction(() -> rpc.getBalance(address), callable);
+        performAsyncRpcAction(EthRpcClient.getBalanceRequest(address), callable);
     }
 
     /**
@@ -385,7 +521,7 @@ public class EthereumService {
      * @return response with balance
      */
     public TetherjResponse<BigInteger> getBalance(final String address) {
-        return performBlockingRpcAction(() -> rpc.getBalance(address));
+        return performBlockingRpcAction(EthRpcClient.getBalanceRequest(address));
     }
 
     /**
@@ -395,7 +531,17 @@ public class EthereumService {
      * @return future to get balance response.
      */
     public Future<TetherjResponse<BigInteger>> getBalanceFuture(final String address) {
-        return performFutureRpcAction(() -> rpc.getBalance(address));
+        return performFutureRpcAction(EthRpcClient.getBalanceRequest(address));
+    }
+
+    /**
+     * Completion stage get balance of an account
+     *
+     * @param address to get balance of
+     * @return stage completing with balance response.
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> getBalanceAsync(final String address) {
+        return performFutureRpcAction(EthRpcClient.getBalanceRequest(address));
     }
 
     /**
@@ -405,7 +551,7 @@ public class EthereumService {
      * @param callable to execute with nonce response
      */
     public void getAccountNonce(final String address, TetherjHandle<BigInteger> callable) {
-        performAsyncRpcAction(() -> rpc.getAccountNonce(address), callable);
+        performAsyncRpcAction(EthRpcClient.getAccountNonceRequest(address), callable);
     }
 
     /**
@@ -415,7 +561,7 @@ public class EthereumService {
      * @return nonce response
      */
     public TetherjResponse<BigInteger> getAccountNonce(final String address) {
-        return performBlockingRpcAction(() -> rpc.getAccountNonce(address));
+        return performBlockingRpcAction(EthRpcClient.getAccountNonceRequest(address));
     }
 
     /**
@@ -425,7 +571,17 @@ public class EthereumService {
      * @return future to get nonce response
      */
     public Future<TetherjResponse<BigInteger>> getAccountNonceFuture(final String address) {
-        return performFutureRpcAction(() -> rpc.getAccountNonce(address));
+        return performFutureRpcAction(EthRpcClient.getAccountNonceRequest(address));
+    }
+
+    /**
+     * Completion stage get account nonce of address (does not currently count pending executions).
+     *
+     * @param address to get nonce for
+     * @return stage completing with nonce response
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> getAccountNonceAsync(final String address) {
+        return performFutureRpcAction(EthRpcClient.getAccountNonceRequest(address));
     }
 
     /**
@@ -436,7 +592,7 @@ public class EthereumService {
      */
     public void getAccountNonceWithPending(final String address,
         TetherjHandle<BigInteger> callable) {
-        performAsyncRpcAction(() -> rpc.getAccountNonceWithPending(address), callable);
+        performAsyncRpcAction(EthRpcClient.getAccountNonceWithPendingRequest(address), callable);
     }
 
     /**
@@ -446,7 +602,7 @@ public class EthereumService {
      * @return nonce response
      */
     public TetherjResponse<BigInteger> getAccountNonceWithPending(final String address) {
-        return performBlockingRpcAction(() -> rpc.getAccountNonceWithPending(address));
+        return performBlockingRpcAction(EthRpcClient.getAccountNonceWithPendingRequest(address));
     }
 
     /**
@@ -457,7 +613,18 @@ public class EthereumService {
      */
     public Future<TetherjResponse<BigInteger>> getAccountNonceWithPendingFuture(
         final String address) {
-        return performFutureRpcAction(() -> rpc.getAccountNonceWithPending(address));
+        return performFutureRpcAction(EthRpcClient.getAccountNonceWithPendingRequest(address));
+    }
+
+    /**
+     * Completion stage get account nonce of address (does not currently count pending executions).
+     *
+     * @param address to get nonce for
+     * @return stage completing with nonce response
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> getAccountNonceWithPendingAsync(
+        final String address) {
+        return performFutureRpcAction(EthRpcClient.getAccountNonceWithPendingRequest(address));
     }
 
     /**
@@ -474,15 +641,54 @@ public class EthereumService {
         EthSignedTransaction txSigned = transaction.signWithWallet(from, nonce);
         byte[] rawEncoded = txSigned.getSignedEncodedData();
 
-        return performFutureRpcAction(() -> {
-            logger.debug("Sending transaction {from:" + from.getAddress() + ", nonce: " + nonce
-                + " " + transaction.toString());
-            return rpc.sendRawTransaction(rawEncoded);
-        });
+        logger.debug("Sending transaction {from:" + from.getAddress() + ", nonce: " + nonce
+            + " " + transaction.toString());
+        return performFutureRpcAction(EthRpcClient.sendRawTransactionRequest(rawEncoded));
+    }
+
+    /**
+     * Completion stage send transaction. Nonce gets allocated by the {@link NonceManager}.
+     *
+     * @param from        wallet to sign transaction with
+     * @param transaction to send
+     * @return stage completing with response for transaction hash, a BAD_STATE failure if the
+     *         wallet is locked
+     */
+    public CompletionStage<TetherjResponse<String>> sendTransactionAsync(EthWallet from,
+        EthTransaction transaction) {
+        String address = from.getAddress();
+        return allocateNonceAsync(address).thenCompose(response -> response.compose(nonce ->
+            sendTransactionAsync(from, transaction, nonce).thenApply(sent -> reportNonce(address,
+                nonce, sent))));
+    }
+
+    /**
+     * Completion stage send transaction.
+     *
+     * @param from        wallet to sign transaction with
+     * @param transaction to send
+     * @param nonce       to sign transaction with
+     * @return stage completing with response for transaction hash, a BAD_STATE failure if the
+     *         wallet is locked
+     */
+    public CompletionStage<TetherjResponse<String>> sendTransactionAsync(EthWallet from,
+        EthTransaction transaction, BigInteger nonce) {
+        EthSignedTransaction txSigned;
+        try {
+            txSigned = transaction.signWithWallet(from, nonce);
+        } catch (WalletLockedException ex) {
+            return CompletableFuture.completedFuture(new TetherjResponse<>(ErrorType.BAD_STATE,
+                ex));
+        }
+
+        logger.debug("Sending transaction {from:" + from.getAddress() + ", nonce: " + nonce
+            + " " + transaction.toString());
+        return performFutureRpcAction(EthRpcClient.sendRawTransactionRequest(txSigned
+            .getSignedEncodedData()));
     }
 
     /**
-     * Blocking send transaction. Generates nonce automatically (by rpc)
+     * Blocking send transaction. Nonce gets allocated by the {@link NonceManager}.
      *
      * @param from        wallet to sign transaction with
      * @param transaction to send
@@ -491,13 +697,20 @@ public class EthereumService {
      */
     public TetherjResponse<String> sendTransaction(EthWallet from, EthTransaction transaction)
         throws WalletLockedException {
-        TetherjResponse<BigInteger> nonceResponse = getAccountNonceWithPending(from.getAddress());
+        String address = from.getAddress();
+        TetherjResponse<BigInteger> nonceResponse = allocateNonce(address);
 
-        if (nonceResponse.isSuccessful()) {
-            return sendTransaction(from, transaction, nonceResponse.getValue());
+        if (nonceResponse.isFailure()) {
+            return TetherjResponse.failure(nonceResponse);
         }
 
-        return TetherjResponse.failure(nonceResponse);
+        BigInteger nonce = nonceResponse.getValue();
+        try {
+            return reportNonce(address, nonce, sendTransaction(from, transaction, nonce));
+        } catch (WalletLockedException ex) {
+            nonceManager.release(address, nonce);
+            throw ex;
+        }
     }
 
     /**
@@ -514,15 +727,13 @@ public class EthereumService {
         EthSignedTransaction txSigned = transaction.signWithWallet(from, nonce);
         byte[] rawEncoded = txSigned.getSignedEncodedData();
 
-        return performBlockingRpcAction(() -> {
-            logger.debug("Sending transaction {from:" + from.getAddress() + ", nonce: " + nonce
-                + " " + transaction.toString());
-            return rpc.sendRawTransaction(rawEncoded);
-        });
+        logger.debug("Sending transaction {from:" + from.getAddress() + ", nonce: " + nonce
+            + " " + transaction.toString());
+        return performBlockingRpcAction(EthRpcClient.sendRawTransactionRequest(rawEncoded));
     }
 
     /**
-     * Async send transaction. Nonce gets generated automatically via rpc.
+     * Async send transaction. Nonce gets allocated by the {@link NonceManager}.
      *
      * @param from        wallet to sign transaction with
      * @param transaction to send
@@ -531,9 +742,11 @@ public class EthereumService {
     public void sendTransaction(EthWallet from, EthTransaction transaction,
         TetherjHandle<String> callable) {
         String address = from.getAddress();
-        getAccountNonceWithPending(address, response -> {
+        performAsyncRpcAction(() -> nonceManager.allocate(address), response -> {
             if (response.isSuccessful()) {
-                sendTransaction(from, transaction, response.getValue(), callable);
+                BigInteger nonce = response.getValue();
+                sendTransaction(from, transaction, nonce, sent -> callable.call(reportNonce(
+                    address, nonce, sent)));
             } else {
                 callable.call(TetherjResponse.failure(response));
             }
@@ -554,7 +767,7 @@ public class EthereumService {
             EthSignedTransaction txSigned = transaction.signWithWallet(from, nonce);
             byte[] rawEncoded = txSigned.getSignedEncodedData();
 
-            performAsyncRpcAction(() -> rpc.sendRawTransaction(rawEncoded), callable);
+            performAsyncRpcAction(EthRpcClient.sendRawTransactionRequest(rawEncoded), callable);
 
         } catch (WalletLockedException ex) {
             callable.call(new TetherjResponse<>(ErrorType.BAD_STATE, ex));
@@ -562,7 +775,8 @@ public class EthereumService {
     }
 
     /**
-     * Blocking sign transaction.
+     * Blocking sign transaction. Nonce is the pending transaction count of the node, nothing is
+     * allocated, see {@link #signTransactionWithAllocatedNonce(EthTransaction, EthWallet)}.
      *
      * @param transaction signed transaction to send
      * @return response for signed transaction
@@ -570,16 +784,15 @@ public class EthereumService {
      */
     public TetherjResponse<EthSignedTransaction> signTransaction(EthTransaction transaction,
         EthWallet wallet) throws WalletLockedException {
-        String from = wallet.getAddress();
-        TetherjResponse<BigInteger> nonceResponse = getAccountNonceWithPending(from);
+        TetherjResponse<BigInteger> nonceResponse = getAccountNonceWithPending(wallet
+            .getAddress());
 
         if (nonceResponse.isFailure()) {
             return TetherjResponse.failure(nonceResponse);
         }
 
-        EthSignedTransaction txSigned = transaction.signWithWallet(wallet,
-            nonceResponse.getValue());
-        return TetherjResponse.success(txSigned);
+        return TetherjResponse.success(transaction.signWithWallet(wallet, nonceResponse
+            .getValue()));
     }
 
     /**
@@ -595,18 +808,118 @@ public class EthereumService {
     }
 
     /**
-     * Blocking send signed transaction.
+     * Completion stage sign transaction. Nonce gets generated automatically via rpc.
+     *
+     * @param transaction to sign
+     * @param wallet      to sign transaction with
+     * @return stage completing with the signed transaction, a BAD_STATE failure if the wallet
+     *         is locked
+     */
+    public CompletionStage<TetherjResponse<EthSignedTransaction>> signTransactionAsync(
+        EthTransaction transaction, EthWallet wallet) {
+        return getAccountNonceWithPendingAsync(wallet.getAddress()).thenApply(response -> {
+            if (response.isFailure()) {
+                return TetherjResponse.failure(response);
+            }
+
+            try {
+                return TetherjResponse.success(transaction.signWithWallet(wallet, response
+                    .getValue()));
+            } catch (WalletLockedException ex) {
+                return new TetherjResponse<>(ErrorType.BAD_STATE, ex);
+            }
+        });
+    }
+
+    /**
+     * Blocking sign transaction with a nonce allocated by the {@link NonceManager}, so
+     * transactions signed before the previous ones are mined get consecutive nonces. The nonce
+     * stays allocated to the signed transaction until it is sent successfully, rejected for its
+     * nonce or released with {@link #releaseSignedTransaction(EthSignedTransaction)}, a
+     * transaction that is never sent must be released or its nonce leaves a gap.
+     *
+     * @param transaction to sign
+     * @param wallet      to sign transaction with
+     * @return response for signed transaction
+     * @throws WalletLockedException if wallet is locked
+     */
+    public TetherjResponse<EthSignedTransaction> signTransactionWithAllocatedNonce(
+        EthTransaction transaction, EthWallet wallet) throws WalletLockedException {
+        String from = wallet.getAddress();
+        TetherjResponse<BigInteger> nonceResponse = allocateNonce(from);
+
+        if (nonceResponse.isFailure()) {
+            return TetherjResponse.failure(nonceResponse);
+        }
+
+        try {
+            return TetherjResponse.success(allocated(from, nonceResponse.getValue(), transaction
+                .signWithWallet(wallet, nonceResponse.getValue())));
+        } catch (WalletLockedException ex) {
+            nonceManager.release(from, nonceResponse.getValue());
+            throw ex;
+        }
+    }
+
+    /**
+     * Completion stage sign transaction with a nonce allocated by the {@link NonceManager}, see
+     * {@link #signTransactionWithAllocatedNonce(EthTransaction, EthWallet)}.
+     *
+     * @param transaction to sign
+     * @param wallet      to sign transaction with
+     * @return stage completing with the signed transaction, a BAD_STATE failure if the wallet
+     *         is locked
+     */
+    public CompletionStage<TetherjResponse<EthSignedTransaction>>
+        signTransactionWithAllocatedNonceAsync(EthTransaction transaction, EthWallet wallet) {
+        String from = wallet.getAddress();
+        return allocateNonceAsync(from).thenApply(response -> {
+            if (response.isFailure()) {
+                return TetherjResponse.failure(response);
+            }
+
+            try {
+                return TetherjResponse.success(allocated(from, response.getValue(), transaction
+                    .signWithWallet(wallet, response.getValue())));
+            } catch (WalletLockedException ex) {
+                nonceManager.release(from, response.getValue());
+                return new TetherjResponse<>(ErrorType.BAD_STATE, ex);
+            }
+        });
+    }
+
+    /**
+     * Give up a transaction signed with an allocated nonce, its nonce is handed out again.
+     * Transactions whose nonce is not allocated anymore are ignored.
+     *
+     * @param transaction signed with an allocated nonce and not sent
+     */
+    public void releaseSignedTransaction(EthSignedTransaction transaction) {
+        if (transaction.getSignedEncodedData() == null) {
+            return;
+        }
+
+        AllocatedNonce allocation = allocatedSigned.remove(signedHash(transaction));
+        if (allocation != null) {
+            nonceManager.release(allocation.address, allocation.nonce);
+        }
+    }
+
+    /**
+     * Blocking send signed transaction. If it was signed with an allocated nonce the result is
+     * reported to the {@link NonceManager}, a transaction rejected for another reason than its
+     * nonce keeps the nonce, release it with
+     * {@link #releaseSignedTransaction(EthSignedTransaction)} if the transaction is given up.
      *
      * @param transaction signed transaction to send
      * @return response for transaction hash
      */
     public TetherjResponse<String> sendSignedTransaction(EthSignedTransaction transaction) {
 
-        return performBlockingRpcAction(() -> {
-            logger.debug("Sending transaction {from:" + transaction.getFrom() + " "
-                + transaction.toString());
-            return rpc.sendRawTransaction(transaction.getSignedEncodedData());
-        });
+        logger.debug("Sending transaction {from:" + transaction.getFrom() + " "
+            + transaction.toString());
+        return reportSigned(transaction, performBlockingRpcAction(EthRpcClient
+            .sendRawTransactionRequest(transaction.getSignedEncodedData())));
     }
 
     /**
@@ -618,8 +931,9 @@ public class EthereumService {
     public void sendSignedTransaction(EthSignedTransaction transaction,
         TetherjHandle<String> callable) {
 
-        performAsyncRpcAction(() -> rpc.sendRawTransaction(transaction.getSignedEncodedData()),
-            callable);
+        performAsyncRpcAction(EthRpcClient.sendRawTransactionRequest(transaction
+            .getSignedEncodedData()), response -> callable.call(reportSigned(transaction,
+                response)));
     }
 
     /**
@@ -630,12 +944,153 @@ public class EthereumService {
     public Future<TetherjResponse<String>> sendSignedTransactionFuture(
         EthSignedTransaction transaction) {
 
-        return performFutureRpcAction(() -> rpc.sendRawTransaction(transaction
-            .getSignedEncodedData()));
+        return sendSignedTransactionAsync(transaction).toCompletableFuture();
+    }
+
+    /**
+     * Completion stage send signed transaction.
+     *
+     * @param transaction signed transaction to send
+     * @return stage completing with response for transaction hash
+     */
+    public CompletionStage<TetherjResponse<String>> sendSignedTransactionAsync(
+        EthSignedTransaction transaction) {
+
+        return performFutureRpcAction(EthRpcClient.sendRawTransactionRequest(transaction
+            .getSignedEncodedData())).thenApply(response -> reportSigned(transaction, response));
+    }
+
+    /**
+     * Submit a transaction to the service's {@link TransactionPipeline}: signed on the common
+     * fork join pool and sent in nonce order per sender, batched with other submissions.
+     *
+     * @param from        wallet to sign transaction with
+     * @param transaction to send
+     * @return submitted transaction, with stages for its hash and receipt
+     */
+    public PipelinedTransaction submitTransaction(EthWallet from, EthTransaction transaction) {
+        if (transactionPipeline == null) {
+            throw new IllegalStateException("Submitting transactions needs async support");
+        }
+        return transactionPipeline.submit(from, transaction);
+    }
+
+    /**
+     * Create a transaction pipeline sharing the service's nonces and receipt tracking.
+     *
+     * @param signingExecutor to sign on
+     * @param batchSize       most transactions sent in one batch
+     * @return pipeline, null without async support
+     */
+    public TransactionPipeline createTransactionPipeline(Executor signingExecutor,
+        int batchSize) {
+        if (executor == null) {
+            return null;
+        }
+        return new TransactionPipeline(rpc, nonceManager, signingExecutor, executor, batchSize,
+            this::listenForTxReceiptAsync);
+    }
+
+    /**
+     * Get the service's transaction pipeline, to inspect it.
+     *
+     * @return pipeline, null without async support
+     */
+    public TransactionPipeline getTransactionPipeline() {
+        return transactionPipeline;
+    }
+
+    /**
+     * Blocking allocate the next nonce of an address, without rpc once the address is seeded.
+     *
+     * @param address sending address
+     * @return nonce response
+     */
+    public TetherjResponse<BigInteger> allocateNonce(String address) {
+        return performBlockingRpcAction(() -> nonceManager.allocate(address));
+    }
+
+    /**
+     * Completion stage allocate the next nonce of an address. Already completed once the address
+     * is seeded, else completed when the seeding request ends.
+     *
+     * @param address sending address
+     * @return stage completing with nonce response
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> allocateNonceAsync(String address) {
+        BigInteger nonce = nonceManager.tryAllocate(address);
+        if (nonce != null) {
+            return CompletableFuture.completedFuture(TetherjResponse.success(nonce));
+        }
+
+        return performFutureRpcAction(EthRpcClient.getAccountNonceWithPendingRequest(address))
+            .thenApply(response -> response.map(count -> nonceManager.allocate(address, count)));
+    }
+
+    /**
+     * Get the nonce manager allocating the nonces of automatically signed transactions.
+     *
+     * @return nonce manager
+     */
+    public NonceManager getNonceManager() {
+        return nonceManager;
+    }
+
+    private <T> TetherjResponse<T> reportNonce(String address, BigInteger nonce,
+        TetherjResponse<T> response) {
+        nonceManager.report(address, nonce, response);
+        return response;
+    }
+
+    /**
+     * Nonce allocated to a signed transaction, as it was signed.
+     */
+    private static class AllocatedNonce {
+        final String address;
+        final BigInteger nonce;
+
+        AllocatedNonce(String address, BigInteger nonce) {
+            this.address = address;
+            this.nonce = nonce;
+        }
+    }
+
+    private EthSignedTransaction allocated(String address, BigInteger nonce,
+        EthSignedTransaction transaction) {
+        allocatedSigned.put(signedHash(transaction), new AllocatedNonce(address, nonce));
+        return transaction;
+    }
+
+    /**
+     * Report the send of a signed transaction if it was signed with an allocated nonce, the
+     * caller keeps the transaction, a rejected nonce stays allocated to it. Tracked by the hash
+     * of the data sent, the fields of the transaction object may have been changed since.
+     */
+    private <T> TetherjResponse<T> reportSigned(EthSignedTransaction transaction,
+        TetherjResponse<T> response) {
+        if (allocatedSigned.isEmpty() || transaction.getSignedEncodedData() == null) {
+            return response;
+        }
+
+        String hash = signedHash(transaction);
+        AllocatedNonce allocation = allocatedSigned.get(hash);
+        if (allocation != null) {
+            nonceManager.report(allocation.address, allocation.nonce, response, true);
+            if (!nonceManager.isAllocated(allocation.address, allocation.nonce)) {
+                allocatedSigned.remove(hash, allocation);
+            }
+        }
+        return response;
+    }
+
+    private static String signedHash(EthSignedTransaction transaction) {
+        return CryptoUtil.byteToHexWithPrefix(HashUtil.sha3(transaction.getSignedEncodedData()));
     }
 
     /**
      * Async listen for tx receipt. Will call when transaction is mined or was already mined.
+     * Pending transactions are tracked by one shared {@link TxReceiptTracker}, new blocks are
+     * checked once for all of them.
      *
      * @param txHash         transaction hash to listen for
      * @param secondsTimeout seconds until you want give up listening
@@ -643,8 +1098,7 @@ public class EthereumService {
      */
     public void listenForTxReceipt(final String txHash, int secondsTimeout,
         final TetherjHandle<TransactionReceipt> callable) {
-        int checks = secondsTimeout * 1000 / RECEIPT_CHECK_INTERVAL_MILLIS;
-        listenForTxReceipt(txHash, RECEIPT_CHECK_INTERVAL_MILLIS, checks, callable);
+        trackTxReceipt(txHash, secondsTimeout * 1000L, callable);
     }
 
     /**
@@ -655,35 +1109,56 @@ public class EthereumService {
      */
     public void listenForTxReceipt(final String txHash,
         final TetherjHandle<TransactionReceipt> callable) {
-        listenForTxReceipt(txHash, RECEIPT_CHECK_INTERVAL_MILLIS, RECEIPT_MAX_CHECKS, callable);
+        trackTxReceipt(txHash, (long) RECEIPT_CHECK_INTERVAL_MILLIS * RECEIPT_MAX_CHECKS, callable);
     }
 
-    private void listenForTxReceipt(final String txHash, final int checkIntervalMillis,
-        final int checks, final TetherjHandle<TransactionReceipt> callable) {
+    /**
+     * Completion stage listen for tx receipt, see {@link #listenForTxReceipt(String, int,
+     * TetherjHandle)}. Completes from the thread that found the receipt, no thread waits for it.
+     *
+     * @param txHash         transaction hash to listen for
+     * @param secondsTimeout seconds until you want give up listening
+     * @return stage completing with the receipt, an OPERATION_TIMEOUT failure if not mined in
+     *         time
+     */
+    public CompletionStage<TetherjResponse<TransactionReceipt>> listenForTxReceiptAsync(
+        final String txHash, int secondsTimeout) {
+        CompletableFuture<TetherjResponse<TransactionReceipt>> receipt = new CompletableFuture<>();
+        trackTxReceipt(txHash, secondsTimeout * 1000L, receipt::complete);
+        return receipt;
+    }
 
-        performAsyncRpcAction(() -> rpc.getTransactionReceipt(txHash), response -> {
-            if (response.isFailure()) {
-                callable.call(response);
-            } else {
-                TransactionReceipt receipt = response.getValue();
+    /**
+     * Completion stage listen for tx receipt, with the default timeout.
+     *
+     * @param txHash transaction hash to listen for
+     * @return stage completing with the receipt, an OPERATION_TIMEOUT failure if not mined in
+     *         time
+     */
+    public CompletionStage<TetherjResponse<TransactionReceipt>> listenForTxReceiptAsync(
+        final String txHash) {
+        CompletableFuture<TetherjResponse<TransactionReceipt>> receipt = new CompletableFuture<>();
+        trackTxReceipt(txHash, (long) RECEIPT_CHECK_INTERVAL_MILLIS * RECEIPT_MAX_CHECKS,
+            receipt::complete);
+        return receipt;
+    }
 
-                if (receipt != null && receipt.getBlockNumber() != null) {
-                    callable.call(response);
-                } else if (checks <= 0) {
-                    callable.call(new TetherjResponse<>(
-                        ErrorType.OPERATION_TIMEOUT, new TxReceiptTimeoutException()));
-                } else {
-                    boolean asyncExec = executorAsyncTimed(() -> listenForTxReceipt(txHash,
-                        checkIntervalMillis, checks - 1,
-                        callable), checkIntervalMillis);
+    private void trackTxReceipt(final String txHash, final long timeoutMillis,
+        final TetherjHandle<TransactionReceipt> callable) {
+        if (receiptTracker != null && !executor.isShutdown()) {
+            receiptTracker.track(txHash, timeoutMillis, callable);
+            return;
+        }
 
-                    if (!asyncExec) {
-                        callable.call(new TetherjResponse<>(
-                            ErrorType.OPERATION_TIMEOUT, new TxReceiptTimeoutException()));
-                    }
-                }
-            }
-        });
+        /* no async available, check once */
+        TetherjResponse<TransactionReceipt> response = getTransactionReceipt(txHash);
+        if (response.isFailure()
+            || response.getValue() != null && response.getValue().getBlockNumber() != null) {
+            callable.call(response);
+        } else {
+            callable.call(new TetherjResponse<>(ErrorType.OPERATION_TIMEOUT,
+                new TxReceiptTimeoutException()));
+        }
     }
 
     /**
@@ -693,7 +1168,7 @@ public class EthereumService {
      * @param callable to execute with output data.
      */
     public void makeCall(final EthCall call, TetherjHandle<Object[]> callable) {
-        performAsyncRpcAction(() -> call.decodeOutput(rpc.callMethod(call)), callable);
+        performAsyncRpcAction(EthRpcClient.callMethodRequest(call), callable);
     }
 
     /**
@@ -703,7 +1178,7 @@ public class EthereumService {
      * @return output response
      */
     public TetherjResponse<Object[]> makeCall(final EthCall call) {
-        return performBlockingRpcAction(() -> call.decodeOutput(rpc.callMethod(call)));
+        return performBlockingRpcAction(EthRpcClient.callMethodRequest(call));
     }
 
     /**
@@ -713,40 +1188,58 @@ public class EthereumService {
      * @return future to get output response
      */
     public Future<TetherjResponse<Object[]>> makeCallFuture(final EthCall call) {
-        return performFutureRpcAction(() -> call.decodeOutput(rpc.callMethod(call)));
+        return performFutureRpcAction(EthRpcClient.callMethodRequest(call));
+    }
+
+    /**
+     * Completion stage calls and fetches the output of an ethereum function.
+     *
+     * @param call to execute on the ethereum chain
+     * @return stage completing with output response
+     */
+    public CompletionStage<TetherjResponse<Object[]>> makeCallAsync(final EthCall call) {
+        return performFutureRpcAction(EthRpcClient.callMethodRequest(call));
+    }
+
+    /**
+     * Async execute batch calls. Calls are sent as JSON-RPC batches.
+     *
+     * @param calls    to make
+     * @param callable to execute with the list of outputs, in the same order as calls
+     */
+    public void makeCalls(final List<EthCall> calls, TetherjHandle<List<Object[]>> callable) {
+        performAsyncRpcAction(() -> rpc.callMethods(calls), callable);
     }
 
     /**
-     * Blocking execute batch calls.
+     * Blocking execute batch calls. Calls are sent as JSON-RPC batches.
      *
      * @param calls to make
      * @return List of responses, in the same order as calls
      */
     public TetherjResponse<List<Object[]>> makeCalls(final List<EthCall> calls) {
+        return performBlockingRpcAction(() -> rpc.callMethods(calls));
+    }
 
-        List<Future<TetherjResponse<Object[]>>> futures = new ArrayList<>();
-        List<Object[]> responses = new ArrayList<>();
-
-        for (EthCall call : calls) {
-            futures.add(makeCallFuture(call));
-        }
-
-        for (Future<TetherjResponse<Object[]>> future : futures) {
-            TetherjResponse<Object[]> response;
-            try {
-                response = future.get(1500, TimeUnit.MILLISECONDS);
-
-                if (response.isFailure()) {
-                    return TetherjResponse.failure(response);
-                }
-
-                responses.add(response.getValue());
-            } catch (InterruptedException | ExecutionException | TimeoutException ex) {
-                return new TetherjResponse<>(ErrorType.BLOCKCHAIN_CLIENT_BAD_CONNECTION, ex);
-            }
-        }
+    /**
+     * Future execute batch calls. Calls are sent as JSON-RPC batches.
+     *
+     * @param calls to make
+     * @return future to get the list of outputs, in the same order as calls
+     */
+    public Future<TetherjResponse<List<Object[]>>> makeCallsFuture(final List<EthCall> calls) {
+        return performFutureRpcAction(() -> rpc.callMethods(calls));
+    }
 
-        return new TetherjResponse<>(null, null, responses);
+    /**
+     * Completion stage execute batch calls. Calls are sent as JSON-RPC batches.
+     *
+     * @param calls to make
+     * @return stage completing with the list of outputs, in the same order as calls
+     */
+    public CompletionStage<TetherjResponse<List<Object[]>>> makeCallsAsync(
+        final List<EthCall> calls) {
+        return performFutureRpcAction(() -> rpc.callMethods(calls));
     }
 
     /**
@@ -756,7 +1249,7 @@ public class EthereumService {
      * @param callable   with compile output response
      */
     public void compileSolidity(String sourceCode, TetherjHandle<CompileOutput> callable) {
-        performAsyncRpcAction(() -> rpc.compileSolidity(sourceCode), callable);
+        performAsyncRpcAction(EthRpcClient.compileSolidityRequest(sourceCode), callable);
     }
 
     /**
@@ -766,7 +1259,7 @@ public class EthereumService {
      * @return compile output response
      */
     public TetherjResponse<CompileOutput> compileSolidity(String sourceCode) {
-        return performBlockingRpcAction(() -> rpc.compileSolidity(sourceCode));
+        return performBlockingRpcAction(EthRpcClient.compileSolidityRequest(sourceCode));
     }
 
     /**
@@ -776,7 +1269,17 @@ public class EthereumService {
      * @return future for compile output response
      */
     public Future<TetherjResponse<CompileOutput>> compileSolidityFuture(String sourceCode) {
-        return performFutureRpcAction(() -> rpc.compileSolidity(sourceCode));
+        return performFutureRpcAction(EthRpcClient.compileSolidityRequest(sourceCode));
+    }
+
+    /**
+     * Completion stage compile solidity.
+     *
+     * @param sourceCode to compile
+     * @return stage completing with compile output response
+     */
+    public CompletionStage<TetherjResponse<CompileOutput>> compileSolidityAsync(String sourceCode) {
+        return performFutureRpcAction(EthRpcClient.compileSolidityRequest(sourceCode));
     }
 
     /**
@@ -786,7 +1289,7 @@ public class EthereumService {
      * @param callable with Transaction response
      */
     public void getTransaction(String txHash, TetherjHandle<Transaction> callable) {
-        performAsyncRpcAction(() -> rpc.getTransaction(txHash), callable);
+        performAsyncRpcAction(EthRpcClient.getTransactionRequest(txHash), callable);
     }
 
     /**
@@ -796,7 +1299,7 @@ public class EthereumService {
      * @return with Transaction response
      */
     public TetherjResponse<Transaction> getTransaction(String txHash) {
-        return performBlockingRpcAction(() -> rpc.getTransaction(txHash));
+        return performBlockingRpcAction(EthRpcClient.getTransactionRequest(txHash));
     }
 
     /**
@@ -806,7 +1309,17 @@ public class EthereumService {
      * @return future for Transaction response
      */
     public Future<TetherjResponse<Transaction>> getTransactionFuture(String txHash) {
-        return performFutureRpcAction(() -> rpc.getTransaction(txHash));
+        return performFutureRpcAction(EthRpcClient.getTransactionRequest(txHash));
+    }
+
+    /**
+     * Completion stage get a transaction by transaction hash.
+     *
+     * @param txHash to get transaction data by.
+     * @return stage completing with Transaction response
+     */
+    public CompletionStage<TetherjResponse<Transaction>> getTransactionAsync(String txHash) {
+        return performFutureRpcAction(EthRpcClient.getTransactionRequest(txHash));
     }
 
     /**
@@ -815,7 +1328,7 @@ public class EthereumService {
      * @param callable with Block response
      */
     public void getLatestBlock(TetherjHandle<Block> callable) {
-        performAsyncRpcAction(rpc::getLatestBlock, callable);
+        performAsyncRpcAction(EthRpcClient.getLatestBlockRequest(), callable);
     }
 
     /**
@@ -824,7 +1337,7 @@ public class EthereumService {
      * @return block data
      */
     public TetherjResponse<Block> getLatestBlock() {
-        return performBlockingRpcAction(rpc::getLatestBlock);
+        return performBlockingRpcAction(EthRpcClient.getLatestBlockRequest());
     }
 
     /**
@@ -833,7 +1346,16 @@ public class EthereumService {
      * @return block data
      */
     public Future<TetherjResponse<Block>> getLatestBlockFuture() {
-        return performFutureRpcAction(rpc::getLatestBlock);
+        return performFutureRpcAction(EthRpcClient.getLatestBlockRequest());
+    }
+
+    /**
+     * Completion stage get the latest block.
+     *
+     * @return block data
+     */
+    public CompletionStage<TetherjResponse<Block>> getLatestBlockAsync() {
+        return performFutureRpcAction(EthRpcClient.getLatestBlockRequest());
     }
 
     /**
@@ -843,7 +1365,7 @@ public class EthereumService {
      * @param callable with TransactionReceipt response
      */
     public void getTransactionReceipt(String txHash, TetherjHandle<TransactionReceipt> callable) {
-        performAsyncRpcAction(() -> rpc.getTransactionReceipt(txHash), callable);
+        performAsyncRpcAction(EthRpcClient.getTransactionReceiptRequest(txHash), callable);
     }
 
     /**
@@ -852,7 +1374,7 @@ public class EthereumService {
      * @param txHash to receipt transaction by.
      */
     public TetherjResponse<TransactionReceipt> getTransactionReceipt(String txHash) {
-        return performBlockingRpcAction(() -> rpc.getTransactionReceipt(txHash));
+        return performBlockingRpcAction(EthRpcClient.getTransactionReceiptRequest(txHash));
     }
 
     /**
@@ -861,7 +1383,18 @@ public class EthereumService {
      * @param txHash to receipt transaction by.
      */
     public Future<TetherjResponse<TransactionReceipt>> getTransactionReceiptFuture(String txHash) {
-        return performFutureRpcAction(() -> rpc.getTransactionReceipt(txHash));
+        return performFutureRpcAction(EthRpcClient.getTransactionReceiptRequest(txHash));
+    }
+
+    /**
+     * Completion stage get the transaction receipt.
+     *
+     * @param txHash to receipt transaction by.
+     * @return stage completing with receipt response, null value if not mined yet
+     */
+    public CompletionStage<TetherjResponse<TransactionReceipt>> getTransactionReceiptAsync(
+        String txHash) {
+        return performFutureRpcAction(EthRpcClient.getTransactionReceiptRequest(txHash));
     }
 
     /**
@@ -870,7 +1403,7 @@ public class EthereumService {
      * @param callable with Block response
      */
     public void newFilter(TetherjHandle<BigInteger> callable) {
-        performAsyncRpcAction(() -> CryptoUtil.hexToBigInteger(rpc.newFilter()), callable);
+        performAsyncRpcAction(EthRpcClient.newFilterRequest(FilterLogRequest.DEFAULT), callable);
     }
 
     /**
@@ -880,14 +1413,14 @@ public class EthereumService {
      * @param callable with Block response
      */
     public void newFilter(FilterLogRequest request, TetherjHandle<BigInteger> callable) {
-        performAsyncRpcAction(() -> CryptoUtil.hexToBigInteger(rpc.newFilter(request)), callable);
+        performAsyncRpcAction(EthRpcClient.newFilterRequest(request), callable);
     }
 
     /**
      * Blocking create new filter.
      */
     public TetherjResponse<BigInteger> newFilter() {
-        return performBlockingRpcAction(() -> CryptoUtil.hexToBigInteger(rpc.newFilter()));
+        return performBlockingRpcAction(EthRpcClient.newFilterRequest(FilterLogRequest.DEFAULT));
     }
 
     /**
@@ -897,7 +1430,7 @@ public class EthereumService {
      * @return response for filter id
      */
     public TetherjResponse<BigInteger> newFilter(FilterLogRequest request) {
-        return performBlockingRpcAction(() -> CryptoUtil.hexToBigInteger(rpc.newFilter(request)));
+        return performBlockingRpcAction(EthRpcClient.newFilterRequest(request));
     }
 
     /**
@@ -906,7 +1439,7 @@ public class EthereumService {
      * @return future to get response for filter id
      */
     public Future<TetherjResponse<BigInteger>> newFilterFuture() {
-        return performFutureRpcAction(() -> CryptoUtil.hexToBigInteger(rpc.newFilter()));
+        return performFutureRpcAction(EthRpcClient.newFilterRequest(FilterLogRequest.DEFAULT));
     }
 
     /**
@@ -916,7 +1449,26 @@ public class EthereumService {
      * @return future to get response for filter id
      */
     public Future<TetherjResponse<BigInteger>> newFilterFuture(FilterLogRequest request) {
-        return performFutureRpcAction(() -> CryptoUtil.hexToBigInteger(rpc.newFilter(request)));
+        return performFutureRpcAction(EthRpcClient.newFilterRequest(request));
+    }
+
+    /**
+     * Completion stage create new filter.
+     *
+     * @return stage completing with response for filter id
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> newFilterAsync() {
+        return performFutureRpcAction(EthRpcClient.newFilterRequest(FilterLogRequest.DEFAULT));
+    }
+
+    /**
+     * Completion stage create new filter with custom request.
+     *
+     * @param request for filter
+     * @return stage completing with response for filter id
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> newFilterAsync(FilterLogRequest request) {
+        return performFutureRpcAction(EthRpcClient.newFilterRequest(request));
     }
 
     /**
@@ -925,16 +1477,14 @@ public class EthereumService {
      * @param callable with Block response
      */
     public void newPendingTransactionFilter(TetherjHandle<BigInteger> callable) {
-        performAsyncRpcAction(() -> CryptoUtil.hexToBigInteger(rpc.newPendingTransactionFilter()),
-            callable);
+        performAsyncRpcAction(EthRpcClient.newPendingTransactionFilterRequest(), callable);
     }
 
     /**
      * Blocking create new pending transaction filter.
      */
     public TetherjResponse<BigInteger> newPendingTransactionFilter() {
-        return performBlockingRpcAction(() -> CryptoUtil.hexToBigInteger(rpc
-            .newPendingTransactionFilter()));
+        return performBlockingRpcAction(EthRpcClient.newPendingTransactionFilterRequest());
     }
 
     /**
@@ -943,8 +1493,16 @@ public class EthereumService {
      * @return future to get response for filter id
      */
     public Future<TetherjResponse<BigInteger>> newPendingTransactionFilterFuture() {
-        return performFutureRpcAction(() -> CryptoUtil.hexToBigInteger(rpc
-            .newPendingTransactionFilter()));
+        return performFutureRpcAction(EthRpcClient.newPendingTransactionFilterRequest());
+    }
+
+    /**
+     * Completion stage create new pending transaction filter.
+     *
+     * @return stage completing with response for filter id
+     */
+    public CompletionStage<TetherjResponse<BigInteger>> newPendingTransactionFilterAsync() {
+        return performFutureRpcAction(EthRpcClient.newPendingTransactionFilterRequest());
     }
 
     /**
@@ -954,7 +1512,7 @@ public class EthereumService {
      * @param callable with Block response
      */
     public void uninstallFilter(BigInteger filterId, TetherjHandle<Boolean> callable) {
-        performAsyncRpcAction(() -> rpc.uninstallFilter(filterId), callable);
+        performAsyncRpcAction(EthRpcClient.uninstallFilterRequest(filterId), callable);
     }
 
     /**
@@ -964,7 +1522,7 @@ public class EthereumService {
      * @return response for uninstall success
      */
     public TetherjResponse<Boolean> uninstallFilter(BigInteger filterId) {
-        return performBlockingRpcAction(() -> rpc.uninstallFilter(filterId));
+        return performBlockingRpcAction(EthRpcClient.uninstallFilterRequest(filterId));
     }
 
     /**
@@ -974,7 +1532,17 @@ public class EthereumService {
      * @return future to get uninstall success
      */
     public Future<TetherjResponse<Boolean>> uninstallFilterFuture(BigInteger filterId) {
-        return performFutureRpcAction(() -> rpc.uninstallFilter(filterId));
+        return performFutureRpcAction(EthRpcClient.uninstallFilterRequest(filterId));
+    }
+
+    /**
+     * Completion stage remove filter.
+     *
+     * @param filterId to uninstall
+     * @return stage completing with uninstall success
+     */
+    public CompletionStage<TetherjResponse<Boolean>> uninstallFilterAsync(BigInteger filterId) {
+        return performFutureRpcAction(EthRpcClient.uninstallFilterRequest(filterId));
     }
 
     /**
@@ -985,7 +1553,7 @@ public class EthereumService {
      */
     public void getFilterChanges(BigInteger filterId,
         TetherjHandle<List<FilterLogObject>> callable) {
-        performAsyncRpcAction(() -> rpc.getFilterChanges(filterId), callable);
+        performAsyncRpcAction(EthRpcClient.getFilterChangesRequest(filterId), callable);
     }
 
     /**
@@ -995,7 +1563,7 @@ public class EthereumService {
      * @return response for change objects
      */
     public TetherjResponse<List<FilterLogObject>> getFilterChanges(BigInteger filterId) {
-        return performBlockingRpcAction(() -> rpc.getFilterChanges(filterId));
+        return performBlockingRpcAction(EthRpcClient.getFilterChangesRequest(filterId));
     }
 
     /**
@@ -1006,7 +1574,18 @@ public class EthereumService {
      */
     public Future<TetherjResponse<List<FilterLogObject>>> getFilterChangesFuture(
         BigInteger filterId) {
-        return performFutureRpcAction(() -> rpc.getFilterChanges(filterId));
+        return performFutureRpcAction(EthRpcClient.getFilterChangesRequest(filterId));
+    }
+
+    /**
+     * Completion stage get filter changes.
+     *
+     * @param filterId to get changes for
+     * @return stage completing with change objects
+     */
+    public CompletionStage<TetherjResponse<List<FilterLogObject>>> getFilterChangesAsync(
+        BigInteger filterId) {
+        return performFutureRpcAction(EthRpcClient.getFilterChangesRequest(filterId));
     }
 
     /**
@@ -1016,7 +1595,7 @@ public class EthereumService {
      * @param callable with Block response
      */
     public void getFilterLogs(BigInteger filterId, TetherjHandle<List<FilterLogObject>> callable) {
-        performAsyncRpcAction(() -> rpc.getFilterLogs(filterId), callable);
+        performAsyncRpcAction(EthRpcClient.getFilterLogsRequest(filterId), callable);
     }
 
     /**
@@ -1026,7 +1605,7 @@ public class EthereumService {
      * @return response for change objects
      */
     public TetherjResponse<List<FilterLogObject>> getFilterLogs(BigInteger filterId) {
-        return performBlockingRpcAction(() -> rpc.getFilterLogs(filterId));
+        return performBlockingRpcAction(EthRpcClient.getFilterLogsRequest(filterId));
     }
 
     /**
@@ -1036,7 +1615,59 @@ public class EthereumService {
      * @return future to get uninstall success
      */
     public Future<TetherjResponse<List<FilterLogObject>>> getFilterLogsFuture(BigInteger filterId) {
-        return performFutureRpcAction(() -> rpc.getFilterLogs(filterId));
+        return performFutureRpcAction(EthRpcClient.getFilterLogsRequest(filterId));
+    }
+
+    /**
+     * Completion stage get filter logs.
+     *
+     * @param filterId to get logs for
+     * @return stage completing with log objects
+     */
+    public CompletionStage<TetherjResponse<List<FilterLogObject>>> getFilterLogsAsync(
+        BigInteger filterId) {
+        return performFutureRpcAction(EthRpcClient.getFilterLogsRequest(filterId));
+    }
+
+    /**
+     * Async get logs matching a request, without installing a filter.
+     *
+     * @param request  block range, address and topics to match
+     * @param callable with log objects response
+     */
+    public void getLogs(FilterLogRequest request, TetherjHandle<List<FilterLogObject>> callable) {
+        performAsyncRpcAction(EthRpcClient.getLogsRequest(request), callable);
+    }
+
+    /**
+     * Blocking get logs matching a request, without installing a filter.
+     *
+     * @param request block range, address and topics to match
+     * @return response for log objects
+     */
+    public TetherjResponse<List<FilterLogObject>> getLogs(FilterLogRequest request) {
+        return performBlockingRpcAction(EthRpcClient.getLogsRequest(request));
+    }
+
+    /**
+     * Future get logs matching a request, without installing a filter.
+     *
+     * @param request block range, address and topics to match
+     * @return future to get log objects
+     */
+    public Future<TetherjResponse<List<FilterLogObject>>> getLogsFuture(FilterLogRequest request) {
+        return performFutureRpcAction(EthRpcClient.getLogsRequest(request));
+    }
+
+    /**
+     * Completion stage get logs matching a request, without installing a filter.
+     *
+     * @param request block range, address and topics to match
+     * @return stage completing with log objects
+     */
+    public CompletionStage<TetherjResponse<List<FilterLogObject>>> getLogsAsync(
+        FilterLogRequest request) {
+        return performFutureRpcAction(EthRpcClient.getLogsRequest(request));
     }
 
     /**
@@ -1047,7 +1678,8 @@ public class EthereumService {
      */
     public void getPendingTransactionFilterChanges(BigInteger filterId,
         TetherjHandle<List<String>> callable) {
-        performAsyncRpcAction(() -> rpc.getPendingTransactionFilterChanges(filterId), callable);
+        performAsyncRpcAction(EthRpcClient.getPendingTransactionFilterChangesRequest(filterId),
+            callable);
     }
 
     /**
@@ -1057,7 +1689,8 @@ public class EthereumService {
      * @return response for change objects
      */
     public TetherjResponse<List<String>> getPendingTransactionFilterChanges(BigInteger filterId) {
-        return performBlockingRpcAction(() -> rpc.getPendingTransactionFilterChanges(filterId));
+        return performBlockingRpcAction(EthRpcClient
+            .getPendingTransactionFilterChangesRequest(filterId));
     }
 
     /**
@@ -1068,39 +1701,96 @@ public class EthereumService {
      */
     public Future<TetherjResponse<List<String>>> getPendingTransactionFilterChangesFuture(
         BigInteger filterId) {
-        return performFutureRpcAction(() -> rpc.getPendingTransactionFilterChanges(filterId));
+        return performFutureRpcAction(EthRpcClient
+            .getPendingTransactionFilterChangesRequest(filterId));
+    }
+
+    /**
+     * Completion stage get filter changes for pending transactions.
+     *
+     * @param filterId to get changes for
+     * @return stage completing with change objects
+     */
+    public CompletionStage<TetherjResponse<List<String>>> getPendingTransactionFilterChangesAsync(
+        BigInteger filterId) {
+        return performFutureRpcAction(EthRpcClient
+            .getPendingTransactionFilterChangesRequest(filterId));
+    }
+
+    /**
+     * Blocking stream all events matching a query request. Unlike {@link
+     * #getEvents(FilterLogRequest)} the events are not collected: the eth_getLogs response is
+     * parsed while it is read and every event is decoded and handed to the consumer on its own,
+     * so memory stays bounded by one log even for wide block ranges.
+     *
+     * @param request  request to use for query
+     * @param consumer called with each event, in order, on the calling thread
+     * @return number of events consumed
+     */
+    public TetherjResponse<Integer> streamEvents(FilterLogRequest request,
+        Consumer<? super EthEvent> consumer) {
+        return performBlockingRpcAction(() -> rpc.streamLogs(request,
+            log -> consumer.accept(toEvent(request, log))));
+    }
+
+    /**
+     * Async stream all events matching a query request, see {@link
+     * #streamEvents(FilterLogRequest, Consumer)}. The consumer is called from the executor.
+     *
+     * @param request  request to use for query
+     * @param consumer called with each event, in order
+     * @param handle   to call with the number of events consumed, after the last event
+     */
+    public void streamEvents(FilterLogRequest request, Consumer<? super EthEvent> consumer,
+        TetherjHandle<Integer> handle) {
+        performAsyncRpcAction(() -> rpc.streamLogs(request,
+            log -> consumer.accept(toEvent(request, log))), handle);
+    }
+
+    /**
+     * Completion stage stream all events matching a query request, see {@link
+     * #streamEvents(FilterLogRequest, Consumer)}. Reading the response blocks, so the consumer is
+     * called from the executor.
+     *
+     * @param request  request to use for query
+     * @param consumer called with each event, in order
+     * @return stage completing with the number of events consumed, after the last event
+     */
+    public CompletionStage<TetherjResponse<Integer>> streamEventsAsync(FilterLogRequest request,
+        Consumer<? super EthEvent> consumer) {
+        return performFutureRpcAction(() -> rpc.streamLogs(request,
+            log -> consumer.accept(toEvent(request, log))));
+    }
+
+    static EthEvent toEvent(FilterLogRequest request, FilterLogObject log) {
+        EthEvent event = new EthEvent();
+        event.setData(request.decodeEventData(log.getData(), log.getTopics()));
+        event.setFilterLogObject(log);
+        return event;
     }
 
     /**
      * Blocking get all events using a query request. Warning: might take a lot if request block
-     * range is large (over 100000 blocks)
+     * range is large (over 100000 blocks). Uses eth_getLogs, no filter is installed.
      *
      * @param request request to use for query
      * @return list of events
      */
     public TetherjResponse<List<EthEvent>> getEvents(FilterLogRequest request) {
-        TetherjResponse<BigInteger> filterResponse = this.newFilter(request);
+        TetherjResponse<List<FilterLogObject>> logsResponse = this.getLogs(request);
+
+        if (logsResponse.isFailure()) {
+            return TetherjResponse.failure(logsResponse);
+        }
 
         List<EthEvent> events = new ArrayList<>();
-        if (filterResponse.isSuccessful()) {
-            TetherjResponse<List<FilterLogObject>> eventResponse = this
-                .getFilterLogs(filterResponse.getValue());
-            this.uninstallFilter(filterResponse.getValue());
-
-            if (eventResponse.isSuccessful() && eventResponse.getValue() != null) {
-                for (FilterLogObject obj : eventResponse.getValue()) {
-                    EthEvent event = new EthEvent();
-                    event.setData(request.decodeEventData(obj.getData(), obj.getTopics()));
-                    event.setFilterLogObject(obj);
-                    events.add(event);
-                }
-                return TetherjResponse.success(events);
-            } else if (eventResponse.isFailure()) {
-                return TetherjResponse.failure(filterResponse);
+        if (logsResponse.getValue() != null) {
+            for (FilterLogObject obj : logsResponse.getValue()) {
+                events.add(toEvent(request, obj));
             }
         }
 
-        return TetherjResponse.failure(filterResponse);
+        return TetherjResponse.success(events);
     }
 
     /**
@@ -1135,12 +1825,38 @@ public class EthereumService {
                 }
 
                 List<EthEvent> eventResponse = new ArrayList<>();
-                getEventsPartial(eventResponse, latestBlockResponse.getValue(), partialRequest,
-                    request, handle);
+                FilterLogRequest firstRequest = partialRequest;
+                Runnable partial = () -> getEventsPartial(eventResponse,
+                    latestBlockResponse.getValue(), firstRequest, request, handle);
+
+                /* partial queries block, keep them off the transport I/O thread */
+                if (!executorAsync(partial)) {
+                    partial.run();
+                }
             }
         });
     }
 
+    /**
+     * Completion stage get all events using a query request. Uses a single eth_getLogs, see
+     * {@link #getEventsParallelAsync(FilterLogRequest)} for large block ranges.
+     *
+     * @param request used for query
+     * @return stage completing with the list of events
+     */
+    public CompletionStage<TetherjResponse<List<EthEvent>>> getEventsAsync(
+        FilterLogRequest request) {
+        return getLogsAsync(request).thenApply(response -> response.map(logs -> {
+            List<EthEvent> events = new ArrayList<>();
+            if (logs != null) {
+                for (FilterLogObject log : logs) {
+                    events.add(toEvent(request, log));
+                }
+            }
+            return events;
+        }));
+    }
+
     /**
      * Private implemenetation of getEvents that only get a partial list of the initial request,
      * this is because this kind of query can take a lot of time and we want to block async
@@ -1184,7 +1900,84 @@ public class EthereumService {
         }
     }
 
+    /**
+     * Async get all events using a query request, scanning the block range in parallel chunks
+     * that adapt their size to the event density. Events are returned in block order. Use
+     * {@link #getEventScanner()} to tune concurrency and chunk sizes.
+     *
+     * @param request used for query
+     * @param handle  to call after getting event list
+     */
+    public void getEventsParallel(FilterLogRequest request, TetherjHandle<List<EthEvent>> handle) {
+        this.getLatestBlockNumber(latestBlockResponse -> {
+            if (latestBlockResponse.isFailure()) {
+                handle.call(TetherjResponse.failure(latestBlockResponse));
+                return;
+            }
+
+            BigInteger latestBlock = latestBlockResponse.getValue();
+            eventScanner.scan(request, blockAsBigInteger(request.getFromBlock(), latestBlock),
+                blockAsBigInteger(request.getToBlock(), latestBlock))
+                .whenComplete((events, ex) -> {
+                    try {
+                        handle.call(ex == null ? TetherjResponse.success(events)
+                            : failureResponse(ex));
+                    } catch (Throwable throwable) {
+                        handleUnknownThrowables(throwable);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Blocking get all events using a query request, scanning the block range in parallel
+     * chunks. Events are returned in block order.
+     *
+     * @param request used for query
+     * @return list of events
+     */
+    public TetherjResponse<List<EthEvent>> getEventsParallel(FilterLogRequest request) {
+        TetherjResponse<BigInteger> latestBlockResponse = getLatestBlockNumber();
+        if (latestBlockResponse.isFailure()) {
+            return TetherjResponse.failure(latestBlockResponse);
+        }
+
+        BigInteger latestBlock = latestBlockResponse.getValue();
+        return performBlockingRpcAction(() -> eventScanner.scan(request,
+            blockAsBigInteger(request.getFromBlock(), latestBlock),
+            blockAsBigInteger(request.getToBlock(), latestBlock)).join());
+    }
+
+    /**
+     * Completion stage get all events using a query request, scanning the block range in
+     * parallel chunks. Events are returned in block order.
+     *
+     * @param request used for query
+     * @return stage completing with the list of events
+     */
+    public CompletionStage<TetherjResponse<List<EthEvent>>> getEventsParallelAsync(
+        FilterLogRequest request) {
+        return getLatestBlockNumberAsync().thenCompose(response -> response.compose(latestBlock ->
+            eventScanner.scan(request, blockAsBigInteger(request.getFromBlock(), latestBlock),
+                blockAsBigInteger(request.getToBlock(), latestBlock))
+                .handle((events, ex) -> ex == null ? TetherjResponse.success(events)
+                    : failureResponse(ex))));
+    }
+
+    /**
+     * Get the scanner used by {@link #getEventsParallel(FilterLogRequest)}, to tune it.
+     *
+     * @return event range scanner
+     */
+    public EventRangeScanner getEventScanner() {
+        return eventScanner;
+    }
+
     private BigInteger blockAsBigInteger(String block, BigInteger latestBlock) {
+        if (block == null) {
+            return latestBlock;
+        }
+
         switch (block) {
             case "earliest":
                 return BigInteger.ZERO;
@@ -1198,7 +1991,10 @@ public class EthereumService {
 
     /**
      * Create a watch for events of a request type. The watch will notify of any new events, the
-     * watch can be cancelled at any time using the event below.
+     * watch can be cancelled at any time using the event below. All watches share the polling of
+     * one {@link FilterMultiplexer}, no filter is installed on the ethereum client. Only events
+     * of blocks mined after the watch starts are delivered, within the from and to blocks of the
+     * request, the watch is cancelled once its to block is passed.
      *
      * @param request     request describing event query
      * @param eventHandle the handle to call when new events are found
@@ -1206,54 +2002,85 @@ public class EthereumService {
      */
     public TetherjResponse<TetherjFilterWatch> watchEvents(FilterLogRequest request,
         TetherjHandle<List<EthEvent>> eventHandle) {
+        return performBlockingRpcAction(() -> filterMultiplexer.watch(request, eventHandle));
+    }
 
-        TetherjResponse<BigInteger> filterResponse = this.newFilter(request);
-
-        if (filterResponse.isFailure()) {
-            return TetherjResponse.failure(filterResponse);
+    /**
+     * Create a watch for events of a request type that survives chain reorganizations. Events
+     * are delivered once their block is a number of blocks deep, events of blocks orphaned after
+     * delivery are delivered again as removed. See {@link ConfirmedEventStream}.
+     *
+     * @param request       request describing event query, a numeric from block resumes there
+     *                      and a numeric to block ends the watch once it is confirmed
+     * @param confirmations blocks mined on top of a block before its events are delivered
+     * @param eventHandle   the handle to call with retractions and confirmed events
+     * @return watch handle, can be used to cancel watch.
+     */
+    public TetherjResponse<TetherjFilterWatch> watchConfirmedEvents(FilterLogRequest request,
+        int confirmations, TetherjHandle<List<EthEvent>> eventHandle) {
+        if (executor == null) {
+            throw new IllegalStateException("Watching confirmed events needs async support");
         }
+        return performBlockingRpcAction(() -> new ConfirmedEventStream(rpc, executor, request,
+            confirmations, pollScheduler, eventHandle).start());
+    }
 
-        BigInteger filterId = filterResponse.getValue();
-        TetherjFilterWatch watch = new TetherjFilterWatch(eventHandle);
-
-        executorAsync(() -> watchEventChanges(request, watch, filterId, eventHandle));
+    /**
+     * Get the multiplexer polling for all event watches, to inspect it.
+     *
+     * @return filter multiplexer
+     */
+    public FilterMultiplexer getFilterMultiplexer() {
+        return filterMultiplexer;
+    }
 
-        return TetherjResponse.success(watch);
+    /**
+     * Create a backpressured publisher of the events of a request, with the default buffer size,
+     * polling at the block cadence learned by the service. See {@link EventPublisher}.
+     *
+     * @param request request describing event query
+     * @return publisher, polling starts on subscribe
+     */
+    public EventPublisher publishEvents(FilterLogRequest request) {
+        return publishEvents(request, EventPublisher.DEFAULT_BUFFER_SIZE, pollScheduler);
     }
 
     /**
-     * Private method for watching events, calls itself async.
+     * Create a backpressured publisher of the events of a request. Unlike {@link #watchEvents}
+     * polling pauses while a subscriber's buffer is full and resumes from the next unread block.
      *
-     * @param request request data to use
-     * @param watch watch handle
-     * @param filterId to query from ethereum client
-     * @param eventHandle callback
+     * @param request    request describing event query
+     * @param bufferSize events buffered per subscriber before polling pauses
+     * @param pollMillis interval between polls once at the chain head
+     * @return publisher, polling starts on subscribe
      */
-    private void watchEventChanges(FilterLogRequest request, TetherjFilterWatch watch, BigInteger
-        filterId,
-        TetherjHandle<List<EthEvent>> eventHandle) {
-        if (watch.getIsCancelled().get()) {
-            uninstallFilter(filterId, response -> {
-            });
-        } else {
-            List<EthEvent> events = new ArrayList<>();
-            TetherjResponse<List<FilterLogObject>> eventResponse = this
-                .getFilterChanges(filterId);
-
-            if (eventResponse.isSuccessful() && eventResponse.getValue() != null) {
-                for (FilterLogObject obj : eventResponse.getValue()) {
-                    EthEvent event = new EthEvent();
-                    event.setData(request.decodeEventData(obj.getData(), obj.getTopics()));
-                    event.setFilterLogObject(obj);
-                    events.add(event);
-                }
-                eventHandle.call(TetherjResponse.success(events));
-            } else if (eventResponse.isFailure()) {
-                eventHandle.call(TetherjResponse.failure(eventResponse));
-            }
+    public EventPublisher publishEvents(FilterLogRequest request, int bufferSize,
+        long pollMillis) {
+        return publishEvents(request, bufferSize, PollScheduler.fixed(pollMillis));
+    }
 
-            executorAsyncTimed(() -> watchEventChanges(request, watch, filterId, eventHandle),
-                1000);
+    /**
+     * Create a backpressured publisher of the events of a request, polling with a scheduler.
+     *
+     * @param request    request describing event query
+     * @param bufferSize events buffered per subscriber before polling pauses
+     * @param scheduler  deciding the delay between polls once at the chain head
+     * @return publisher, polling starts on subscribe
+     */
+    public EventPublisher publishEvents(FilterLogRequest request, int bufferSize,
+        PollScheduler scheduler) {
+        if (executor == null) {
+            throw new IllegalStateException("Publishing events needs async support");
         }
+        return new EventPublisher(rpc, executor, request, bufferSize, scheduler);
+    }
+
+    /**
+     * Get the scheduler shared by the service's pollers, to inspect the learned block cadence.
+     *
+     * @return poll scheduler
+     */
+    public PollScheduler getPollScheduler() {
+        return pollScheduler;
     }
 }
@@ -0,0 +1,110 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Reactive Streams publisher of the events matching a request, the backpressured alternative to
+ * {@link EthereumService#watchEvents}. Each subscriber gets its own {@link EventSubscription}
+ * that polls eth_getLogs over block ranges and buffers the events until the subscriber requests
+ * them. Polling pauses while the buffer is full and resumes from the next unread block, so a slow
+ * subscriber gets every event without the node keeping filter state.
+ *
+ * <p>The events start at the request's from block, new blocks only if it is "latest" or not set.
+ * The stream completes after the request's to block, it follows the chain head if the to block
+ * is "latest" or not set. On Java 9+ use {@code org.reactivestreams.FlowAdapters} to get a
+ * {@code java.util.concurrent.Flow.Publisher}.
+ *
+ * @author Andrei Grigoriu
+ */
+public class EventPublisher implements Publisher<EthEvent> {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+    public static final long DEFAULT_POLL_MILLIS = 1000;
+
+    private final EthRpcClient rpc;
+    private final ScheduledExecutorService executor;
+    private final FilterLogRequest request;
+    private final int bufferSize;
+    private final PollScheduler scheduler;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param rpc        client to query with
+     * @param executor   to poll on
+     * @param request    describing the events (blocks, address, topics and function to decode)
+     * @param bufferSize events buffered per subscriber before polling pauses
+     * @param pollMillis interval between polls once at the chain head
+     */
+    public EventPublisher(EthRpcClient rpc, ScheduledExecutorService executor,
+        FilterLogRequest request, int bufferSize, long pollMillis) {
+        this(rpc, executor, request, bufferSize, PollScheduler.fixed(pollMillis));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rpc        client to query with
+     * @param executor   to poll on
+     * @param request    describing the events (blocks, address, topics and function to decode)
+     * @param bufferSize events buffered per subscriber before polling pauses
+     * @param scheduler  deciding the delay between polls once at the chain head
+     */
+    public EventPublisher(EthRpcClient rpc, ScheduledExecutorService executor,
+        FilterLogRequest request, int bufferSize, PollScheduler scheduler) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1");
+        }
+
+        this.rpc = rpc;
+        this.executor = Objects.requireNonNull(executor);
+        this.request = request;
+        this.bufferSize = bufferSize;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super EthEvent> subscriber) {
+        Objects.requireNonNull(subscriber);
+        EventSubscription subscription = new EventSubscription(rpc, executor, request,
+            subscriber, bufferSize, scheduler, subscriptions::remove);
+        subscriptions.add(subscription);
+        subscription.start();
+    }
+
+    /**
+     * Get the active subscriptions, to inspect their buffers and progress.
+     *
+     * @return subscriptions not cancelled or terminated yet
+     */
+    public List<EventSubscription> getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * Get the events buffered for all subscribers.
+     *
+     * @return events fetched but not requested yet
+     */
+    public int getBufferDepth() {
+        int depth = 0;
+        for (EventSubscription subscription : subscriptions) {
+            depth += subscription.getBufferDepth();
+        }
+        return depth;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
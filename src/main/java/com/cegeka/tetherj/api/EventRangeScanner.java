@@ -0,0 +1,325 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.pojo.FilterLogObject;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import com.googlecode.jsonrpc4j.HttpException;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
+
+import java.math.BigInteger;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans a block range for events in parallel chunks. At most a bounded number of chunks is
+ * queried at once and the results are merged in block order. The chunk size adapts to the log
+ * density: it grows on sparse ranges and shrinks on dense ones. A chunk the ethereum client
+ * rejects as too large (too many results, or a timeout) is split in halves and retried.
+ *
+ * @author Andrei Grigoriu
+ */
+public class EventRangeScanner {
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_INITIAL_CHUNK_BLOCKS = EthereumService.ASYNC_FILTER_BLOCK_SPLIT;
+    public static final int DEFAULT_MAX_CHUNK_BLOCKS = 100000;
+
+    /**
+     * Logs per chunk to aim for, the chunk size follows the observed log density.
+     */
+    public static final int DEFAULT_TARGET_LOGS_PER_CHUNK = 1000;
+
+    private static final String[] RANGE_TOO_LARGE_MESSAGES = { "more than", "too many",
+        "limit exceeded", "size exceeded", "block range", "timeout", "timed out" };
+
+    private final EthRpcClient rpc;
+    private final Executor executor;
+
+    private volatile int concurrency = DEFAULT_CONCURRENCY;
+    private volatile int initialChunkBlocks = DEFAULT_INITIAL_CHUNK_BLOCKS;
+    private volatile int maxChunkBlocks = DEFAULT_MAX_CHUNK_BLOCKS;
+    private volatile int targetLogsPerChunk = DEFAULT_TARGET_LOGS_PER_CHUNK;
+
+    /**
+     * Constructor.
+     *
+     * @param rpc      client to query with
+     * @param executor to run chunk queries on if the rpc client is blocking, null to run them on
+     *                 the calling thread
+     */
+    public EventRangeScanner(EthRpcClient rpc, Executor executor) {
+        this.rpc = rpc;
+        this.executor = executor != null ? executor : Runnable::run;
+    }
+
+    /**
+     * Scan a block range for the events of a request.
+     *
+     * @param request   describing the events (address, topics and function to decode with)
+     * @param fromBlock first block, inclusive
+     * @param toBlock   last block, inclusive
+     * @return Returns future for the events, in block order.
+     */
+    public CompletableFuture<List<EthEvent>> scan(FilterLogRequest request, BigInteger fromBlock,
+            BigInteger toBlock) {
+        Scan scan = new Scan(request, fromBlock, toBlock);
+        scan.dispatch();
+        return scan.result;
+    }
+
+    /**
+     * Query the logs of one chunk with eth_getLogs.
+     *
+     * @param request   scanned request
+     * @param fromBlock first block of the chunk
+     * @param toBlock   last block of the chunk
+     * @return Returns future for the logs of the chunk.
+     */
+    CompletableFuture<List<FilterLogObject>> fetch(FilterLogRequest request, BigInteger fromBlock,
+            BigInteger toBlock) {
+        FilterLogRequest partialRequest = partialRequest(request, fromBlock, toBlock);
+
+        if (rpc.isAsync()) {
+            return rpc.executeAsync(EthRpcClient.getLogsRequest(partialRequest));
+        }
+
+        return CompletableFuture.supplyAsync(() -> rpc.execute(EthRpcClient
+                .getLogsRequest(partialRequest)), executor);
+    }
+
+    static FilterLogRequest partialRequest(FilterLogRequest request, BigInteger fromBlock,
+            BigInteger toBlock) {
+        FilterLogRequest partialRequest = new FilterLogRequest();
+        partialRequest.setAddress(request.getAddress());
+        partialRequest.setFromBlock(fromBlock);
+        partialRequest.setToBlock(toBlock);
+        partialRequest.setTopics(request.getTopics());
+        partialRequest.setFunction(request.getFunction());
+        return partialRequest;
+    }
+
+    /**
+     * Check if the ethereum client rejected a query because its range was too large.
+     *
+     * @param throwable query error
+     * @return Returns true if the query may succeed on a smaller range.
+     */
+    static boolean isRangeTooLarge(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof HttpException) {
+            return cause.getCause() instanceof SocketTimeoutException;
+        }
+
+        if (cause instanceof JsonRpcClientException && cause.getMessage() != null) {
+            String message = cause.getMessage().toLowerCase(Locale.ROOT);
+            for (String tooLarge : RANGE_TOO_LARGE_MESSAGES) {
+                if (message.contains(tooLarge)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return Returns max chunks queried at once.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Set max chunks queried at once.
+     *
+     * @param concurrency at least 1
+     */
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Set the block count of the first chunks of a scan.
+     *
+     * @param initialChunkBlocks at least 1
+     */
+    public void setInitialChunkBlocks(int initialChunkBlocks) {
+        if (initialChunkBlocks < 1) {
+            throw new IllegalArgumentException("Chunk blocks must be at least 1");
+        }
+        this.initialChunkBlocks = initialChunkBlocks;
+    }
+
+    /**
+     * Set the max block count of a chunk.
+     *
+     * @param maxChunkBlocks at least 1
+     */
+    public void setMaxChunkBlocks(int maxChunkBlocks) {
+        if (maxChunkBlocks < 1) {
+            throw new IllegalArgumentException("Chunk blocks must be at least 1");
+        }
+        this.maxChunkBlocks = maxChunkBlocks;
+    }
+
+    /**
+     * Set the logs per chunk to aim for.
+     *
+     * @param targetLogsPerChunk at least 1
+     */
+    public void setTargetLogsPerChunk(int targetLogsPerChunk) {
+        if (targetLogsPerChunk < 1) {
+            throw new IllegalArgumentException("Target logs must be at least 1");
+        }
+        this.targetLogsPerChunk = targetLogsPerChunk;
+    }
+
+    /**
+     * State of one scan.
+     */
+    private class Scan {
+        private final FilterLogRequest request;
+        private final BigInteger toBlock;
+        private final CompletableFuture<List<EthEvent>> result = new CompletableFuture<>();
+
+        private final Map<BigInteger, List<FilterLogObject>> done = new TreeMap<>();
+        private final Deque<BigInteger[]> splits = new ArrayDeque<>();
+        private final AtomicInteger dispatchRequests = new AtomicInteger();
+        private BigInteger nextBlock;
+        private long chunkBlocks;
+        private int running = 0;
+        private boolean finished = false;
+
+        Scan(FilterLogRequest request, BigInteger fromBlock, BigInteger toBlock) {
+            this.request = request;
+            this.toBlock = toBlock;
+            this.nextBlock = fromBlock;
+            this.chunkBlocks = Math.min(initialChunkBlocks, maxChunkBlocks);
+        }
+
+        /**
+         * Launch chunks up to the concurrency limit. Chunks completing on the calling thread
+         * dispatch again through the same loop instead of recursing.
+         */
+        void dispatch() {
+            if (dispatchRequests.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                dispatchOnce();
+            } while (dispatchRequests.decrementAndGet() != 0);
+        }
+
+        private void dispatchOnce() {
+            List<BigInteger[]> launch = new ArrayList<>();
+            boolean complete = false;
+
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+
+                while (running + launch.size() < concurrency) {
+                    BigInteger[] range = splits.pollFirst();
+                    if (range == null) {
+                        if (nextBlock.compareTo(toBlock) > 0) {
+                            break;
+                        }
+                        BigInteger last = nextBlock.add(BigInteger.valueOf(chunkBlocks - 1))
+                                .min(toBlock);
+                        range = new BigInteger[] { nextBlock, last };
+                        nextBlock = last.add(BigInteger.ONE);
+                    }
+                    launch.add(range);
+                }
+
+                running += launch.size();
+                if (running == 0) {
+                    finished = true;
+                    complete = true;
+                }
+            }
+
+            for (BigInteger[] range : launch) {
+                fetch(request, range[0], range[1])
+                        .whenComplete((logs, ex) -> onChunk(range, logs, ex));
+            }
+
+            if (complete) {
+                result.complete(mergeEvents());
+            }
+        }
+
+        private void onChunk(BigInteger[] range, List<FilterLogObject> logs, Throwable ex) {
+            long blocks = range[1].subtract(range[0]).longValue() + 1;
+            boolean failed = false;
+
+            synchronized (this) {
+                running--;
+                if (finished) {
+                    return;
+                }
+
+                if (ex == null) {
+                    List<FilterLogObject> chunkLogs = logs != null ? logs
+                            : Collections.emptyList();
+                    done.put(range[0], chunkLogs);
+
+                    /* aim for the target density, at most halving or doubling per chunk */
+                    long desired = blocks * targetLogsPerChunk / Math.max(1, chunkLogs.size());
+                    chunkBlocks = Math.max(chunkBlocks / 2, Math.min(chunkBlocks * 2, desired));
+                    chunkBlocks = Math.max(1, Math.min(maxChunkBlocks, chunkBlocks));
+                } else if (blocks > 1 && isRangeTooLarge(ex)) {
+                    BigInteger middle = range[0].add(BigInteger.valueOf(blocks / 2 - 1));
+                    splits.addFirst(new BigInteger[] { middle.add(BigInteger.ONE), range[1] });
+                    splits.addFirst(new BigInteger[] { range[0], middle });
+                    chunkBlocks = Math.max(1, Math.min(chunkBlocks, blocks) / 2);
+                } else {
+                    finished = true;
+                    failed = true;
+                }
+            }
+
+            if (failed) {
+                result.completeExceptionally(ex);
+            } else {
+                dispatch();
+            }
+        }
+
+        private synchronized List<EthEvent> mergeEvents() {
+            List<EthEvent> events = new ArrayList<>();
+            for (List<FilterLogObject> logs : done.values()) {
+                for (FilterLogObject log : logs) {
+                    EthEvent event = new EthEvent();
+                    event.setData(request.decodeEventData(log.getData(), log.getTopics()));
+                    event.setFilterLogObject(log);
+                    events.add(event);
+                }
+            }
+            return events;
+        }
+    }
+}
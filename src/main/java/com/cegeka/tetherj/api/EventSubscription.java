@@ -0,0 +1,338 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.cegeka.tetherj.pojo.FilterLogObject;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Subscription of one subscriber to an {@link EventPublisher}. Polls run on the executor: each
+ * fetches the logs of the blocks after the last one read, sized by the highest log density of
+ * the recent fetches to fit the free buffer space, and polls again right away while behind the
+ * chain head. A response with more logs than the free space is not buffered, its range is
+ * halved and queried again. A single block with more logs than the free space waits for an
+ * empty buffer, it is the only way the buffer grows past its size. While the buffer is full no
+ * rpc is made. Events are delivered as the subscriber requests them, from the requesting thread
+ * or the polling thread, never concurrently.
+ *
+ * <p>An rpc failure is retried on the next poll, after {@link #MAX_POLL_FAILURES} consecutive
+ * failures the subscriber gets the error.
+ *
+ * @author Andrei Grigoriu
+ */
+public class EventSubscription implements Subscription {
+
+    public static final int MAX_POLL_FAILURES = 5;
+
+    /* fetches the log density estimate is the maximum of */
+    private static final int DENSITY_WINDOW = 8;
+
+    private static final Logger logger = LogManager.getLogger(EventSubscription.class);
+
+    private final EthRpcClient rpc;
+    private final ScheduledExecutorService executor;
+    private final FilterLogRequest request;
+    private final Subscriber<? super EthEvent> subscriber;
+    private final int bufferSize;
+    private final PollScheduler scheduler;
+    private final Consumer<EventSubscription> onTerminate;
+
+    private final Queue<EthEvent> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferDepth = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final AtomicLong pausedPolls = new AtomicLong();
+
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean paused;
+
+    /* only touched by the polling thread */
+    private volatile BigInteger nextBlock;
+    private BigInteger lastBlock;
+    private final double[] densities = new double[DENSITY_WINDOW];
+    private long fetches;
+    /* logs of a single block that did not fit, fetched again once the buffer is empty */
+    private int blockedLogs;
+    private int failures;
+
+    EventSubscription(EthRpcClient rpc, ScheduledExecutorService executor,
+        FilterLogRequest request, Subscriber<? super EthEvent> subscriber, int bufferSize,
+        PollScheduler scheduler, Consumer<EventSubscription> onTerminate) {
+        this.rpc = rpc;
+        this.executor = executor;
+        this.request = request;
+        this.subscriber = subscriber;
+        this.bufferSize = bufferSize;
+        this.scheduler = scheduler;
+        this.onTerminate = onTerminate;
+    }
+
+    void start() {
+        subscriber.onSubscribe(this);
+        schedule(0);
+    }
+
+    @Override
+    public void request(long count) {
+        if (count <= 0) {
+            error = new IllegalArgumentException("Requested events must be positive (rule 3.9)");
+            done = true;
+            buffer.clear();
+            bufferDepth.set(0);
+        } else {
+            long current;
+            do {
+                current = demand.get();
+                if (current == Long.MAX_VALUE) {
+                    break;
+                }
+            } while (!demand.compareAndSet(current, current + count < 0 ? Long.MAX_VALUE
+                : current + count));
+        }
+
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            buffer.clear();
+            bufferDepth.set(0);
+            onTerminate.accept(this);
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        try {
+            executor.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            error = ex;
+            done = true;
+            drain();
+        }
+    }
+
+    private void poll() {
+        if (cancelled || done) {
+            return;
+        }
+
+        int room = bufferSize - bufferDepth.get();
+        if (room <= 0 || blockedLogs > 0 && room < bufferSize) {
+            paused = true;
+            pausedPolls.incrementAndGet();
+            schedule(scheduler.delayMillis());
+            return;
+        }
+        paused = false;
+
+        boolean behind = false;
+        try {
+            behind = fetch(room);
+            failures = 0;
+        } catch (RuntimeException ex) {
+            if (++failures >= MAX_POLL_FAILURES) {
+                error = ex;
+                done = true;
+            } else {
+                logger.warn("Polling events failed, retrying", ex);
+            }
+        }
+
+        drain();
+        if (!done && !cancelled) {
+            schedule(behind ? 0 : scheduler.delayMillis());
+        }
+    }
+
+    /**
+     * Fetch the logs of the blocks after the last one read, as many blocks as the expected logs
+     * fit in the free buffer space, halving the range while the logs do not fit.
+     *
+     * @param room free buffer space
+     * @return true if blocks are left before the chain head
+     */
+    private boolean fetch(int room) {
+        BigInteger latest = rpc.getLatestBlockNumber();
+        scheduler.observe(latest);
+        if (nextBlock == null) {
+            nextBlock = firstBlock(request.getFromBlock(), latest);
+            lastBlock = lastBlock(request.getToBlock());
+        }
+
+        BigInteger head = lastBlock != null ? latest.min(lastBlock) : latest;
+        long blocks = fetches == 0 ? 1 : (long) Math.max(1, Math.min(
+            EthereumService.ASYNC_FILTER_BLOCK_SPLIT, room / Math.max(logsPerBlock(), 0.001)));
+        BigInteger toBlock = head.min(nextBlock.add(BigInteger.valueOf(blocks - 1)));
+
+        while (toBlock.compareTo(nextBlock) >= 0) {
+            FilterLogRequest range = new FilterLogRequest();
+            range.setAddress(request.getAddress());
+            range.setTopics(request.getTopics());
+            range.setFromBlock(nextBlock);
+            range.setToBlock(toBlock);
+
+            List<FilterLogObject> logs = rpc.getLogs(range);
+            int count = logs != null ? logs.size() : 0;
+            long span = toBlock.subtract(nextBlock).longValue() + 1;
+            densities[(int) (fetches++ % DENSITY_WINDOW)] = (double) count / span;
+
+            if (count > room && span > 1) {
+                toBlock = nextBlock.add(BigInteger.valueOf(span / 2 - 1));
+                continue;
+            }
+            if (count > room && room < bufferSize) {
+                blockedLogs = count;
+                return false;
+            }
+
+            blockedLogs = 0;
+            for (int i = 0; i < count; i++) {
+                buffer.add(EthereumService.toEvent(request, logs.get(i)));
+            }
+            bufferDepth.addAndGet(count);
+            nextBlock = toBlock.add(BigInteger.ONE);
+            break;
+        }
+
+        if (lastBlock != null && nextBlock.compareTo(lastBlock) > 0) {
+            done = true;
+        }
+        return nextBlock.compareTo(head) <= 0;
+    }
+
+    /**
+     * Logs per block expected in the next range, the highest of the recent fetches so a run of
+     * sparse blocks does not size a range over a burst.
+     */
+    private double logsPerBlock() {
+        double highest = 0;
+        for (int i = 0; i < Math.min(fetches, densities.length); i++) {
+            highest = Math.max(highest, densities[i]);
+        }
+        return highest;
+    }
+
+    private static BigInteger firstBlock(String block, BigInteger latest) {
+        if (block == null || "latest".equals(block) || "pending".equals(block)) {
+            return latest.add(BigInteger.ONE);
+        }
+        return "earliest".equals(block) ? BigInteger.ZERO : CryptoUtil.hexToBigInteger(block);
+    }
+
+    private static BigInteger lastBlock(String block) {
+        if (block == null || "latest".equals(block) || "pending".equals(block)) {
+            return null;
+        }
+        return "earliest".equals(block) ? BigInteger.ZERO : CryptoUtil.hexToBigInteger(block);
+    }
+
+    /**
+     * Deliver buffered events up to the demand, then the completion once all are delivered. Only
+     * one thread drains at a time, a thread finding another draining leaves it one more pass.
+     */
+    private void drain() {
+        if (drainers.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            long requested = demand.get();
+            long emitted = 0;
+            while (emitted != requested && !cancelled) {
+                EthEvent event = buffer.poll();
+                if (event == null) {
+                    break;
+                }
+                bufferDepth.decrementAndGet();
+                subscriber.onNext(event);
+                emitted++;
+            }
+
+            if (cancelled) {
+                return;
+            }
+
+            if (done && (error != null || buffer.isEmpty())) {
+                cancelled = true;
+                onTerminate.accept(this);
+                if (error != null) {
+                    subscriber.onError(error);
+                } else {
+                    subscriber.onComplete();
+                }
+                return;
+            }
+
+            if (emitted != 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+            missed = drainers.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Get the events buffered for the subscriber.
+     *
+     * @return events fetched but not requested yet
+     */
+    public int getBufferDepth() {
+        return bufferDepth.get();
+    }
+
+    /**
+     * Get the outstanding demand of the subscriber.
+     *
+     * @return events requested but not delivered yet
+     */
+    public long getDemand() {
+        return demand.get();
+    }
+
+    /**
+     * Get the block polling resumes from.
+     *
+     * @return next block to fetch, null before the first poll
+     */
+    public BigInteger getNextBlock() {
+        return nextBlock;
+    }
+
+    /**
+     * Check if polling is paused.
+     *
+     * @return true if the last poll was skipped because the buffer was full
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Get the polls skipped so far.
+     *
+     * @return number of polls skipped because the buffer was full
+     */
+    public long getPausedPolls() {
+        return pausedPolls.get();
+    }
+}
@@ -0,0 +1,379 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.cegeka.tetherj.pojo.FilterLogObject;
+import com.cegeka.tetherj.pojo.FilterLogQuery;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares one polling loop between all event watches, instead of a node filter and a poll loop
+ * per watch. Watches are merged into one eth_getLogs query per distinct topic pattern, matching
+ * the addresses of all watches with that pattern, so watching the same event on many contracts
+ * is a single query. The loop checks the block number every poll interval and queries only when
+ * new blocks were mined, then routes each log to the watches matching its address and decodes it
+ * with each watch's request.
+ *
+ * <p>All queries of a poll must succeed before any event is delivered, a failed poll is retried
+ * from the same block so no event is lost or delivered twice.
+ *
+ * <p>The from and to blocks of a watch's request bound the blocks it gets events of. Watches
+ * only get events of new blocks, like the node filters they replace: a from block in the future
+ * holds back events until it is mined, one in the past changes nothing. A watch is cancelled
+ * once its to block is passed.
+ *
+ * @author Andrei Grigoriu
+ */
+public class FilterMultiplexer {
+
+    public static final long DEFAULT_POLL_MILLIS = 1000;
+
+    private static final Logger logger = LogManager.getLogger(FilterMultiplexer.class);
+
+    private final EthRpcClient rpc;
+    private final ScheduledExecutorService executor;
+    private final PollScheduler scheduler;
+    private final List<Watch> watches = new CopyOnWriteArrayList<>();
+
+    /* guarded by this */
+    private BigInteger nextBlock;
+    private boolean polling;
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong logQueries = new AtomicLong();
+
+    /**
+     * A watch with the topic pattern it is grouped by.
+     */
+    private static class Watch {
+        final FilterLogRequest request;
+        final TetherjFilterWatch handle;
+        final String address;
+        final List<String> topics;
+        /* null if not bounded */
+        final BigInteger fromBlock;
+        final BigInteger toBlock;
+
+        Watch(FilterLogRequest request, TetherjFilterWatch handle) {
+            this.request = request;
+            this.handle = handle;
+            this.address = request.getAddress() != null
+                ? request.getAddress().toLowerCase(Locale.ROOT) : null;
+            this.topics = topicPattern(request.getTopics());
+            this.fromBlock = blockNumber(request.getFromBlock());
+            this.toBlock = blockNumber(request.getToBlock());
+        }
+
+        boolean covers(BigInteger from, BigInteger to) {
+            return (fromBlock == null || fromBlock.compareTo(to) <= 0)
+                && (toBlock == null || toBlock.compareTo(from) >= 0);
+        }
+
+        boolean covers(String block) {
+            if (block == null) {
+                return true;
+            }
+            BigInteger number = CryptoUtil.hexToBigInteger(block);
+            return covers(number, number);
+        }
+
+        boolean ended(BigInteger nextBlock) {
+            return toBlock != null && toBlock.compareTo(nextBlock) < 0;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rpc        client to query with
+     * @param executor   to poll on, null to never poll
+     * @param pollMillis interval between block number checks
+     */
+    public FilterMultiplexer(EthRpcClient rpc, ScheduledExecutorService executor,
+        long pollMillis) {
+        this(rpc, executor, PollScheduler.fixed(pollMillis));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rpc       client to query with
+     * @param executor  to poll on, null to never poll
+     * @param scheduler deciding the delay between block number checks
+     */
+    public FilterMultiplexer(EthRpcClient rpc, ScheduledExecutorService executor,
+        PollScheduler scheduler) {
+        this.rpc = rpc;
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Watch the events of a request, from the block after the latest one, within the from and
+     * to blocks of the request. Blocking if no other watch is active, the latest block is
+     * fetched then, without holding up the polls.
+     *
+     * @param request     describing the events (address, topics, block bounds and function to
+     *                    decode with)
+     * @param eventHandle called with the new events of each poll that found any, or the failure
+     * @return watch, cancel it to stop, cancelled once the to block is passed
+     */
+    public TetherjFilterWatch watch(FilterLogRequest request,
+        TetherjHandle<List<EthEvent>> eventHandle) {
+        Watch watch = new Watch(request, new TetherjFilterWatch(eventHandle));
+
+        if (!add(watch, null)) {
+            /* first watch, seeded outside the lock, a concurrent first watch may win */
+            add(watch, rpc.getLatestBlockNumber().add(BigInteger.ONE));
+        }
+        return watch.handle;
+    }
+
+    /**
+     * Add a watch if polling is seeded, or seed it.
+     *
+     * @return false if not added, polling needs a start block
+     */
+    private synchronized boolean add(Watch watch, BigInteger startBlock) {
+        if (nextBlock == null) {
+            if (startBlock == null) {
+                return false;
+            }
+            nextBlock = startBlock;
+        }
+        watches.add(watch);
+
+        if (!polling) {
+            polling = true;
+            schedule(scheduler.delayMillis());
+        }
+        return true;
+    }
+
+    private void schedule(long delayMillis) {
+        if (executor == null || executor.isShutdown()) {
+            logger.warn("No executor to poll events on");
+            return;
+        }
+
+        try {
+            executor.schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Executor rejected event poll", ex);
+        }
+    }
+
+    private void poll() {
+        List<Watch> active = new ArrayList<>();
+        BigInteger fromBlock;
+        synchronized (this) {
+            watches.removeIf(watch -> {
+                if (watch.ended(nextBlock)) {
+                    watch.handle.cancel();
+                }
+                return watch.handle.getIsCancelled().get();
+            });
+            if (watches.isEmpty()) {
+                /* next watch starts from its own latest block */
+                polling = false;
+                nextBlock = null;
+                return;
+            }
+            active.addAll(watches);
+            fromBlock = nextBlock;
+        }
+
+        boolean behind = false;
+        try {
+            polls.incrementAndGet();
+            BigInteger latest = rpc.getLatestBlockNumber();
+            scheduler.observe(latest);
+            if (latest.compareTo(fromBlock) >= 0) {
+                BigInteger toBlock = latest.min(fromBlock.add(BigInteger.valueOf(
+                    EthereumService.ASYNC_FILTER_BLOCK_SPLIT - 1)));
+                List<Watch> covering = new ArrayList<>();
+                for (Watch watch : active) {
+                    if (watch.covers(fromBlock, toBlock)) {
+                        covering.add(watch);
+                    }
+                }
+                Map<Watch, List<EthEvent>> events = fetch(covering, fromBlock, toBlock);
+
+                synchronized (this) {
+                    nextBlock = toBlock.add(BigInteger.ONE);
+                }
+                behind = toBlock.compareTo(latest) < 0;
+                deliver(events);
+            }
+        } catch (RuntimeException ex) {
+            for (Watch watch : active) {
+                call(watch, EthereumService.failureResponse(ex));
+            }
+        }
+
+        schedule(behind ? 0 : scheduler.delayMillis());
+    }
+
+    /**
+     * Query the logs of a block range once per topic pattern and route them to the watches.
+     *
+     * @return new events per watch, only watches with events
+     */
+    private Map<Watch, List<EthEvent>> fetch(List<Watch> active, BigInteger fromBlock,
+        BigInteger toBlock) {
+        Map<List<String>, List<Watch>> groups = new LinkedHashMap<>();
+        for (Watch watch : active) {
+            groups.computeIfAbsent(watch.topics, topics -> new ArrayList<>()).add(watch);
+        }
+
+        Map<Watch, List<EthEvent>> events = new LinkedHashMap<>();
+        for (Map.Entry<List<String>, List<Watch>> group : groups.entrySet()) {
+            FilterLogQuery query = new FilterLogQuery();
+            query.setFromBlock("0x" + fromBlock.toString(16));
+            query.setToBlock("0x" + toBlock.toString(16));
+            query.setAddress(addresses(group.getValue()));
+            query.setTopics(group.getKey().isEmpty() ? null : group.getKey());
+
+            logQueries.incrementAndGet();
+            List<FilterLogObject> logs = rpc.execute(EthRpcClient.getLogsRequest(query));
+            if (logs == null) {
+                continue;
+            }
+
+            for (FilterLogObject log : logs) {
+                for (Watch watch : group.getValue()) {
+                    if ((watch.address == null || log.getAddress() != null
+                        && watch.address.equals(log.getAddress().toLowerCase(Locale.ROOT)))
+                        && watch.covers(log.getBlockNumber())) {
+                        events.computeIfAbsent(watch, key -> new ArrayList<>())
+                            .add(EthereumService.toEvent(watch.request, log));
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+    private void deliver(Map<Watch, List<EthEvent>> events) {
+        for (Map.Entry<Watch, List<EthEvent>> entry : events.entrySet()) {
+            if (!entry.getKey().handle.getIsCancelled().get()) {
+                call(entry.getKey(), TetherjResponse.success(entry.getValue()));
+            }
+        }
+    }
+
+    private static void call(Watch watch, TetherjResponse<List<EthEvent>> response) {
+        try {
+            watch.handle.getWatchHandle().call(response);
+        } catch (RuntimeException ex) {
+            logger.error("Event watch handle failed", ex);
+        }
+    }
+
+    /**
+     * Merge the addresses of a group of watches into one query filter.
+     *
+     * @return addresses of the watches, null if any watch matches any address
+     */
+    private static List<String> addresses(List<Watch> group) {
+        Set<String> addresses = new HashSet<>();
+        for (Watch watch : group) {
+            if (watch.address == null) {
+                return null;
+            }
+            addresses.add(watch.address);
+        }
+
+        List<String> sorted = new ArrayList<>(addresses);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static BigInteger blockNumber(String block) {
+        if (block == null || "latest".equals(block) || "pending".equals(block)) {
+            return null;
+        }
+        return "earliest".equals(block) ? BigInteger.ZERO : CryptoUtil.hexToBigInteger(block);
+    }
+
+    /**
+     * Normalize topics to group watches by: lower case, without trailing wildcards.
+     */
+    private static List<String> topicPattern(String[] topics) {
+        if (topics == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> pattern = new ArrayList<>(Arrays.asList(topics));
+        for (int i = 0; i < pattern.size(); i++) {
+            if (pattern.get(i) != null) {
+                pattern.set(i, pattern.get(i).toLowerCase(Locale.ROOT));
+            }
+        }
+        while (!pattern.isEmpty() && pattern.get(pattern.size() - 1) == null) {
+            pattern.remove(pattern.size() - 1);
+        }
+        return pattern;
+    }
+
+    /**
+     * Get the active watches.
+     *
+     * @return watches not cancelled as of the last poll
+     */
+    public int getWatchCount() {
+        return watches.size();
+    }
+
+    /**
+     * Get the eth_getLogs queries the watches are merged into.
+     *
+     * @return queries per poll with new blocks, one per distinct topic pattern
+     */
+    public int getQueryCount() {
+        Set<List<String>> patterns = new HashSet<>();
+        for (Watch watch : watches) {
+            if (!watch.handle.getIsCancelled().get()) {
+                patterns.add(watch.topics);
+            }
+        }
+        return patterns.size();
+    }
+
+    /**
+     * Get the polls made so far.
+     *
+     * @return block number checks
+     */
+    public long getPolls() {
+        return polls.get();
+    }
+
+    /**
+     * Get the log queries made so far.
+     *
+     * @return eth_getLogs requests
+     */
+    public long getLogQueries() {
+        return logQueries.get();
+    }
+}
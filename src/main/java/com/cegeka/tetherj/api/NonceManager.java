@@ -0,0 +1,293 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates transaction nonces per sending address without a round trip per transaction. The
+ * first allocation for an address is seeded from the node's pending transaction count, later
+ * ones are handed out locally, so concurrent senders never get the same nonce.
+ *
+ * <p>Nonces handed out are tracked until the result of their send is reported or they are
+ * released, only those results count and each only once, so results of nonces chosen elsewhere
+ * or reported twice change nothing. A nonce whose transaction the node rejected for another
+ * reason than its nonce is handed out again first, so no gap is left behind, unless the caller
+ * keeps the signed transaction to send it again. When the node rejects a nonce as used or out
+ * of order (another sender, a dropped transaction) or the send may or may not have reached the
+ * node, the address is reseeded on its next allocation, after the nonces still held.
+ *
+ * @author Andrei Grigoriu
+ */
+public class NonceManager {
+
+    private static final Logger logger = LogManager.getLogger(NonceManager.class);
+
+    /* node errors meaning our nonce view is off, lower case */
+    private static final String[] NONCE_ERRORS = { "nonce too low", "nonce is too low",
+        "nonce too high", "too far in future", "already known", "known transaction",
+        "replacement transaction underpriced" };
+
+    private final EthRpcClient rpc;
+    private final Map<String, AddressNonces> addresses = new ConcurrentHashMap<>();
+
+    private final AtomicLong seeds = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Nonces of one address.
+     */
+    private static class AddressNonces {
+        /* guarded by this, null until seeded */
+        BigInteger next;
+        /* handed out, result not reported yet */
+        final TreeSet<BigInteger> outstanding = new TreeSet<>();
+        final TreeSet<BigInteger> released = new TreeSet<>();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rpc client to seed nonces with
+     */
+    public NonceManager(EthRpcClient rpc) {
+        this.rpc = rpc;
+    }
+
+    /**
+     * Allocate the next nonce of an address. Blocking only while the address is (re)seeded, only
+     * allocations for the same address wait for it.
+     *
+     * @param address sending address
+     * @return nonce to sign the transaction with
+     * @throws JsonRpcClientException if seeding from the node failed
+     */
+    public BigInteger allocate(String address) throws JsonRpcClientException {
+        AddressNonces nonces = nonces(address);
+        synchronized (nonces) {
+            if (nonces.next == null) {
+                seed(nonces, rpc.getAccountNonceWithPending(address));
+            }
+            return take(nonces);
+        }
+    }
+
+    /**
+     * Allocate the next nonce of an address, seeding it with a pending transaction count fetched
+     * by the caller if it is not seeded (anymore). For callers that fetch the count without
+     * blocking, see {@link #tryAllocate(String)}.
+     *
+     * @param address      sending address
+     * @param pendingCount transaction count of the address including pending ones
+     * @return nonce to sign the transaction with
+     */
+    public BigInteger allocate(String address, BigInteger pendingCount) {
+        AddressNonces nonces = nonces(address);
+        synchronized (nonces) {
+            if (nonces.next == null) {
+                seed(nonces, pendingCount);
+            }
+            return take(nonces);
+        }
+    }
+
+    /**
+     * Allocate the next nonce of an address if it is seeded, never blocking on rpc.
+     *
+     * @param address sending address
+     * @return nonce to sign the transaction with, null if the address needs seeding first
+     */
+    public BigInteger tryAllocate(String address) {
+        AddressNonces nonces = nonces(address);
+        synchronized (nonces) {
+            return nonces.next != null ? take(nonces) : null;
+        }
+    }
+
+    private AddressNonces nonces(String address) {
+        return addresses.computeIfAbsent(key(address), key -> new AddressNonces());
+    }
+
+    private void seed(AddressNonces nonces, BigInteger pendingCount) {
+        /* nonces below the count are used, the ones above it still held by unsent transactions */
+        nonces.outstanding.headSet(pendingCount).clear();
+        BigInteger next = nonces.outstanding.isEmpty() ? pendingCount
+            : pendingCount.max(nonces.outstanding.last().add(BigInteger.ONE));
+
+        nonces.released.headSet(pendingCount).clear();
+        nonces.released.tailSet(next).clear();
+        nonces.next = next;
+        seeds.incrementAndGet();
+    }
+
+    private BigInteger take(AddressNonces nonces) {
+        BigInteger nonce = nonces.released.pollFirst();
+        if (nonce != null) {
+            reused.incrementAndGet();
+        } else {
+            nonce = nonces.next;
+            nonces.next = nonce.add(BigInteger.ONE);
+        }
+
+        nonces.outstanding.add(nonce);
+        return nonce;
+    }
+
+    /**
+     * Report the result of sending a transaction with an allocated nonce, the transaction is not
+     * sent again. Results for nonces not handed out or already reported are ignored.
+     *
+     * @param address  sending address
+     * @param nonce    the transaction was signed with
+     * @param response of the send
+     */
+    public void report(String address, BigInteger nonce, TetherjResponse<?> response) {
+        report(address, nonce, response, false);
+    }
+
+    /**
+     * Report the result of sending a transaction with an allocated nonce. Results for nonces not
+     * handed out or already reported are ignored.
+     *
+     * @param address  sending address
+     * @param nonce    the transaction was signed with
+     * @param response of the send
+     * @param retained true if the caller keeps the signed transaction and may send it again, a
+     *                 rejected nonce then stays allocated until it is released
+     */
+    public void report(String address, BigInteger nonce, TetherjResponse<?> response,
+        boolean retained) {
+        if (address == null || nonce == null) {
+            return;
+        }
+
+        AddressNonces nonces = addresses.get(key(address));
+        if (nonces == null) {
+            return;
+        }
+
+        synchronized (nonces) {
+            if (!nonces.outstanding.contains(nonce)) {
+                return;
+            }
+            if (response.isSuccessful()) {
+                nonces.outstanding.remove(nonce);
+                return;
+            }
+            if (response.getErrorType() == ErrorType.BAD_STATE
+                || response.getErrorType() == ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR
+                && !isNonceError(response.getException())) {
+                /* rejected before using the nonce, hand it out again */
+                if (!retained) {
+                    release(nonces, nonce);
+                }
+                return;
+            }
+
+            nonces.outstanding.remove(nonce);
+            if (nonces.next != null) {
+                logger.info("Resyncing nonce of " + address + " after failed send of nonce "
+                    + nonce + ": " + response.getErrorType());
+                nonces.next = null;
+            }
+        }
+    }
+
+    /**
+     * Hand out an allocated nonce again, its transaction was not sent and will not be. Nonces not
+     * handed out, reported or released already are ignored.
+     *
+     * @param address sending address
+     * @param nonce   allocated
+     */
+    public void release(String address, BigInteger nonce) {
+        AddressNonces nonces = addresses.get(key(address));
+        if (nonces != null) {
+            synchronized (nonces) {
+                release(nonces, nonce);
+            }
+        }
+    }
+
+    private static void release(AddressNonces nonces, BigInteger nonce) {
+        if (nonces.outstanding.remove(nonce)) {
+            nonces.released.add(nonce);
+        }
+    }
+
+    /**
+     * Check if a nonce is handed out and its result not reported or released yet.
+     *
+     * @param address sending address
+     * @param nonce   to check
+     * @return true if the nonce is still allocated
+     */
+    public boolean isAllocated(String address, BigInteger nonce) {
+        AddressNonces nonces = addresses.get(key(address));
+        if (nonces == null) {
+            return false;
+        }
+        synchronized (nonces) {
+            return nonces.outstanding.contains(nonce);
+        }
+    }
+
+    /**
+     * Forget the nonces of an address, the next allocation seeds it from the node again, after
+     * the nonces still held.
+     *
+     * @param address to resync
+     */
+    public void resync(String address) {
+        AddressNonces nonces = addresses.get(key(address));
+        if (nonces != null) {
+            synchronized (nonces) {
+                nonces.next = null;
+            }
+        }
+    }
+
+    private static boolean isNonceError(Exception exception) {
+        if (exception == null || exception.getMessage() == null) {
+            return false;
+        }
+
+        String message = exception.getMessage().toLowerCase(Locale.ROOT);
+        for (String error : NONCE_ERRORS) {
+            if (message.contains(error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(String address) {
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Get the times addresses were seeded from the node.
+     *
+     * @return nonce rpc calls made
+     */
+    public long getSeeds() {
+        return seeds.get();
+    }
+
+    /**
+     * Get the nonces handed out again after a rejected send.
+     *
+     * @return reused nonces
+     */
+    public long getReused() {
+        return reused.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthSignedTransaction;
+import com.cegeka.tetherj.pojo.TransactionReceipt;
+
+import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * A transaction submitted to a {@link TransactionPipeline}, with stages for its hash and its
+ * receipt.
+ *
+ * @author Andrei Grigoriu
+ */
+public class PipelinedTransaction {
+
+    private final String from;
+    private final BigInteger nonce;
+    private final CompletableFuture<TetherjResponse<String>> hash = new CompletableFuture<>();
+    private final Function<String, CompletionStage<TetherjResponse<TransactionReceipt>>> tracker;
+
+    private CompletionStage<TetherjResponse<TransactionReceipt>> receipt;
+
+    /* set by the signing thread, read by the dispatcher after the state is published */
+    EthSignedTransaction signed;
+    volatile State state = State.SIGNING;
+
+    /**
+     * Pipeline states.
+     */
+    enum State {
+        SIGNING, SIGNED, FAILED
+    }
+
+    PipelinedTransaction(String from, BigInteger nonce,
+        Function<String, CompletionStage<TetherjResponse<TransactionReceipt>>> tracker) {
+        this.from = from;
+        this.nonce = nonce;
+        this.tracker = tracker;
+    }
+
+    void complete(TetherjResponse<String> response) {
+        hash.complete(response);
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public BigInteger getNonce() {
+        return nonce;
+    }
+
+    /**
+     * Get the stage of the send.
+     *
+     * @return stage completing with the transaction hash once the node accepted it, or the
+     *         failure of signing or sending
+     */
+    public CompletionStage<TetherjResponse<String>> getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the stage of the receipt, the receipt is tracked from the first call on.
+     *
+     * @return stage completing with the receipt once mined, or the failure of sending or
+     *         tracking
+     */
+    public synchronized CompletionStage<TetherjResponse<TransactionReceipt>> getReceipt() {
+        if (receipt == null) {
+            receipt = hash.thenCompose(response -> response.compose(tracker));
+        }
+        return receipt;
+    }
+}
@@ -0,0 +1,180 @@
+package com.cegeka.tetherj.api;
+
+import java.math.BigInteger;
+
+/**
+ * Poll delays shared by the pollers of a service, learned from the block cadence. Pollers report
+ * every block number they read, the scheduler keeps moving averages of the time between blocks
+ * and of its deviation, like a TCP round trip estimator, and the time the head last changed.
+ * Until the next block can be expected pollers sleep, within two deviations of the expected time
+ * they poll every twentieth of the block interval, and the later the block is past that the more
+ * they back off, within the minimum and maximum delay.
+ *
+ * <p>A block number up to {@value #MAX_LAG_BLOCKS} blocks behind the head is ignored, it comes
+ * from a replica lagging behind another one, for example behind a
+ * {@link com.cegeka.tetherj.transport.MultiEndpointTransport}. Deeper regressions, another
+ * node or fork, time the next change from the lower head once seen
+ * {@value #REGRESSIONS_TO_RESET} times in a row.
+ *
+ * <p>A scheduler with equal minimum and maximum delay is fixed, see {@link #fixed(long)}.
+ *
+ * @author Andrei Grigoriu
+ */
+public class PollScheduler {
+
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 100;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 5000;
+    public static final long DEFAULT_INITIAL_DELAY_MILLIS = 1000;
+
+    /* blocks behind the head ignored as a lagging replica */
+    public static final int MAX_LAG_BLOCKS = 2;
+    /* deeper regressions in a row before the head is reset */
+    public static final int REGRESSIONS_TO_RESET = 3;
+
+    /* weight of a new sample in the block interval average */
+    private static final double SMOOTHING = 0.25;
+
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final long initialDelayMillis;
+
+    /* guarded by this */
+    private BigInteger head;
+    private long headMillis;
+    private boolean headChangeSeen;
+    private int regressions;
+    private double blockIntervalMillis = -1;
+    private double deviationMillis;
+
+    /**
+     * Constructor with the default delays.
+     */
+    public PollScheduler() {
+        this(DEFAULT_MIN_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, DEFAULT_INITIAL_DELAY_MILLIS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param minDelayMillis     shortest delay between polls
+     * @param maxDelayMillis     longest delay between polls
+     * @param initialDelayMillis delay until the block interval is known
+     */
+    public PollScheduler(long minDelayMillis, long maxDelayMillis, long initialDelayMillis) {
+        if (minDelayMillis < 0 || maxDelayMillis < minDelayMillis) {
+            throw new IllegalArgumentException("Delays must satisfy 0 <= min <= max");
+        }
+
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    /**
+     * Create a scheduler that always delays the same.
+     *
+     * @param delayMillis delay between polls
+     * @return fixed scheduler
+     */
+    public static PollScheduler fixed(long delayMillis) {
+        return new PollScheduler(delayMillis, delayMillis, delayMillis);
+    }
+
+    /**
+     * Report a block number read from the node.
+     *
+     * @param blockNumber latest block number
+     */
+    public void observe(BigInteger blockNumber) {
+        observe(blockNumber, System.currentTimeMillis());
+    }
+
+    /**
+     * Report a block number read from the node at a time.
+     *
+     * @param blockNumber latest block number
+     * @param nowMillis   time it was read
+     */
+    public synchronized void observe(BigInteger blockNumber, long nowMillis) {
+        if (head != null && blockNumber.compareTo(head) < 0 && (head.subtract(blockNumber)
+            .compareTo(BigInteger.valueOf(MAX_LAG_BLOCKS)) <= 0
+            || ++regressions < REGRESSIONS_TO_RESET)) {
+            return;
+        }
+        regressions = 0;
+
+        if (head == null || blockNumber.compareTo(head) < 0) {
+            /* first sighting, or another node or fork, time the next change from here */
+            head = blockNumber;
+            headMillis = nowMillis;
+            headChangeSeen = false;
+            return;
+        }
+
+        int blocks = blockNumber.subtract(head).intValue();
+        if (blocks <= 0) {
+            return;
+        }
+
+        if (headChangeSeen) {
+            /* only time between two changes is a full block interval */
+            double sample = (double) (nowMillis - headMillis) / blocks;
+            if (blockIntervalMillis < 0) {
+                blockIntervalMillis = sample;
+                deviationMillis = sample / 4;
+            } else {
+                deviationMillis += SMOOTHING * (Math.abs(sample - blockIntervalMillis)
+                    - deviationMillis);
+                blockIntervalMillis += SMOOTHING * (sample - blockIntervalMillis);
+            }
+        }
+        head = blockNumber;
+        headMillis = nowMillis;
+        headChangeSeen = true;
+    }
+
+    /**
+     * Get the delay until the next poll.
+     *
+     * @return delay in milliseconds
+     */
+    public long delayMillis() {
+        return delayMillis(System.currentTimeMillis());
+    }
+
+    /**
+     * Get the delay until the next poll, at a time.
+     *
+     * @param nowMillis time to compute the delay from
+     * @return delay in milliseconds
+     */
+    public synchronized long delayMillis(long nowMillis) {
+        if (blockIntervalMillis < 0) {
+            return clamp(initialDelayMillis);
+        }
+
+        long step = (long) (blockIntervalMillis / 20);
+        long expected = headMillis + (long) blockIntervalMillis;
+        long spread = (long) (2 * deviationMillis);
+        if (nowMillis < expected - spread) {
+            return clamp(expected - spread - nowMillis);
+        }
+        if (nowMillis <= expected + spread) {
+            return clamp(step);
+        }
+        return clamp(step + (nowMillis - expected - spread) / 2);
+    }
+
+    private long clamp(long delayMillis) {
+        return Math.max(minDelayMillis, Math.min(maxDelayMillis, delayMillis));
+    }
+
+    /**
+     * Get the learned time between blocks.
+     *
+     * @return average block interval in milliseconds, -1 until two head changes were seen
+     */
+    public synchronized long getBlockIntervalMillis() {
+        return (long) blockIntervalMillis;
+    }
+}
@@ -1,5 +1,9 @@
 package com.cegeka.tetherj.api;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
 /**
  * Returned after a tetherj operation finishes.
  *
@@ -57,6 +61,35 @@ public class TetherjResponse<T> {
         return new TetherjResponse<>(failureResponse);
     }
 
+    /**
+     * Transform the value of a successful response, a failure is passed on.
+     *
+     * @param mapper Transforms the value.
+     * @return Response with the transformed value, or this failure.
+     */
+    public <U> TetherjResponse<U> map(Function<? super T, ? extends U> mapper) {
+        if (isFailure()) {
+            return failure(this);
+        }
+        return success(mapper.apply(value));
+    }
+
+    /**
+     * Continue with the next async operation if successful, a failure is passed on without
+     * running it. Chains completion stages of responses, for example
+     * {@code stage.thenCompose(response -> response.compose(next))}.
+     *
+     * @param next Async operation using the value.
+     * @return Stage of the next operation, or completed with this failure.
+     */
+    public <U> CompletionStage<TetherjResponse<U>> compose(
+            Function<? super T, ? extends CompletionStage<TetherjResponse<U>>> next) {
+        if (isFailure()) {
+            return CompletableFuture.completedFuture(failure(this));
+        }
+        return next.apply(value);
+    }
+
     /**
      * Construct response.
      * @param errorType Error type to set.
@@ -0,0 +1,300 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthRpcBatch;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthTransaction;
+import com.cegeka.tetherj.EthWallet;
+import com.cegeka.tetherj.pojo.TransactionReceipt;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Submits many transactions from a few senders at once. A submitted transaction gets its nonce
+ * from the {@link NonceManager} right away, in submission order per sender, and is signed on the
+ * signing executor, so signing fans out across cores. Signed transactions wait in a queue per
+ * sender ordered by nonce and are dispatched in that order, never before a lower nonce of the
+ * same sender that is still being signed. The dispatcher sends up to a batch size of them, taken
+ * round robin from the senders, as one json rpc batch of eth_sendRawTransaction calls, while
+ * signing goes on.
+ *
+ * <p>Send results are reported to the nonce manager, the nonce of a transaction that failed to
+ * sign or was rejected is handed out again to the next submission of its sender. Transactions of
+ * the sender with higher nonces that were already sent wait in the node's pool until it is. A
+ * resync of the sender's nonce continues after the transactions still queued, a queued
+ * transaction is never replaced by a new submission unless it failed.
+ *
+ * @author Andrei Grigoriu
+ */
+public class TransactionPipeline {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final Logger logger = LogManager.getLogger(TransactionPipeline.class);
+
+    private final EthRpcClient rpc;
+    private final NonceManager nonceManager;
+    private final Executor signingExecutor;
+    private final Executor dispatchExecutor;
+    private final int batchSize;
+    private final Function<String, CompletionStage<TetherjResponse<TransactionReceipt>>> tracker;
+
+    /* transactions per lower case sender by nonce, each map guarded by itself */
+    private final Map<String, TreeMap<BigInteger, PipelinedTransaction>> senders =
+        new ConcurrentHashMap<>();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param rpc              client to send with
+     * @param nonceManager     allocating the nonces
+     * @param signingExecutor  to sign on, for example a {@link java.util.concurrent.ForkJoinPool}
+     * @param dispatchExecutor to send the batches on, one at a time
+     * @param batchSize        most transactions sent in one batch
+     * @param tracker          to track the receipt of a transaction hash with
+     */
+    public TransactionPipeline(EthRpcClient rpc, NonceManager nonceManager,
+        Executor signingExecutor, Executor dispatchExecutor, int batchSize,
+        Function<String, CompletionStage<TetherjResponse<TransactionReceipt>>> tracker) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+
+        this.rpc = rpc;
+        this.nonceManager = nonceManager;
+        this.signingExecutor = signingExecutor;
+        this.dispatchExecutor = dispatchExecutor;
+        this.batchSize = batchSize;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Submit a transaction. Blocking only if the sender's nonce has to be seeded from the node.
+     *
+     * @param from        wallet to sign the transaction with
+     * @param transaction to send
+     * @return submitted transaction, with stages for its hash and receipt
+     * @throws JsonRpcClientException if seeding the sender's nonce failed
+     */
+    public PipelinedTransaction submit(EthWallet from, EthTransaction transaction)
+        throws JsonRpcClientException {
+        String address = from.getAddress();
+        TreeMap<BigInteger, PipelinedTransaction> queue = senders.computeIfAbsent(address
+            .toLowerCase(Locale.ROOT), key -> new TreeMap<>());
+        PipelinedTransaction pipelined = enqueue(queue, address);
+
+        try {
+            signingExecutor.execute(() -> sign(pipelined, from, transaction));
+        } catch (RejectedExecutionException ex) {
+            fail(pipelined, new TetherjResponse<>(ErrorType.BAD_STATE, ex));
+            signal();
+        }
+        return pipelined;
+    }
+
+    private PipelinedTransaction enqueue(TreeMap<BigInteger, PipelinedTransaction> queue,
+        String address) throws JsonRpcClientException {
+        BigInteger pendingCount = null;
+        while (true) {
+            synchronized (queue) {
+                /* allocated and queued together, the queue order is the nonce order */
+                PipelinedTransaction pipelined = tryEnqueue(queue, address, pendingCount);
+                if (pipelined != null) {
+                    return pipelined;
+                }
+            }
+
+            /* seeded outside the lock, the dispatcher keeps collecting meanwhile */
+            pendingCount = rpc.getAccountNonceWithPending(address);
+        }
+    }
+
+    /**
+     * Allocate a nonce and queue a transaction with it, the caller holds the queue.
+     *
+     * @return queued transaction, null if the sender needs seeding first
+     */
+    private PipelinedTransaction tryEnqueue(TreeMap<BigInteger, PipelinedTransaction> queue,
+        String address, BigInteger pendingCount) {
+        BigInteger nonce = pendingCount == null ? nonceManager.tryAllocate(address)
+            : nonceManager.allocate(address, pendingCount);
+        PipelinedTransaction queuedWithNonce;
+        while (nonce != null && (queuedWithNonce = queue.get(nonce)) != null
+            && queuedWithNonce.state != PipelinedTransaction.State.FAILED) {
+            /* still held by a queued transaction, which reports it */
+            logger.warn("Nonce " + nonce + " of " + address + " is still queued, skipping it");
+            nonce = nonceManager.tryAllocate(address);
+        }
+        if (nonce == null) {
+            return null;
+        }
+
+        PipelinedTransaction pipelined = new PipelinedTransaction(address, nonce, tracker);
+        if (queue.put(nonce, pipelined) == null) {
+            /* else it replaced the failed transaction the nonce was released by */
+            queued.incrementAndGet();
+        }
+        return pipelined;
+    }
+
+    private void sign(PipelinedTransaction pipelined, EthWallet from,
+        EthTransaction transaction) {
+        try {
+            pipelined.signed = transaction.signWithWallet(from, pipelined.getNonce());
+            pipelined.state = PipelinedTransaction.State.SIGNED;
+        } catch (WalletLockedException ex) {
+            fail(pipelined, new TetherjResponse<>(ErrorType.BAD_STATE, ex));
+        } catch (RuntimeException ex) {
+            fail(pipelined, new TetherjResponse<>(ErrorType.UNKNOWN_ERROR, ex));
+        }
+        signal();
+    }
+
+    private void fail(PipelinedTransaction pipelined, TetherjResponse<String> response) {
+        pipelined.state = PipelinedTransaction.State.FAILED;
+        nonceManager.report(pipelined.getFrom(), pipelined.getNonce(), response);
+        pipelined.complete(response);
+    }
+
+    private void signal() {
+        if (drainers.getAndIncrement() == 0) {
+            try {
+                dispatchExecutor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                logger.warn("Executor rejected transaction dispatch, dispatching blocking", ex);
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Send batches while transactions are ready. Only one thread drains at a time, a signal
+     * while draining leaves it one more pass.
+     */
+    private void drain() {
+        int missed = 1;
+        do {
+            List<PipelinedTransaction> batch;
+            while (!(batch = collect()).isEmpty()) {
+                send(batch);
+            }
+            missed = drainers.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Take the next signed transactions in nonce order, one per sender per round.
+     */
+    private List<PipelinedTransaction> collect() {
+        List<PipelinedTransaction> batch = new ArrayList<>();
+        boolean progress = true;
+        while (progress && batch.size() < batchSize) {
+            progress = false;
+            for (TreeMap<BigInteger, PipelinedTransaction> queue : senders.values()) {
+                if (batch.size() >= batchSize) {
+                    break;
+                }
+
+                synchronized (queue) {
+                    Map.Entry<BigInteger, PipelinedTransaction> head;
+                    while ((head = queue.firstEntry()) != null
+                        && head.getValue().state == PipelinedTransaction.State.FAILED) {
+                        queue.pollFirstEntry();
+                        queued.decrementAndGet();
+                    }
+
+                    if (head != null && head.getValue().state
+                        == PipelinedTransaction.State.SIGNED) {
+                        batch.add(queue.pollFirstEntry().getValue());
+                        queued.decrementAndGet();
+                        progress = true;
+                    }
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void send(List<PipelinedTransaction> batch) {
+        EthRpcBatch rpcBatch = rpc.newBatch();
+        List<CompletableFuture<String>> hashes = new ArrayList<>();
+        for (PipelinedTransaction pipelined : batch) {
+            hashes.add(rpcBatch.add(EthRpcClient.sendRawTransactionRequest(pipelined.signed
+                .getSignedEncodedData())));
+        }
+
+        RuntimeException batchError = null;
+        try {
+            rpcBatch.execute();
+        } catch (RuntimeException ex) {
+            logger.warn("Sending transaction batch failed", ex);
+            batchError = ex;
+        }
+        batches.incrementAndGet();
+
+        for (int i = 0; i < batch.size(); i++) {
+            TetherjResponse<String> response;
+            if (batchError != null) {
+                response = EthereumService.failureResponse(batchError);
+            } else {
+                try {
+                    response = TetherjResponse.success(EthRpcBatch.getResult(hashes.get(i)));
+                    sent.incrementAndGet();
+                } catch (RuntimeException ex) {
+                    response = EthereumService.failureResponse(ex);
+                }
+            }
+
+            PipelinedTransaction pipelined = batch.get(i);
+            nonceManager.report(pipelined.getFrom(), pipelined.getNonce(), response);
+            pipelined.complete(response);
+        }
+    }
+
+    /**
+     * Get the transactions submitted but not dispatched yet.
+     *
+     * @return transactions signing or waiting for a lower nonce or the dispatcher
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Get the batches sent so far.
+     *
+     * @return eth_sendRawTransaction batches
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Get the transactions the node accepted so far.
+     *
+     * @return transactions sent successfully
+     */
+    public long getSent() {
+        return sent.get();
+    }
+}
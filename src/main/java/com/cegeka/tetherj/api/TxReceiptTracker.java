@@ -0,0 +1,329 @@
+package com.cegeka.tetherj.api;
+
+import com.cegeka.tetherj.EthRpcBatch;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.pojo.Block;
+import com.cegeka.tetherj.pojo.TransactionReceipt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shared receipt tracker for pending transactions. Instead of polling the receipt of every
+ * transaction, the tracker polls the latest block number once per interval. Every new block is
+ * fetched once (transaction hashes only) and matched against all pending hashes, and only the
+ * receipts of matched transactions are fetched. Newly tracked hashes get one receipt check, in
+ * case they were mined already. All requests of a pass are sent as json rpc batches.
+ *
+ * <p>Rpc errors during a pass are retried on the next pass, until the handle times out. A hash
+ * matched in a block is checked again on every pass until its receipt is served, the node
+ * serving the receipt may lag behind the one serving the block. The last block seen only moves
+ * forward once the receipts of its matches were checked.
+ *
+ * @author Andrei Grigoriu
+ */
+public class TxReceiptTracker {
+
+    /**
+     * Max new blocks fetched in one pass, on larger gaps all pending receipts are checked.
+     */
+    public static final int MAX_BLOCKS_PER_PASS = 50;
+
+    private static final Logger logger = LogManager.getLogger(TxReceiptTracker.class);
+
+    private final EthRpcClient rpc;
+    private final ScheduledExecutorService executor;
+    private final PollScheduler scheduler;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Queue<String> fresh = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /* only touched by the pass in progress */
+    private BigInteger lastBlock;
+    private final Set<String> retry = new LinkedHashSet<>();
+
+    /**
+     * Constructor.
+     *
+     * @param rpc                 client to poll with
+     * @param executor            to run the passes on
+     * @param checkIntervalMillis interval between passes
+     */
+    public TxReceiptTracker(EthRpcClient rpc, ScheduledExecutorService executor,
+            long checkIntervalMillis) {
+        this(rpc, executor, PollScheduler.fixed(checkIntervalMillis));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param rpc       client to poll with
+     * @param executor  to run the passes on
+     * @param scheduler deciding the delay between passes
+     */
+    public TxReceiptTracker(EthRpcClient rpc, ScheduledExecutorService executor,
+            PollScheduler scheduler) {
+        this.rpc = rpc;
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Track a transaction. The handle is called once, with the receipt when the transaction is
+     * mined (or was already mined) or with an {@link ErrorType#OPERATION_TIMEOUT}.
+     *
+     * @param txHash        transaction hash to track
+     * @param timeoutMillis until the handle times out
+     * @param handle        to call with the receipt
+     */
+    public void track(String txHash, long timeoutMillis,
+            TetherjHandle<TransactionReceipt> handle) {
+        String key = txHash.toLowerCase(Locale.ROOT);
+        Waiter waiter = new Waiter(handle, System.currentTimeMillis() + timeoutMillis);
+
+        pending.compute(key, (hash, entry) -> {
+            if (entry == null) {
+                entry = new Pending();
+                fresh.add(hash);
+            }
+            entry.waiters.add(waiter);
+            return entry;
+        });
+
+        schedule(0);
+    }
+
+    /**
+     * @return Returns number of tracked transactions without receipt.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void schedule(long delayMillis) {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.schedule(this::run, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            scheduled.set(false);
+            timeoutAll();
+        }
+    }
+
+    private void run() {
+        try {
+            pass(System.currentTimeMillis());
+        } catch (RuntimeException ex) {
+            logger.warn("Receipt tracker pass failed, retrying: " + ex.getMessage());
+        } finally {
+            scheduled.set(false);
+            if (!pending.isEmpty()) {
+                schedule(scheduler.delayMillis());
+            }
+        }
+    }
+
+    private void pass(long now) {
+        expire(now);
+        if (pending.isEmpty()) {
+            fresh.clear();
+            retry.clear();
+            return;
+        }
+
+        retry.retainAll(pending.keySet());
+        Set<String> candidates = new LinkedHashSet<>(retry);
+        retry.clear();
+        String hash;
+        while ((hash = fresh.poll()) != null) {
+            candidates.add(hash);
+        }
+
+        try {
+            BigInteger head = rpc.getLatestBlockNumber();
+            scheduler.observe(head);
+
+            BigInteger matched = lastBlock;
+            if (lastBlock == null || head.subtract(lastBlock)
+                    .compareTo(BigInteger.valueOf(MAX_BLOCKS_PER_PASS)) > 0) {
+                candidates.addAll(pending.keySet());
+                /* checked now, no need for their fresh check next pass */
+                fresh.removeAll(candidates);
+                matched = head;
+            } else if (head.compareTo(lastBlock) > 0) {
+                matched = matchNewBlocks(head, candidates);
+            }
+
+            checkReceipts(candidates);
+            lastBlock = matched;
+        } catch (RuntimeException ex) {
+            retry.addAll(candidates);
+            throw ex;
+        }
+    }
+
+    /**
+     * Fetch blocks after the last seen block up to head, adding matched pending hashes to the
+     * candidates.
+     *
+     * @return Returns the last block fetched.
+     */
+    private BigInteger matchNewBlocks(BigInteger head, Set<String> candidates) {
+        EthRpcBatch batch = rpc.newBatch();
+        List<CompletableFuture<Block>> blocks = new ArrayList<>();
+        for (BigInteger number = lastBlock.add(BigInteger.ONE); number.compareTo(head) <= 0;
+                number = number.add(BigInteger.ONE)) {
+            blocks.add(batch.add(EthRpcClient.getBlockByNumberRequest(number)));
+        }
+        batch.execute();
+
+        BigInteger lastFetched = lastBlock;
+        for (CompletableFuture<Block> future : blocks) {
+            Block block = EthRpcBatch.getResult(future);
+            if (block == null) {
+                /* not served by the node yet, continue from here next pass */
+                break;
+            }
+
+            if (block.getTransactions() != null) {
+                for (String txHash : block.getTransactions()) {
+                    String key = txHash.toLowerCase(Locale.ROOT);
+                    Pending entry = pending.get(key);
+                    if (entry != null) {
+                        entry.mined = true;
+                        candidates.add(key);
+                    }
+                }
+            }
+            lastFetched = lastFetched.add(BigInteger.ONE);
+        }
+
+        return lastFetched;
+    }
+
+    /**
+     * Fetch the receipts of the candidates, keeping the ones that failed or are mined but not
+     * served yet for the next pass.
+     */
+    private void checkReceipts(Set<String> candidates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        EthRpcBatch batch = rpc.newBatch();
+        List<String> hashes = new ArrayList<>(candidates);
+        List<CompletableFuture<TransactionReceipt>> receipts = new ArrayList<>();
+        for (String txHash : hashes) {
+            receipts.add(batch.add(EthRpcClient.getTransactionReceiptRequest(txHash)));
+        }
+        batch.execute();
+
+        for (int i = 0; i < hashes.size(); i++) {
+            TransactionReceipt receipt;
+            try {
+                receipt = EthRpcBatch.getResult(receipts.get(i));
+            } catch (RuntimeException ex) {
+                retry.add(hashes.get(i));
+                continue;
+            }
+
+            if (receipt != null && receipt.getBlockNumber() != null) {
+                complete(hashes.get(i), TetherjResponse.success(receipt));
+            } else {
+                Pending entry = pending.get(hashes.get(i));
+                if (entry != null && entry.mined) {
+                    retry.add(hashes.get(i));
+                }
+            }
+        }
+    }
+
+    private void expire(long now) {
+        for (String hash : pending.keySet()) {
+            List<Waiter> expired = new ArrayList<>();
+
+            pending.computeIfPresent(hash, (key, entry) -> {
+                entry.waiters.removeIf(waiter -> {
+                    if (waiter.deadlineMillis <= now) {
+                        expired.add(waiter);
+                        return true;
+                    }
+                    return false;
+                });
+                return entry.waiters.isEmpty() ? null : entry;
+            });
+
+            for (Waiter waiter : expired) {
+                call(waiter, timeoutResponse());
+            }
+        }
+    }
+
+    private void timeoutAll() {
+        for (String hash : pending.keySet()) {
+            complete(hash, timeoutResponse());
+        }
+    }
+
+    private void complete(String hash, TetherjResponse<TransactionReceipt> response) {
+        Pending entry = pending.remove(hash);
+        if (entry != null) {
+            for (Waiter waiter : entry.waiters) {
+                call(waiter, response);
+            }
+        }
+    }
+
+    private static void call(Waiter waiter, TetherjResponse<TransactionReceipt> response) {
+        try {
+            waiter.handle.call(response);
+        } catch (RuntimeException ex) {
+            logger.error("Receipt handle failed", ex);
+        }
+    }
+
+    private static TetherjResponse<TransactionReceipt> timeoutResponse() {
+        return new TetherjResponse<>(ErrorType.OPERATION_TIMEOUT, new TxReceiptTimeoutException());
+    }
+
+    /**
+     * Handles waiting for the receipt of one transaction.
+     */
+    private static class Pending {
+        private final List<Waiter> waiters = new ArrayList<>();
+        /* matched in a block, only touched by passes */
+        private boolean mined;
+    }
+
+    /**
+     * Handle with its deadline.
+     */
+    private static class Waiter {
+        private final TetherjHandle<TransactionReceipt> handle;
+        private final long deadlineMillis;
+
+        Waiter(TetherjHandle<TransactionReceipt> handle, long deadlineMillis) {
+            this.handle = handle;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
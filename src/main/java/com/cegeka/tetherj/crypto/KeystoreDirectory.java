@@ -0,0 +1,588 @@
+package com.cegeka.tetherj.crypto;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Directory of V3 keystore files with a persistent index from address to file, so a wallet is
+ * found without parsing every keystore.
+ *
+ * <p>The index is two files in the directory. The log, {@value #LOG_FILE}, is appended a record
+ * of address and file name for each keystore indexed, it is the durable part and the set of
+ * indexed files. The table, {@value #TABLE_FILE}, is a memory mapped open addressing hash table
+ * from address to the position of its latest log record, looked up in constant time. On opening
+ * only the log is read, no keystore, and the table is rebuilt from it if it does not match.
+ * Keystores not indexed yet are parsed in parallel on a fork join pool and appended.
+ *
+ * <p>The index of a directory is open by one instance at a time, in this or another process:
+ * opening holds an exclusive lock on the log until closed, and fails if the lock is held.
+ *
+ * <p>Files deleted from the directory stay in the index, looking them up finds nothing. Files that
+ * are not a keystore are logged and skipped once, they are parsed again only once modified.
+ *
+ * @author Andrei Grigoriu
+ */
+public class KeystoreDirectory implements Closeable {
+
+    public static final String LOG_FILE = ".address-log";
+    public static final String TABLE_FILE = ".address-table";
+
+    private static final Logger logger = LogManager.getLogger(KeystoreDirectory.class);
+
+    /* "KSIX" */
+    private static final int MAGIC = 0x4b534958;
+    private static final int VERSION = 1;
+
+    /* magic, version, capacity, used slots, log records applied */
+    private static final int HEADER_BYTES = 20;
+    private static final int CAPACITY_AT = 8;
+    private static final int USED_AT = 12;
+    private static final int RECORDS_AT = 16;
+
+    private static final int ADDRESS_BYTES = 20;
+    /* address, then log position + 1, 0 for an empty slot */
+    private static final int SLOT_BYTES = ADDRESS_BYTES + 8;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /* keystores parsed by one task */
+    private static final int TASK_SIZE = 32;
+
+    private final File directory;
+    private final ForkJoinPool pool;
+    private final FileChannel log;
+
+    /* guarded by this */
+    private final Set<String> indexed = new HashSet<>();
+    /* files that are not a keystore, by name, to their modification time */
+    private final Map<String, Long> rejected = new HashMap<>();
+    private long logSize;
+    private FileChannel tableChannel;
+    private MappedByteBuffer table;
+    private int capacity;
+
+    private final AtomicLong parsed = new AtomicLong();
+
+    /**
+     * Record of the log.
+     */
+    private static class Record {
+        final byte[] address;
+        final long position;
+
+        Record(byte[] address, long position) {
+            this.address = address;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Open the index of a directory, without indexing new keystores, see {@link #refresh()}.
+     *
+     * @param directory of keystore files
+     * @param pool      to parse keystores on
+     * @throws IOException if the index can not be read or written, or is open elsewhere
+     */
+    public KeystoreDirectory(File directory, ForkJoinPool pool) throws IOException {
+        this.directory = directory;
+        this.pool = pool;
+        this.log = FileChannel.open(new File(directory, LOG_FILE).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            lockLog();
+            List<Record> records = readLog();
+            if (!mapTable(records.size())) {
+                logger.info("Rebuilding keystore index of " + directory + " from "
+                    + records.size() + " records");
+                buildTable(records);
+            }
+        } catch (IOException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Open the index of a directory and index the keystores added since it was last open.
+     *
+     * @param directory of keystore files
+     * @param pool      to parse keystores on
+     * @return open directory
+     * @throws IOException if the index can not be read or written, or is open elsewhere
+     */
+    public static KeystoreDirectory open(File directory, ForkJoinPool pool) throws IOException {
+        KeystoreDirectory keystores = new KeystoreDirectory(directory, pool);
+        try {
+            keystores.refresh();
+        } catch (IOException | RuntimeException ex) {
+            keystores.close();
+            throw ex;
+        }
+        return keystores;
+    }
+
+    /**
+     * Lock the log for this instance, released when the log is closed.
+     */
+    private void lockLog() throws IOException {
+        FileLock lock;
+        try {
+            lock = log.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            /* held by another instance in this process */
+            lock = null;
+        }
+
+        if (lock == null) {
+            throw new IOException("Keystore index of " + directory
+                + " is in use by another process or instance");
+        }
+    }
+
+    /**
+     * Read the log, dropping a record torn by a crash at its end.
+     */
+    private List<Record> readLog() throws IOException {
+        List<Record> records = new ArrayList<>();
+        long position = 0;
+        log.position(0);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(log)));
+        try {
+            while (true) {
+                byte[] address = new byte[ADDRESS_BYTES];
+                input.readFully(address);
+                byte[] name = new byte[input.readUnsignedShort()];
+                input.readFully(name);
+
+                indexed.add(new String(name, StandardCharsets.UTF_8));
+                records.add(new Record(address, position));
+                position += ADDRESS_BYTES + 2 + name.length;
+            }
+        } catch (EOFException ex) {
+            /* end of the log, or of its last complete record */
+        }
+
+        if (position < log.size()) {
+            logger.warn("Truncating torn keystore index record at " + position);
+            log.truncate(position);
+        }
+        logSize = position;
+        return records;
+    }
+
+    /**
+     * Map the table if it is complete and up to date with the log.
+     */
+    private boolean mapTable(int records) throws IOException {
+        File file = new File(directory, TABLE_FILE);
+        if (!file.isFile() || file.length() < HEADER_BYTES) {
+            return false;
+        }
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        int mappedCapacity = mapped.getInt(CAPACITY_AT);
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION
+            || Integer.bitCount(mappedCapacity) != 1
+            || channel.size() != HEADER_BYTES + (long) mappedCapacity * SLOT_BYTES
+            || mapped.getInt(RECORDS_AT) != records) {
+            channel.close();
+            return false;
+        }
+
+        tableChannel = channel;
+        table = mapped;
+        capacity = mappedCapacity;
+        return true;
+    }
+
+    private void buildTable(List<Record> records) throws IOException {
+        int size = INITIAL_CAPACITY;
+        while (size < records.size() * 2) {
+            size <<= 1;
+        }
+
+        MappedByteBuffer built = createTable(size);
+        for (Record record : records) {
+            put(built, size, record.address, record.position);
+        }
+        built.putInt(RECORDS_AT, records.size());
+        replaceTable(built, size);
+    }
+
+    /**
+     * Double the table, rehashing the slots of the current one.
+     */
+    private void growTable() throws IOException {
+        int size = capacity << 1;
+        MappedByteBuffer grown = createTable(size);
+        byte[] address = new byte[ADDRESS_BYTES];
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            long position = table.getLong(at + ADDRESS_BYTES);
+            if (position != 0) {
+                readAddress(table, at, address);
+                put(grown, size, address, position - 1);
+            }
+        }
+        grown.putInt(RECORDS_AT, table.getInt(RECORDS_AT));
+        replaceTable(grown, size);
+    }
+
+    private MappedByteBuffer createTable(int size) throws IOException {
+        FileChannel channel = FileChannel.open(new File(directory, TABLE_FILE + ".tmp").toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer created = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + (long) size * SLOT_BYTES);
+            created.putInt(0, MAGIC);
+            created.putInt(4, VERSION);
+            created.putInt(CAPACITY_AT, size);
+            return created;
+        } finally {
+            /* the mapping stays valid */
+            channel.close();
+        }
+    }
+
+    private void replaceTable(MappedByteBuffer replacement, int size) throws IOException {
+        replacement.force();
+        Files.move(new File(directory, TABLE_FILE + ".tmp").toPath(),
+            new File(directory, TABLE_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        if (tableChannel != null) {
+            tableChannel.close();
+            tableChannel = null;
+        }
+        table = replacement;
+        capacity = size;
+    }
+
+    /**
+     * Point an address at a log position, a new address takes an empty slot.
+     *
+     * @return true if the address took a new slot
+     */
+    private static boolean put(MappedByteBuffer buffer, int size, byte[] address,
+        long position) {
+        byte[] slotAddress = new byte[ADDRESS_BYTES];
+        for (int slot = hash(address) & (size - 1); ; slot = (slot + 1) & (size - 1)) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            boolean empty = buffer.getLong(at + ADDRESS_BYTES) == 0;
+            if (!empty) {
+                readAddress(buffer, at, slotAddress);
+            }
+            if (empty || Arrays.equals(slotAddress, address)) {
+                for (int i = 0; i < ADDRESS_BYTES; i++) {
+                    buffer.put(at + i, address[i]);
+                }
+                buffer.putLong(at + ADDRESS_BYTES, position + 1);
+                if (empty) {
+                    buffer.putInt(USED_AT, buffer.getInt(USED_AT) + 1);
+                }
+                return empty;
+            }
+        }
+    }
+
+    private static void readAddress(MappedByteBuffer buffer, int at, byte[] address) {
+        for (int i = 0; i < ADDRESS_BYTES; i++) {
+            address[i] = buffer.get(at + i);
+        }
+    }
+
+    /* addresses are hashes already */
+    private static int hash(byte[] address) {
+        return (address[0] & 0xff) << 24 | (address[1] & 0xff) << 16 | (address[2] & 0xff) << 8
+            | address[3] & 0xff;
+    }
+
+    /**
+     * Index the keystores of the directory not indexed yet, parsing them in parallel.
+     *
+     * @return keystores added to the index
+     * @throws IOException if the index can not be written
+     */
+    public int refresh() throws IOException {
+        File[] files = directory.listFiles(file -> file.isFile()
+            && !file.getName().startsWith("."));
+        if (files == null) {
+            throw new IOException("Can not list " + directory);
+        }
+
+        List<File> added = new ArrayList<>();
+        synchronized (this) {
+            for (File file : files) {
+                if (!indexed.contains(file.getName()) && !isRejected(file)) {
+                    added.add(file);
+                }
+            }
+        }
+        if (added.isEmpty()) {
+            return 0;
+        }
+
+        File[] parsing = added.toArray(new File[0]);
+        long[] modified = new long[parsing.length];
+        for (int i = 0; i < parsing.length; i++) {
+            modified[i] = parsing[i].lastModified();
+        }
+        WalletStoragePojoV3[] storages = new WalletStoragePojoV3[parsing.length];
+        pool.invoke(new ParseTask(parsing, storages, 0, parsing.length));
+
+        int count = 0;
+        synchronized (this) {
+            for (int i = 0; i < parsing.length; i++) {
+                if (storages[i] != null && append(parsing[i].getName(), storages[i])) {
+                    count++;
+                } else {
+                    reject(parsing[i].getName(), modified[i]);
+                }
+            }
+            log.force(false);
+            table.force();
+        }
+        return count;
+    }
+
+    private class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final File[] files;
+        private final WalletStoragePojoV3[] storages;
+        private final int from;
+        private final int to;
+
+        ParseTask(File[] files, WalletStoragePojoV3[] storages, int from, int to) {
+            this.files = files;
+            this.storages = storages;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    storages[i] = parse(files[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(files, storages, from, middle),
+                    new ParseTask(files, storages, middle, to));
+            }
+        }
+    }
+
+    private WalletStoragePojoV3 parse(File file) {
+        parsed.incrementAndGet();
+        try {
+            return WalletStoragePojoV3.readWalletFromFile(file);
+        } catch (IOException ex) {
+            logger.warn("Skipping " + file + ", not a readable keystore: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Check if a file was rejected as keystore and not modified since. Guarded by this.
+     */
+    private boolean isRejected(File file) {
+        Long modified = rejected.get(file.getName());
+        return modified != null && modified == file.lastModified();
+    }
+
+    /**
+     * Remember a file that is not a keystore, unless it was indexed meanwhile. Guarded by this.
+     */
+    private void reject(String name, long modified) {
+        if (!indexed.contains(name)) {
+            rejected.put(name, modified);
+        }
+    }
+
+    /**
+     * Index one keystore file of the directory, for example one just written.
+     *
+     * @param file keystore in the directory
+     * @return true if it was indexed, false if it was already or is not a keystore
+     * @throws IOException if the index can not be written
+     */
+    public boolean add(File file) throws IOException {
+        File keystore = new File(directory, file.getName());
+        synchronized (this) {
+            if (indexed.contains(file.getName()) || isRejected(keystore)) {
+                return false;
+            }
+        }
+
+        final long modified = keystore.lastModified();
+        WalletStoragePojoV3 storage = parse(keystore);
+        synchronized (this) {
+            if (storage != null && append(file.getName(), storage)) {
+                return true;
+            }
+            reject(file.getName(), modified);
+            return false;
+        }
+    }
+
+    /**
+     * Append a keystore to the log and point its address at it. Guarded by this.
+     */
+    private boolean append(String name, WalletStoragePojoV3 storage) throws IOException {
+        byte[] address = toAddress(storage.getAddress());
+        if (address == null || indexed.contains(name)) {
+            return false;
+        }
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(ADDRESS_BYTES + 2 + nameBytes.length);
+        record.put(address).putShort((short) nameBytes.length).put(nameBytes).flip();
+        long position = logSize;
+        while (record.hasRemaining()) {
+            log.write(record, logSize + record.position());
+        }
+        logSize += record.limit();
+        indexed.add(name);
+
+        if ((table.getInt(USED_AT) + 1) * 2 > capacity) {
+            growTable();
+        }
+        put(table, capacity, address, position);
+        table.putInt(RECORDS_AT, table.getInt(RECORDS_AT) + 1);
+        return true;
+    }
+
+    /**
+     * Find the keystore file of an address.
+     *
+     * @param address hex, with or without 0x
+     * @return keystore file, null if none is indexed or it was deleted
+     * @throws IOException if the index can not be read
+     */
+    public synchronized File find(String address) throws IOException {
+        byte[] key = toAddress(address);
+        if (key == null) {
+            return null;
+        }
+
+        byte[] slotAddress = new byte[ADDRESS_BYTES];
+        for (int slot = hash(key) & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            long position = table.getLong(at + ADDRESS_BYTES);
+            if (position == 0) {
+                return null;
+            }
+
+            readAddress(table, at, slotAddress);
+            if (Arrays.equals(slotAddress, key)) {
+                File file = new File(directory, readName(position - 1));
+                return file.isFile() ? file : null;
+            }
+        }
+    }
+
+    private String readName(long position) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(2);
+        readFully(length, position + ADDRESS_BYTES);
+        ByteBuffer name = ByteBuffer.allocate(length.getShort(0) & 0xffff);
+        readFully(name, position + ADDRESS_BYTES + 2);
+        return new String(name.array(), StandardCharsets.UTF_8);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Keystore index log ends at " + position);
+            }
+        }
+    }
+
+    /**
+     * Load the keystore of an address.
+     *
+     * @param address hex, with or without 0x
+     * @return storage, null if none is indexed
+     * @throws IOException if the index or the keystore can not be read
+     */
+    public WalletStoragePojoV3 load(String address) throws IOException {
+        File file = find(address);
+        return file != null ? WalletStoragePojoV3.loadWalletFromFile(file) : null;
+    }
+
+    private static byte[] toAddress(String address) {
+        if (address == null) {
+            return null;
+        }
+
+        String hex = address.toLowerCase(Locale.ROOT);
+        if (hex.startsWith("0x")) {
+            hex = hex.substring(2);
+        }
+        if (hex.length() != ADDRESS_BYTES * 2 || !hex.matches("[0-9a-f]+")) {
+            return null;
+        }
+        return CryptoUtil.hexToBytes(hex);
+    }
+
+    /**
+     * Get the number of addresses indexed.
+     *
+     * @return distinct addresses
+     */
+    public synchronized int size() {
+        return table.getInt(USED_AT);
+    }
+
+    /**
+     * Get the keystore files parsed since opening.
+     *
+     * @return files parsed
+     */
+    public long getParsed() {
+        return parsed.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (table != null) {
+            table.force();
+        }
+        if (tableChannel != null) {
+            tableChannel.close();
+        }
+        log.close();
+    }
+}
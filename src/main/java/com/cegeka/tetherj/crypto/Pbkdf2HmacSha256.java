@@ -0,0 +1,235 @@
+package com.cegeka.tetherj.crypto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PBKDF2 (RFC 2898) with HMAC-SHA256 as the pseudo random function, on its own SHA-256
+ * compression function. The HMAC inner and outer pad states are computed once per derivation,
+ * after that every iteration is two compressions of a single padded block on int words, without
+ * allocating.
+ *
+ * @author Andrei Grigoriu
+ */
+public final class Pbkdf2HmacSha256 {
+
+    private static final int BLOCK_BYTES = 64;
+    private static final int DIGEST_BYTES = 32;
+
+    /* bit length of an HMAC message over a digest: pad block plus digest */
+    private static final int DIGEST_MESSAGE_BITS = (BLOCK_BYTES + DIGEST_BYTES) * 8;
+
+    private static final int[] INITIAL_STATE = { 0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+        0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19 };
+
+    private static final int[] ROUND_CONSTANTS = { 0x428a2f98, 0x71374491, 0xb5c0fbcf,
+        0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5, 0xd807aa98, 0x12835b01,
+        0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174, 0xe49b69c1,
+        0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+        0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351,
+        0x14292967, 0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb,
+        0x81c2c92e, 0x92722c85, 0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819,
+        0xd6990624, 0xf40e3585, 0x106aa070, 0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5,
+        0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3, 0x748f82ee, 0x78a5636f, 0x84c87814,
+        0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2 };
+
+    private Pbkdf2HmacSha256() {
+    }
+
+    /**
+     * Derive a key from a passphrase, encoded as UTF-8.
+     *
+     * @param passphrase to derive from
+     * @param salt       of the derivation
+     * @param iterations count, at least 1
+     * @param keyLength  of the derived key in bytes, at least 1
+     * @return derived key
+     */
+    public static byte[] derive(String passphrase, byte[] salt, int iterations, int keyLength) {
+        return derive(passphrase.getBytes(StandardCharsets.UTF_8), salt, iterations, keyLength);
+    }
+
+    /**
+     * Derive a key.
+     *
+     * @param password   to derive from
+     * @param salt       of the derivation
+     * @param iterations count, at least 1
+     * @param keyLength  of the derived key in bytes, at least 1
+     * @return derived key
+     */
+    public static byte[] derive(byte[] password, byte[] salt, int iterations, int keyLength) {
+        if (iterations < 1 || keyLength < 1) {
+            throw new IllegalArgumentException("Iterations and key length must be at least 1");
+        }
+
+        final int[] words = new int[64];
+        int[] innerState = new int[8];
+        int[] outerState = new int[8];
+        padStates(password, innerState, outerState, words);
+
+        byte[] saltBlock = new byte[salt.length + 4];
+        System.arraycopy(salt, 0, saltBlock, 0, salt.length);
+
+        int[] state = new int[8];
+        int[] block = new int[8];
+        byte[] derived = new byte[keyLength];
+        for (int index = 1; (index - 1) * DIGEST_BYTES < keyLength; index++) {
+            putInt(saltBlock, salt.length, index);
+            hmac(innerState, outerState, saltBlock, state, words);
+            System.arraycopy(state, 0, block, 0, 8);
+
+            for (int i = 1; i < iterations; i++) {
+                /* hmac of the previous digest, words 8 to 15 still hold its padding */
+                System.arraycopy(state, 0, words, 0, 8);
+                System.arraycopy(innerState, 0, state, 0, 8);
+                compress(state, words);
+
+                System.arraycopy(state, 0, words, 0, 8);
+                System.arraycopy(outerState, 0, state, 0, 8);
+                compress(state, words);
+
+                for (int j = 0; j < 8; j++) {
+                    block[j] ^= state[j];
+                }
+            }
+
+            int offset = (index - 1) * DIGEST_BYTES;
+            for (int j = 0; j < 8 && offset + j * 4 < keyLength; j++) {
+                for (int b = 0; b < 4 && offset + j * 4 + b < keyLength; b++) {
+                    derived[offset + j * 4 + b] = (byte) (block[j] >>> (24 - b * 8));
+                }
+            }
+        }
+        return derived;
+    }
+
+    /**
+     * Compute the states after the key xor the inner and outer pads.
+     */
+    private static void padStates(byte[] password, int[] innerState, int[] outerState,
+        int[] words) {
+        byte[] key = new byte[BLOCK_BYTES];
+        if (password.length > BLOCK_BYTES) {
+            int[] hashed = new int[8];
+            digest(INITIAL_STATE, 0, password, hashed, words);
+            for (int j = 0; j < 8; j++) {
+                putInt(key, j * 4, hashed[j]);
+            }
+        } else {
+            System.arraycopy(password, 0, key, 0, password.length);
+        }
+
+        System.arraycopy(INITIAL_STATE, 0, innerState, 0, 8);
+        System.arraycopy(INITIAL_STATE, 0, outerState, 0, 8);
+        compressPadded(innerState, key, 0x36, words);
+        compressPadded(outerState, key, 0x5c, words);
+    }
+
+    private static void compressPadded(int[] state, byte[] key, int pad, int[] words) {
+        for (int j = 0; j < 16; j++) {
+            words[j] = ((key[j * 4] ^ pad) & 0xff) << 24 | ((key[j * 4 + 1] ^ pad) & 0xff) << 16
+                | ((key[j * 4 + 2] ^ pad) & 0xff) << 8 | (key[j * 4 + 3] ^ pad) & 0xff;
+        }
+        compress(state, words);
+    }
+
+    /**
+     * HMAC of an arbitrary message from the pad states.
+     */
+    private static void hmac(int[] innerState, int[] outerState, byte[] message, int[] out,
+        int[] words) {
+        digest(innerState, BLOCK_BYTES, message, out, words);
+        System.arraycopy(out, 0, words, 0, 8);
+        padDigestBlock(words);
+        System.arraycopy(outerState, 0, out, 0, 8);
+        compress(out, words);
+    }
+
+    private static void padDigestBlock(int[] words) {
+        words[8] = 0x80000000;
+        for (int j = 9; j < 15; j++) {
+            words[j] = 0;
+        }
+        words[15] = DIGEST_MESSAGE_BITS;
+    }
+
+    /**
+     * Finish a SHA-256 from a state that already consumed prefixBytes.
+     */
+    private static void digest(int[] initialState, int prefixBytes, byte[] message, int[] out,
+        int[] words) {
+        int paddedLength = (message.length + 9 + BLOCK_BYTES - 1) / BLOCK_BYTES * BLOCK_BYTES;
+        byte[] padded = new byte[paddedLength];
+        System.arraycopy(message, 0, padded, 0, message.length);
+        padded[message.length] = (byte) 0x80;
+        long bits = (prefixBytes + (long) message.length) * 8;
+        putInt(padded, paddedLength - 8, (int) (bits >>> 32));
+        putInt(padded, paddedLength - 4, (int) bits);
+
+        System.arraycopy(initialState, 0, out, 0, 8);
+        for (int offset = 0; offset < paddedLength; offset += BLOCK_BYTES) {
+            for (int j = 0; j < 16; j++) {
+                int at = offset + j * 4;
+                words[j] = (padded[at] & 0xff) << 24 | (padded[at + 1] & 0xff) << 16
+                    | (padded[at + 2] & 0xff) << 8 | padded[at + 3] & 0xff;
+            }
+            compress(out, words);
+        }
+    }
+
+    /**
+     * SHA-256 compression of the block in words 0 to 15, words 16 to 63 are overwritten.
+     */
+    private static void compress(int[] state, int[] words) {
+        for (int t = 16; t < 64; t++) {
+            int w15 = words[t - 15];
+            int w2 = words[t - 2];
+            int s0 = Integer.rotateRight(w15, 7) ^ Integer.rotateRight(w15, 18) ^ w15 >>> 3;
+            int s1 = Integer.rotateRight(w2, 17) ^ Integer.rotateRight(w2, 19) ^ w2 >>> 10;
+            words[t] = words[t - 16] + s0 + words[t - 7] + s1;
+        }
+
+        int aa = state[0];
+        int bb = state[1];
+        int cc = state[2];
+        int dd = state[3];
+        int ee = state[4];
+        int ff = state[5];
+        int gg = state[6];
+        int hh = state[7];
+        for (int t = 0; t < 64; t++) {
+            int s1 = Integer.rotateRight(ee, 6) ^ Integer.rotateRight(ee, 11)
+                ^ Integer.rotateRight(ee, 25);
+            int ch = ee & ff ^ ~ee & gg;
+            final int t1 = hh + s1 + ch + ROUND_CONSTANTS[t] + words[t];
+            int s0 = Integer.rotateRight(aa, 2) ^ Integer.rotateRight(aa, 13)
+                ^ Integer.rotateRight(aa, 22);
+            int maj = aa & bb ^ aa & cc ^ bb & cc;
+            final int t2 = s0 + maj;
+            hh = gg;
+            gg = ff;
+            ff = ee;
+            ee = dd + t1;
+            dd = cc;
+            cc = bb;
+            bb = aa;
+            aa = t1 + t2;
+        }
+
+        state[0] += aa;
+        state[1] += bb;
+        state[2] += cc;
+        state[3] += dd;
+        state[4] += ee;
+        state[5] += ff;
+        state[6] += gg;
+        state[7] += hh;
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
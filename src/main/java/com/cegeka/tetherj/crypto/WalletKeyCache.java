@@ -0,0 +1,286 @@
+package com.cegeka.tetherj.crypto;
+
+import org.ethereum.util.LRUMap;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keeps the keys derived from wallet passphrases for a while, so unlocking a wallet again, even a
+ * freshly loaded copy of its keystore, skips the key derivation and only decrypts.
+ *
+ * <p>Entries are keyed by keystore id and a fingerprint of the passphrase and derivation
+ * parameters, an HMAC under a secret drawn per cache, so neither passphrases nor their plain
+ * hashes are kept. Only passphrases that decrypted the keystore are cached. Derived keys live in
+ * buffers, on or off the heap, that are overwritten with zeros when their entry is evicted for
+ * size, is replaced or the cache is cleared or closed. Expired entries are swept on a schedule,
+ * every quarter of the time to live, so their keys are zeroed even while the cache is idle.
+ *
+ * @author Andrei Grigoriu
+ */
+public class WalletKeyCache implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private static final String FINGERPRINT_ALGORITHM = "HmacSHA256";
+
+    private static final ScheduledExecutorService SWEEPER = Executors
+        .newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tetherj-key-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final LRUMap<String, SecretBuffer> keys;
+    private final boolean offHeap;
+    private final SecretKeySpec fingerprintKey;
+    private final Sweep sweep;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Derived key, zeroed once.
+     */
+    private static final class SecretBuffer {
+        /* guarded by this, null once zeroed */
+        private ByteBuffer buffer;
+
+        SecretBuffer(byte[] secret, boolean offHeap) {
+            buffer = offHeap ? ByteBuffer.allocateDirect(secret.length)
+                : ByteBuffer.allocate(secret.length);
+            buffer.put(secret);
+        }
+
+        synchronized byte[] copy() {
+            if (buffer == null) {
+                return null;
+            }
+
+            byte[] secret = new byte[buffer.capacity()];
+            for (int i = 0; i < secret.length; i++) {
+                secret[i] = buffer.get(i);
+            }
+            return secret;
+        }
+
+        synchronized void zero() {
+            if (buffer != null) {
+                for (int i = 0; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer = null;
+            }
+        }
+    }
+
+    /**
+     * Periodic removal of the expired keys of a cache, stopping once the cache is unreachable.
+     */
+    private static final class Sweep implements Runnable {
+        private final WeakReference<LRUMap<String, SecretBuffer>> keys;
+        private volatile ScheduledFuture<?> future;
+
+        Sweep(LRUMap<String, SecretBuffer> keys) {
+            this.keys = new WeakReference<>(keys);
+        }
+
+        @Override
+        public void run() {
+            LRUMap<String, SecretBuffer> map = keys.get();
+            if (map != null) {
+                map.cleanUp();
+            } else {
+                cancel();
+            }
+        }
+
+        void cancel() {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Constructor with the default size and time to live, keys on the heap.
+     */
+    public WalletKeyCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS, TimeUnit.MILLISECONDS, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries most derived keys kept
+     * @param ttl        time a derived key is kept after deriving it
+     * @param unit       of ttl
+     * @param offHeap    true to keep derived keys in direct buffers, out of the heap
+     */
+    public WalletKeyCache(int maxEntries, long ttl, TimeUnit unit, boolean offHeap) {
+        this(maxEntries, ttl, unit, offHeap, SWEEPER);
+    }
+
+    /**
+     * Constructor sweeping expired keys on the given executor.
+     *
+     * @param maxEntries most derived keys kept
+     * @param ttl        time a derived key is kept after deriving it
+     * @param unit       of ttl
+     * @param offHeap    true to keep derived keys in direct buffers, out of the heap
+     * @param sweeper    to zero expired keys on, null to zero them only when the cache is used
+     */
+    public WalletKeyCache(int maxEntries, long ttl, TimeUnit unit, boolean offHeap,
+        ScheduledExecutorService sweeper) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+
+        this.offHeap = offHeap;
+        this.keys = new LRUMap<>(Math.min(maxEntries, 1024), maxEntries, null, ttl, unit,
+            (key, secret) -> secret.zero());
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.fingerprintKey = new SecretKeySpec(secret, FINGERPRINT_ALGORITHM);
+
+        if (sweeper != null) {
+            long period = Math.max(1, unit.toMillis(ttl) / 4);
+            this.sweep = new Sweep(keys);
+            this.sweep.future = sweeper.scheduleAtFixedRate(sweep, period, period,
+                TimeUnit.MILLISECONDS);
+        } else {
+            this.sweep = null;
+        }
+    }
+
+    /**
+     * Decrypt the private key of a keystore, deriving the key from the passphrase only if it is
+     * not cached.
+     *
+     * @param storage    keystore
+     * @param passphrase to decrypt with
+     * @return private key data, null if the passphrase is wrong
+     */
+    public byte[] getPrivateKey(WalletStoragePojoV3 storage, String passphrase) {
+        String key = key(storage, passphrase);
+        SecretBuffer cached = keys.get(key);
+        if (cached != null) {
+            byte[] privateKey = decrypt(storage, cached.copy());
+            if (privateKey != null) {
+                hits.incrementAndGet();
+                return privateKey;
+            }
+            /* zeroed meanwhile, or not the keystore it was derived for */
+            if (keys.remove(key, cached)) {
+                cached.zero();
+            }
+        }
+
+        misses.incrementAndGet();
+        byte[] derived = storage.deriveKey(passphrase);
+        try {
+            byte[] privateKey = storage.getPrivateKey(derived);
+            if (privateKey != null) {
+                SecretBuffer prior = keys.put(key, new SecretBuffer(derived, offHeap));
+                if (prior != null) {
+                    prior.zero();
+                }
+            }
+            return privateKey;
+        } finally {
+            Arrays.fill(derived, (byte) 0);
+        }
+    }
+
+    private static byte[] decrypt(WalletStoragePojoV3 storage, byte[] derived) {
+        if (derived == null) {
+            return null;
+        }
+
+        try {
+            return storage.getPrivateKey(derived);
+        } finally {
+            Arrays.fill(derived, (byte) 0);
+        }
+    }
+
+    private String key(WalletStoragePojoV3 storage, String passphrase) {
+        WalletCryptoPojoV3.KdfParams params = storage.getCrypto().getKdfparams();
+        try {
+            Mac mac = Mac.getInstance(FINGERPRINT_ALGORITHM);
+            mac.init(fingerprintKey);
+            mac.update((params.getSalt() + ":" + params.getC() + ":" + params.getDklen() + ":")
+                .getBytes(StandardCharsets.UTF_8));
+            byte[] fingerprint = mac.doFinal(passphrase.getBytes(StandardCharsets.UTF_8));
+            return storage.getId() + ":" + CryptoUtil.byteToHex(fingerprint);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("No " + FINGERPRINT_ALGORITHM, ex);
+        }
+    }
+
+    /**
+     * Zero and drop all cached keys, expired ones included.
+     */
+    public void clear() {
+        /* expired entries are not listed, dropping them zeroes them through the listener */
+        keys.cleanUp();
+        for (Map.Entry<String, SecretBuffer> entry : keys.entrySet()) {
+            if (keys.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().zero();
+            }
+        }
+    }
+
+    /**
+     * Zero and drop all cached keys, then stop sweeping.
+     */
+    @Override
+    public void close() {
+        clear();
+        if (sweep != null) {
+            sweep.cancel();
+        }
+    }
+
+    /**
+     * Get the number of cached keys.
+     *
+     * @return keys cached, expired ones may still count until they are dropped
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Get the unlocks that skipped the key derivation.
+     *
+     * @return cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the unlocks that derived the key.
+     *
+     * @return cache misses, wrong passphrases included
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -25,6 +25,8 @@ import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import lombok.Data;
 
@@ -46,6 +48,11 @@ public class WalletStoragePojoV3 implements Serializable {
     public static final String prf = "hmac-sha256";
     public static final String cipher = "aes-128-ctr";
 
+    /* immutable, shared by all threads */
+    private static final ObjectReader reader = new ObjectMapper()
+            .reader(WalletStoragePojoV3.class);
+    private static final ObjectWriter writer = new ObjectMapper().writer();
+
     String address;
     WalletCryptoPojoV3 crypto;
     String id;
@@ -139,9 +146,8 @@ public class WalletStoragePojoV3 implements Serializable {
      * @return storage object
      */
     public static WalletStoragePojoV3 loadWalletFromString(String json) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(json, WalletStoragePojoV3.class);
+            return reader.readValue(json);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -174,9 +180,8 @@ public class WalletStoragePojoV3 implements Serializable {
      * @return storage object
      */
     public static WalletStoragePojoV3 loadWalletFromFile(File wallet) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(wallet, WalletStoragePojoV3.class);
+            return reader.readValue(wallet);
         } catch (JsonParseException | JsonMappingException ex) {
             ex.printStackTrace();
         }
@@ -184,6 +189,18 @@ public class WalletStoragePojoV3 implements Serializable {
         return null;
     }
 
+    /**
+     * Create storage from file, failing quietly on files that are not a keystore.
+     *
+     * @param wallet
+     *            to read and deserialize storage from
+     * @return storage object, null if the file holds a json null
+     * @throws IOException if the file can not be read or is not a keystore
+     */
+    static WalletStoragePojoV3 readWalletFromFile(File wallet) throws IOException {
+        return reader.readValue(wallet);
+    }
+
     /**
      * Serialize to file.
      *
@@ -192,9 +209,8 @@ public class WalletStoragePojoV3 implements Serializable {
      * @throws IOException in case write fails
      */
     public void writeToFile(File file) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            mapper.writeValue(file, this);
+            writer.writeValue(file, this);
         } catch (JsonGenerationException | JsonMappingException ex) {
             ex.printStackTrace();
         }
@@ -206,9 +222,8 @@ public class WalletStoragePojoV3 implements Serializable {
      * @return serialized json
      */
     public String toJsonString() {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.writeValueAsString(this);
+            return writer.writeValueAsString(this);
         } catch (JsonProcessingException ex) {
             ex.printStackTrace();
         }
@@ -224,49 +239,74 @@ public class WalletStoragePojoV3 implements Serializable {
      * @return private key data
      */
     public byte[] getPrivateKey(String passphrase) {
-        if (crypto.cipher.equals(cipher) && crypto.kdf.equals(kdf)) {
-            byte[] key = Pbkdf2.derive(passphrase, CryptoUtil.hexToBytes(crypto.kdfparams.salt),
-                    crypto.kdfparams.c, crypto.kdfparams.dklen);
-            try {
-                // macKey that will be used to validate wallet unlocking (as per
-                // ethereum standard)
-                byte[] macKey = Arrays.copyOfRange(key, 16, 32);
-
-                byte[] ciphertext = CryptoUtil.hexToBytes(crypto.ciphertext);
-                // generate MAC as per ethereum standard
-                KeccakDigest md = new KeccakDigest(256);
-                byte[] macSource = new byte[macKey.length + ciphertext.length];
-                System.arraycopy(macKey, 0, macSource, 0, macKey.length);
-                System.arraycopy(ciphertext, 0, macSource, macKey.length, ciphertext.length);
-
-                md.update(macSource, 0, macSource.length);
-                byte[] mac = new byte[md.getDigestSize()];
-                md.doFinal(mac, 0);
-
-                if (!CryptoUtil.byteToHex(mac).equals(crypto.mac)) {
-                    // MAC MISMATCH
-                    return null;
-                }
-
-                // key will only be the first 16 bytes of the hash key
-                byte[] trimmedKey = Arrays.copyOfRange(key, 0, 16);
-                SecretKeySpec secretKeySpec = new SecretKeySpec(trimmedKey, "AES");
-                byte[] ivAsBytes = CryptoUtil.hexToBytes(crypto.cipherparams.iv);
-                IvParameterSpec iv = new IvParameterSpec(ivAsBytes);
-
-                Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
-                cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, iv);
-                byte[] privateKey = cipher.doFinal(CryptoUtil.hexToBytes(crypto.ciphertext));
-
-                return privateKey;
-
-            } catch (Exception ex) {
-                ex.printStackTrace();
+        return getPrivateKey(deriveKey(passphrase));
+    }
+
+    /**
+     * Decrypt private key with a derived key.
+     *
+     * @param key
+     *            derived from the passphrase
+     * @return private key data, null if the key does not match
+     */
+    public byte[] getPrivateKey(byte[] key) {
+        checkSupported();
+        try {
+            // macKey that will be used to validate wallet unlocking (as per
+            // ethereum standard)
+            byte[] macKey = Arrays.copyOfRange(key, 16, 32);
+
+            byte[] ciphertext = CryptoUtil.hexToBytes(crypto.ciphertext);
+            // generate MAC as per ethereum standard
+            KeccakDigest md = new KeccakDigest(256);
+            byte[] macSource = new byte[macKey.length + ciphertext.length];
+            System.arraycopy(macKey, 0, macSource, 0, macKey.length);
+            System.arraycopy(ciphertext, 0, macSource, macKey.length, ciphertext.length);
+
+            md.update(macSource, 0, macSource.length);
+            byte[] mac = new byte[md.getDigestSize()];
+            md.doFinal(mac, 0);
+
+            if (!CryptoUtil.byteToHex(mac).equals(crypto.mac)) {
+                // MAC MISMATCH
+                return null;
             }
-        } else {
-            throw new UnsupportedOperationException("Wallet is incompatible or corrupted!");
+
+            // key will only be the first 16 bytes of the hash key
+            byte[] trimmedKey = Arrays.copyOfRange(key, 0, 16);
+            SecretKeySpec secretKeySpec = new SecretKeySpec(trimmedKey, "AES");
+            byte[] ivAsBytes = CryptoUtil.hexToBytes(crypto.cipherparams.iv);
+            IvParameterSpec iv = new IvParameterSpec(ivAsBytes);
+
+            Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, iv);
+            byte[] privateKey = cipher.doFinal(CryptoUtil.hexToBytes(crypto.ciphertext));
+
+            return privateKey;
+
+        } catch (Exception ex) {
+            ex.printStackTrace();
         }
 
         return null;
     }
+
+    /**
+     * Derive the key protecting the private key, the expensive part of decrypting it.
+     *
+     * @param passphrase
+     *            to derive from
+     * @return derived key, to decrypt with {@link #getPrivateKey(byte[])}
+     */
+    public byte[] deriveKey(String passphrase) {
+        checkSupported();
+        return Pbkdf2.derive(passphrase, CryptoUtil.hexToBytes(crypto.kdfparams.salt),
+                crypto.kdfparams.c, crypto.kdfparams.dklen);
+    }
+
+    private void checkSupported() {
+        if (!crypto.cipher.equals(cipher) || !crypto.kdf.equals(kdf)) {
+            throw new UnsupportedOperationException("Wallet is incompatible or corrupted!");
+        }
+    }
 }
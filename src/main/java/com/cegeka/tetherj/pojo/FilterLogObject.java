@@ -16,4 +16,6 @@ public class FilterLogObject {
     private String address;
     private String data;
     private String[] topics;
+    /* true if the log was removed by a chain reorganization */
+    private boolean removed;
 }
@@ -0,0 +1,24 @@
+package com.cegeka.tetherj.pojo;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.Data;
+
+/**
+ * Log query matching any of several addresses, as eth_getLogs accepts it. A null address matches
+ * any address, a null topic matches any topic at its position.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FilterLogQuery implements Serializable {
+
+    private static final long serialVersionUID = 2690513870410546128L;
+
+    String fromBlock;
+    String toBlock;
+    List<String> address;
+    List<String> topics;
+}
@@ -0,0 +1,23 @@
+package com.cegeka.tetherj.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport that can send json rpc payloads without blocking the caller. Returned futures are
+ * completed by the transport I/O thread, so dependent actions must not block.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public interface EthRpcAsyncTransport extends EthRpcTransport {
+
+    /**
+     * Send a json rpc payload (single request or batch) without blocking.
+     *
+     * @param request
+     *            Serialized json rpc request.
+     * @return Returns future for the serialized json rpc response, completed exceptionally with
+     *         an IOException in case of connection errors or non successful http status.
+     */
+    CompletableFuture<byte[]> sendAsync(byte[] request);
+}
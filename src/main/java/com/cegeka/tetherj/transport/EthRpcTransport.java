@@ -0,0 +1,49 @@
+package com.cegeka.tetherj.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Transport SPI used by the rpc client to exchange serialized json rpc payloads with an
+ * ethereum client. Implementations must be thread safe.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public interface EthRpcTransport extends Closeable {
+
+    /**
+     * Blocking send a json rpc payload (single request or batch) and read the answer.
+     *
+     * @param request
+     *            Serialized json rpc request.
+     * @return Returns the serialized json rpc response.
+     * @throws IOException
+     *             In case of connection errors or non successful http status.
+     */
+    byte[] send(byte[] request) throws IOException;
+
+    /**
+     * Blocking send a json rpc payload and stream the answer. Transports able to do so return
+     * the body while it is read from the connection, so large responses are never held in
+     * memory at once. The default implementation buffers the body with {@link #send(byte[])}.
+     *
+     * @param request
+     *            Serialized json rpc request.
+     * @return Returns the serialized json rpc response, the caller must close it.
+     * @throws IOException
+     *             In case of connection errors or non successful http status.
+     */
+    default InputStream sendStreaming(byte[] request) throws IOException {
+        return new ByteArrayInputStream(send(request));
+    }
+
+    /**
+     * Release connections held by this transport.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,339 @@
+package com.cegeka.tetherj.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport decorator hedging idempotent reads to cut tail latency. A hedgeable request that has
+ * not been answered after the hedge delay is sent a second time, the first successful answer is
+ * returned and the other attempt is cancelled. The hedge delay follows a percentile of recent
+ * response latencies (95th by default), so about that share of requests is hedged.
+ *
+ * <p>The second attempt goes through the same delegate: a
+ * {@link PooledHttpTransport} sends it on another connection, a {@link MultiEndpointTransport}
+ * usually to another endpoint, since the busy one scores worse. Cancelling interrupts the
+ * losing attempt, a blocking socket read is not interruptible though, so a losing attempt
+ * already waiting for its answer completes in the background.
+ *
+ * <p>Requests are sent from the executor, non hedgeable requests (writes, filters, anything not
+ * in the hedged methods) and streamed requests are sent directly on the calling thread.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class HedgingTransport implements EthRpcTransport {
+
+    /**
+     * Idempotent read methods hedged by default.
+     */
+    public static final Set<String> DEFAULT_HEDGED_METHODS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("eth_call", "eth_getBalance", "eth_getTransactionReceipt",
+                    "eth_getBlockByNumber", "eth_getTransactionByHash", "eth_blockNumber")));
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final long DEFAULT_INITIAL_DELAY_MILLIS = 50;
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 5;
+
+    private static final int SAMPLE_WINDOW = 1024;
+    private static final int MIN_SAMPLES = 100;
+    private static final int DELAY_UPDATE_INTERVAL = 64;
+
+    private final EthRpcTransport delegate;
+    private final Set<String> hedgedMethods;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+
+    private volatile double percentile = DEFAULT_PERCENTILE;
+    private volatile long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(
+            DEFAULT_MIN_DELAY_MILLIS);
+    private volatile long delayNanos = TimeUnit.MILLISECONDS.toNanos(
+            DEFAULT_INITIAL_DELAY_MILLIS);
+
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private int sampleCount = 0;
+    private int sampleIndex = 0;
+    private int samplesSinceUpdate = 0;
+
+    private final AtomicLong hedgeableRequests = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * Hedge the default methods, on an own thread pool.
+     *
+     * @param delegate
+     *            transport to send through.
+     */
+    public HedgingTransport(EthRpcTransport delegate) {
+        this(delegate, DEFAULT_HEDGED_METHODS, null);
+    }
+
+    /**
+     * Hedge custom methods, on a custom thread pool.
+     *
+     * @param delegate
+     *            transport to send through.
+     * @param hedgedMethods
+     *            idempotent methods to hedge, a batch is hedged if it only calls these.
+     * @param executor
+     *            to send hedgeable requests from, null for an own cached thread pool.
+     */
+    public HedgingTransport(EthRpcTransport delegate, Set<String> hedgedMethods,
+            ExecutorService executor) {
+        this.delegate = delegate;
+        this.hedgedMethods = hedgedMethods;
+        this.ownExecutor = executor == null;
+        this.executor = executor != null ? executor : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "tetherj-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public byte[] send(byte[] request) throws IOException {
+        if (!JsonRpcPayloads.callsOnly(request, hedgedMethods)) {
+            return delegate.send(request);
+        }
+
+        hedgeableRequests.incrementAndGet();
+        long started = System.nanoTime();
+        Attempt primary = start(request);
+        if (primary == null) {
+            return delegate.send(request);
+        }
+
+        primary.result.whenComplete((response, ex) -> {
+            if (ex == null) {
+                record(System.nanoTime() - started);
+            }
+        });
+
+        try {
+            return primary.result.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            return hedge(request, primary);
+        } catch (ExecutionException ex) {
+            throw asIoException(ex);
+        } catch (InterruptedException ex) {
+            primary.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+    }
+
+    private byte[] hedge(byte[] request, Attempt primary) throws IOException {
+        Attempt hedge = start(request);
+        if (hedge == null) {
+            return await(primary.result, primary);
+        }
+        hedgedRequests.incrementAndGet();
+
+        CompletableFuture<byte[]> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        primary.result.whenComplete((response, ex) -> {
+            if (ex == null) {
+                if (first.complete(response)) {
+                    hedge.cancel();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(ex);
+            }
+        });
+        hedge.result.whenComplete((response, ex) -> {
+            if (ex == null) {
+                if (first.complete(response)) {
+                    hedgeWins.incrementAndGet();
+                    primary.cancel();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(ex);
+            }
+        });
+
+        try {
+            return await(first, primary);
+        } finally {
+            hedge.cancel();
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> result, Attempt primary) throws IOException {
+        try {
+            return result.get();
+        } catch (ExecutionException ex) {
+            throw asIoException(ex);
+        } catch (InterruptedException ex) {
+            primary.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+    }
+
+    /**
+     * Send a request from the executor.
+     *
+     * @return Returns the attempt, null if the executor rejected it.
+     */
+    private Attempt start(byte[] request) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        try {
+            Future<?> task = executor.submit(() -> {
+                try {
+                    result.complete(delegate.send(request));
+                } catch (IOException | RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+            return new Attempt(result, task);
+        } catch (RejectedExecutionException ex) {
+            return null;
+        }
+    }
+
+    private static IOException asIoException(ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    private synchronized void record(long latencyNanos) {
+        samples[sampleIndex] = latencyNanos;
+        sampleIndex = (sampleIndex + 1) % SAMPLE_WINDOW;
+        sampleCount = Math.min(sampleCount + 1, SAMPLE_WINDOW);
+
+        if (sampleCount >= MIN_SAMPLES && ++samplesSinceUpdate >= DELAY_UPDATE_INTERVAL) {
+            samplesSinceUpdate = 0;
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            int index = Math.max(0, (int) Math.ceil(percentile * sampleCount) - 1);
+            delayNanos = Math.max(minDelayNanos, sorted[index]);
+        }
+    }
+
+    @Override
+    public InputStream sendStreaming(byte[] request) throws IOException {
+        /* large responses are not worth duplicating */
+        return delegate.sendStreaming(request);
+    }
+
+    /**
+     * @return Returns the delay after which a request is hedged, in milliseconds.
+     */
+    public double getHedgeDelayMillis() {
+        return delayNanos / 1e6;
+    }
+
+    /**
+     * Set the latency percentile used as hedge delay.
+     *
+     * @param percentile
+     *            between 0 and 1 excluded, for example 0.95.
+     */
+    public void setPercentile(double percentile) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 1");
+        }
+        this.percentile = percentile;
+    }
+
+    /**
+     * Set the min hedge delay, to avoid hedging fast responses on a fast network.
+     *
+     * @param minDelayMillis
+     *            Min hedge delay.
+     */
+    public void setMinDelayMillis(long minDelayMillis) {
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+    }
+
+    /**
+     * @return Returns number of hedgeable requests sent.
+     */
+    public long getHedgeableRequests() {
+        return hedgeableRequests.get();
+    }
+
+    /**
+     * @return Returns number of hedgeable requests that got a second attempt.
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    /**
+     * @return Returns number of hedged requests answered by the second attempt.
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return Returns share of hedgeable requests that were hedged.
+     */
+    public double getHedgeRate() {
+        long requests = hedgeableRequests.get();
+        return requests == 0 ? 0 : (double) hedgedRequests.get() / requests;
+    }
+
+    /**
+     * @return Returns share of hedged requests answered by the second attempt.
+     */
+    public double getWinRate() {
+        long hedged = hedgedRequests.get();
+        return hedged == 0 ? 0 : (double) hedgeWins.get() / hedged;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingTransport [delegate=" + delegate + "]";
+    }
+
+    /**
+     * One send of a hedged request.
+     */
+    private static class Attempt {
+        private final CompletableFuture<byte[]> result;
+        private final Future<?> task;
+
+        Attempt(CompletableFuture<byte[]> result, Future<?> task) {
+            this.result = result;
+            this.task = task;
+        }
+
+        void cancel() {
+            if (!result.isDone()) {
+                task.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.cegeka.tetherj.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Incremental HTTP/1.1 response decoder. Bytes are fed as they arrive from the socket, the
+ * decoder handles fixed length, chunked and read until close bodies.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+class HttpResponseDecoder {
+
+    private static final int MAX_LINE_LENGTH = 8192;
+
+    private enum State {
+        STATUS_LINE, HEADERS, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS,
+        UNTIL_CLOSE, DONE
+    }
+
+    private State state = State.STATUS_LINE;
+    private final StringBuilder line = new StringBuilder();
+
+    private int statusCode;
+    private boolean http10;
+    private long contentLength = -1;
+    private boolean chunked;
+    private Boolean connectionKeepAlive;
+    private long remaining;
+
+    private byte[] body = new byte[0];
+    private int bodyLength;
+
+    /**
+     * Feed bytes received from the connection.
+     *
+     * @param buffer
+     *            to consume, bytes after the end of the response are left in the buffer.
+     * @return Returns true if the response is complete.
+     * @throws IOException
+     *             If the response is malformed.
+     */
+    boolean feed(ByteBuffer buffer) throws IOException {
+        while (state != State.DONE && buffer.hasRemaining()) {
+            if (isLineState()) {
+                readLineState(buffer);
+            } else {
+                int count = bodyAvailable(buffer, Integer.MAX_VALUE);
+                appendBody(buffer, count);
+                bodyConsumed(count);
+            }
+        }
+
+        return state == State.DONE;
+    }
+
+    /**
+     * Feed bytes until the status line and headers are decoded, the body is left in the buffer
+     * to be read with {@link #feedBody(ByteBuffer, byte[], int, int)}.
+     *
+     * @param buffer
+     *            to consume.
+     * @return Returns true if the head is complete.
+     * @throws IOException
+     *             If the response is malformed.
+     */
+    boolean feedHead(ByteBuffer buffer) throws IOException {
+        while (!isHeadComplete() && buffer.hasRemaining()) {
+            readLineState(buffer);
+        }
+
+        return isHeadComplete();
+    }
+
+    /**
+     * Decode body bytes into the caller buffer instead of accumulating them, used to stream
+     * large bodies. Chunk framing is consumed transparently.
+     *
+     * @param buffer
+     *            to consume, bytes after the end of the response are left in the buffer.
+     * @param target
+     *            to copy body bytes to.
+     * @param offset
+     *            in target.
+     * @param length
+     *            max bytes to copy.
+     * @return Returns number of body bytes copied, 0 if more input is needed or the response
+     *         is complete.
+     * @throws IOException
+     *             If the response is malformed.
+     */
+    int feedBody(ByteBuffer buffer, byte[] target, int offset, int length) throws IOException {
+        int copied = 0;
+        while (state != State.DONE && buffer.hasRemaining() && copied < length) {
+            if (isLineState()) {
+                readLineState(buffer);
+            } else {
+                int count = bodyAvailable(buffer, length - copied);
+                buffer.get(target, offset + copied, count);
+                copied += count;
+                bodyConsumed(count);
+            }
+        }
+
+        return copied;
+    }
+
+    private boolean isLineState() {
+        switch (state) {
+            case STATUS_LINE:
+            case HEADERS:
+            case CHUNK_SIZE:
+            case CHUNK_END:
+            case TRAILERS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void readLineState(ByteBuffer buffer) throws IOException {
+        String completeLine = readLine(buffer);
+        if (completeLine != null) {
+            onLine(completeLine);
+        }
+    }
+
+    private int bodyAvailable(ByteBuffer buffer, int max) {
+        int count = Math.min(buffer.remaining(), max);
+        if (state == State.UNTIL_CLOSE) {
+            return count;
+        }
+
+        return (int) Math.min(remaining, count);
+    }
+
+    private void bodyConsumed(int count) {
+        if (state == State.UNTIL_CLOSE) {
+            return;
+        }
+
+        remaining -= count;
+        if (remaining == 0) {
+            state = state == State.FIXED_BODY ? State.DONE : State.CHUNK_END;
+        }
+    }
+
+    /**
+     * Signal the connection was closed by the peer.
+     *
+     * @return Returns true if the response is complete.
+     */
+    boolean finish() {
+        if (state == State.UNTIL_CLOSE) {
+            state = State.DONE;
+        }
+
+        return state == State.DONE;
+    }
+
+    /**
+     * @return Returns true if the status line and headers are decoded.
+     */
+    boolean isHeadComplete() {
+        return state != State.STATUS_LINE && state != State.HEADERS;
+    }
+
+    /**
+     * @return Returns true if the whole response is decoded.
+     */
+    boolean isDone() {
+        return state == State.DONE;
+    }
+
+    /**
+     * @return Returns true if any byte of the response was received.
+     */
+    boolean isStarted() {
+        return state != State.STATUS_LINE || line.length() > 0;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    byte[] getBody() {
+        return body.length == bodyLength ? body : Arrays.copyOf(body, bodyLength);
+    }
+
+    /**
+     * @return Returns true if the connection may be reused for another request.
+     */
+    boolean isKeepAlive() {
+        if (state != State.DONE || contentLength < 0 && !chunked) {
+            return false;
+        }
+
+        if (connectionKeepAlive != null) {
+            return connectionKeepAlive;
+        }
+
+        return !http10;
+    }
+
+    private String readLine(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            char ch = (char) (buffer.get() & 0xff);
+            if (ch == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                String result = line.toString();
+                line.setLength(0);
+                return result;
+            }
+
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("HTTP response line too long");
+            }
+            line.append(ch);
+        }
+
+        return null;
+    }
+
+    private void onLine(String text) throws IOException {
+        switch (state) {
+            case STATUS_LINE:
+                onStatusLine(text);
+                break;
+            case HEADERS:
+                if (text.isEmpty()) {
+                    onHeadersEnd();
+                } else {
+                    onHeader(text);
+                }
+                break;
+            case CHUNK_SIZE:
+                int extension = text.indexOf(';');
+                String size = (extension >= 0 ? text.substring(0, extension) : text).trim();
+                try {
+                    remaining = Long.parseLong(size, 16);
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Bad HTTP chunk size: " + text);
+                }
+                state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if (text.isEmpty()) {
+                    state = State.DONE;
+                }
+                break;
+            default:
+                throw new IllegalStateException(state.name());
+        }
+    }
+
+    private void onStatusLine(String text) throws IOException {
+        String[] parts = text.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            throw new IOException("Bad HTTP status line: " + text);
+        }
+
+        try {
+            statusCode = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException ex) {
+            throw new IOException("Bad HTTP status line: " + text);
+        }
+
+        http10 = parts[0].equals("HTTP/1.0");
+        state = State.HEADERS;
+    }
+
+    private void onHeader(String text) throws IOException {
+        int separator = text.indexOf(':');
+        if (separator <= 0) {
+            throw new IOException("Bad HTTP header: " + text);
+        }
+
+        String name = text.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+        String value = text.substring(separator + 1).trim();
+
+        switch (name) {
+            case "content-length":
+                try {
+                    contentLength = Long.parseLong(value);
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Bad HTTP content length: " + value);
+                }
+                break;
+            case "transfer-encoding":
+                chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+                break;
+            case "connection":
+                String connection = value.toLowerCase(Locale.ROOT);
+                if (connection.contains("close")) {
+                    connectionKeepAlive = false;
+                } else if (connection.contains("keep-alive")) {
+                    connectionKeepAlive = true;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onHeadersEnd() {
+        if (statusCode / 100 == 1 || statusCode == 204 || statusCode == 304) {
+            contentLength = 0;
+        }
+
+        if (chunked) {
+            state = State.CHUNK_SIZE;
+        } else if (contentLength == 0) {
+            state = State.DONE;
+        } else if (contentLength > 0) {
+            remaining = contentLength;
+            state = State.FIXED_BODY;
+        } else {
+            state = State.UNTIL_CLOSE;
+        }
+    }
+
+    private void appendBody(ByteBuffer buffer, int count) {
+        if (body.length == 0 && state == State.FIXED_BODY) {
+            /* allocated on first body bytes, streamed bodies never accumulate */
+            body = new byte[(int) contentLength];
+        }
+
+        if (bodyLength + count > body.length) {
+            body = Arrays.copyOf(body, Math.max(bodyLength + count, body.length * 2));
+        }
+
+        buffer.get(body, bodyLength, count);
+        bodyLength += count;
+    }
+
+    /**
+     * Body as text, used for error reporting.
+     *
+     * @return Returns the body decoded as utf-8.
+     */
+    String getBodyAsString() {
+        return new String(body, 0, bodyLength, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,100 @@
+package com.cegeka.tetherj.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+
+/**
+ * Transport using the jdk {@link HttpURLConnection}, same as the jsonrpc4j http client. Keep
+ * alive and pooling are left to the jdk defaults (http.keepAlive, http.maxConnections).
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class HttpUrlConnectionTransport implements EthRpcTransport {
+
+    private final URL url;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    /**
+     * Transport with no connect and read timeouts.
+     *
+     * @param url
+     *            of the ethereum client.
+     */
+    public HttpUrlConnectionTransport(URL url) {
+        this(url, 0, 0);
+    }
+
+    /**
+     * Transport with custom timeouts.
+     *
+     * @param url
+     *            of the ethereum client.
+     * @param connectTimeoutMillis
+     *            Connect timeout, 0 for none.
+     * @param readTimeoutMillis
+     *            Read timeout, 0 for none.
+     */
+    public HttpUrlConnectionTransport(URL url, int connectTimeoutMillis, int readTimeoutMillis) {
+        this.url = url;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public byte[] send(byte[] request) throws IOException {
+        try (InputStream input = sendStreaming(request)) {
+            return readFully(input);
+        }
+    }
+
+    @Override
+    public InputStream sendStreaming(byte[] request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", JsonRpcHttpClient.JSONRPC_CONTENT_TYPE);
+        connection.setFixedLengthStreamingMode(request.length);
+
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(request);
+        }
+
+        try {
+            return connection.getInputStream();
+        } catch (IOException ex) {
+            InputStream error = connection.getErrorStream();
+            if (error != null) {
+                /* drain so the connection can be kept alive */
+                try (InputStream input = error) {
+                    readFully(input);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "HttpUrlConnectionTransport [url=" + url + "]";
+    }
+}
@@ -0,0 +1,87 @@
+package com.cegeka.tetherj.transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inspects serialized json rpc payloads without parsing them, so transports can route requests
+ * by method. Payloads are the compact json written by the rpc client: the method key cannot
+ * occur unescaped inside a string value.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+final class JsonRpcPayloads {
+
+    private static final byte[] METHOD_KEY = "\"method\":\"".getBytes(StandardCharsets.US_ASCII);
+
+    private JsonRpcPayloads() {
+    }
+
+    /**
+     * Get the methods called by a request, or by every request of a batch.
+     *
+     * @param request
+     *            Serialized json rpc request.
+     * @return Returns the method names, in payload order.
+     */
+    static List<String> methods(byte[] request) {
+        List<String> methods = new ArrayList<>();
+        int index = 0;
+        while ((index = indexOf(request, METHOD_KEY, index)) >= 0) {
+            int start = index + METHOD_KEY.length;
+            int end = start;
+            while (end < request.length && request[end] != '"') {
+                end++;
+            }
+
+            methods.add(new String(request, start, end - start, StandardCharsets.US_ASCII));
+            index = end;
+        }
+
+        return methods;
+    }
+
+    /**
+     * @return Returns true if the payload calls any of the methods.
+     */
+    static boolean callsAny(byte[] request, Set<String> names) {
+        for (String method : methods(request)) {
+            if (names.contains(method)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return Returns true if the payload calls at least one method, and only the given ones.
+     */
+    static boolean callsOnly(byte[] request, Set<String> names) {
+        List<String> called = methods(request);
+        return !called.isEmpty() && names.containsAll(called);
+    }
+
+    private static int indexOf(byte[] data, byte[] key, int from) {
+        for (int i = from; i <= data.length - key.length; i++) {
+            if (matchesAt(data, key, i)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean matchesAt(byte[] data, byte[] key, int offset) {
+        for (int j = 0; j < key.length; j++) {
+            if (data[offset + j] != key[j]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,354 @@
+package com.cegeka.tetherj.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport spreading requests over several ethereum client replicas.
+ *
+ * <p>Reads go to the endpoint with the lowest load score, the EWMA (exponentially weighted
+ * moving average) of its response latency multiplied by its requests in flight. The choice is
+ * made between two random healthy endpoints (power of two choices), so a slightly faster node
+ * does not attract every request. A read failing with a connection error is retried on another
+ * endpoint.
+ *
+ * <p>Writes and requests depending on node local state (transaction submission, account unlock,
+ * pending nonce and filters) are pinned to the preferred endpoint and never retried elsewhere.
+ * If the preferred endpoint is ejected, the next healthy endpoint becomes preferred.
+ *
+ * <p>An endpoint failing {@link #DEFAULT_MAX_FAILURES} times in a row is ejected for a backoff
+ * period that doubles on every ejection, up to {@link #DEFAULT_MAX_BACKOFF_MILLIS}. After the
+ * backoff it gets requests again, a success resets its backoff.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class MultiEndpointTransport implements EthRpcTransport {
+
+    public static final int DEFAULT_MAX_FAILURES = 2;
+    public static final long DEFAULT_BASE_BACKOFF_MILLIS = 1000;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 60000;
+
+    /**
+     * Weight of the latest sample in the latency average.
+     */
+    public static final double DEFAULT_EWMA_WEIGHT = 0.2;
+
+    /**
+     * Methods sent to the preferred endpoint only.
+     */
+    public static final Set<String> PINNED_METHODS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("eth_sendRawTransaction", "eth_sendTransaction",
+                    "personal_unlockAccount", "eth_getTransactionCount", "eth_newFilter",
+                    "eth_newBlockFilter", "eth_newPendingTransactionFilter",
+                    "eth_getFilterChanges", "eth_getFilterLogs", "eth_uninstallFilter")));
+
+    private static final double FAILURE_PENALTY_NANOS = 1e9;
+
+    private final List<Endpoint> endpoints;
+    private final AtomicInteger preferred = new AtomicInteger();
+
+    private volatile int maxFailures = DEFAULT_MAX_FAILURES;
+    private volatile long baseBackoffMillis = DEFAULT_BASE_BACKOFF_MILLIS;
+    private volatile long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+    /**
+     * Transport over the given endpoints, the first one is preferred for writes.
+     *
+     * @param transports
+     *            to the ethereum client replicas, at least one.
+     */
+    public MultiEndpointTransport(List<? extends EthRpcTransport> transports) {
+        if (transports.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required");
+        }
+
+        List<Endpoint> list = new ArrayList<>();
+        for (EthRpcTransport transport : transports) {
+            list.add(new Endpoint(transport));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Transport over pooled http connections to the given urls, the first one is preferred for
+     * writes.
+     *
+     * @param urls
+     *            of the ethereum client replicas.
+     * @return Returns the transport.
+     */
+    public static MultiEndpointTransport forUrls(List<URL> urls) {
+        List<EthRpcTransport> transports = new ArrayList<>();
+        for (URL url : urls) {
+            transports.add(new PooledHttpTransport(url));
+        }
+        return new MultiEndpointTransport(transports);
+    }
+
+    @Override
+    public byte[] send(byte[] request) throws IOException {
+        return exchange(request, (transport, payload) -> transport.send(payload));
+    }
+
+    @Override
+    public InputStream sendStreaming(byte[] request) throws IOException {
+        return exchange(request, (transport, payload) -> transport.sendStreaming(payload));
+    }
+
+    private <R> R exchange(byte[] request, Exchange<R> exchange) throws IOException {
+        if (JsonRpcPayloads.callsAny(request, PINNED_METHODS)) {
+            return exchange(preferredEndpoint(), request, exchange);
+        }
+
+        List<Endpoint> tried = new ArrayList<>();
+        IOException failure = null;
+        Endpoint endpoint;
+
+        while ((endpoint = pickRead(tried)) != null) {
+            try {
+                return exchange(endpoint, request, exchange);
+            } catch (IOException ex) {
+                tried.add(endpoint);
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+
+        throw failure;
+    }
+
+    private <R> R exchange(Endpoint endpoint, byte[] request, Exchange<R> exchange)
+            throws IOException {
+        endpoint.inFlight.incrementAndGet();
+        long started = System.nanoTime();
+        try {
+            R response = exchange.apply(endpoint.transport, request);
+            endpoint.onSuccess(System.nanoTime() - started);
+            return response;
+        } catch (IOException ex) {
+            endpoint.onFailure();
+            throw ex;
+        } finally {
+            endpoint.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Pick the better of two random endpoints not tried yet, healthy ones first. Ejected
+     * endpoints are only used when every other endpoint was tried.
+     */
+    private Endpoint pickRead(List<Endpoint> tried) {
+        long now = System.currentTimeMillis();
+        List<Endpoint> candidates = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (!tried.contains(endpoint) && !endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            /* every healthy endpoint failed, try the ejected ones once */
+            for (Endpoint endpoint : endpoints) {
+                if (!tried.contains(endpoint)) {
+                    return endpoint;
+                }
+            }
+            return null;
+        }
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Endpoint one = candidates.get(first);
+        Endpoint other = candidates.get(second);
+        return one.score() <= other.score() ? one : other;
+    }
+
+    private Endpoint preferredEndpoint() {
+        long now = System.currentTimeMillis();
+        int current = preferred.get();
+        if (!endpoints.get(current).isEjected(now)) {
+            return endpoints.get(current);
+        }
+
+        for (int i = 1; i < endpoints.size(); i++) {
+            int next = (current + i) % endpoints.size();
+            if (!endpoints.get(next).isEjected(now)) {
+                preferred.compareAndSet(current, next);
+                return endpoints.get(next);
+            }
+        }
+
+        /* all ejected, keep trying the preferred one */
+        return endpoints.get(current);
+    }
+
+    /**
+     * @return Returns number of endpoints.
+     */
+    public int getEndpointCount() {
+        return endpoints.size();
+    }
+
+    /**
+     * @param index
+     *            of the endpoint, in constructor order.
+     * @return Returns true if the endpoint is currently ejected.
+     */
+    public boolean isEjected(int index) {
+        return endpoints.get(index).isEjected(System.currentTimeMillis());
+    }
+
+    /**
+     * @param index
+     *            of the endpoint, in constructor order.
+     * @return Returns the latency average of the endpoint in milliseconds, 0 before the first
+     *         response.
+     */
+    public double getLatencyMillis(int index) {
+        return endpoints.get(index).ewmaNanos / 1e6;
+    }
+
+    /**
+     * @return Returns index of the endpoint writes are currently sent to.
+     */
+    public int getPreferredIndex() {
+        return preferred.get();
+    }
+
+    /**
+     * Set the endpoint writes are sent to.
+     *
+     * @param index
+     *            of the endpoint, in constructor order.
+     */
+    public void setPreferredIndex(int index) {
+        if (index < 0 || index >= endpoints.size()) {
+            throw new IllegalArgumentException("No endpoint " + index);
+        }
+        preferred.set(index);
+    }
+
+    /**
+     * Set the consecutive failures after which an endpoint is ejected.
+     *
+     * @param maxFailures
+     *            at least 1.
+     */
+    public void setMaxFailures(int maxFailures) {
+        if (maxFailures < 1) {
+            throw new IllegalArgumentException("Max failures must be at least 1");
+        }
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Set the backoff of the first ejection and the max backoff.
+     *
+     * @param baseBackoffMillis
+     *            Backoff of the first ejection, doubled on each following one.
+     * @param maxBackoffMillis
+     *            Max backoff.
+     */
+    public void setBackoffMillis(long baseBackoffMillis, long maxBackoffMillis) {
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Endpoint endpoint : endpoints) {
+            try {
+                endpoint.transport.close();
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<EthRpcTransport> transports = new ArrayList<>();
+        endpoints.forEach(endpoint -> transports.add(endpoint.transport));
+        return "MultiEndpointTransport " + transports;
+    }
+
+    /**
+     * Send operation on one endpoint transport.
+     */
+    @FunctionalInterface
+    private interface Exchange<R> {
+        R apply(EthRpcTransport transport, byte[] request) throws IOException;
+    }
+
+    /**
+     * Endpoint transport with its health and latency statistics.
+     */
+    private class Endpoint {
+        private final EthRpcTransport transport;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile double ewmaNanos = 0;
+        private int failures = 0;
+        private int ejections = 0;
+        private volatile long ejectedUntilMillis = 0;
+
+        Endpoint(EthRpcTransport transport) {
+            this.transport = transport;
+        }
+
+        boolean isEjected(long now) {
+            return now < ejectedUntilMillis;
+        }
+
+        double score() {
+            return ewmaNanos * (inFlight.get() + 1);
+        }
+
+        synchronized void onSuccess(long latencyNanos) {
+            ewmaNanos = ewmaNanos == 0 ? latencyNanos
+                    : ewmaNanos + DEFAULT_EWMA_WEIGHT * (latencyNanos - ewmaNanos);
+            failures = 0;
+            ejections = 0;
+        }
+
+        synchronized void onFailure() {
+            /* count a failure as a slow response, so the endpoint is avoided before ejection */
+            ewmaNanos = Math.max(ewmaNanos * 2, FAILURE_PENALTY_NANOS);
+            failures++;
+            if (failures >= maxFailures) {
+                long backoff = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(ejections,
+                        30));
+                ejectedUntilMillis = System.currentTimeMillis() + backoff;
+                ejections++;
+                failures = 0;
+            }
+        }
+    }
+}
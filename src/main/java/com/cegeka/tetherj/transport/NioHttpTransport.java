@@ -0,0 +1,529 @@
+package com.cegeka.tetherj.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non blocking HTTP/1.1 transport. A single selector thread multiplexes a bounded pool of keep
+ * alive connections to one ethereum client endpoint. Requests beyond the pool size wait in a
+ * queue instead of parking threads, so any number of requests can be outstanding.
+ *
+ * <p>Futures returned by {@link #sendAsync(byte[])} are completed on the I/O thread. Actions
+ * chained on them must not block; a blocking {@link #send(byte[])} from the I/O thread fails.
+ *
+ * <p>A request on a pooled connection the peer closed before answering is sent again on a new
+ * one, unless it calls one of the {@link MultiEndpointTransport#PINNED_METHODS}, which may have
+ * been processed already.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class NioHttpTransport implements EthRpcAsyncTransport {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+    public static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long SELECT_TIMEOUT_MILLIS = 100;
+
+    private final String host;
+    private final int port;
+    private final byte[] requestHead;
+    private final int maxConnections;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    private volatile int idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+    private final Selector selector;
+    private final Thread ioThread;
+    private final Queue<Exchange> submitted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    /* owned by the I/O thread */
+    private final Deque<Exchange> waiting = new ArrayDeque<>();
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private final Set<Connection> connections = new HashSet<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    /**
+     * Non blocking transport with default limits and timeouts.
+     *
+     * @param url
+     *            of the ethereum client (http only).
+     */
+    public NioHttpTransport(URL url) {
+        this(url, DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Non blocking transport with custom limits and timeouts.
+     *
+     * @param url
+     *            of the ethereum client (http only).
+     * @param maxConnections
+     *            Max connections (and requests on the wire) to the endpoint.
+     * @param connectTimeoutMillis
+     *            Connect timeout, 0 for none.
+     * @param readTimeoutMillis
+     *            Timeout for a response once the request is on the wire, 0 for none.
+     */
+    public NioHttpTransport(URL url, int maxConnections, int connectTimeoutMillis,
+            int readTimeoutMillis) {
+        if (!"http".equals(url.getProtocol())) {
+            throw new IllegalArgumentException("Only http is supported: " + url);
+        }
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Max connections must be at least 1");
+        }
+
+        this.host = url.getHost();
+        this.port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        this.requestHead = PooledHttpTransport.encodeRequestHead(url);
+        this.maxConnections = maxConnections;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+
+        try {
+            this.selector = Selector.open();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open selector", ex);
+        }
+
+        this.ioThread = new Thread(this::run, "tetherj-nio-" + host + ":" + port);
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> sendAsync(byte[] request) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IOException("Transport is closed"));
+            return future;
+        }
+
+        pendingRequests.incrementAndGet();
+        submitted.add(new Exchange(PooledHttpTransport.encodeRequest(requestHead, request),
+                future));
+
+        if (closed) {
+            /* the I/O loop may have stopped before picking this exchange up */
+            failSubmitted();
+        } else {
+            selector.wakeup();
+        }
+
+        return future;
+    }
+
+    @Override
+    public byte[] send(byte[] request) throws IOException {
+        if (Thread.currentThread() == ioThread) {
+            throw new IOException("Blocking send on the transport I/O thread, use async calls");
+        }
+
+        try {
+            return sendAsync(request).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                long now = System.currentTimeMillis();
+
+                Exchange exchange;
+                while ((exchange = submitted.poll()) != null) {
+                    waiting.addLast(exchange);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    process(key, now);
+                }
+
+                dispatch(now);
+                expire(now);
+            }
+        } catch (IOException | RuntimeException ex) {
+            closed = true;
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void process(SelectionKey key, long now) {
+        Connection connection = (Connection) key.attachment();
+
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+
+            if (key.isConnectable()) {
+                if (connection.channel.finishConnect()) {
+                    start(connection, connection.exchange, now);
+                }
+            } else if (key.isWritable()) {
+                write(connection);
+            } else if (key.isReadable()) {
+                read(connection, now);
+            }
+        } catch (IOException ex) {
+            fail(connection, ex);
+        }
+    }
+
+    private void dispatch(long now) {
+        while (!waiting.isEmpty()) {
+            Connection connection = pollIdle(now);
+
+            if (connection != null) {
+                start(connection, waiting.pollFirst(), now);
+            } else if (connections.size() < maxConnections) {
+                open(waiting.pollFirst(), now);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private Connection pollIdle(long now) {
+        Connection connection;
+
+        while ((connection = idle.pollFirst()) != null) {
+            if (now - connection.lastUsedMillis < idleTimeoutMillis) {
+                return connection;
+            }
+            discard(connection);
+        }
+
+        return null;
+    }
+
+    private void open(Exchange exchange, long now) {
+        Connection connection = null;
+
+        try {
+            SocketChannel channel = SocketChannel.open();
+            connection = new Connection(channel);
+            connection.exchange = exchange;
+            connections.add(connection);
+            openConnections.incrementAndGet();
+
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            connection.key = channel.register(selector, 0, connection);
+
+            exchange.deadline = deadline(now, connectTimeoutMillis);
+            if (channel.connect(new InetSocketAddress(host, port))) {
+                start(connection, exchange, now);
+            } else {
+                connection.key.interestOps(SelectionKey.OP_CONNECT);
+            }
+        } catch (IOException | UnresolvedAddressException ex) {
+            IOException failure = ex instanceof IOException ? (IOException) ex
+                    : new IOException("Cannot resolve " + host, ex);
+
+            if (connection != null) {
+                fail(connection, failure);
+            } else {
+                completeExceptionally(exchange, failure);
+            }
+        }
+    }
+
+    private void start(Connection connection, Exchange exchange, long now) {
+        connection.exchange = exchange;
+        connection.decoder = new HttpResponseDecoder();
+        connection.output = ByteBuffer.wrap(exchange.encoded);
+        exchange.deadline = deadline(now, readTimeoutMillis);
+
+        try {
+            write(connection);
+        } catch (IOException ex) {
+            fail(connection, ex);
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        connection.channel.write(connection.output);
+
+        if (connection.output.hasRemaining()) {
+            connection.key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            connection.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void read(Connection connection, long now) throws IOException {
+        readBuffer.clear();
+        int read = connection.channel.read(readBuffer);
+
+        if (connection.exchange == null) {
+            /* idle connection closed by the peer, or sending unexpected data */
+            if (read != 0) {
+                discard(connection);
+            }
+            return;
+        }
+
+        if (read == -1) {
+            if (!connection.decoder.finish()) {
+                throw new IOException("Connection closed by peer");
+            }
+            complete(connection, now);
+        } else {
+            readBuffer.flip();
+            if (connection.decoder.feed(readBuffer)) {
+                complete(connection, now);
+            }
+        }
+    }
+
+    private void complete(Connection connection, long now) {
+        Exchange exchange = connection.exchange;
+        HttpResponseDecoder decoder = connection.decoder;
+        connection.exchange = null;
+        connection.decoder = null;
+        connection.output = null;
+
+        if (decoder.isKeepAlive() && !closed) {
+            connection.lastUsedMillis = now;
+            connection.reused = true;
+            idle.addFirst(connection);
+        } else {
+            discard(connection);
+        }
+
+        if (decoder.getStatusCode() / 100 != 2) {
+            completeExceptionally(exchange, new IOException("HTTP " + decoder.getStatusCode()
+                    + ": " + decoder.getBodyAsString()));
+        } else {
+            pendingRequests.decrementAndGet();
+            exchange.future.complete(decoder.getBody());
+        }
+    }
+
+    private void fail(Connection connection, IOException ex) {
+        Exchange exchange = connection.exchange;
+        final boolean started = connection.decoder != null && connection.decoder.isStarted();
+        connection.exchange = null;
+        discard(connection);
+
+        if (exchange == null) {
+            return;
+        }
+
+        if (connection.reused && !started && !exchange.retried
+                && !(ex instanceof SocketTimeoutException) && !closed) {
+            /* peer closed the idle connection before answering, it may have processed it */
+            if (JsonRpcPayloads.callsAny(exchange.encoded, MultiEndpointTransport.PINNED_METHODS)) {
+                completeExceptionally(exchange, new IOException("Connection closed by peer before"
+                        + " answering, the request may have been processed", ex));
+            } else {
+                exchange.retried = true;
+                waiting.addFirst(exchange);
+            }
+        } else {
+            completeExceptionally(exchange, ex);
+        }
+    }
+
+    private void expire(long now) {
+        List<Connection> expired = null;
+
+        for (Connection connection : connections) {
+            if (connection.exchange != null && now > connection.exchange.deadline) {
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(connection);
+            }
+        }
+
+        if (expired != null) {
+            for (Connection connection : expired) {
+                fail(connection, new SocketTimeoutException("Rpc request timed out"));
+            }
+        }
+    }
+
+    private void discard(Connection connection) {
+        if (connections.remove(connection)) {
+            openConnections.decrementAndGet();
+        }
+        idle.remove(connection);
+
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+
+        try {
+            connection.channel.close();
+        } catch (IOException ex) {
+            // ignore close exception
+        }
+    }
+
+    private void shutdown() {
+        IOException closedException = new IOException("Transport is closed");
+
+        for (Connection connection : new ArrayList<>(connections)) {
+            Exchange exchange = connection.exchange;
+            discard(connection);
+            if (exchange != null) {
+                completeExceptionally(exchange, closedException);
+            }
+        }
+
+        Exchange exchange;
+        while ((exchange = waiting.pollFirst()) != null) {
+            completeExceptionally(exchange, closedException);
+        }
+        failSubmitted();
+
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            // ignore close exception
+        }
+    }
+
+    private void failSubmitted() {
+        Exchange exchange;
+        while ((exchange = submitted.poll()) != null) {
+            completeExceptionally(exchange, new IOException("Transport is closed"));
+        }
+    }
+
+    private void completeExceptionally(Exchange exchange, IOException ex) {
+        pendingRequests.decrementAndGet();
+        exchange.future.completeExceptionally(ex);
+    }
+
+    private static long deadline(long now, int timeoutMillis) {
+        return timeoutMillis > 0 ? now + timeoutMillis : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return Returns max connections to the endpoint.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return Returns number of open connections, busy or idle.
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * @return Returns number of requests sent or queued, not yet answered.
+     */
+    public int getPendingRequests() {
+        return pendingRequests.get();
+    }
+
+    /**
+     * Set how long an idle connection is kept before it is closed.
+     *
+     * @param idleTimeoutMillis
+     *            Idle timeout.
+     */
+    public void setIdleTimeoutMillis(int idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Stop the I/O thread, pending requests fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    @Override
+    public String toString() {
+        return "NioHttpTransport [host=" + host + ", port=" + port + ", maxConnections="
+                + maxConnections + "]";
+    }
+
+    /**
+     * A request waiting for, or on, a connection.
+     */
+    private static class Exchange {
+        private final byte[] encoded;
+        private final CompletableFuture<byte[]> future;
+        private long deadline = Long.MAX_VALUE;
+        private boolean retried = false;
+
+        Exchange(byte[] encoded, CompletableFuture<byte[]> future) {
+            this.encoded = encoded;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Non blocking socket with the state of its current exchange.
+     */
+    private static class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private Exchange exchange;
+        private HttpResponseDecoder decoder;
+        private ByteBuffer output;
+        private long lastUsedMillis;
+        private boolean reused = false;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
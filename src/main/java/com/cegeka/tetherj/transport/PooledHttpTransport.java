@@ -0,0 +1,545 @@
+package com.cegeka.tetherj.transport;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/1.1 transport keeping a pool of persistent (keep alive) connections to one ethereum
+ * client endpoint. The number of connections, and thus of concurrent requests, is bounded.
+ * Callers block while all connections are busy. A request on a pooled connection the peer closed
+ * before answering is sent again on a new one, unless it calls one of the
+ * {@link MultiEndpointTransport#PINNED_METHODS}, which may have been processed already.
+ *
+ * @author Andrei Grigoriu
+ *
+ */
+public class PooledHttpTransport implements EthRpcTransport {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+    public static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final String host;
+    private final int port;
+    private final byte[] requestHead;
+    private final int maxConnections;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    private volatile int idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private volatile int socketBufferSize = 0;
+
+    private final Semaphore permits;
+    private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    /**
+     * Pooled transport with default limits and timeouts.
+     *
+     * @param url
+     *            of the ethereum client (http only).
+     */
+    public PooledHttpTransport(URL url) {
+        this(url, DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Pooled transport with custom limits and timeouts.
+     *
+     * @param url
+     *            of the ethereum client (http only).
+     * @param maxConnections
+     *            Max connections (and concurrent requests) to the endpoint.
+     * @param connectTimeoutMillis
+     *            Connect timeout, 0 for none.
+     * @param readTimeoutMillis
+     *            Read timeout, 0 for none.
+     */
+    public PooledHttpTransport(URL url, int maxConnections, int connectTimeoutMillis,
+            int readTimeoutMillis) {
+        if (!"http".equals(url.getProtocol())) {
+            throw new IllegalArgumentException("Only http is supported: " + url);
+        }
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Max connections must be at least 1");
+        }
+
+        this.host = url.getHost();
+        this.port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        this.requestHead = encodeRequestHead(url);
+        this.maxConnections = maxConnections;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Encode request line and fixed headers, content length is appended per request.
+     *
+     * @param url
+     *            to post to.
+     * @return Returns ascii bytes of the request head.
+     */
+    static byte[] encodeRequestHead(URL url) {
+        String path = url.getFile().isEmpty() ? "/" : url.getFile();
+        int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+
+        String head = "POST " + path + " HTTP/1.1\r\n"
+                + "Host: " + url.getHost() + ":" + port + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Accept: application/json\r\n"
+                + "Connection: keep-alive\r\n"
+                + "Content-Length: ";
+        return head.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Encode a complete http request.
+     *
+     * @param requestHead
+     *            as returned by {@link #encodeRequestHead(URL)}.
+     * @param request
+     *            body to send.
+     * @return Returns the request bytes.
+     */
+    static byte[] encodeRequest(byte[] requestHead, byte[] request) {
+        byte[] length = (request.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] encoded = new byte[requestHead.length + length.length + request.length];
+
+        System.arraycopy(requestHead, 0, encoded, 0, requestHead.length);
+        System.arraycopy(length, 0, encoded, requestHead.length, length.length);
+        System.arraycopy(request, 0, encoded, requestHead.length + length.length,
+                request.length);
+        return encoded;
+    }
+
+    @Override
+    public byte[] send(byte[] request) throws IOException {
+        if (closed) {
+            throw new IOException("Transport is closed");
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        }
+
+        try {
+            byte[] encoded = encodeRequest(requestHead, request);
+            Connection connection = pollIdle();
+
+            if (connection != null) {
+                try {
+                    return exchange(connection, encoded);
+                } catch (StaleConnectionException ex) {
+                    /* peer closed the idle connection before answering, retry fresh if safe */
+                    checkResendable(request, ex);
+                }
+            }
+
+            return exchange(open(), encoded);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Send a request and return the body while it is read from the connection. The connection
+     * (and its permit) is held until the stream is closed, it goes back to the pool if the body
+     * was read completely.
+     */
+    @Override
+    public InputStream sendStreaming(byte[] request) throws IOException {
+        if (closed) {
+            throw new IOException("Transport is closed");
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        }
+
+        BodyInputStream body = null;
+        try {
+            byte[] encoded = encodeRequest(requestHead, request);
+            Connection connection = pollIdle();
+
+            if (connection != null) {
+                try {
+                    body = openBody(connection, encoded);
+                } catch (StaleConnectionException ex) {
+                    /* peer closed the idle connection before answering, retry fresh if safe */
+                    checkResendable(request, ex);
+                }
+            }
+
+            if (body == null) {
+                body = openBody(open(), encoded);
+            }
+        } catch (IOException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+
+        /* the body holds the connection and its permit from here, closing it releases them */
+        if (body.decoder.getStatusCode() / 100 != 2) {
+            byte[] error;
+            try {
+                error = readFully(body);
+            } finally {
+                body.close();
+            }
+            throw new IOException("HTTP " + body.decoder.getStatusCode() + ": "
+                    + new String(error, StandardCharsets.UTF_8));
+        }
+
+        return body;
+    }
+
+    /**
+     * A request on a connection the peer closed may still have been processed, only requests
+     * that do not change state on the node are sent again.
+     *
+     * @throws IOException if the request calls a method pinned to one endpoint
+     */
+    private static void checkResendable(byte[] request, StaleConnectionException ex)
+            throws IOException {
+        if (JsonRpcPayloads.callsAny(request, MultiEndpointTransport.PINNED_METHODS)) {
+            throw new IOException("Connection closed by peer before answering, the request may"
+                    + " have been processed", ex);
+        }
+    }
+
+    private BodyInputStream openBody(Connection connection, byte[] encoded) throws IOException {
+        HttpResponseDecoder decoder = new HttpResponseDecoder();
+        ByteBuffer buffer = ByteBuffer.wrap(connection.readBuffer);
+        buffer.limit(0);
+
+        try {
+            connection.output.write(encoded);
+            connection.output.flush();
+
+            while (!decoder.feedHead(buffer)) {
+                int read = connection.input.read(connection.readBuffer);
+                if (read == -1) {
+                    throw new IOException("Connection closed by peer");
+                }
+                buffer.clear().limit(read);
+            }
+        } catch (IOException ex) {
+            discard(connection);
+            if (connection.reused && !decoder.isStarted()
+                    && !(ex instanceof SocketTimeoutException)) {
+                throw new StaleConnectionException();
+            }
+            throw ex;
+        }
+
+        return new BodyInputStream(connection, decoder, buffer);
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private byte[] exchange(Connection connection, byte[] encoded) throws IOException {
+        HttpResponseDecoder decoder = new HttpResponseDecoder();
+
+        try {
+            connection.output.write(encoded);
+            connection.output.flush();
+
+            ByteBuffer buffer = ByteBuffer.wrap(connection.readBuffer);
+            boolean complete = false;
+            while (!complete) {
+                int read = connection.input.read(connection.readBuffer);
+                if (read == -1) {
+                    complete = decoder.finish();
+                    if (!complete) {
+                        throw new IOException("Connection closed by peer");
+                    }
+                } else {
+                    buffer.clear().limit(read);
+                    complete = decoder.feed(buffer);
+                }
+            }
+        } catch (IOException ex) {
+            discard(connection);
+            if (connection.reused && !decoder.isStarted()
+                    && !(ex instanceof SocketTimeoutException)) {
+                throw new StaleConnectionException();
+            }
+            throw ex;
+        }
+
+        if (decoder.isKeepAlive() && !closed) {
+            connection.lastUsedMillis = System.currentTimeMillis();
+            connection.reused = true;
+            idle.offerFirst(connection);
+        } else {
+            discard(connection);
+        }
+
+        if (decoder.getStatusCode() / 100 != 2) {
+            throw new IOException("HTTP " + decoder.getStatusCode() + ": "
+                    + decoder.getBodyAsString());
+        }
+
+        return decoder.getBody();
+    }
+
+    private Connection pollIdle() {
+        long now = System.currentTimeMillis();
+        Connection connection;
+
+        while ((connection = idle.pollFirst()) != null) {
+            if (now - connection.lastUsedMillis < idleTimeoutMillis
+                    && !connection.socket.isClosed()) {
+                return connection;
+            }
+            discard(connection);
+        }
+
+        return null;
+    }
+
+    private Connection open() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(readTimeoutMillis);
+            if (socketBufferSize > 0) {
+                socket.setSendBufferSize(socketBufferSize);
+                socket.setReceiveBufferSize(socketBufferSize);
+            }
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+
+        openConnections.incrementAndGet();
+        return new Connection(socket);
+    }
+
+    private void discard(Connection connection) {
+        if (!connection.socket.isClosed()) {
+            openConnections.decrementAndGet();
+        }
+
+        try {
+            connection.socket.close();
+        } catch (IOException ex) {
+            // ignore close exception
+        }
+    }
+
+    /**
+     * @return Returns max connections to the endpoint.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return Returns number of open connections, busy or idle.
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * @return Returns number of requests that may start without waiting for a connection.
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Set how long an idle connection is kept before it is closed.
+     *
+     * @param idleTimeoutMillis
+     *            Idle timeout.
+     */
+    public void setIdleTimeoutMillis(int idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Set socket send and receive buffer sizes for new connections.
+     *
+     * @param socketBufferSize
+     *            Buffer size in bytes, 0 for system default.
+     */
+    public void setSocketBufferSize(int socketBufferSize) {
+        this.socketBufferSize = socketBufferSize;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PooledHttpTransport [host=" + host + ", port=" + port + ", maxConnections="
+                + maxConnections + "]";
+    }
+
+    /**
+     * Pooled socket with its streams.
+     */
+    private static class Connection {
+        private final Socket socket;
+        private final InputStream input;
+        private final OutputStream output;
+        private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        private long lastUsedMillis;
+        private boolean reused = false;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.input = socket.getInputStream();
+            this.output = new BufferedOutputStream(socket.getOutputStream(), READ_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Response body read from a pooled connection. Closing it releases the connection, to the
+     * pool if the body was read completely and the connection may be kept alive.
+     */
+    private class BodyInputStream extends InputStream {
+        private final Connection connection;
+        private final HttpResponseDecoder decoder;
+        private final ByteBuffer buffer;
+        private boolean failed = false;
+        private boolean released = false;
+
+        BodyInputStream(Connection connection, HttpResponseDecoder decoder, ByteBuffer buffer) {
+            this.connection = connection;
+            this.decoder = decoder;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (released) {
+                throw new IOException("Stream closed");
+            }
+            if (length == 0) {
+                return 0;
+            }
+
+            try {
+                while (true) {
+                    int copied = decoder.feedBody(buffer, target, offset, length);
+                    if (copied > 0) {
+                        return copied;
+                    }
+                    if (decoder.isDone()) {
+                        return -1;
+                    }
+
+                    int read = connection.input.read(connection.readBuffer);
+                    if (read == -1) {
+                        if (decoder.finish()) {
+                            return -1;
+                        }
+                        throw new IOException("Connection closed by peer");
+                    }
+                    buffer.clear().limit(read);
+                }
+            } catch (IOException ex) {
+                failed = true;
+                throw ex;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            drainRemainder();
+            released = true;
+
+            if (!failed && decoder.isDone() && decoder.isKeepAlive() && !closed) {
+                connection.lastUsedMillis = System.currentTimeMillis();
+                connection.reused = true;
+                idle.offerFirst(connection);
+            } else {
+                /* unread body left on the connection, it cannot be reused */
+                discard(connection);
+            }
+            permits.release();
+        }
+
+        /**
+         * Read what is left of the body, typically the chunked terminator after the parser
+         * stopped at the end of the json document, if it is small.
+         */
+        private void drainRemainder() {
+            byte[] scratch = new byte[READ_BUFFER_SIZE];
+            int drained = 0;
+            try {
+                while (!failed && !decoder.isDone() && drained <= MAX_DRAIN_BYTES) {
+                    int read = read(scratch, 0, scratch.length);
+                    if (read == -1) {
+                        break;
+                    }
+                    drained += read;
+                }
+            } catch (IOException ex) {
+                failed = true;
+            }
+        }
+    }
+
+    /**
+     * Reused connection was closed by the peer before any response byte was read.
+     */
+    private static class StaleConnectionException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,170 @@
+package org.ethereum.core;
+
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.util.LRUMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses encoded transactions and recovers their senders in bulk, split over a fork join pool. Each transaction is
+ * its own instance, so the per instance locks of {@link Transaction} are never contended.
+ *
+ * Recovered senders can be kept in a bounded cache keyed by transaction hash, a transaction seen again (the same
+ * block audited twice, a pending transaction mined later) is then only parsed and validated.
+ */
+public class SenderRecovery {
+
+    // Transactions recovered by one task, small enough to balance, big enough to not split for nothing.
+    private static final int TASK_SIZE = 16;
+
+    private final ForkJoinPool pool;
+    private final Map<ByteArrayWrapper, byte[]> senders;
+
+    /**
+     * Result of one transaction.
+     */
+    public static class Result {
+        private final Transaction transaction;
+        private final byte[] sender;
+        private final boolean valid;
+        private final Exception error;
+
+        Result(Transaction transaction, byte[] sender, boolean valid, Exception error) {
+            this.transaction = transaction;
+            this.sender = sender;
+            this.valid = valid;
+            this.error = error;
+        }
+
+        /**
+         * @return parsed transaction, null if it could not be parsed
+         */
+        public Transaction getTransaction() {
+            return transaction;
+        }
+
+        /**
+         * @return 20 byte sender address, null if not recoverable
+         */
+        public byte[] getSender() {
+            return sender;
+        }
+
+        /**
+         * @return true if the transaction parsed, validated and has a well formed signature of a recoverable sender
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+        /**
+         * @return why parsing or validating failed, null otherwise
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Recover without caching senders.
+     *
+     * @param pool to recover on
+     */
+    public SenderRecovery(ForkJoinPool pool) {
+        this(pool, 0);
+    }
+
+    /**
+     * @param pool to recover on
+     * @param cachedSenders most senders to keep by transaction hash, 0 for none
+     */
+    public SenderRecovery(ForkJoinPool pool, int cachedSenders) {
+        this.pool = pool;
+        this.senders = cachedSenders > 0 ? new LRUMap<>(Math.min(cachedSenders, 1024), cachedSenders) : null;
+    }
+
+    /**
+     * Parse, validate and recover the senders of encoded transactions, blocking until all are done.
+     *
+     * @param encodedTransactions signed rlp encoded transactions
+     * @return results in the order of the transactions
+     */
+    public List<Result> recover(Collection<byte[]> encodedTransactions) {
+        byte[][] encoded = encodedTransactions.toArray(new byte[0][]);
+        Result[] results = new Result[encoded.length];
+        pool.invoke(new RecoverTask(encoded, results, 0, encoded.length));
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    private class RecoverTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[][] encoded;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        RecoverTask(byte[][] encoded, Result[] results, int from, int to) {
+            this.encoded = encoded;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    results[i] = recover(encoded[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RecoverTask(encoded, results, from, middle),
+                        new RecoverTask(encoded, results, middle, to));
+            }
+        }
+    }
+
+    private Result recover(byte[] encoded) {
+        Transaction transaction;
+        ByteArrayWrapper hash;
+        try {
+            transaction = new Transaction(encoded);
+            transaction.rlpParse();
+            hash = new ByteArrayWrapper(transaction.getHash());
+        } catch (RuntimeException e) {
+            return new Result(null, null, false, e);
+        }
+
+        if (senders != null) {
+            // Known sender, validation below does not recover it again.
+            transaction.sendAddress = senders.get(hash);
+        }
+
+        try {
+            transaction.verify();
+        } catch (RuntimeException e) {
+            return new Result(transaction, null, false, e);
+        }
+
+        byte[] sender = transaction.getSender();
+        if (sender != null && senders != null) {
+            senders.putIfAbsent(hash, sender);
+        }
+        boolean valid = sender != null && transaction.getSignature().validateComponents();
+        return new Result(transaction, sender, valid, null);
+    }
+
+    /**
+     * @return senders cached, 0 without a cache
+     */
+    public int getCachedSenders() {
+        return senders != null ? senders.size() : 0;
+    }
+}
@@ -62,6 +62,7 @@ import org.spongycastle.crypto.signers.HMacDSAKCalculator;
 import org.spongycastle.math.ec.ECAlgorithms;
 import org.spongycastle.math.ec.ECCurve;
 import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.WNafUtil;
 import org.spongycastle.util.BigIntegers;
 import org.spongycastle.util.encoders.Base64;
 import org.spongycastle.util.encoders.Hex;
@@ -204,7 +205,24 @@ public class ECKey implements Serializable {
      * @param secureRandom -
      */
     public ECKey(SecureRandom secureRandom) {
-        this(SpongyCastleProvider.getInstance(), secureRandom);
+        this(randomPrivateKey(secureRandom));
+    }
+
+    private ECKey(BigInteger priv) {
+        this(priv, FixedBaseMultiplier.multiply(priv));
+    }
+
+    /* Draw a private key the way the SpongyCastle EC key pair generator does
+     */
+    private static BigInteger randomPrivateKey(SecureRandom secureRandom) {
+        BigInteger n = CURVE.getN();
+        int minWeight = n.bitLength() >>> 2;
+        while (true) {
+            BigInteger d = new BigInteger(n.bitLength(), secureRandom);
+            if (d.compareTo(BigInteger.ONE) > 0 && d.compareTo(n) < 0 && WNafUtil.getNafWeight(d) >= minWeight) {
+                return d;
+            }
+        }
     }
 
     /* Test if a generic private key is an EC private key
@@ -305,7 +323,7 @@ public class ECKey implements Serializable {
      * @return  -
      */
     public static ECKey fromPrivate(BigInteger privKey) {
-        return new ECKey(privKey, CURVE.getG().multiply(privKey));
+        return new ECKey(privKey, FixedBaseMultiplier.multiply(privKey));
     }
 
     /**
@@ -423,7 +441,7 @@ public class ECKey implements Serializable {
      * @return -
      */
     public static byte[] publicKeyFromPrivate(BigInteger privKey, boolean compressed) {
-        ECPoint point = CURVE.getG().multiply(privKey);
+        ECPoint point = FixedBaseMultiplier.multiply(privKey);
         return point.getEncoded(compressed);
     }
 
@@ -738,11 +756,7 @@ public class ECKey implements Serializable {
         if (privKey == null)
             throw new MissingPrivateKeyException();
         if (privKey instanceof BCECPrivateKey) {
-            ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
-            ECPrivateKeyParameters privKeyParams = new ECPrivateKeyParameters(((BCECPrivateKey) privKey).getD(), CURVE);
-            signer.init(true, privKeyParams);
-            BigInteger[] components = signer.generateSignature(input);
-            return new ECDSASignature(components[0], components[1]).toCanonicalised();
+            return signRecoverable(((BCECPrivateKey) privKey).getD(), input);
         } else {
             try {
                 final Signature ecSig = ECSignatureFactory.getRawInstance(provider);
@@ -757,6 +771,42 @@ public class ECKey implements Serializable {
     }
 
 
+    /**
+     * Deterministic (RFC 6979) ECDSA, the same signature as ECDSASigner with an HMacDSAKCalculator gives, canonicalised.
+     * The recovery id is taken from the nonce point R while signing: bit 0 is the parity of R.y, bit 1 is set if R.x
+     * was reduced modulo n to get r. Canonicalising s negates R, which flips the parity.
+     *
+     * @param d private key
+     * @param messageHash 32 bytes to sign
+     * @return canonical signature with v set
+     */
+    private static ECDSASignature signRecoverable(BigInteger d, byte[] messageHash) {
+        BigInteger n = CURVE.getN();
+        BigInteger e = new BigInteger(1, messageHash);
+        HMacDSAKCalculator kCalculator = new HMacDSAKCalculator(new SHA256Digest());
+        kCalculator.init(n, d, messageHash);
+        while (true) {
+            BigInteger k = kCalculator.nextK();
+            ECPoint R = FixedBaseMultiplier.multiply(k);
+            BigInteger x = R.getAffineXCoord().toBigInteger();
+            BigInteger r = x.mod(n);
+            if (r.signum() == 0)
+                continue;
+            BigInteger s = k.modInverse(n).multiply(e.add(d.multiply(r))).mod(n);
+            if (s.signum() == 0)
+                continue;
+
+            int recId = (R.getAffineYCoord().toBigInteger().testBit(0) ? 1 : 0) | (x.compareTo(n) >= 0 ? 2 : 0);
+            if (s.compareTo(HALF_CURVE_ORDER) > 0) {
+                s = n.subtract(s);
+                recId ^= 1;
+            }
+            ECDSASignature sig = new ECDSASignature(r, s);
+            sig.v = (byte) (recId + 27);
+            return sig;
+        }
+    }
+
     /**
      * Takes the keccak hash (32 bytes) of data and returns the ECDSA signature
      *
@@ -766,6 +816,10 @@ public class ECKey implements Serializable {
      */
     public ECDSASignature sign(byte[] messageHash) {
         ECDSASignature sig = doSign(messageHash);
+        if (sig.v != 0) {
+            // Signed in process, the recId was derived from R already.
+            return sig;
+        }
         // Now we have to work backwards to figure out the recId needed to recover the signature.
         int recId = -1;
         byte[] thisKey = this.pub.getEncoded(/* compressed */ false);
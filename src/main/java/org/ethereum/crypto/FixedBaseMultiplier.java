@@ -0,0 +1,103 @@
+package org.ethereum.crypto;
+
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+
+import static org.ethereum.util.ByteUtil.bigIntegerToBytes;
+
+/**
+ * Multiplies the secp256k1 generator by a scalar with precomputed tables.
+ *
+ * The scalar is split in 8 bit windows, window i holds every multiple j * 2^(8 * i) * G for j from 1 to 255, so a
+ * multiplication is at most 32 point additions and no doublings. The tables are built once per JVM on first use, on
+ * the SpongyCastle secp256k1 curve with the specialised field arithmetic, about 8k affine points. Results are
+ * converted to {@link ECKey#CURVE} points.
+ *
+ * Not constant time, like the generic multipliers it replaces.
+ */
+public final class FixedBaseMultiplier {
+
+    private static final int WINDOW_BITS = 8;
+    private static final int WINDOWS = (256 + WINDOW_BITS - 1) / WINDOW_BITS;
+    private static final int WINDOW_MASK = (1 << WINDOW_BITS) - 1;
+
+    private FixedBaseMultiplier() {
+    }
+
+    /**
+     * Built on first access of the holder class, the JVM guards it.
+     */
+    private static class Tables {
+        static final X9ECParameters PARAMS = CustomNamedCurves.getByName("secp256k1");
+        static final ECPoint[][] MULTIPLES = build(PARAMS.getCurve(), PARAMS.getG());
+
+        private static ECPoint[][] build(ECCurve curve, ECPoint generator) {
+            ECPoint[] all = new ECPoint[WINDOWS * WINDOW_MASK];
+            ECPoint base = generator;
+            for (int i = 0; i < WINDOWS; i++) {
+                ECPoint multiple = base;
+                for (int j = 0; j < WINDOW_MASK; j++) {
+                    all[i * WINDOW_MASK + j] = multiple;
+                    multiple = multiple.add(base);
+                }
+                // multiple is 2^WINDOW_BITS * base now
+                base = multiple;
+            }
+            // One field inversion for all of them, additions of affine points are cheaper.
+            curve.normalizeAll(all);
+
+            ECPoint[][] tables = new ECPoint[WINDOWS][WINDOW_MASK];
+            for (int i = 0; i < WINDOWS; i++) {
+                System.arraycopy(all, i * WINDOW_MASK, tables[i], 0, WINDOW_MASK);
+            }
+            return tables;
+        }
+    }
+
+    /**
+     * Computes k * G.
+     *
+     * @param k scalar, reduced modulo the curve order
+     * @return normalized point on {@link ECKey#CURVE}
+     */
+    public static ECPoint multiply(BigInteger k) {
+        BigInteger n = ECKey.CURVE.getN();
+        if (k.signum() < 0 || k.compareTo(n) >= 0) {
+            k = k.mod(n);
+        }
+
+        byte[] scalar = bigIntegerToBytes(k, 32);
+        ECPoint[][] multiples = Tables.MULTIPLES;
+        ECPoint sum = Tables.PARAMS.getCurve().getInfinity();
+        for (int i = 0; i < WINDOWS; i++) {
+            int digit = window(scalar, i);
+            if (digit != 0) {
+                sum = sum.add(multiples[i][digit - 1]);
+            }
+        }
+
+        if (sum.isInfinity()) {
+            return ECKey.CURVE.getCurve().getInfinity();
+        }
+        sum = sum.normalize();
+        return ECKey.CURVE.getCurve().createPoint(sum.getAffineXCoord().toBigInteger(),
+                sum.getAffineYCoord().toBigInteger());
+    }
+
+    /**
+     * Bits [i * WINDOW_BITS, (i + 1) * WINDOW_BITS) of a big endian 256 bit scalar.
+     */
+    private static int window(byte[] scalar, int i) {
+        int digit = 0;
+        int low = i * WINDOW_BITS;
+        for (int bit = Math.min(low + WINDOW_BITS, 256) - 1; bit >= low; bit--) {
+            int b = scalar[31 - (bit >>> 3)] >>> (bit & 7) & 1;
+            digit = digit << 1 | b;
+        }
+        return digit;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ethereum.util;
+
+/**
+ * Count-min sketch of 4 bit counters estimating how often keys were used, the popularity
+ * estimator of the TinyLFU admission policy. Counters are halved every sample period so the
+ * estimate follows changes in popularity.
+ *
+ * <p>Ported from the {@code FrequencySketch} of the Caffeine caching library
+ * (https://github.com/ben-manes/caffeine), keeping its hash seeds, counter layout and reset
+ * scheme, simplified to the single threaded use of this package.
+ *
+ * <p>Not thread safe, {@link LRUMap} only uses it under its eviction lock.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+        0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_SIZE = 1 << 18;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * @param expectedEntries entries of the cache the sketch is used for
+     */
+    FrequencySketch(long expectedEntries) {
+        int capacity = (int) Math.max(8, Math.min(MAX_TABLE_SIZE, expectedEntries));
+        int tableSize = Integer.highestOneBit(capacity - 1) << 1;
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        sampleSize = 10 * tableSize;
+    }
+
+    /**
+     * @return estimated use count of the key, at most 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Count one use of the key.
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halve all counters, ageing the popularity of keys no longer used.
+     */
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int depth) {
+        long index = (hash + SEEDS[depth]) * SEEDS[depth];
+        index += index >>> 32;
+        return ((int) index) & tableMask;
+    }
+
+    private static int spread(int hash) {
+        int spread = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        spread = ((spread >>> 16) ^ spread) * 0x45d9f3b;
+        return (spread >>> 16) ^ spread;
+    }
+}
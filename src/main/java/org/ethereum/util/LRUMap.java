@@ -1,25 +1,748 @@
 package org.ethereum.util;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
- * Simple LRU map used for reusing lookup values.
+ * Bounded concurrent map used for caching lookup values.
+ *
+ * <p>Entries live in a {@link ConcurrentHashMap}, so reads and writes do not block each other.
+ * The eviction order is kept in two access ordered lists, a small admission window (1% of the
+ * capacity) in front of the main region, guarded by a single eviction lock that is never waited
+ * for: reads are recorded in lossy striped buffers and writes in a queue, both replayed by
+ * whichever thread gets the lock. When the window overflows its least recently used entry
+ * becomes a candidate for the main region, and is only admitted over the main region's least
+ * recently used entry if it was used more often, estimated by a TinyLFU frequency sketch. A scan
+ * of one time keys therefore does not flush the frequently used ones.
+ *
+ * <p>Capacity is a number of entries, or a total weight if a {@link Weigher} is given. Entries
+ * can expire a fixed time after they were written, they are kept in a third list in write order
+ * for that. The size may temporarily exceed the capacity by the writes not replayed yet, and
+ * expired entries are removed when read or by the next maintenance, which {@link #cleanUp()}
+ * runs on demand, for example on a schedule. Null keys and values are not allowed.
  */
-public class LRUMap<K, V> extends ConcurrentHashMap<K, V> {
+public class LRUMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
 
-    private static final long serialVersionUID = 1L;
+    /**
+     * Weight of an entry, counted against the capacity of the map.
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /**
+     * Notified of entries the map drops by itself, evicted or expired. Called on the thread that
+     * dropped it, possibly holding the eviction lock, so it must be quick and not use the map.
+     */
+    @FunctionalInterface
+    public interface RemovalListener<K, V> {
+        void onRemoval(K key, V value);
+    }
+
+    private static final int NONE = 0;
+    private static final int WINDOW = 1;
+    private static final int MAIN = 2;
+    private static final int RETIRED = 3;
+
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int WRITE_DRAIN_THRESHOLD = 64;
 
     protected final int maxEntries;
 
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final RemovalListener<? super K, ? super V> removalListener;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /* guarded by the eviction lock */
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> main = new AccessOrder<>();
+    private final WriteOrder<K, V> writeOrder = new WriteOrder<>();
+    private final FrequencySketch sketch;
+    private long windowWeight;
+    private long mainWeight;
+
+    /**
+     * Map holding at most maxEntries entries.
+     *
+     * @param initialEntries initial capacity of the hash table
+     * @param maxEntries max number of entries kept
+     */
     public LRUMap(int initialEntries, int maxEntries) {
-        super(initialEntries, 0.8f, 3);
-        this.maxEntries = maxEntries;
+        this(initialEntries, maxEntries, null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Map bounded by total weight, with optional expiry.
+     *
+     * @param initialEntries initial capacity of the hash table
+     * @param maxWeight max total weight kept, a number of entries if there is no weigher
+     * @param weigher weight of an entry, null for a weight of 1 per entry
+     * @param expireAfterWrite time after which an entry expires, 0 to never expire
+     * @param unit of expireAfterWrite
+     */
+    public LRUMap(int initialEntries, long maxWeight, Weigher<? super K, ? super V> weigher,
+            long expireAfterWrite, TimeUnit unit) {
+        this(initialEntries, maxWeight, weigher, expireAfterWrite, unit, null);
     }
 
-    /*
-     * todo: temporary removed during concurrent impl
-     * 
-     * @Override protected boolean removeEldestEntry(Map.Entry<K,V> eldest) { return size() >
-     * maxEntries; }
+    /**
+     * Map bounded by total weight, with optional expiry, notifying of the entries it drops.
+     *
+     * @param initialEntries initial capacity of the hash table
+     * @param maxWeight max total weight kept, a number of entries if there is no weigher
+     * @param weigher weight of an entry, null for a weight of 1 per entry
+     * @param expireAfterWrite time after which an entry expires, 0 to never expire
+     * @param unit of expireAfterWrite
+     * @param removalListener notified of evicted and expired entries, null for none
      */
-}
\ No newline at end of file
+    @SuppressWarnings("unchecked")
+    public LRUMap(int initialEntries, long maxWeight, Weigher<? super K, ? super V> weigher,
+            long expireAfterWrite, TimeUnit unit,
+            RemovalListener<? super K, ? super V> removalListener) {
+        if (maxWeight < 0 || expireAfterWrite < 0) {
+            throw new IllegalArgumentException("Max weight and expiry must not be negative");
+        }
+
+        this.maxEntries = (int) Math.min(Integer.MAX_VALUE, maxWeight);
+        this.maxWeight = maxWeight;
+        this.windowMaxWeight = Math.max(1, maxWeight / 100);
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.removalListener = removalListener;
+        this.data = new ConcurrentHashMap<>(initialEntries);
+        this.sketch = new FrequencySketch(weigher == null ? maxWeight : initialEntries);
+
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1)
+                << 1;
+        readBuffers = (ReadBuffer<K, V>[]) new ReadBuffer<?, ?>[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+
+        if (isExpired(node)) {
+            if (data.remove(key, node)) {
+                notifyRemoval(node);
+                afterWrite(() -> onRemove(node));
+            }
+            return null;
+        }
+
+        afterRead(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Node<K, V> node = data.get(key);
+        return node != null && !isExpired(node);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Node<K, V> node = newNode(key, value);
+        Node<K, V> prior = data.put(key, node);
+        afterPut(prior, node);
+        if (prior != null && isExpired(prior)) {
+            notifyRemoval(prior);
+            return null;
+        }
+        return prior == null ? null : prior.value;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Node<K, V> node = newNode(key, value);
+        while (true) {
+            Node<K, V> prior = data.putIfAbsent(key, node);
+            if (prior == null) {
+                afterPut(null, node);
+                return null;
+            }
+
+            if (!isExpired(prior)) {
+                afterRead(prior);
+                return prior.value;
+            }
+
+            if (data.replace(key, prior, node)) {
+                notifyRemoval(prior);
+                afterPut(prior, node);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Node<K, V> node = newNode(key, value);
+        while (true) {
+            Node<K, V> prior = data.get(key);
+            if (prior == null || isExpired(prior)) {
+                return null;
+            }
+
+            if (data.replace(key, prior, node)) {
+                afterPut(prior, node);
+                return prior.value;
+            }
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        Node<K, V> node = newNode(key, newValue);
+        while (true) {
+            Node<K, V> prior = data.get(key);
+            if (prior == null || isExpired(prior) || !prior.value.equals(oldValue)) {
+                return false;
+            }
+
+            if (data.replace(key, prior, node)) {
+                afterPut(prior, node);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> prior = data.remove(key);
+        if (prior == null) {
+            return null;
+        }
+
+        afterWrite(() -> onRemove(prior));
+        if (isExpired(prior)) {
+            notifyRemoval(prior);
+            return null;
+        }
+        return prior.value;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (value == null) {
+            return false;
+        }
+
+        while (true) {
+            Node<K, V> prior = data.get(key);
+            if (prior == null || isExpired(prior) || !prior.value.equals(value)) {
+                return false;
+            }
+
+            if (data.remove(key, prior)) {
+                afterWrite(() -> onRemove(prior));
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return data.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        for (K key : data.keySet()) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Replay pending reads and writes now, remove the expired entries and evict down to the
+     * capacity.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return max total weight, the max number of entries without weigher
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * @return total weight of the entries as of the last maintenance
+     */
+    public long getWeightedSize() {
+        evictionLock.lock();
+        try {
+            return windowWeight + mainWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of entries evicted for capacity or expiry
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private Node<K, V> newNode(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int weight = weigher == null ? 1 : weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative");
+        }
+        long writeTime = expireAfterWriteNanos > 0 ? System.nanoTime() : 0;
+        return new Node<>(key, value, weight, writeTime);
+    }
+
+    private boolean isExpired(Node<K, V> node) {
+        return expireAfterWriteNanos > 0
+                && System.nanoTime() - node.writeTime >= expireAfterWriteNanos;
+    }
+
+    private void afterPut(Node<K, V> prior, Node<K, V> node) {
+        if (prior == null) {
+            afterWrite(() -> onAdd(node));
+        } else {
+            afterWrite(() -> onUpdate(prior, node));
+        }
+    }
+
+    private void afterRead(Node<K, V> node) {
+        int stripe = (int) Thread.currentThread().getId() & (readBuffers.length - 1);
+        if (!readBuffers[stripe].offer(node)) {
+            tryDrain();
+        }
+    }
+
+    /**
+     * Apply a write to the eviction order right away if the lock is free, queue it otherwise.
+     */
+    private void afterWrite(Runnable task) {
+        if (writeBuffer.isEmpty() && evictionLock.tryLock()) {
+            try {
+                task.run();
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            if (writeBuffer.isEmpty()) {
+                return;
+            }
+        } else {
+            writeBuffer.add(task);
+        }
+        tryDrain();
+    }
+
+    /**
+     * Run maintenance unless another thread is. Writes queued while the lock holder finishes are
+     * seen by the check after unlocking.
+     */
+    private void tryDrain() {
+        do {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    private void maintenance() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this::onAccess);
+        }
+
+        Runnable task;
+        int drained = 0;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+            if (++drained % WRITE_DRAIN_THRESHOLD == 0) {
+                evict();
+            }
+        }
+
+        expire();
+        evict();
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.queue == WINDOW) {
+            window.moveToTail(node);
+        } else if (node.queue == MAIN) {
+            main.moveToTail(node);
+        } else {
+            return;
+        }
+        sketch.increment(node.key);
+    }
+
+    private void onAdd(Node<K, V> node) {
+        if (node.queue == NONE) {
+            link(node, WINDOW);
+            if (expireAfterWriteNanos > 0) {
+                writeOrder.addTail(node);
+            }
+            sketch.increment(node.key);
+        }
+    }
+
+    private void onUpdate(Node<K, V> prior, Node<K, V> node) {
+        int queue = prior.queue == MAIN ? MAIN : WINDOW;
+        retire(prior);
+        if (node.queue == NONE) {
+            link(node, queue);
+            if (expireAfterWriteNanos > 0) {
+                writeOrder.addTail(node);
+            }
+            sketch.increment(node.key);
+        }
+    }
+
+    private void onRemove(Node<K, V> node) {
+        retire(node);
+    }
+
+    private void link(Node<K, V> node, int queue) {
+        node.queue = queue;
+        if (queue == WINDOW) {
+            window.addTail(node);
+            windowWeight += node.weight;
+        } else {
+            main.addTail(node);
+            mainWeight += node.weight;
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.queue == MAIN) {
+            main.remove(node);
+            mainWeight -= node.weight;
+        }
+        node.queue = RETIRED;
+    }
+
+    private void retire(Node<K, V> node) {
+        unlink(node);
+        writeOrder.remove(node);
+    }
+
+    private void expire() {
+        if (expireAfterWriteNanos == 0) {
+            return;
+        }
+
+        while (writeOrder.head != null && isExpired(writeOrder.head)) {
+            evict(writeOrder.head);
+        }
+    }
+
+    /**
+     * Move the window overflow to the main region, then evict down to the capacity. Each
+     * candidate moved from the window competes with the least recently used entry of the main
+     * region, the one used less often is evicted.
+     */
+    private void evict() {
+        Node<K, V> candidate = null;
+        while (windowWeight > windowMaxWeight && window.head != null) {
+            Node<K, V> node = window.head;
+            unlink(node);
+            link(node, MAIN);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+
+        while (windowWeight + mainWeight > maxWeight) {
+            Node<K, V> victim = main.head != null ? main.head : window.head;
+            if (victim == null) {
+                break;
+            }
+
+            if (candidate == null || candidate == victim || candidate.queue != MAIN) {
+                if (candidate == victim) {
+                    candidate = candidate.next;
+                }
+                evict(victim);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                Node<K, V> rejected = candidate;
+                candidate = candidate.next;
+                evict(rejected);
+            }
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        retire(node);
+        if (data.remove(node.key, node)) {
+            evictions.incrementAndGet();
+            notifyRemoval(node);
+        }
+    }
+
+    private void notifyRemoval(Node<K, V> node) {
+        if (removalListener != null) {
+            removalListener.onRemoval(node.key, node.value);
+        }
+    }
+
+    /**
+     * Entry with its place in the eviction order. An update replaces the node, so the value,
+     * weight and write time of a node never change.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long writeTime;
+
+        /* guarded by the eviction lock */
+        int queue = NONE;
+        Node<K, V> prev;
+        Node<K, V> next;
+        boolean written;
+        Node<K, V> writePrev;
+        Node<K, V> writeNext;
+
+        Node(K key, V value, int weight, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * Doubly linked list from least to most recently used.
+     */
+    private static final class AccessOrder<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+
+        void addTail(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToTail(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addTail(node);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list from least to most recently written, the order entries expire in.
+     */
+    private static final class WriteOrder<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+
+        void addTail(Node<K, V> node) {
+            node.written = true;
+            node.writePrev = tail;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.writeNext = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (!node.written) {
+                return;
+            }
+
+            if (node.writePrev == null) {
+                head = node.writeNext;
+            } else {
+                node.writePrev.writeNext = node.writeNext;
+            }
+            if (node.writeNext == null) {
+                tail = node.writePrev;
+            } else {
+                node.writeNext.writePrev = node.writePrev;
+            }
+            node.written = false;
+            node.writePrev = null;
+            node.writeNext = null;
+        }
+    }
+
+    /**
+     * Lossy ring buffer of reads. Producers claim a slot with a cas and drop the read when the
+     * buffer is full or contended, dropping a few reads only makes the order slightly less
+     * exact. Drained under the eviction lock.
+     */
+    private static final class ReadBuffer<K, V> {
+        final AtomicLong tail = new AtomicLong();
+        final AtomicReferenceArray<Node<K, V>> slots =
+                new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        volatile long head;
+
+        /**
+         * @return false if the buffer is full and should be drained
+         */
+        boolean offer(Node<K, V> node) {
+            long current = tail.get();
+            if (current - head >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (tail.compareAndSet(current, current + 1)) {
+                slots.lazySet((int) current & READ_BUFFER_MASK, node);
+            }
+            return true;
+        }
+
+        void drain(Consumer<Node<K, V>> consumer) {
+            long index = head;
+            long end = tail.get();
+            for (; index < end; index++) {
+                int slot = (int) index & READ_BUFFER_MASK;
+                Node<K, V> node = slots.get(slot);
+                if (node == null) {
+                    break;
+                }
+                slots.lazySet(slot, null);
+                consumer.accept(node);
+            }
+            head = index;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            Iterator<Node<K, V>> nodes = data.values().iterator();
+            return new Iterator<Map.Entry<K, V>>() {
+                private Node<K, V> next = advance();
+                private Node<K, V> last;
+
+                private Node<K, V> advance() {
+                    while (nodes.hasNext()) {
+                        Node<K, V> node = nodes.next();
+                        if (!isExpired(node)) {
+                            return node;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = advance();
+                    return new SimpleImmutableEntry<>(last.key, last.value);
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    LRUMap.this.remove(last.key, last.value);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return data.size();
+        }
+
+        @Override
+        public void clear() {
+            LRUMap.this.clear();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package tetherj;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ethereum.crypto.ECKey;
+import org.ethereum.crypto.ECKey.ECDSASignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.params.ECPrivateKeyParameters;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.crypto.signers.HMacDSAKCalculator;
+
+/**
+ * Compares keys and signatures per second with the generator multiplied by the generic curve
+ * multipliers, the curve's default one for keys and the comb ECDSASigner uses for signatures,
+ * against the precomputed secp256k1 tables.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tetherj.FixedBaseBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FixedBaseBenchmark {
+
+    private static final int INPUTS = 256;
+
+    private ECKey key;
+    private BigInteger[] privateKeys;
+    private byte[][] hashes;
+    private int next;
+
+    /**
+     * Create the private keys and the hashes to sign.
+     */
+    @Setup
+    public void setUp() {
+        key = new ECKey();
+        privateKeys = new BigInteger[INPUTS];
+        hashes = new byte[INPUTS][32];
+        Random random = new Random(1);
+        for (int i = 0; i < INPUTS; i++) {
+            privateKeys[i] = new BigInteger(255, random);
+            random.nextBytes(hashes[i]);
+        }
+    }
+
+    /**
+     * Key with the public key multiplied on the generic curve.
+     */
+    @Benchmark
+    public ECKey genericKey() {
+        BigInteger privateKey = privateKeys[next++ & (INPUTS - 1)];
+        return ECKey.fromPrivateAndPrecalculatedPublic(privateKey,
+            ECKey.CURVE.getG().multiply(privateKey));
+    }
+
+    @Benchmark
+    public ECKey fixedBaseKey() {
+        return ECKey.fromPrivate(privateKeys[next++ & (INPUTS - 1)]);
+    }
+
+    /**
+     * Signature with the comb multiplier, v left out.
+     */
+    @Benchmark
+    public ECDSASignature combSignature() {
+        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+        signer.init(true, new ECPrivateKeyParameters(key.getPrivKey(), ECKey.CURVE));
+        BigInteger[] components = signer.generateSignature(hashes[next++ & (INPUTS - 1)]);
+        return new ECDSASignature(components[0], components[1]).toCanonicalised();
+    }
+
+    @Benchmark
+    public ECDSASignature fixedBaseSignature() {
+        return key.sign(hashes[next++ & (INPUTS - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FixedBaseBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
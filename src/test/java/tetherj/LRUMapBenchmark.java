@@ -0,0 +1,110 @@
+package tetherj;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.ethereum.util.LRUMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the bounded LRUMap against an access ordered LinkedHashMap behind a lock, the usual
+ * bounded map, with skewed keys (a few keys are most of the lookups) from 16 threads. The read
+ * benchmark only looks up, the mixed one writes a missed key back like a cache would.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tetherj.LRUMapBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LRUMapBenchmark {
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final int KEYS = 1 << 16;
+
+    @Param({ "synchronizedLinkedHashMap", "lruMap" })
+    public String map;
+
+    private Map<Integer, Integer> cache;
+    private Integer[] keys;
+
+    /**
+     * Fill the map under test and draw the skewed keys.
+     */
+    @Setup
+    public void setUp() {
+        switch (map) {
+            case "synchronizedLinkedHashMap":
+                cache = Collections.synchronizedMap(
+                    new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                            return size() > MAX_ENTRIES;
+                        }
+                    });
+                break;
+            case "lruMap":
+                cache = new LRUMap<>(16, MAX_ENTRIES);
+                break;
+            default:
+                throw new IllegalArgumentException(map);
+        }
+
+        /* square of a uniform value, small keys are drawn far more often */
+        keys = new Integer[KEYS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < KEYS; i++) {
+            double uniform = random.nextDouble();
+            keys[i] = (int) (uniform * uniform * MAX_ENTRIES * 4);
+        }
+        for (Integer key : keys) {
+            cache.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public Integer read() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    /**
+     * Lookup writing back on a miss.
+     */
+    @Benchmark
+    public Integer readWrite() {
+        Integer key = keys[ThreadLocalRandom.current().nextInt(KEYS)];
+        Integer value = cache.get(key);
+        if (value == null) {
+            cache.put(key, key);
+        }
+        return value;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LRUMapBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
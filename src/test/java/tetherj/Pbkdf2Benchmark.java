@@ -0,0 +1,93 @@
+package tetherj;
+
+import com.cegeka.tetherj.crypto.Pbkdf2HmacSha256;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares deriving a V3 wallet key (262144 iterations, 32 bytes) with a Mac per block and an
+ * array per iteration, as the storage did before, the JDK's PBKDF2WithHmacSHA256 and the
+ * dedicated engine.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tetherj.Pbkdf2Benchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class Pbkdf2Benchmark {
+
+    private static final int ITERATIONS = 262144;
+    private static final int KEY_LENGTH = 32;
+    private static final String PASSPHRASE = "correct horse battery staple";
+    private static final byte[] SALT = new byte[32];
+
+    /**
+     * Derivation as the storage did before, two 32 byte blocks for a block length of 20.
+     */
+    @Benchmark
+    public byte[] macPerBlock() throws Exception {
+        byte[] derived = new byte[2 * KEY_LENGTH];
+        for (int index = 1; index <= 2; index++) {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(PASSPHRASE.getBytes(StandardCharsets.UTF_8),
+                "HmacSHA256"));
+            byte[] first = Arrays.copyOf(SALT, SALT.length + 4);
+            first[SALT.length + 3] = (byte) index;
+
+            byte[] last = mac.doFinal(first);
+            byte[] block = last.clone();
+            for (int i = 1; i < ITERATIONS; i++) {
+                last = mac.doFinal(last);
+                for (int j = 0; j < block.length; j++) {
+                    block[j] ^= last[j];
+                }
+            }
+            System.arraycopy(block, 0, derived, (index - 1) * KEY_LENGTH, KEY_LENGTH);
+        }
+        return Arrays.copyOf(derived, KEY_LENGTH);
+    }
+
+    /**
+     * Derivation by the JDK.
+     */
+    @Benchmark
+    public byte[] jdk() throws Exception {
+        return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(
+            new PBEKeySpec(PASSPHRASE.toCharArray(), SALT, ITERATIONS, KEY_LENGTH * 8))
+            .getEncoded();
+    }
+
+    @Benchmark
+    public byte[] engine() {
+        return Pbkdf2HmacSha256.derive(PASSPHRASE, SALT, ITERATIONS, KEY_LENGTH);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(Pbkdf2Benchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
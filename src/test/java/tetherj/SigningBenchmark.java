@@ -0,0 +1,70 @@
+package tetherj;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ethereum.crypto.ECKey;
+import org.ethereum.crypto.ECKey.ECDSASignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares recoverable signing, signatures per second, finding v by recovering up to four
+ * candidate public keys after signing against deriving it from the nonce point while signing.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tetherj.SigningBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SigningBenchmark {
+
+    private static final int HASHES = 256;
+
+    private ECKey key;
+    private byte[][] hashes;
+    private int next;
+
+    /**
+     * Create the key and the hashes to sign.
+     */
+    @Setup
+    public void setUp() {
+        key = new ECKey();
+        hashes = new byte[HASHES][32];
+        Random random = new Random(1);
+        for (byte[] hash : hashes) {
+            random.nextBytes(hash);
+        }
+    }
+
+    @Benchmark
+    public ECDSASignature recoveryLoop() {
+        return TestSigning.signWithRecoveryLoop(key, hashes[next++ & (HASHES - 1)]);
+    }
+
+    @Benchmark
+    public ECDSASignature nonceParity() {
+        return key.sign(hashes[next++ & (HASHES - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SigningBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package tetherj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local json rpc server for tests. Answers every call (single or batched) using a handler that
+ * maps a method and its params to a result.
+ */
+public class StubRpcServer implements AutoCloseable {
+
+    static {
+        /* avoid delayed ack stalls between response headers and body */
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final Handler handler;
+    private final AtomicInteger httpRequests = new AtomicInteger();
+    private volatile boolean chunked = false;
+    private volatile int statusCode = 200;
+
+    /**
+     * Computes the result of a call, may throw to answer with a json rpc error.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Object apply(String method, JsonNode params);
+    }
+
+    /**
+     * Start a stub server on a free local port.
+     *
+     * @param handler computes call results
+     */
+    public StubRpcServer(Handler handler) throws IOException {
+        this.handler = handler;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public String getHostname() {
+        return "127.0.0.1";
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getHttpRequests() {
+        return httpRequests.get();
+    }
+
+    /**
+     * Answer with chunked transfer encoding instead of a content length.
+     */
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
+
+    /**
+     * Answer with another http status, the body is still the json rpc response.
+     */
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        httpRequests.incrementAndGet();
+
+        JsonNode request;
+        try (InputStream input = exchange.getRequestBody()) {
+            request = mapper.readTree(input);
+        }
+
+        JsonNode response;
+        if (request.isArray()) {
+            ArrayNode responses = mapper.createArrayNode();
+            for (JsonNode call : request) {
+                responses.add(answer(call));
+            }
+            response = responses;
+        } else {
+            response = answer(request);
+        }
+
+        byte[] body = mapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, chunked ? 0 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private ObjectNode answer(JsonNode call) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", call.get("id"));
+
+        try {
+            Object result = handler.apply(call.get("method").asText(), call.get("params"));
+            response.set("result", mapper.valueToTree(result));
+        } catch (RuntimeException ex) {
+            ObjectNode error = response.putObject("error");
+            error.put("code", -32000);
+            error.put("message", String.valueOf(ex.getMessage()));
+        }
+
+        return response;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,188 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InterruptedIOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.ErrorType;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.transport.NioHttpTransport;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.googlecode.jsonrpc4j.HttpException;
+
+public class TestCoalescing {
+
+    private static final int CALLERS = 20;
+
+    /**
+     * Node answering slowly, so concurrent identical calls overlap.
+     */
+    private static class SlowNode {
+        private final AtomicInteger balanceCalls = new AtomicInteger();
+
+        Object answer(String method, JsonNode params) {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+
+            switch (method) {
+                case "eth_getBalance":
+                    balanceCalls.incrementAndGet();
+                    if (params.get(0).asText().equals("0xbad")) {
+                        throw new IllegalStateException("invalid address");
+                    }
+                    return "0x10";
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    private static List<TetherjResponse<BigInteger>> getBalances(EthereumService service,
+        String address) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<TetherjResponse<BigInteger>>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return service.getBalance(address);
+                }));
+            }
+            start.countDown();
+
+            List<TetherjResponse<BigInteger>> responses = new ArrayList<>();
+            for (Future<TetherjResponse<BigInteger>> future : futures) {
+                responses.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return responses;
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCoalescesIdenticalBlockingReads() throws Exception {
+        SlowNode node = new SlowNode();
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            EthereumService service = new EthereumService(0, client);
+
+            for (TetherjResponse<BigInteger> response : getBalances(service, "0x01")) {
+                assertEquals(BigInteger.valueOf(16), response.getValue());
+            }
+            assertTrue(node.balanceCalls.get() <= 2);
+            assertTrue(client.getCoalescer().getHitRate() >= 0.9);
+
+            /* errors are fanned out as well */
+            for (TetherjResponse<BigInteger> response : getBalances(service, "0xbad")) {
+                assertEquals(ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR, response
+                    .getErrorType());
+            }
+            assertTrue(node.balanceCalls.get() <= 4);
+            assertEquals(0, client.getCoalescer().getInFlight());
+
+            client.setCoalescing(false);
+            int before = node.balanceCalls.get();
+            getBalances(service, "0x01");
+            assertEquals(CALLERS, node.balanceCalls.get() - before);
+        }
+    }
+
+    @Test
+    public void testCoalescesIdenticalAsyncReads() throws Exception {
+        SlowNode node = new SlowNode();
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            EthRpcClient client = new EthRpcClient(new NioHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            EthereumService service = new EthereumService(1, client);
+
+            CountDownLatch done = new CountDownLatch(2 * CALLERS);
+            List<TetherjResponse<BigInteger>> responses = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                for (String address : new String[] { "0x01", "0x02" }) {
+                    service.getBalance(address, response -> {
+                        synchronized (responses) {
+                            responses.add(response);
+                        }
+                        done.countDown();
+                    });
+                }
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (TetherjResponse<BigInteger> response : responses) {
+                assertEquals(BigInteger.valueOf(16), response.getValue());
+            }
+
+            /* one rpc per distinct address */
+            assertEquals(2, node.balanceCalls.get());
+            assertEquals(2 * CALLERS - 2, client.getCoalescer().getCoalesced());
+            client.getTransport().close();
+        }
+    }
+
+    @Test
+    public void testInterruptedWaitKeepsInterruptFlag() throws Exception {
+        SlowNode node = new SlowNode();
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            ExecutorService callers = Executors.newFixedThreadPool(2);
+            try {
+                final Future<BigInteger> first = callers.submit(() -> client.getBalance("0x01"));
+                while (client.getCoalescer().getInFlight() == 0) {
+                    Thread.sleep(1);
+                }
+
+                AtomicReference<Throwable> error = new AtomicReference<>();
+                AtomicBoolean interrupted = new AtomicBoolean();
+                Thread waiter = new Thread(() -> {
+                    try {
+                        client.getBalance("0x01");
+                    } catch (RuntimeException ex) {
+                        error.set(ex);
+                        interrupted.set(Thread.currentThread().isInterrupted());
+                    }
+                });
+                waiter.start();
+                while (client.getCoalescer().getCoalesced() == 0) {
+                    Thread.sleep(1);
+                }
+                waiter.interrupt();
+                waiter.join(5000);
+
+                assertTrue(error.get() instanceof HttpException);
+                assertTrue(error.get().getCause() instanceof InterruptedIOException);
+                assertTrue(interrupted.get());
+                assertEquals(BigInteger.valueOf(16), first.get(10, TimeUnit.SECONDS));
+            } finally {
+                callers.shutdownNow();
+            }
+        }
+    }
+}
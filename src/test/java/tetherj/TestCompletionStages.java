@@ -0,0 +1,148 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthTransaction;
+import com.cegeka.tetherj.EthWallet;
+import com.cegeka.tetherj.api.ErrorType;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import com.cegeka.tetherj.transport.NioHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestCompletionStages {
+
+    /**
+     * Chain mining every sent transaction in block 1, with two logs in that block.
+     */
+    private static class StubChain {
+        private final AtomicInteger sent = new AtomicInteger();
+
+        Object answer(String method, JsonNode params) {
+            switch (method) {
+                case "eth_getTransactionCount":
+                    return "0x5";
+                case "eth_sendRawTransaction":
+                    sent.incrementAndGet();
+                    return "0xabcd";
+                case "eth_blockNumber":
+                    return "0x1";
+                case "eth_getBlockByNumber":
+                    Map<String, Object> block = new HashMap<>();
+                    block.put("number", "0x1");
+                    block.put("transactions", new String[] { "0xabcd" });
+                    return block;
+                case "eth_getTransactionReceipt":
+                    Map<String, Object> receipt = new HashMap<>();
+                    receipt.put("transactionHash", params.get(0).asText());
+                    receipt.put("blockNumber", "0x1");
+                    return receipt;
+                case "eth_getLogs":
+                    List<Object> logs = new ArrayList<>();
+                    for (int i = 0; i < 2; i++) {
+                        Map<String, Object> log = new HashMap<>();
+                        log.put("blockNumber", params.get(0).get("fromBlock").asText());
+                        log.put("transactionHash", "0xabcd");
+                        log.put("data", "0x" + String.format("%064x", i));
+                        log.put("topics", new String[] { "0x01" });
+                        logs.add(log);
+                    }
+                    return logs;
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    @Test
+    public void testChainsWithoutBlocking() throws Exception {
+        StubChain chain = new StubChain();
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            NioHttpTransport transport = new NioHttpTransport(EthRpcClient.createUrl(server
+                .getHostname(), server.getPort()));
+            EthereumService service = new EthereumService(1, new EthRpcClient(transport));
+
+            EthWallet wallet = EthWallet.createWallet("pass");
+            wallet.unlock("pass");
+            EthTransaction transaction = new EthTransaction("12", BigInteger.valueOf(100));
+
+            List<String> threads = new ArrayList<>();
+            CompletionStage<TetherjResponse<List<EthEvent>>> events = service
+                .signTransactionAsync(transaction, wallet)
+                .thenCompose(signed -> {
+                    threads.add(Thread.currentThread().getName());
+                    return signed.compose(service::sendSignedTransactionAsync);
+                })
+                .thenCompose(hash -> {
+                    threads.add(Thread.currentThread().getName());
+                    return hash.compose(service::listenForTxReceiptAsync);
+                })
+                .thenCompose(receipt -> receipt.compose(mined -> {
+                    FilterLogRequest request = new FilterLogRequest();
+                    request.setFromBlock(new BigInteger(mined.getBlockNumber().substring(2),
+                        16));
+                    request.setToBlock(request.getFromBlock());
+                    return service.getEventsAsync(request);
+                }));
+
+            TetherjResponse<List<EthEvent>> response = events.toCompletableFuture().get(10,
+                TimeUnit.SECONDS);
+            assertTrue(response.isSuccessful());
+            assertEquals(2, response.getValue().size());
+            assertEquals("0x1", response.getValue().get(1).getFilterLogObject()
+                .getBlockNumber());
+            assertEquals(1, chain.sent.get());
+
+            /* signing and sending continued on the transport I/O thread, not the executor */
+            assertEquals(2, threads.size());
+            for (String thread : threads) {
+                assertTrue(thread, thread.startsWith("tetherj-nio"));
+            }
+            transport.close();
+        }
+    }
+
+    @Test
+    public void testFailureSkipsRestOfChain() throws Exception {
+        StubChain chain = new StubChain();
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(
+                new NioHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+
+            EthWallet wallet = EthWallet.createWallet("pass");
+            EthTransaction transaction = new EthTransaction("12", BigInteger.valueOf(100));
+
+            TetherjResponse<String> response = service.signTransactionAsync(transaction, wallet)
+                .thenCompose(signed -> signed.compose(service::sendSignedTransactionAsync))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertEquals(ErrorType.BAD_STATE, response.getErrorType());
+            assertEquals(0, chain.sent.get());
+
+            /* same for the combined call, and the blocking transport path */
+            EthereumService blocking = new EthereumService(0, new EthRpcClient(
+                server.getHostname(), server.getPort()));
+            assertEquals(ErrorType.BAD_STATE, blocking.sendTransactionAsync(wallet, transaction)
+                .toCompletableFuture().get().getErrorType());
+            assertEquals(BigInteger.valueOf(5), blocking.getAccountNonceAsync(wallet.getAddress())
+                .toCompletableFuture().get().getValue());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.ConfirmedEventStream;
+import com.cegeka.tetherj.api.TetherjHandle;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestConfirmedEvents {
+
+    /**
+     * Chain with one log per block, blocks from a height can be replaced by a fork.
+     */
+    private static class StubChain {
+        private final List<String> hashes = new ArrayList<>();
+
+        StubChain(int height) {
+            hashes.add("0xgenesis");
+            mine("a", height);
+        }
+
+        synchronized void mine(String fork, int count) {
+            for (int i = 0; i < count; i++) {
+                hashes.add("0x" + fork + hashes.size());
+            }
+        }
+
+        synchronized void fork(int height, String fork, int count) {
+            while (hashes.size() > height) {
+                hashes.remove(hashes.size() - 1);
+            }
+            mine(fork, count);
+        }
+
+        synchronized Object answer(String method, JsonNode params) {
+            switch (method) {
+                case "eth_blockNumber":
+                    return "0x" + Integer.toHexString(hashes.size() - 1);
+                case "eth_getBlockByNumber":
+                    int number = Integer.parseInt(params.get(0).asText().substring(2), 16);
+                    if (number >= hashes.size()) {
+                        return null;
+                    }
+                    Map<String, Object> block = new HashMap<>();
+                    block.put("number", "0x" + Integer.toHexString(number));
+                    block.put("hash", hashes.get(number));
+                    block.put("parentHash", number > 0 ? hashes.get(number - 1) : "0x0");
+                    return block;
+                case "eth_getLogs":
+                    int from = Integer.parseInt(params.get(0).get("fromBlock").asText()
+                        .substring(2), 16);
+                    int to = Integer.parseInt(params.get(0).get("toBlock").asText()
+                        .substring(2), 16);
+                    List<Object> logs = new ArrayList<>();
+                    for (int i = from; i <= to && i < hashes.size(); i++) {
+                        Map<String, Object> log = new HashMap<>();
+                        log.put("blockNumber", "0x" + Integer.toHexString(i));
+                        log.put("blockHash", hashes.get(i));
+                        log.put("data", "0x");
+                        logs.add(log);
+                    }
+                    return logs;
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    private static List<String> blockHashes(List<EthEvent> events, boolean removed) {
+        List<String> hashes = new ArrayList<>();
+        for (EthEvent event : events) {
+            if (event.getFilterLogObject().isRemoved() == removed) {
+                hashes.add(event.getFilterLogObject().getBlockHash());
+            }
+        }
+        return hashes;
+    }
+
+    private static List<String> expected(String... hashes) {
+        List<String> list = new ArrayList<>();
+        for (String hash : hashes) {
+            list.add(hash);
+        }
+        return list;
+    }
+
+    @Test
+    public void testDeliversConfirmedEventsOnce() throws Exception {
+        StubChain chain = new StubChain(10);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            List<EthEvent> events = new CopyOnWriteArrayList<>();
+            TetherjHandle<List<EthEvent>> handle = response -> events.addAll(response
+                .getValue());
+            FilterLogRequest request = new FilterLogRequest();
+            request.setFromBlock("0x8");
+            ConfirmedEventStream stream = new ConfirmedEventStream(client, executor, request, 2,
+                20, handle);
+            stream.start();
+
+            /* resumes at block 8, blocks 9 and 10 are not deep enough */
+            Thread.sleep(150);
+            assertEquals(expected("0xa8"), blockHashes(events, false));
+
+            /* unconfirmed blocks are replaced, only the new 9 is deep enough */
+            chain.fork(9, "b", 3);
+            Thread.sleep(150);
+            assertEquals(expected("0xa8", "0xb9"), blockHashes(events, false));
+            assertTrue(blockHashes(events, true).isEmpty());
+            assertEquals(1, stream.getReorgs());
+            assertEquals(11, stream.getTipBlock().intValue());
+
+            stream.getWatch().cancel();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRetractsOrphanedEvents() throws Exception {
+        StubChain chain = new StubChain(5);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            List<EthEvent> events = new CopyOnWriteArrayList<>();
+            TetherjHandle<List<EthEvent>> handle = response -> events.addAll(response
+                .getValue());
+            ConfirmedEventStream stream = new ConfirmedEventStream(client, executor,
+                new FilterLogRequest(), 0, 20, handle);
+            stream.start();
+
+            chain.mine("a", 2);
+            Thread.sleep(150);
+            assertEquals(expected("0xa6", "0xa7"), blockHashes(events, false));
+
+            /* a shorter fork orphans both delivered blocks */
+            chain.fork(6, "c", 0);
+            Thread.sleep(150);
+            assertEquals(expected("0xa7", "0xa6"), blockHashes(events, true));
+            assertEquals(2, stream.getRetracted());
+
+            chain.mine("c", 2);
+            Thread.sleep(150);
+            assertEquals(expected("0xa6", "0xa7", "0xc6", "0xc7"), blockHashes(events, false));
+            assertEquals(6, events.size());
+            assertFalse(events.get(events.size() - 1).getFilterLogObject().isRemoved());
+
+            stream.getWatch().cancel();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEndsAfterToBlockIsConfirmed() throws Exception {
+        StubChain chain = new StubChain(5);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            List<EthEvent> events = new CopyOnWriteArrayList<>();
+            TetherjHandle<List<EthEvent>> handle = response -> events.addAll(response
+                .getValue());
+            FilterLogRequest request = new FilterLogRequest();
+            request.setFromBlock("0x3");
+            request.setToBlock("0x5");
+            ConfirmedEventStream stream = new ConfirmedEventStream(client, executor, request, 2,
+                20, handle);
+            stream.start();
+
+            Thread.sleep(150);
+            assertEquals(expected("0xa3"), blockHashes(events, false));
+            assertFalse(stream.getWatch().getIsCancelled().get());
+
+            /* followed only until the to block is confirmed, then the stream ends */
+            chain.mine("a", 5);
+            Thread.sleep(150);
+            assertEquals(expected("0xa3", "0xa4", "0xa5"), blockHashes(events, false));
+            assertTrue(stream.getWatch().getIsCancelled().get());
+            assertEquals(7, stream.getTipBlock().intValue());
+
+            chain.mine("a", 2);
+            Thread.sleep(150);
+            assertEquals(3, events.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.EventPublisher;
+import com.cegeka.tetherj.api.EventSubscription;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestEventPublisher {
+
+    private static final int LOGS_PER_BLOCK = 30;
+
+    /**
+     * Chain with the same number of logs in every block unless told otherwise, the head can be
+     * moved.
+     */
+    private static class StubChain {
+        private final AtomicInteger head = new AtomicInteger();
+        private final AtomicInteger logCalls = new AtomicInteger();
+        private volatile IntUnaryOperator logsPerBlock = block -> LOGS_PER_BLOCK;
+
+        Object answer(String method, JsonNode params) {
+            switch (method) {
+                case "eth_blockNumber":
+                    return "0x" + Integer.toHexString(head.get());
+                case "eth_getLogs":
+                    logCalls.incrementAndGet();
+                    int from = Integer.parseInt(params.get(0).get("fromBlock").asText()
+                        .substring(2), 16);
+                    int to = Integer.parseInt(params.get(0).get("toBlock").asText()
+                        .substring(2), 16);
+                    List<Object> logs = new ArrayList<>();
+                    for (int block = from; block <= to; block++) {
+                        for (int i = 0; i < logsPerBlock.applyAsInt(block); i++) {
+                            Map<String, Object> log = new HashMap<>();
+                            log.put("blockNumber", "0x" + Integer.toHexString(block));
+                            log.put("logIndex", "0x" + Integer.toHexString(i));
+                            log.put("data", "0x");
+                            logs.add(log);
+                        }
+                    }
+                    return logs;
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    /**
+     * Subscriber requesting a few events at a time, slower than the chain produces them.
+     */
+    private static class SlowSubscriber implements Subscriber<EthEvent> {
+        private final List<EthEvent> events = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicReference<Subscription> subscription = new AtomicReference<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription.set(subscription);
+        }
+
+        @Override
+        public void onNext(EthEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        void consume(EventPublisher publisher, int[] maxDepth) throws InterruptedException {
+            while (!completed.await(2, TimeUnit.MILLISECONDS)) {
+                maxDepth[0] = Math.max(maxDepth[0], publisher.getBufferDepth());
+                subscription.get().request(20);
+            }
+        }
+    }
+
+    @Test
+    public void testRespectsDemand() throws Exception {
+        StubChain chain = new StubChain();
+        chain.head.set(40);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+
+            FilterLogRequest request = new FilterLogRequest();
+            request.setFromBlock(BigInteger.valueOf(1));
+            request.setToBlock(BigInteger.valueOf(30));
+            EventPublisher publisher = service.publishEvents(request, 100, 5);
+
+            SlowSubscriber subscriber = new SlowSubscriber();
+            publisher.subscribe(subscriber);
+            EventSubscription subscription = publisher.getSubscriptions().get(0);
+
+            /* nothing requested: polling pauses once the buffer is full */
+            Thread.sleep(200);
+            final int logCalls = chain.logCalls.get();
+            assertTrue(subscription.isPaused());
+            assertTrue(subscription.getPausedPolls() > 0);
+            assertTrue(subscription.getBufferDepth() <= 100 + LOGS_PER_BLOCK);
+            Thread.sleep(100);
+            assertEquals(logCalls, chain.logCalls.get());
+
+            int[] maxDepth = new int[1];
+            subscriber.consume(publisher, maxDepth);
+
+            /* every block of the range exactly once, in order */
+            assertEquals(null, subscriber.error);
+            assertEquals(30 * LOGS_PER_BLOCK, subscriber.events.size());
+            for (int i = 0; i < subscriber.events.size(); i++) {
+                assertEquals("0x" + Integer.toHexString(1 + i / LOGS_PER_BLOCK),
+                    subscriber.events.get(i).getFilterLogObject().getBlockNumber());
+            }
+            assertTrue(maxDepth[0] <= 100 + LOGS_PER_BLOCK);
+            assertEquals(0, publisher.getSubscriptions().size());
+        }
+    }
+
+    @Test
+    public void testFollowsHead() throws Exception {
+        StubChain chain = new StubChain();
+        chain.head.set(10);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+            EventPublisher publisher = service.publishEvents(new FilterLogRequest(), 1000, 5);
+
+            SlowSubscriber subscriber = new SlowSubscriber();
+            publisher.subscribe(subscriber);
+            subscriber.subscription.get().request(Long.MAX_VALUE);
+
+            /* starts after the head at subscribe time */
+            Thread.sleep(100);
+            assertEquals(0, subscriber.events.size());
+            chain.head.set(12);
+            Thread.sleep(200);
+            assertEquals(2 * LOGS_PER_BLOCK, subscriber.events.size());
+            assertEquals("0xb", subscriber.events.get(0).getFilterLogObject().getBlockNumber());
+
+            subscriber.subscription.get().cancel();
+            assertEquals(0, publisher.getSubscriptions().size());
+
+            /* invalid demand is an error */
+            SlowSubscriber invalid = new SlowSubscriber();
+            publisher.subscribe(invalid);
+            invalid.subscription.get().request(0);
+            assertTrue(invalid.completed.await(1, TimeUnit.SECONDS));
+            assertTrue(invalid.error instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testBurstAfterSparseBlocksStaysInBuffer() throws Exception {
+        StubChain chain = new StubChain();
+        chain.head.set(300);
+        /* sparse blocks, then a burst of dense ones */
+        chain.logsPerBlock = block -> block <= 200 ? 0 : 100;
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+
+            FilterLogRequest request = new FilterLogRequest();
+            request.setFromBlock(BigInteger.valueOf(1));
+            request.setToBlock(BigInteger.valueOf(260));
+            EventPublisher publisher = service.publishEvents(request, 1024, 5);
+
+            SlowSubscriber subscriber = new SlowSubscriber();
+            publisher.subscribe(subscriber);
+            int[] maxDepth = new int[1];
+            subscriber.consume(publisher, maxDepth);
+
+            assertEquals(null, subscriber.error);
+            assertEquals(60 * 100, subscriber.events.size());
+            for (int i = 0; i < subscriber.events.size(); i++) {
+                assertEquals("0x" + Integer.toHexString(201 + i / 100),
+                    subscriber.events.get(i).getFilterLogObject().getBlockNumber());
+            }
+            assertTrue(maxDepth[0] <= 1024);
+        }
+    }
+}
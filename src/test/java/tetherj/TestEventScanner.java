@@ -0,0 +1,123 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.EventRangeScanner;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import com.cegeka.tetherj.transport.NioHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestEventScanner {
+
+    /**
+     * Node with one log every 10 blocks, plus a dense range, answering at most 50 logs per
+     * query. Filters are not supported.
+     */
+    private static class StubLogs {
+        private static final int LATEST_BLOCK = 200000;
+        private static final int MAX_RESULTS = 50;
+
+        private final AtomicInteger queries = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+
+        static boolean hasLog(int block) {
+            return block % 10 == 0 || block >= 100000 && block < 100200;
+        }
+
+        Object answer(String method, JsonNode params) {
+            switch (method) {
+                case "eth_blockNumber":
+                    return "0x" + Integer.toHexString(LATEST_BLOCK);
+                case "eth_getLogs":
+                    queries.incrementAndGet();
+                    return filterLogs(new int[] {
+                        Integer.parseInt(params.get(0).get("fromBlock").asText().substring(2), 16),
+                        Integer.parseInt(params.get(0).get("toBlock").asText().substring(2), 16)});
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+
+        private List<Object> filterLogs(int[] range) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+                List<Object> logs = new ArrayList<>();
+                for (int block = range[0]; block <= range[1]; block++) {
+                    if (hasLog(block)) {
+                        if (logs.size() == MAX_RESULTS) {
+                            rejected.incrementAndGet();
+                            throw new IllegalStateException("query returned more than "
+                                + MAX_RESULTS + " results");
+                        }
+                        Map<String, Object> log = new HashMap<>();
+                        log.put("blockNumber", "0x" + Integer.toHexString(block));
+                        logs.add(log);
+                    }
+                }
+                return logs;
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void testParallelScanIsOrderedAndAdapts() throws Exception {
+        StubLogs stub = new StubLogs();
+
+        try (StubRpcServer server = new StubRpcServer(stub::answer)) {
+            EthereumService service = new EthereumService(2, new EthRpcClient(
+                new NioHttpTransport(EthRpcClient.createUrl(server.getHostname(),
+                    server.getPort()))));
+            EventRangeScanner scanner = service.getEventScanner();
+            scanner.setConcurrency(8);
+            scanner.setInitialChunkBlocks(100);
+            scanner.setTargetLogsPerChunk(40);
+
+            FilterLogRequest request = new FilterLogRequest();
+            request.setFromBlock(BigInteger.ZERO);
+            request.setToBlock("latest");
+
+            TetherjResponse<List<EthEvent>> response = service.getEventsParallel(request);
+            assertTrue(response.isSuccessful());
+
+            List<Integer> expected = new ArrayList<>();
+            for (int block = 0; block <= StubLogs.LATEST_BLOCK; block++) {
+                if (StubLogs.hasLog(block)) {
+                    expected.add(block);
+                }
+            }
+
+            List<Integer> blocks = new ArrayList<>();
+            for (EthEvent event : response.getValue()) {
+                blocks.add(Integer.parseInt(event.getFilterLogObject().getBlockNumber()
+                    .substring(2), 16));
+            }
+
+            assertEquals(expected, blocks);
+            assertTrue(stub.maxRunning.get() > 1);
+            assertTrue(stub.rejected.get() > 0);
+            /* chunks of 100 blocks would need 2000 queries, adaptive chunks far less */
+            assertTrue("queries: " + stub.queries.get(), stub.queries.get() < 1000);
+        }
+    }
+}
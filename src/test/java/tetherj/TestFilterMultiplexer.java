@@ -0,0 +1,204 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.FilterMultiplexer;
+import com.cegeka.tetherj.api.TetherjFilterWatch;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestFilterMultiplexer {
+
+    private static final String TRANSFER = "0xddf2";
+    private static final String APPROVAL = "0x8c5b";
+    private static final int CONTRACTS = 5;
+
+    /**
+     * Chain where every contract logs one transfer and one approval per block.
+     */
+    private static class StubChain {
+        private final AtomicInteger head = new AtomicInteger();
+        private final AtomicInteger logCalls = new AtomicInteger();
+
+        Object answer(String method, JsonNode params) {
+            switch (method) {
+                case "eth_blockNumber":
+                    return "0x" + Integer.toHexString(head.get());
+                case "eth_getLogs":
+                    logCalls.incrementAndGet();
+                    return logs(params.get(0));
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+
+        private List<Object> logs(JsonNode query) {
+            int from = Integer.parseInt(query.get("fromBlock").asText().substring(2), 16);
+            int to = Integer.parseInt(query.get("toBlock").asText().substring(2), 16);
+            List<String> addresses = new ArrayList<>();
+            query.get("address").forEach(address -> addresses.add(address.asText()));
+            String topic = query.get("topics").isNull() ? null : query.get("topics").get(0)
+                .asText();
+
+            List<Object> logs = new ArrayList<>();
+            for (int block = from; block <= to; block++) {
+                for (int contract = 0; contract < CONTRACTS; contract++) {
+                    for (String event : new String[] { TRANSFER, APPROVAL }) {
+                        String address = "0xc" + contract;
+                        if (!addresses.isEmpty() && !addresses.contains(address)
+                            || topic != null && !topic.equals(event)) {
+                            continue;
+                        }
+                        Map<String, Object> log = new HashMap<>();
+                        log.put("blockNumber", "0x" + Integer.toHexString(block));
+                        log.put("address", address);
+                        log.put("topics", new String[] { event });
+                        log.put("data", "0x");
+                        logs.add(log);
+                    }
+                }
+            }
+            return logs;
+        }
+    }
+
+    private static FilterLogRequest request(String address, String topic) {
+        FilterLogRequest request = new FilterLogRequest();
+        request.setAddress(address);
+        request.setTopics(new String[] { topic });
+        return request;
+    }
+
+    @Test
+    public void testSharesPolling() throws Exception {
+        StubChain chain = new StubChain();
+        chain.head.set(10);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            FilterMultiplexer multiplexer = new FilterMultiplexer(client, executor, 20);
+
+            /* 100 watches on 5 contracts and two events, one watch on transfers anywhere */
+            Map<Integer, List<EthEvent>> received = new ConcurrentHashMap<>();
+            List<TetherjFilterWatch> watches = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                List<EthEvent> events = new ArrayList<>();
+                received.put(i, events);
+                watches.add(multiplexer.watch(request("0xC" + (i % CONTRACTS), i % 2 == 0
+                    ? TRANSFER : APPROVAL), response -> events.addAll(response.getValue())));
+            }
+            List<EthEvent> anywhere = new ArrayList<>();
+            multiplexer.watch(request(null, TRANSFER), response -> anywhere.addAll(response
+                .getValue()));
+
+            /* no new block, no log query */
+            Thread.sleep(100);
+            assertEquals(0, chain.logCalls.get());
+
+            chain.head.set(12);
+            Thread.sleep(200);
+
+            /* one query per event type for both blocks, routed per address */
+            assertEquals(2, chain.logCalls.get());
+            assertEquals(2, multiplexer.getQueryCount());
+            assertEquals(101, multiplexer.getWatchCount());
+            for (int i = 0; i < 100; i++) {
+                List<EthEvent> events = received.get(i);
+                assertEquals(2, events.size());
+                assertEquals("0xc" + (i % CONTRACTS), events.get(0).getFilterLogObject()
+                    .getAddress());
+                assertEquals(i % 2 == 0 ? TRANSFER : APPROVAL, events.get(0)
+                    .getFilterLogObject().getTopics()[0]);
+                assertEquals("0xb", events.get(0).getFilterLogObject().getBlockNumber());
+                assertEquals("0xc", events.get(1).getFilterLogObject().getBlockNumber());
+            }
+            assertEquals(2 * CONTRACTS, anywhere.size());
+            assertTrue(multiplexer.getPolls() > 5);
+
+            /* cancelled watches stop getting events and leave the query set */
+            watches.forEach(TetherjFilterWatch::cancel);
+            chain.head.set(13);
+            Thread.sleep(200);
+            assertEquals(1, multiplexer.getWatchCount());
+            assertEquals(1, multiplexer.getQueryCount());
+            assertTrue(chain.logCalls.get() <= 5);
+            assertEquals(2, received.get(0).size());
+            assertEquals(3 * CONTRACTS, anywhere.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHonorsBlockBounds() throws Exception {
+        StubChain chain = new StubChain();
+        chain.head.set(10);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            FilterMultiplexer multiplexer = new FilterMultiplexer(client, executor, 20);
+
+            FilterLogRequest bounded = request("0xc1", TRANSFER);
+            bounded.setFromBlock(BigInteger.valueOf(13));
+            bounded.setToBlock(BigInteger.valueOf(14));
+            List<EthEvent> events = new ArrayList<>();
+            final TetherjFilterWatch watch = multiplexer.watch(bounded, response -> events.addAll(
+                response.getValue()));
+
+            /* before the from block, nothing delivered */
+            chain.head.set(12);
+            Thread.sleep(150);
+            assertEquals(0, events.size());
+
+            chain.head.set(16);
+            Thread.sleep(150);
+            assertEquals(2, events.size());
+            assertEquals("0xd", events.get(0).getFilterLogObject().getBlockNumber());
+            assertEquals("0xe", events.get(1).getFilterLogObject().getBlockNumber());
+
+            /* past the to block, the watch ended and polling stopped querying */
+            assertTrue(watch.getIsCancelled().get());
+            assertEquals(0, multiplexer.getWatchCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWatchEventsUsesMultiplexer() throws Exception {
+        StubChain chain = new StubChain();
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+
+            for (int i = 0; i < 10; i++) {
+                assertTrue(service.watchEvents(request("0xc1", TRANSFER), response -> {
+                }).isSuccessful());
+            }
+            assertEquals(10, service.getFilterMultiplexer().getWatchCount());
+        }
+    }
+}
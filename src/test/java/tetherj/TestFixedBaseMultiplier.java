@@ -0,0 +1,50 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.ethereum.crypto.ECKey;
+import org.ethereum.crypto.FixedBaseMultiplier;
+import org.junit.Test;
+
+public class TestFixedBaseMultiplier {
+
+    private static void assertMultiple(BigInteger scalar) {
+        assertEquals(ECKey.CURVE.getG().multiply(scalar).normalize(),
+            FixedBaseMultiplier.multiply(scalar));
+    }
+
+    @Test
+    public void testRandomScalars() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            assertMultiple(new BigInteger(256, random));
+        }
+    }
+
+    @Test
+    public void testEdgeScalars() {
+        assertMultiple(BigInteger.ONE);
+        assertMultiple(BigInteger.valueOf(255));
+        assertMultiple(BigInteger.valueOf(256));
+        assertMultiple(BigInteger.ONE.shiftLeft(255));
+        final BigInteger order = ECKey.CURVE.getN();
+        assertMultiple(order.subtract(BigInteger.ONE));
+        assertMultiple(order.add(BigInteger.TEN));
+        assertMultiple(BigInteger.TEN.negate());
+        assertTrue(FixedBaseMultiplier.multiply(order).isInfinity());
+    }
+
+    @Test
+    public void testKeysMatchGenericMultiplication() {
+        for (int i = 0; i < 20; i++) {
+            ECKey key = new ECKey();
+            assertEquals(ECKey.CURVE.getG().multiply(key.getPrivKey()).normalize(),
+                key.getPubKeyPoint());
+            assertTrue(key.verify(new byte[32], key.sign(new byte[32])));
+        }
+    }
+}
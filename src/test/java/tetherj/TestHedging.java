@@ -0,0 +1,83 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.transport.HedgingTransport;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestHedging {
+
+    private static final long STALL_MILLIS = 500;
+
+    /**
+     * Node stalling one request out of 40, like a node pausing for garbage collection.
+     */
+    private static class StallingNode {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger writes = new AtomicInteger();
+
+        Object answer(String method, JsonNode params) {
+            if (requests.incrementAndGet() % 40 == 0) {
+                try {
+                    Thread.sleep(STALL_MILLIS);
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+
+            switch (method) {
+                case "eth_getBalance":
+                    return "0x10";
+                case "eth_sendRawTransaction":
+                    writes.incrementAndGet();
+                    return "0xabcd";
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    @Test
+    public void testHedgesStalledReads() throws Exception {
+        StallingNode node = new StallingNode();
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            HedgingTransport transport = new HedgingTransport(new PooledHttpTransport(
+                EthRpcClient.createUrl(server.getHostname(), server.getPort())));
+            EthRpcClient client = new EthRpcClient(transport);
+
+            long slowest = 0;
+            for (int i = 0; i < 400; i++) {
+                long started = System.nanoTime();
+                assertEquals(BigInteger.valueOf(16), client.getBalance("0x01"));
+                slowest = Math.max(slowest, (System.nanoTime() - started) / 1000000);
+            }
+
+            /* every stall got hedged, the duplicate answered first */
+            assertTrue(slowest < STALL_MILLIS);
+            assertEquals(400, transport.getHedgeableRequests());
+            assertTrue(transport.getHedgedRequests() >= 9);
+            assertTrue(transport.getHedgeWins() >= 9);
+            assertTrue(transport.getHedgeRate() < 0.5);
+            assertTrue(transport.getWinRate() > 0);
+            assertTrue(transport.getHedgeDelayMillis() < STALL_MILLIS);
+
+            /* writes are never duplicated */
+            long hedged = transport.getHedgedRequests();
+            for (int i = 0; i < 50; i++) {
+                client.sendRawTransaction("0xf800");
+            }
+            assertEquals(50, node.writes.get());
+            assertEquals(hedged, transport.getHedgedRequests());
+            transport.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.cegeka.tetherj.crypto.KeystoreDirectory;
+import com.cegeka.tetherj.crypto.WalletStoragePojoV3;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.ethereum.crypto.ECKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestKeystoreDirectory {
+
+    private File directory;
+    private ForkJoinPool pool;
+
+    /**
+     * Create an empty keystore directory.
+     */
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("keystores").toFile();
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Delete the keystore directory.
+     */
+    @After
+    public void tearDown() {
+        pool.shutdown();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private File writeKeystore(String prefix) throws IOException {
+        WalletStoragePojoV3 storage = WalletStoragePojoV3.createFromPrivateKey(
+            new ECKey().getPrivKeyBytes());
+        File file = new File(directory, prefix + "--" + storage.getAddress());
+        storage.writeToFile(file);
+        return file;
+    }
+
+    private List<String> writeKeystores(int from, int count) throws IOException {
+        List<String> addresses = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            String name = writeKeystore("UTC--" + i).getName();
+            addresses.add(name.substring(name.lastIndexOf('-') + 1));
+        }
+        return addresses;
+    }
+
+    @Test
+    public void testIndexesIncrementally() throws IOException {
+        List<String> addresses = writeKeystores(0, 1500);
+
+        try (KeystoreDirectory keystores = KeystoreDirectory.open(directory, pool)) {
+            assertEquals(1500, keystores.getParsed());
+            assertEquals(1500, keystores.size());
+            for (String address : addresses) {
+                assertEquals(address, keystores.load("0x" + address).getAddress());
+            }
+            assertNull(keystores.find("0x0000000000000000000000000000000000000001"));
+            assertNull(keystores.find("not an address"));
+        }
+
+        /* reopening parses only the keystores added since */
+        addresses.addAll(writeKeystores(1500, 10));
+        try (KeystoreDirectory keystores = KeystoreDirectory.open(directory, pool)) {
+            assertEquals(10, keystores.getParsed());
+            assertEquals(1510, keystores.size());
+            for (String address : addresses) {
+                assertTrue(keystores.find(address).isFile());
+            }
+
+            File added = writeKeystore("UTC--added");
+            assertTrue(keystores.add(added));
+            assertFalse(keystores.add(added));
+            assertEquals(added, keystores.find(added.getName().substring(12)));
+            assertEquals(0, keystores.refresh());
+        }
+    }
+
+    @Test
+    public void testSkipsStrayFilesOnce() throws IOException {
+        writeKeystores(0, 3);
+        File stray = new File(directory, "notes.txt");
+        Files.write(stray.toPath(), "not a keystore".getBytes(StandardCharsets.UTF_8));
+
+        try (KeystoreDirectory keystores = KeystoreDirectory.open(directory, pool)) {
+            assertEquals(4, keystores.getParsed());
+            assertEquals(3, keystores.size());
+            assertEquals(0, keystores.refresh());
+            assertFalse(keystores.add(stray));
+            assertEquals(4, keystores.getParsed());
+
+            /* parsed again once changed */
+            assertTrue(stray.setLastModified(stray.lastModified() - 10000));
+            assertEquals(0, keystores.refresh());
+            assertEquals(5, keystores.getParsed());
+        }
+    }
+
+    @Test
+    public void testRecoversFromLostTableAndTornLog() throws IOException {
+        List<String> addresses = writeKeystores(0, 20);
+        KeystoreDirectory.open(directory, pool).close();
+
+        new File(directory, KeystoreDirectory.TABLE_FILE).delete();
+        try (FileOutputStream log = new FileOutputStream(new File(directory,
+            KeystoreDirectory.LOG_FILE), true)) {
+            log.write(new byte[] { 1, 2, 3 });
+        }
+
+        try (KeystoreDirectory keystores = KeystoreDirectory.open(directory, pool)) {
+            assertEquals(0, keystores.getParsed());
+            for (String address : addresses) {
+                assertTrue(keystores.find(address).isFile());
+            }
+
+            File deleted = keystores.find(addresses.get(0));
+            assertTrue(deleted.delete());
+            assertNull(keystores.find(addresses.get(0)));
+        }
+    }
+
+    @Test
+    public void testOpensOnceAtATime() throws IOException {
+        writeKeystores(0, 5);
+        try (KeystoreDirectory keystores = KeystoreDirectory.open(directory, pool)) {
+            try {
+                KeystoreDirectory.open(directory, pool).close();
+                fail("Opened an index in use");
+            } catch (IOException ex) {
+                assertTrue(ex.getMessage().contains("in use"));
+            }
+            assertEquals(5, keystores.size());
+        }
+
+        /* released on close */
+        try (KeystoreDirectory keystores = KeystoreDirectory.open(directory, pool)) {
+            assertEquals(5, keystores.size());
+        }
+    }
+}
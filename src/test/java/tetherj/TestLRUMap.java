@@ -0,0 +1,164 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.ethereum.util.LRUMap;
+import org.junit.Test;
+
+public class TestLRUMap {
+
+    @Test
+    public void testBoundsEntries() {
+        LRUMap<Integer, String> map = new LRUMap<>(16, 100);
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, "value" + i);
+        }
+        map.cleanUp();
+
+        assertEquals(100, map.size());
+        assertEquals(100, map.getWeightedSize());
+        assertEquals(9900, map.getEvictionCount());
+        assertEquals("value9999", map.get(9999));
+    }
+
+    @Test
+    public void testFrequentKeysSurviveScan() {
+        LRUMap<Integer, String> map = new LRUMap<>(16, 100);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                map.put(i, "hot" + i);
+                map.get(i);
+            }
+            map.cleanUp();
+        }
+
+        /* a scan of one time keys, ten times the capacity, would flush a plain lru */
+        for (int i = 1000; i < 2000; i++) {
+            map.put(i, "cold" + i);
+        }
+        map.cleanUp();
+
+        int hot = 0;
+        for (int i = 0; i < 50; i++) {
+            if (map.containsKey(i)) {
+                hot++;
+            }
+        }
+        assertEquals(50, hot);
+        assertEquals(100, map.size());
+    }
+
+    @Test
+    public void testBoundsWeight() {
+        LRUMap<Integer, String> map = new LRUMap<>(16, 1000, (key, value) -> value.length(), 0,
+            TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, new String(new char[100]));
+        }
+        map.cleanUp();
+
+        assertEquals(10, map.size());
+        assertTrue(map.getWeightedSize() <= 1000);
+
+        /* an update changes the weight */
+        map.put(99, "x");
+        map.cleanUp();
+        assertEquals(901, map.getWeightedSize());
+    }
+
+    @Test
+    public void testExpiresAfterWrite() throws Exception {
+        LRUMap<String, String> map = new LRUMap<>(16, 100, null, 50, TimeUnit.MILLISECONDS);
+        map.put("key", "value");
+        assertEquals("value", map.get("key"));
+
+        Thread.sleep(100);
+        assertFalse(map.containsKey("key"));
+        assertNull(map.get("key"));
+        assertNull(map.putIfAbsent("key", "fresh"));
+        assertEquals("fresh", map.get("key"));
+    }
+
+    @Test
+    public void testCleanUpExpiresInWriteOrder() throws Exception {
+        List<String> dropped = new ArrayList<>();
+        LRUMap<String, String> map = new LRUMap<>(16, 100, null, 200, TimeUnit.MILLISECONDS,
+            (key, value) -> dropped.add(value));
+        map.put("a", "1");
+        Thread.sleep(120);
+        map.put("b", "2");
+        map.put("c", "3");
+
+        /* recently read, the expired entry is no longer first in the access order */
+        assertEquals("1", map.get("a"));
+        map.cleanUp();
+        Thread.sleep(120);
+        map.cleanUp();
+        assertEquals(Collections.singletonList("1"), dropped);
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testNotifiesDroppedEntries() throws Exception {
+        List<String> dropped = new ArrayList<>();
+        LRUMap<String, String> map = new LRUMap<>(16, 2, null, 50, TimeUnit.MILLISECONDS,
+            (key, value) -> dropped.add(value));
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put("c", "3");
+        map.cleanUp();
+        assertEquals(1, dropped.size());
+
+        /* explicit removals are the caller's, not notified */
+        map.remove("c");
+        Thread.sleep(100);
+        map.cleanUp();
+        assertEquals(2, dropped.size());
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        LRUMap<Integer, Integer> map = new LRUMap<>(16, 500);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 100000; i++) {
+                    int key = random.nextInt(2000);
+                    Integer value = map.get(key);
+                    if (value != null) {
+                        assertEquals(key, value.intValue());
+                    } else if (random.nextInt(10) == 0) {
+                        map.remove(key);
+                    } else {
+                        map.put(key, key);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        map.cleanUp();
+
+        assertTrue(map.size() <= 500);
+        assertEquals(map.size(), map.getWeightedSize());
+        assertEquals(map.size(), map.entrySet().size());
+    }
+}
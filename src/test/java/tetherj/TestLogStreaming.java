@@ -0,0 +1,144 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthEvent;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.ErrorType;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.TetherjHandle;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.pojo.FilterLogObject;
+import com.cegeka.tetherj.pojo.FilterLogRequest;
+import com.cegeka.tetherj.transport.HttpUrlConnectionTransport;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestLogStreaming {
+
+    private static final int LOG_COUNT = 5000;
+
+    private static Object answer(String method, JsonNode params) {
+        switch (method) {
+            case "eth_getLogs":
+            case "eth_getFilterLogs":
+                List<Object> logs = new ArrayList<>();
+                for (int i = 0; i < LOG_COUNT; i++) {
+                    Map<String, Object> log = new HashMap<>();
+                    log.put("blockNumber", "0x" + Integer.toHexString(i));
+                    log.put("data", "0x" + String.format("%064x", i));
+                    log.put("topics", new String[] { "0x01" });
+                    log.put("removed", false);
+                    logs.add(log);
+                }
+                return logs;
+            default:
+                throw new IllegalArgumentException("method not found");
+        }
+    }
+
+    private static void assertStreamed(EthRpcClient client) {
+        List<String> blocks = new ArrayList<>();
+        int count = client.streamLogs(new FilterLogRequest(), log -> blocks.add(log
+            .getBlockNumber()));
+
+        assertEquals(LOG_COUNT, count);
+        assertEquals(LOG_COUNT, blocks.size());
+        for (int i = 0; i < LOG_COUNT; i++) {
+            assertEquals("0x" + Integer.toHexString(i), blocks.get(i));
+        }
+    }
+
+    @Test
+    public void testStreamsPooledTransport() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestLogStreaming::answer)) {
+            PooledHttpTransport transport = new PooledHttpTransport(EthRpcClient.createUrl(server
+                .getHostname(), server.getPort()));
+            EthRpcClient client = new EthRpcClient(transport);
+
+            assertStreamed(client);
+            server.setChunked(true);
+            assertStreamed(client);
+            assertStreamed(client);
+
+            /* bodies read to the end, the connection went back to the pool each time */
+            assertEquals(1, transport.getOpenConnections());
+
+            List<FilterLogObject> filterLogs = new ArrayList<>();
+            client.streamFilterLogs(BigInteger.ONE, filterLogs::add);
+            assertEquals(LOG_COUNT, filterLogs.size());
+            assertEquals(1, transport.getOpenConnections());
+            transport.close();
+        }
+    }
+
+    @Test
+    public void testStreamsDefaultTransport() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestLogStreaming::answer)) {
+            server.setChunked(true);
+            assertStreamed(new EthRpcClient(new HttpUrlConnectionTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort()))));
+        }
+    }
+
+    @Test
+    public void testStreamEvents() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestLogStreaming::answer)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+
+            List<EthEvent> events = new ArrayList<>();
+            TetherjResponse<Integer> response = service.streamEvents(new FilterLogRequest(),
+                events::add);
+            assertTrue(response.isSuccessful());
+            assertEquals(LOG_COUNT, response.getValue().intValue());
+            assertEquals("0x" + String.format("%064x", 7), events.get(7).getFilterLogObject()
+                .getData());
+
+            CountDownLatch done = new CountDownLatch(1);
+            List<TetherjResponse<Integer>> responses = new ArrayList<>();
+            TetherjHandle<Integer> handle = asyncResponse -> {
+                responses.add(asyncResponse);
+                done.countDown();
+            };
+            service.streamEvents(new FilterLogRequest(), event -> {
+                throw new IllegalStateException("consumer failed");
+            }, handle);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(ErrorType.UNKNOWN_ERROR, responses.get(0).getErrorType());
+
+            /* consumer left the body unread, the next call still works */
+            assertEquals(LOG_COUNT, service.streamEvents(new FilterLogRequest(), event -> {
+            }).getValue().intValue());
+        }
+    }
+
+    @Test
+    public void testStreamReportsRpcError() throws Exception {
+        try (StubRpcServer server = new StubRpcServer((method, params) -> {
+            throw new IllegalStateException("query returned more than 10000 results");
+        })) {
+            EthereumService service = new EthereumService(0, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+
+            TetherjResponse<Integer> response = service.streamEvents(new FilterLogRequest(),
+                event -> {
+                });
+            assertEquals(ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR, response.getErrorType());
+            assertTrue(response.getException().getMessage().contains("more than 10000"));
+        }
+    }
+}
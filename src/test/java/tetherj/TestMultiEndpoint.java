@@ -0,0 +1,132 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.transport.MultiEndpointTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.googlecode.jsonrpc4j.HttpException;
+
+public class TestMultiEndpoint {
+
+    /**
+     * Replica answering balances after a fixed delay, counting reads and writes.
+     */
+    private static class Replica {
+        private final long delayMillis;
+        private final AtomicInteger reads = new AtomicInteger();
+        private final AtomicInteger writes = new AtomicInteger();
+
+        Replica(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        Object answer(String method, JsonNode params) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+
+            switch (method) {
+                case "eth_getBalance":
+                    reads.incrementAndGet();
+                    return "0x10";
+                case "eth_sendRawTransaction":
+                    writes.incrementAndGet();
+                    return "0xabcd";
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    private static URL url(StubRpcServer server) {
+        return EthRpcClient.createUrl(server.getHostname(), server.getPort());
+    }
+
+    @Test
+    public void testPrefersFastReplicasAndPinsWrites() throws Exception {
+        Replica fast = new Replica(0);
+        Replica alsoFast = new Replica(0);
+        Replica slow = new Replica(20);
+
+        try (StubRpcServer fastServer = new StubRpcServer(fast::answer);
+                StubRpcServer alsoFastServer = new StubRpcServer(alsoFast::answer);
+                StubRpcServer slowServer = new StubRpcServer(slow::answer)) {
+            List<URL> urls = new ArrayList<>();
+            urls.add(url(slowServer));
+            urls.add(url(fastServer));
+            urls.add(url(alsoFastServer));
+            MultiEndpointTransport transport = MultiEndpointTransport.forUrls(urls);
+            EthRpcClient client = new EthRpcClient(transport);
+
+            for (int i = 0; i < 300; i++) {
+                assertEquals(BigInteger.valueOf(16), client.getBalance("0x01"));
+            }
+
+            /* the slow replica loses every pairing once its latency is known */
+            assertTrue(slow.reads.get() < 30);
+            assertEquals(300, slow.reads.get() + fast.reads.get() + alsoFast.reads.get());
+            assertTrue(transport.getLatencyMillis(0) > transport.getLatencyMillis(1));
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals("0xabcd", client.sendRawTransaction("0xf800"));
+            }
+            assertEquals(10, slow.writes.get());
+            assertEquals(0, fast.writes.get() + alsoFast.writes.get());
+            transport.close();
+        }
+    }
+
+    @Test
+    public void testEjectsDeadReplicaAndFailsOver() throws Exception {
+        Replica first = new Replica(0);
+        Replica second = new Replica(0);
+
+        try (StubRpcServer secondServer = new StubRpcServer(second::answer)) {
+            StubRpcServer firstServer = new StubRpcServer(first::answer);
+            List<URL> urls = new ArrayList<>();
+            urls.add(url(firstServer));
+            urls.add(url(secondServer));
+            MultiEndpointTransport transport = MultiEndpointTransport.forUrls(urls);
+            transport.setMaxFailures(1);
+            transport.setBackoffMillis(60000, 60000);
+            EthRpcClient client = new EthRpcClient(transport);
+
+            client.sendRawTransaction("0xf800");
+            assertEquals(1, first.writes.get());
+            firstServer.close();
+
+            /* reads fail over to the live replica */
+            for (int i = 0; i < 50; i++) {
+                assertEquals(BigInteger.valueOf(16), client.getBalance("0x01"));
+            }
+            assertFalse(transport.isEjected(1));
+
+            /* a write is not retried elsewhere, but the dead replica gets ejected */
+            try {
+                client.sendRawTransaction("0xf800");
+            } catch (HttpException ex) {
+                assertTrue(transport.isEjected(0));
+            }
+            assertTrue(transport.isEjected(0));
+
+            /* so writes move to the next healthy replica */
+            assertEquals("0xabcd", client.sendRawTransaction("0xf800"));
+            assertEquals(1, transport.getPreferredIndex());
+            assertTrue(second.writes.get() >= 1);
+            transport.close();
+        }
+    }
+}
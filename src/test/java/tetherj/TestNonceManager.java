@@ -0,0 +1,201 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthSignedTransaction;
+import com.cegeka.tetherj.EthTransaction;
+import com.cegeka.tetherj.EthWallet;
+import com.cegeka.tetherj.api.ErrorType;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.NonceManager;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
+
+public class TestNonceManager {
+
+    private static final String ADDRESS = "0xAbC0000000000000000000000000000000000001";
+
+    private final AtomicInteger pendingCount = new AtomicInteger(5);
+    private final AtomicInteger countCalls = new AtomicInteger();
+
+    private Object answer(String method, Object params) {
+        if ("eth_getTransactionCount".equals(method)) {
+            countCalls.incrementAndGet();
+            return "0x" + Integer.toHexString(pendingCount.get());
+        }
+        if ("eth_sendRawTransaction".equals(method)) {
+            throw new IllegalStateException("insufficient funds for gas * price + value");
+        }
+        throw new IllegalArgumentException("method not found");
+    }
+
+    private static TetherjResponse<String> operationError(String message) {
+        return new TetherjResponse<>(ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR,
+            new JsonRpcClientException(-32000, message, null));
+    }
+
+    @Test
+    public void testConcurrentAllocationsAreUnique() throws Exception {
+        ExecutorService senders = Executors.newFixedThreadPool(8);
+
+        try (StubRpcServer server = new StubRpcServer(this::answer)) {
+            NonceManager nonces = new NonceManager(new EthRpcClient(new PooledHttpTransport(
+                EthRpcClient.createUrl(server.getHostname(), server.getPort()))));
+
+            List<Future<List<BigInteger>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Callable<List<BigInteger>> sender = () -> {
+                    List<BigInteger> allocated = new ArrayList<>();
+                    for (int j = 0; j < 500; j++) {
+                        allocated.add(nonces.allocate(ADDRESS));
+                    }
+                    return allocated;
+                };
+                futures.add(senders.submit(sender));
+            }
+
+            List<BigInteger> all = new ArrayList<>();
+            for (Future<List<BigInteger>> future : futures) {
+                all.addAll(future.get());
+            }
+            Collections.sort(all);
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(BigInteger.valueOf(5 + i), all.get(i));
+            }
+
+            /* seeded once, case of the address does not matter */
+            assertEquals(1, countCalls.get());
+            assertEquals(BigInteger.valueOf(4005), nonces.allocate(ADDRESS.toLowerCase()));
+            assertEquals(1, nonces.getSeeds());
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFillsGapsAndResyncs() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(this::answer)) {
+            NonceManager nonces = new NonceManager(new EthRpcClient(new PooledHttpTransport(
+                EthRpcClient.createUrl(server.getHostname(), server.getPort()))));
+
+            /* not seeded yet, no nonce without rpc */
+            assertNull(nonces.tryAllocate(ADDRESS));
+            assertEquals(BigInteger.valueOf(5), nonces.allocate(ADDRESS));
+            assertEquals(BigInteger.valueOf(6), nonces.tryAllocate(ADDRESS));
+            assertEquals(BigInteger.valueOf(7), nonces.allocate(ADDRESS));
+
+            /* rejected for its balance, the nonce is not used and is handed out first */
+            nonces.report(ADDRESS, BigInteger.valueOf(6), operationError(
+                "insufficient funds for gas * price + value"));
+            nonces.report(ADDRESS, BigInteger.valueOf(7), TetherjResponse.success("0x1"));
+            assertEquals(BigInteger.valueOf(6), nonces.allocate(ADDRESS));
+            assertEquals(BigInteger.valueOf(8), nonces.allocate(ADDRESS));
+            assertEquals(1, nonces.getReused());
+
+            /* another sender used the next nonces, the node tells us */
+            pendingCount.set(20);
+            nonces.report(ADDRESS, BigInteger.valueOf(8), operationError("nonce too low"));
+            assertEquals(BigInteger.valueOf(20), nonces.allocate(ADDRESS));
+            assertEquals(2, countCalls.get());
+
+            /* the send may have reached the node, ask it */
+            pendingCount.set(21);
+            nonces.report(ADDRESS, BigInteger.valueOf(20), new TetherjResponse<>(
+                ErrorType.BLOCKCHAIN_CLIENT_BAD_CONNECTION, new RuntimeException()));
+            assertEquals(BigInteger.valueOf(21), nonces.allocate(ADDRESS));
+            assertEquals(3, nonces.getSeeds());
+
+            /* results of stale nonces from before the resync are ignored */
+            nonces.report(ADDRESS, BigInteger.valueOf(7), operationError("intrinsic gas too low"));
+            assertEquals(BigInteger.valueOf(22), nonces.allocate(ADDRESS));
+        }
+    }
+
+    @Test
+    public void testOnlyHandedOutNoncesAreReleasedOnce() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(this::answer)) {
+            NonceManager nonces = new NonceManager(new EthRpcClient(new PooledHttpTransport(
+                EthRpcClient.createUrl(server.getHostname(), server.getPort()))));
+
+            assertEquals(BigInteger.valueOf(5), nonces.allocate(ADDRESS));
+            assertEquals(BigInteger.valueOf(6), nonces.allocate(ADDRESS));
+
+            /* never handed out, and a second result for the same nonce */
+            nonces.report(ADDRESS, BigInteger.valueOf(7), operationError("intrinsic gas too low"));
+            nonces.report(ADDRESS, BigInteger.valueOf(5), operationError("intrinsic gas too low"));
+            nonces.report(ADDRESS, BigInteger.valueOf(5), operationError("intrinsic gas too low"));
+            nonces.release(ADDRESS, BigInteger.valueOf(5));
+            assertEquals(BigInteger.valueOf(5), nonces.allocate(ADDRESS));
+            assertEquals(BigInteger.valueOf(7), nonces.allocate(ADDRESS));
+            assertEquals(1, nonces.getReused());
+
+            /* kept by the caller to send again, the nonce stays allocated until released */
+            nonces.report(ADDRESS, BigInteger.valueOf(6), operationError("insufficient funds"),
+                true);
+            assertEquals(BigInteger.valueOf(8), nonces.allocate(ADDRESS));
+            nonces.release(ADDRESS, BigInteger.valueOf(6));
+            assertEquals(BigInteger.valueOf(6), nonces.allocate(ADDRESS));
+
+            /* a resync continues after the nonces still held */
+            nonces.report(ADDRESS, BigInteger.valueOf(8), operationError("nonce too low"));
+            assertEquals(BigInteger.valueOf(8), nonces.allocate(ADDRESS));
+            assertEquals(2, nonces.getSeeds());
+        }
+    }
+
+    @Test
+    public void testSignedTransactionsKeepTheirNonces() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(this::answer)) {
+            EthereumService service = new EthereumService(0, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+            EthWallet wallet = new EthWallet(String.format("%064x", 1));
+            final String address = wallet.getAddress();
+
+            /* signed with the node's count, nothing allocated */
+            EthSignedTransaction plain = service.signTransaction(new EthTransaction("12",
+                BigInteger.ZERO), wallet).getValue();
+            assertEquals(BigInteger.valueOf(5), plain.getNonce());
+            assertEquals(0, service.getNonceManager().getSeeds());
+
+            EthSignedTransaction allocated = service.signTransactionWithAllocatedNonce(
+                new EthTransaction("12", BigInteger.ONE), wallet).getValue();
+            assertEquals(BigInteger.valueOf(5), allocated.getNonce());
+
+            /* signed with a nonce of the caller's choice, its failure is not reported */
+            EthSignedTransaction chosen = service.signTransaction(new EthTransaction("12",
+                BigInteger.TEN), wallet, BigInteger.valueOf(5));
+            assertTrue(service.sendSignedTransaction(chosen).isFailure());
+            assertEquals(BigInteger.valueOf(6), service.allocateNonce(address).getValue());
+
+            /* the caller may send it again, the rejected nonce is not handed out, tracked by the
+               data sent even if the fields were changed */
+            allocated.setNonce(BigInteger.valueOf(6));
+            allocated.setHash(null);
+            assertTrue(service.sendSignedTransaction(allocated).isFailure());
+            assertEquals(BigInteger.valueOf(7), service.allocateNonce(address).getValue());
+
+            /* given up, handed out again once */
+            service.releaseSignedTransaction(allocated);
+            service.releaseSignedTransaction(allocated);
+            assertEquals(BigInteger.valueOf(5), service.allocateNonce(address).getValue());
+            assertEquals(BigInteger.valueOf(8), service.allocateNonce(address).getValue());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package tetherj;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.cegeka.tetherj.crypto.Pbkdf2HmacSha256;
+import com.cegeka.tetherj.crypto.WalletStoragePojoV3;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.junit.Test;
+
+public class TestPbkdf2 {
+
+    @Test
+    public void testRfc7914Vectors() {
+        assertEquals("55ac046e56e3089fec1691c22544b605f94185216dde0465e68b9d57c20dacbc"
+            + "49ca9cccf179b645991664b39d77ef317c71b845b1e30bd509112041d3a19783",
+            CryptoUtil.byteToHex(Pbkdf2HmacSha256.derive("passwd",
+                "salt".getBytes(StandardCharsets.UTF_8), 1, 64)));
+        assertEquals("4ddcd8f60b98be21830cee5ef22701f9641a4418d04c0414aeff08876b34ab56"
+            + "a1d425a1225833549adb841b51c9b3176a272bdebba1d078478f62b397f33c8d",
+            CryptoUtil.byteToHex(Pbkdf2HmacSha256.derive("Password",
+                "NaCl".getBytes(StandardCharsets.UTF_8), 80000, 64)));
+    }
+
+    @Test
+    public void testMatchesJdk() throws Exception {
+        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        Random random = new Random(5);
+        int[] passwordLengths = { 0, 1, 55, 64, 65, 200 };
+        int[] keyLengths = { 1, 20, 32, 33, 64, 100 };
+        for (int passwordLength : passwordLengths) {
+            for (int keyLength : keyLengths) {
+                char[] password = new char[passwordLength];
+                for (int i = 0; i < passwordLength; i++) {
+                    password[i] = (char) ('a' + random.nextInt(26));
+                }
+                byte[] salt = new byte[1 + random.nextInt(80)];
+                random.nextBytes(salt);
+
+                byte[] expected = factory.generateSecret(new PBEKeySpec(password, salt, 3,
+                    keyLength * 8)).getEncoded();
+                assertArrayEquals(expected, Pbkdf2HmacSha256.derive(new String(password), salt,
+                    3, keyLength));
+            }
+        }
+    }
+
+    @Test
+    public void testUnlocksV3Keystore() {
+        String json = "{\"address\":\"008aeeda4d805471df9b2a5b0f38a0c3bcba786b\","
+            + "\"crypto\":{\"cipher\":\"aes-128-ctr\",\"cipherparams\":"
+            + "{\"iv\":\"6087dab2f9fdbbfaddc31a909735c1e6\"},\"ciphertext\":"
+            + "\"5318b4d5bcd28de64ee5559e671353e16f075ecae9f99c7a79a38af5f869aa46\","
+            + "\"kdf\":\"pbkdf2\",\"kdfparams\":{\"c\":262144,\"dklen\":32,"
+            + "\"prf\":\"hmac-sha256\",\"salt\":"
+            + "\"ae3cd4e7013836a3df6bd7241b12db061dbe2c6785853cce422d148a624ce0bd\"},"
+            + "\"mac\":\"517ead924a9d0dc3124507e3393d175ce3ff7c1e96529c6c555ce9e51205e9b2\"},"
+            + "\"id\":\"3198bc9c-6672-5ab3-d995-4942343ae5b6\",\"version\":3}";
+
+        WalletStoragePojoV3 storage = WalletStoragePojoV3.loadWalletFromString(json);
+
+        assertEquals("7a28b5ba57c53603b0b07b56bba752f7784bf506fa95edc395f5cf6c7514fe9d",
+            CryptoUtil.byteToHex(storage.getPrivateKey("testpassword")));
+    }
+}
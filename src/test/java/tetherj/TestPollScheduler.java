@@ -0,0 +1,137 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.api.PollScheduler;
+
+public class TestPollScheduler {
+
+    /**
+     * Polls of a scheduler on a simulated chain, and how late each block was seen.
+     */
+    private static class Simulation {
+        long polls;
+        long blocks;
+        long latencyMillis;
+
+        Simulation(PollScheduler scheduler, long blockMillis, long durationMillis) {
+            Random random = new Random(42);
+            long[] blockTimes = new long[(int) (durationMillis / blockMillis) + 2];
+            for (int i = 1; i < blockTimes.length; i++) {
+                /* block times vary by up to a fifth of the interval */
+                blockTimes[i] = i * blockMillis + random.nextInt((int) (blockMillis / 5));
+            }
+
+            int head = 0;
+            long now = 0;
+            while (now < durationMillis) {
+                int latest = head;
+                while (blockTimes[latest + 1] <= now) {
+                    latest++;
+                }
+                if (latest > head) {
+                    blocks++;
+                    latencyMillis += now - blockTimes[latest];
+                    head = latest;
+                }
+
+                polls++;
+                scheduler.observe(BigInteger.valueOf(head), now);
+                now += Math.max(1, scheduler.delayMillis(now));
+            }
+        }
+
+        long averageLatencyMillis() {
+            return latencyMillis / blocks;
+        }
+    }
+
+    @Test
+    public void testLearnsBlockInterval() {
+        PollScheduler scheduler = new PollScheduler(100, 20000, 1000);
+        assertEquals(1000, scheduler.delayMillis(0));
+
+        scheduler.observe(BigInteger.valueOf(1), 0);
+        scheduler.observe(BigInteger.valueOf(2), 15000);
+        scheduler.observe(BigInteger.valueOf(2), 20000);
+        /* the first change is not timed from a block, no interval yet */
+        assertEquals(-1, scheduler.getBlockIntervalMillis());
+
+        scheduler.observe(BigInteger.valueOf(3), 30000);
+        assertEquals(15000, scheduler.getBlockIntervalMillis());
+
+        /* sleeps until two deviations before the next block, then polls fast */
+        assertEquals(7500, scheduler.delayMillis(30000));
+        assertEquals(750, scheduler.delayMillis(44000));
+        /* backs off while the block is late */
+        assertEquals(4500, scheduler.delayMillis(60000));
+    }
+
+    @Test
+    public void testIgnoresLaggingReplica() {
+        PollScheduler scheduler = new PollScheduler(100, 20000, 1000);
+
+        /* reads alternate between replicas one block apart, blocks every second */
+        for (long now = 0; now < 20000; now += 100) {
+            long latest = now / 1000 + 10;
+            scheduler.observe(BigInteger.valueOf(now % 200 == 0 ? latest : latest - 1), now);
+        }
+        assertTrue(scheduler.getBlockIntervalMillis() >= 800);
+        assertTrue(scheduler.getBlockIntervalMillis() <= 1200);
+    }
+
+    @Test
+    public void testResetsOnRepeatedDeepRegression() {
+        PollScheduler scheduler = new PollScheduler(100, 20000, 1000);
+        scheduler.observe(BigInteger.valueOf(10), 0);
+        scheduler.observe(BigInteger.valueOf(11), 1000);
+        scheduler.observe(BigInteger.valueOf(12), 2000);
+        assertEquals(1000, scheduler.getBlockIntervalMillis());
+
+        /* a single deep regression is not enough, repeated it is another node */
+        scheduler.observe(BigInteger.valueOf(5), 2100);
+        scheduler.observe(BigInteger.valueOf(12), 2200);
+        for (int i = 0; i < PollScheduler.REGRESSIONS_TO_RESET; i++) {
+            scheduler.observe(BigInteger.valueOf(5), 2300 + i);
+        }
+        /* the first change after the reset is not timed from a block */
+        scheduler.observe(BigInteger.valueOf(6), 4100);
+        assertEquals(1000, scheduler.getBlockIntervalMillis());
+        scheduler.observe(BigInteger.valueOf(7), 4600);
+        assertEquals(875, scheduler.getBlockIntervalMillis());
+    }
+
+    @Test
+    public void testFixed() {
+        PollScheduler scheduler = PollScheduler.fixed(250);
+        scheduler.observe(BigInteger.ONE, 0);
+        scheduler.observe(BigInteger.valueOf(2), 1000);
+        scheduler.observe(BigInteger.valueOf(3), 2000);
+        assertEquals(250, scheduler.delayMillis(2000));
+        assertEquals(250, scheduler.delayMillis(2999));
+    }
+
+    @Test
+    public void testFewerPollsOnSlowChain() {
+        Simulation fixed = new Simulation(PollScheduler.fixed(1000), 15000, 600000);
+        Simulation adaptive = new Simulation(new PollScheduler(), 15000, 600000);
+
+        /* at least a third fewer polls, blocks still seen sooner */
+        assertTrue(adaptive.polls * 3 < fixed.polls * 2);
+        assertTrue(adaptive.averageLatencyMillis() < fixed.averageLatencyMillis());
+    }
+
+    @Test
+    public void testLowerLatencyOnFastChain() {
+        Simulation fixed = new Simulation(PollScheduler.fixed(1000), 200, 60000);
+        Simulation adaptive = new Simulation(new PollScheduler(), 200, 60000);
+
+        assertTrue(adaptive.averageLatencyMillis() * 2 < fixed.averageLatencyMillis());
+    }
+}
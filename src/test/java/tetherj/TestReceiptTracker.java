@@ -0,0 +1,191 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.ErrorType;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.api.TxReceiptTracker;
+import com.cegeka.tetherj.pojo.TransactionReceipt;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestReceiptTracker {
+
+    /**
+     * Minimal chain: blocks with transaction hashes, receipts for mined transactions.
+     */
+    private static class StubChain {
+        private final List<List<String>> blocks = new ArrayList<>();
+        private final Map<String, Integer> mined = new ConcurrentHashMap<>();
+        private final AtomicInteger receiptCalls = new AtomicInteger();
+        /* receipts answered with an error, or null as by a lagging node, once */
+        private final Set<String> failOnce = ConcurrentHashMap.newKeySet();
+        private final Set<String> lagOnce = ConcurrentHashMap.newKeySet();
+
+        StubChain() {
+            blocks.add(new ArrayList<>());
+        }
+
+        synchronized void mine(List<String> hashes) {
+            blocks.add(hashes);
+            hashes.forEach(hash -> mined.put(hash, blocks.size() - 1));
+        }
+
+        synchronized Object answer(String method, JsonNode params) {
+            switch (method) {
+                case "eth_blockNumber":
+                    return "0x" + Integer.toHexString(blocks.size() - 1);
+                case "eth_getBlockByNumber":
+                    int number = Integer.parseInt(params.get(0).asText().substring(2), 16);
+                    if (number >= blocks.size()) {
+                        return null;
+                    }
+                    Map<String, Object> block = new HashMap<>();
+                    block.put("number", "0x" + Integer.toHexString(number));
+                    block.put("transactions", blocks.get(number));
+                    return block;
+                case "eth_getTransactionReceipt":
+                    receiptCalls.incrementAndGet();
+                    String hash = params.get(0).asText();
+                    if (mined.containsKey(hash) && failOnce.remove(hash)) {
+                        throw new IllegalStateException("receipt unavailable");
+                    }
+                    if (!mined.containsKey(hash) || lagOnce.remove(hash)) {
+                        return null;
+                    }
+                    Map<String, Object> receipt = new HashMap<>();
+                    receipt.put("transactionHash", hash);
+                    receipt.put("blockNumber", "0x" + Integer.toHexString(mined.get(hash)));
+                    return receipt;
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    @Test
+    public void testTracksManyTransactionsPerBlock() throws Exception {
+        StubChain chain = new StubChain();
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            TxReceiptTracker tracker = new TxReceiptTracker(client, executor, 50);
+
+            List<String> hashes = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                hashes.add("0x" + Integer.toHexString(0x1000 + i));
+            }
+
+            /* some already mined before tracking */
+            chain.mine(new ArrayList<>(hashes.subList(0, 100)));
+
+            CountDownLatch done = new CountDownLatch(hashes.size());
+            Map<String, TetherjResponse<TransactionReceipt>> responses = new ConcurrentHashMap<>();
+            for (String hash : hashes) {
+                tracker.track(hash, 30000, response -> {
+                    responses.put(hash, response);
+                    done.countDown();
+                });
+            }
+
+            for (int from = 100; from < hashes.size(); from += 100) {
+                Thread.sleep(60);
+                chain.mine(new ArrayList<>(hashes.subList(from, from + 100)));
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (String hash : hashes) {
+                assertTrue(responses.get(hash).isSuccessful());
+                assertEquals(hash, responses.get(hash).getValue().getTransactionHash());
+            }
+
+            /* one initial check per hash, one fetch per matched receipt */
+            assertTrue(chain.receiptCalls.get() <= 2 * hashes.size());
+            assertEquals(0, tracker.getPendingCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTimesOutUnminedTransaction() throws Exception {
+        StubChain chain = new StubChain();
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            TxReceiptTracker tracker = new TxReceiptTracker(client, executor, 20);
+
+            CountDownLatch done = new CountDownLatch(1);
+            List<TetherjResponse<TransactionReceipt>> responses = new ArrayList<>();
+            tracker.track("0xdead", 100, response -> {
+                responses.add(response);
+                done.countDown();
+            });
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(ErrorType.OPERATION_TIMEOUT, responses.get(0).getErrorType());
+            assertEquals(0, tracker.getPendingCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRetriesReceiptsOfMatchedTransactions() throws Exception {
+        StubChain chain = new StubChain();
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+        try (StubRpcServer server = new StubRpcServer(chain::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            TxReceiptTracker tracker = new TxReceiptTracker(client, executor, 20);
+
+            CountDownLatch done = new CountDownLatch(2);
+            Map<String, TetherjResponse<TransactionReceipt>> responses = new ConcurrentHashMap<>();
+            for (String hash : Arrays.asList("0xbeef", "0xcafe")) {
+                tracker.track(hash, 5000, response -> {
+                    responses.put(hash, response);
+                    done.countDown();
+                });
+            }
+
+            /* past the fresh checks, both are only found by matching blocks now */
+            while (chain.receiptCalls.get() < 2) {
+                Thread.sleep(10);
+            }
+            chain.failOnce.add("0xbeef");
+            chain.lagOnce.add("0xcafe");
+            chain.mine(Arrays.asList("0xbeef", "0xcafe"));
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(responses.get("0xbeef").isSuccessful());
+            assertTrue(responses.get("0xcafe").isSuccessful());
+            assertTrue(chain.failOnce.isEmpty());
+            assertTrue(chain.lagOnce.isEmpty());
+            assertEquals(0, tracker.getPendingCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
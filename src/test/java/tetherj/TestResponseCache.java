@@ -0,0 +1,114 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthRpcRequest;
+import com.cegeka.tetherj.ResponseCache;
+import com.cegeka.tetherj.pojo.TransactionCall;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestResponseCache {
+
+    /**
+     * Chain at block 100, counting calls per method.
+     */
+    private static class StubNode {
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        int calls(String method) {
+            return calls.computeIfAbsent(method, key -> new AtomicInteger()).get();
+        }
+
+        Object answer(String method, JsonNode params) {
+            calls.computeIfAbsent(method, key -> new AtomicInteger()).incrementAndGet();
+
+            switch (method) {
+                case "eth_blockNumber":
+                    return "0x64";
+                case "eth_getBlockByNumber":
+                    Map<String, Object> block = new HashMap<>();
+                    String number = params.get(0).asText();
+                    block.put("number", number.equals("latest") ? "0x64" : number);
+                    return block;
+                case "eth_getTransactionReceipt":
+                    if (params.get(0).asText().equals("0xpending")) {
+                        return null;
+                    }
+                    Map<String, Object> receipt = new HashMap<>();
+                    receipt.put("transactionHash", params.get(0).asText());
+                    receipt.put("blockNumber", "0x10");
+                    return receipt;
+                case "eth_call":
+                    return "0x01";
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    @Test
+    public void testCachesImmutableResults() throws Exception {
+        StubNode node = new StubNode();
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            ResponseCache cache = new ResponseCache(2, 12);
+            client.setResponseCache(cache);
+
+            /* head not known yet, nothing is final */
+            client.execute(EthRpcClient.getBlockByNumberRequest(BigInteger.valueOf(50)));
+            assertEquals(0, cache.getSize());
+
+            assertEquals(BigInteger.valueOf(100), client.getLatestBlockNumber());
+            for (int i = 0; i < 3; i++) {
+                assertEquals("0x32", client.execute(EthRpcClient.getBlockByNumberRequest(
+                    BigInteger.valueOf(50))).getNumber());
+            }
+            assertEquals(2, node.calls("eth_getBlockByNumber"));
+
+            /* within the confirmation depth, and latest, are fetched every time */
+            client.execute(EthRpcClient.getBlockByNumberRequest(BigInteger.valueOf(95)));
+            client.execute(EthRpcClient.getBlockByNumberRequest(BigInteger.valueOf(95)));
+            client.getLatestBlock();
+            client.getLatestBlock();
+            assertEquals(6, node.calls("eth_getBlockByNumber"));
+
+            /* mined receipts are cached, pending ones are not */
+            client.getTransactionReceipt("0xmined");
+            assertEquals("0x10", client.getTransactionReceipt("0xmined").getBlockNumber());
+            assertNull(client.getTransactionReceipt("0xpending"));
+            assertNull(client.getTransactionReceipt("0xpending"));
+            assertEquals(3, node.calls("eth_getTransactionReceipt"));
+
+            /* calls pinned to a final block are cached */
+            TransactionCall call = new TransactionCall(null);
+            call.setTo("0x02");
+            EthRpcRequest<String> pinned = EthRpcRequest.of(rpc -> rpc.eth_call(call, "0x10"));
+            EthRpcRequest<String> latest = EthRpcRequest.of(rpc -> rpc.eth_call(call, "latest"));
+            client.execute(pinned);
+            client.execute(pinned);
+            client.execute(latest);
+            client.execute(latest);
+            assertEquals(3, node.calls("eth_call"));
+
+            /* block 50, the receipt and the call do not fit, the block was evicted */
+            assertEquals(2, cache.getSize());
+            assertEquals(1, cache.getEvictions());
+            assertEquals(4, cache.getHits());
+            assertTrue(cache.getHitRate() > 0);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcBatch;
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthRpcRequest;
+import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.googlecode.jsonrpc4j.JsonRpcClientException;
+
+public class TestRpcBatch {
+
+    private static Object balanceOf(String method, JsonNode params) {
+        String address = params.get(0).asText();
+        if (address.equals("0xbad")) {
+            throw new IllegalStateException("bad address");
+        }
+        return "0x" + address.substring(2);
+    }
+
+    @Test
+    public void testBatchIsOneRoundTripWithResultsInOrder() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestRpcBatch::balanceOf)) {
+            EthRpcClient client = new EthRpcClient(server.getHostname(), server.getPort());
+
+            EthRpcBatch batch = client.newBatch();
+            List<CompletableFuture<String>> balances = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                String address = "0x" + Integer.toHexString(i);
+                balances.add(batch.add(rpc -> rpc.eth_getBalance(address, "latest")));
+            }
+            batch.execute();
+
+            assertEquals(1, server.getHttpRequests());
+            for (int i = 1; i <= 10; i++) {
+                assertEquals("0x" + Integer.toHexString(i),
+                    EthRpcBatch.getResult(balances.get(i - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void testBatchIsSplitByMaxBatchSize() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestRpcBatch::balanceOf)) {
+            EthRpcClient client = new EthRpcClient(server.getHostname(), server.getPort());
+            client.setMaxBatchSize(4);
+
+            EthRpcBatch batch = client.newBatch();
+            for (int i = 0; i < 10; i++) {
+                batch.add(rpc -> rpc.eth_getBalance("0x1", "latest"));
+            }
+            batch.execute();
+
+            assertEquals(3, server.getHttpRequests());
+        }
+    }
+
+    @Test
+    public void testBatchErrorsArePerRequest() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestRpcBatch::balanceOf)) {
+            EthRpcClient client = new EthRpcClient(server.getHostname(), server.getPort());
+
+            EthRpcBatch batch = client.newBatch();
+            CompletableFuture<String> bad = batch.add(rpc -> rpc.eth_getBalance("0xbad", "latest"));
+            CompletableFuture<BigInteger> good = batch.add(EthRpcRequest
+                .of(rpc -> rpc.eth_getBalance("0x10", "latest"))
+                .map(CryptoUtil::hexToBigInteger));
+            batch.execute();
+
+            assertEquals(BigInteger.valueOf(16), EthRpcBatch.getResult(good));
+            try {
+                EthRpcBatch.getResult(bad);
+                fail("Expected rpc error");
+            } catch (JsonRpcClientException ex) {
+                assertTrue(ex.getMessage().contains("bad address"));
+            }
+        }
+    }
+}
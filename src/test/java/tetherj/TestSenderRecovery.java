@@ -0,0 +1,68 @@
+package tetherj;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.ethereum.core.SenderRecovery;
+import org.ethereum.core.Transaction;
+import org.ethereum.crypto.ECKey;
+import org.junit.Test;
+
+public class TestSenderRecovery {
+
+    private static final String TO = "0000000000000000000000000000000000000001";
+
+    @Test
+    public void testRecoversSendersInOrder() {
+        ECKey[] keys = { new ECKey(), new ECKey(), new ECKey() };
+        List<byte[]> encoded = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Transaction transaction = Transaction.create(TO, BigInteger.ONE,
+                BigInteger.valueOf(i), BigInteger.TEN, BigInteger.valueOf(21000));
+            transaction.sign(keys[i % keys.length]);
+            encoded.add(transaction.getEncoded());
+        }
+        encoded.add(new byte[] { 1, 2, 3 });
+        encoded.add(Transaction.create(TO, BigInteger.ONE, BigInteger.ZERO, BigInteger.TEN,
+            BigInteger.valueOf(21000)).getEncoded());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SenderRecovery recovery = new SenderRecovery(pool, 1000);
+        try {
+            for (int round = 0; round < 2; round++) {
+                List<SenderRecovery.Result> results = recovery.recover(encoded);
+
+                assertEquals(302, results.size());
+                for (int i = 0; i < 300; i++) {
+                    SenderRecovery.Result result = results.get(i);
+                    assertTrue(result.isValid());
+                    assertArrayEquals(keys[i % keys.length].getAddress(), result.getSender());
+                    assertEquals(BigInteger.valueOf(i),
+                        new BigInteger(1, result.getTransaction().getNonce()));
+                }
+
+                SenderRecovery.Result garbage = results.get(300);
+                assertFalse(garbage.isValid());
+                assertNull(garbage.getTransaction());
+                assertNotNull(garbage.getError());
+
+                SenderRecovery.Result unsigned = results.get(301);
+                assertFalse(unsigned.isValid());
+                assertNull(unsigned.getSender());
+
+                assertEquals(300, recovery.getCachedSenders());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
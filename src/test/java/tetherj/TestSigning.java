@@ -0,0 +1,71 @@
+package tetherj;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.ethereum.crypto.ECKey;
+import org.ethereum.crypto.ECKey.ECDSASignature;
+import org.junit.Test;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.params.ECPrivateKeyParameters;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.crypto.signers.HMacDSAKCalculator;
+
+public class TestSigning {
+
+    /**
+     * Sign the way ECKey did before, finding v by recovering each candidate key.
+     */
+    static ECDSASignature signWithRecoveryLoop(ECKey key, byte[] hash) {
+        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+        signer.init(true, new ECPrivateKeyParameters(key.getPrivKey(), ECKey.CURVE));
+        BigInteger[] components = signer.generateSignature(hash);
+        ECDSASignature signature = new ECDSASignature(components[0], components[1])
+            .toCanonicalised();
+
+        for (int recId = 0; recId < 4; recId++) {
+            byte[] recovered = ECKey.recoverPubBytesFromSignature(recId, signature, hash);
+            if (recovered != null && Arrays.equals(recovered, key.getPubKey())) {
+                signature.v = (byte) (recId + 27);
+                return signature;
+            }
+        }
+        throw new IllegalStateException("No recovery id");
+    }
+
+    @Test
+    public void testSameSignaturesAsRecoveryLoop() {
+        Random random = new Random(42);
+        byte[] hash = new byte[32];
+        for (int i = 0; i < 200; i++) {
+            ECKey key = new ECKey();
+            random.nextBytes(hash);
+
+            ECDSASignature expected = signWithRecoveryLoop(key, hash);
+            ECDSASignature signature = key.sign(hash);
+
+            assertEquals(expected, signature);
+            assertEquals(expected.v, signature.v);
+        }
+    }
+
+    @Test
+    public void testRecoversSigningKey() throws Exception {
+        Random random = new Random(7);
+        byte[] hash = new byte[32];
+        for (int i = 0; i < 100; i++) {
+            ECKey key = new ECKey();
+            random.nextBytes(hash);
+
+            ECDSASignature signature = key.sign(hash);
+
+            assertArrayEquals(key.getPubKey(), ECKey.signatureToKey(hash, signature)
+                .getPubKey());
+            assertEquals(signature, signature.toCanonicalised());
+        }
+    }
+}
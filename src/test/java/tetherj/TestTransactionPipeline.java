@@ -0,0 +1,280 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ethereum.core.Transaction;
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthTransaction;
+import com.cegeka.tetherj.EthWallet;
+import com.cegeka.tetherj.api.ErrorType;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.NonceManager;
+import com.cegeka.tetherj.api.PipelinedTransaction;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.api.TransactionPipeline;
+import com.cegeka.tetherj.crypto.CryptoUtil;
+import com.cegeka.tetherj.pojo.TransactionReceipt;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestTransactionPipeline {
+
+    private static final int SENDERS = 4;
+    private static final int PER_SENDER = 100;
+
+    /**
+     * Node accepting every raw transaction, the sender is encoded in the transaction value.
+     */
+    private static class StubNode {
+        private final Map<Integer, List<BigInteger>> sentNonces = new ConcurrentHashMap<>();
+        private final AtomicInteger sends = new AtomicInteger();
+        /* pending transaction count of every sender, lower nonces are rejected */
+        private volatile int pendingCount = 3;
+        private volatile int usedBelow = 0;
+
+        synchronized Object answer(String method, JsonNode params) {
+            switch (method) {
+                case "eth_getTransactionCount":
+                    return "0x" + Integer.toHexString(pendingCount);
+                case "eth_blockNumber":
+                    return "0x1";
+                case "eth_sendRawTransaction":
+                    sends.incrementAndGet();
+                    Transaction tx = new Transaction(CryptoUtil.hexToBytes(params.get(0)
+                        .asText()));
+                    if (new BigInteger(1, tx.getNonce()).intValue() < usedBelow) {
+                        throw new IllegalStateException("nonce too low");
+                    }
+                    int sender = new BigInteger(1, tx.getValue()).intValue() / 1000;
+                    sentNonces.computeIfAbsent(sender, key -> new ArrayList<>()).add(
+                        new BigInteger(1, tx.getNonce()));
+                    return CryptoUtil.byteToHexWithPrefix(tx.getHash());
+                case "eth_getTransactionReceipt":
+                    Map<String, Object> receipt = new HashMap<>();
+                    receipt.put("transactionHash", params.get(0).asText());
+                    receipt.put("blockNumber", "0x1");
+                    return receipt;
+                default:
+                    throw new IllegalArgumentException("method not found");
+            }
+        }
+    }
+
+    private static EthWallet wallet(int index) {
+        return new EthWallet(String.format("%064x", index + 1));
+    }
+
+    @Test
+    public void testSendsInNonceOrderPerSender() throws Exception {
+        StubNode node = new StubNode();
+        ExecutorService signers = Executors.newFixedThreadPool(4);
+        ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+        CountDownLatch signed = new CountDownLatch(1);
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            NonceManager nonces = new NonceManager(client);
+            TransactionPipeline pipeline = new TransactionPipeline(client, nonces, signers,
+                dispatcher, 50, hash -> CompletableFuture.completedFuture(null));
+
+            /* hold the dispatcher until everything is signed, to get full batches */
+            dispatcher.execute(() -> {
+                try {
+                    signed.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            List<PipelinedTransaction> submitted = new ArrayList<>();
+            for (int i = 0; i < PER_SENDER; i++) {
+                for (int sender = 0; sender < SENDERS; sender++) {
+                    submitted.add(pipeline.submit(wallet(sender), new EthTransaction("12",
+                        BigInteger.valueOf(sender * 1000 + i))));
+                }
+            }
+
+            signers.shutdown();
+            assertTrue(signers.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(SENDERS * PER_SENDER, pipeline.getQueued());
+            signed.countDown();
+
+            for (PipelinedTransaction pipelined : submitted) {
+                TetherjResponse<String> hash = pipelined.getHash().toCompletableFuture().get(10,
+                    TimeUnit.SECONDS);
+                assertTrue(hash.isSuccessful());
+            }
+
+            /* every sender's nonces from the node's count, sent in order */
+            assertEquals(SENDERS, node.sentNonces.size());
+            for (List<BigInteger> sent : node.sentNonces.values()) {
+                assertEquals(PER_SENDER, sent.size());
+                for (int i = 0; i < PER_SENDER; i++) {
+                    assertEquals(BigInteger.valueOf(3 + i), sent.get(i));
+                }
+            }
+
+            /* sent as full batches, not one by one */
+            assertEquals(SENDERS * PER_SENDER, pipeline.getSent());
+            assertEquals(SENDERS * PER_SENDER / 50, pipeline.getBatches());
+            assertEquals(SENDERS * PER_SENDER, node.sends.get());
+            assertEquals(0, pipeline.getQueued());
+            assertEquals(SENDERS, nonces.getSeeds());
+        } finally {
+            signers.shutdownNow();
+            dispatcher.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLockedWalletNonceIsReused() throws Exception {
+        StubNode node = new StubNode();
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), server
+                    .getPort()))));
+
+            EthWallet wallet = EthWallet.createWallet("pass");
+            PipelinedTransaction failed = service.submitTransaction(wallet, new EthTransaction(
+                "12", BigInteger.ONE));
+            TetherjResponse<String> hash = failed.getHash().toCompletableFuture().get(10,
+                TimeUnit.SECONDS);
+            assertEquals(ErrorType.BAD_STATE, hash.getErrorType());
+            assertEquals(ErrorType.BAD_STATE, failed.getReceipt().toCompletableFuture().get()
+                .getErrorType());
+
+            wallet.unlock("pass");
+            PipelinedTransaction next = service.submitTransaction(wallet, new EthTransaction(
+                "12", BigInteger.ONE));
+            assertEquals(failed.getNonce(), next.getNonce());
+            assertTrue(next.getHash().toCompletableFuture().get(10, TimeUnit.SECONDS)
+                .isSuccessful());
+            assertEquals(0, service.getTransactionPipeline().getQueued());
+
+            /* the receipt is tracked by the service */
+            TetherjResponse<TransactionReceipt> receipt = next.getReceipt().toCompletableFuture()
+                .get(10, TimeUnit.SECONDS);
+            assertEquals(next.getHash().toCompletableFuture().get().getValue(), receipt
+                .getValue().getTransactionHash());
+        }
+    }
+
+    @Test
+    public void testResyncSkipsQueuedNonces() throws Exception {
+        StubNode node = new StubNode();
+        List<Runnable> signing = new ArrayList<>();
+
+        try (StubRpcServer server = new StubRpcServer(node::answer)) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            NonceManager nonces = new NonceManager(client);
+            TransactionPipeline pipeline = new TransactionPipeline(client, nonces, signing::add,
+                Runnable::run, 50, hash -> CompletableFuture.completedFuture(null));
+
+            List<PipelinedTransaction> submitted = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                submitted.add(pipeline.submit(wallet(0), new EthTransaction("12", BigInteger
+                    .valueOf(i))));
+            }
+
+            /* another sender used nonce 3, the first send is rejected while 5 to 12 wait */
+            node.usedBelow = 4;
+            node.pendingCount = 5;
+            signing.remove(0).run();
+            signing.remove(0).run();
+            assertEquals("nonce too low", submitted.get(0).getHash().toCompletableFuture().get()
+                .getException().getMessage());
+            assertTrue(submitted.get(1).getHash().toCompletableFuture().get().isSuccessful());
+            assertEquals(8, pipeline.getQueued());
+
+            /* the resync continues after the queued nonces instead of replacing them */
+            for (int i = 0; i < 5; i++) {
+                PipelinedTransaction pipelined = pipeline.submit(wallet(0), new EthTransaction(
+                    "12", BigInteger.valueOf(10 + i)));
+                assertEquals(BigInteger.valueOf(13 + i), pipelined.getNonce());
+                submitted.add(pipelined);
+            }
+            assertEquals(13, pipeline.getQueued());
+            assertEquals(2, nonces.getSeeds());
+
+            signing.forEach(Runnable::run);
+            for (PipelinedTransaction pipelined : submitted.subList(1, submitted.size())) {
+                assertTrue(pipelined.getHash().toCompletableFuture().get(10, TimeUnit.SECONDS)
+                    .isSuccessful());
+            }
+            assertEquals(0, pipeline.getQueued());
+
+            List<BigInteger> sent = node.sentNonces.get(0);
+            assertEquals(14, sent.size());
+            for (int i = 0; i < sent.size(); i++) {
+                assertEquals(BigInteger.valueOf(4 + i), sent.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSeedingDoesNotHoldOtherSenders() throws Exception {
+        StubNode node = new StubNode();
+        ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+        ExecutorService submitter = Executors.newSingleThreadExecutor();
+        CountDownLatch seeding = new CountDownLatch(1);
+        CountDownLatch seeded = new CountDownLatch(1);
+        final String slowAddress = wallet(1).getAddress();
+
+        try (StubRpcServer server = new StubRpcServer((method, params) -> {
+            if ("eth_getTransactionCount".equals(method) && slowAddress.equalsIgnoreCase(params
+                .get(0).asText())) {
+                seeding.countDown();
+                try {
+                    seeded.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return node.answer(method, params);
+        })) {
+            EthRpcClient client = new EthRpcClient(new PooledHttpTransport(EthRpcClient
+                .createUrl(server.getHostname(), server.getPort())));
+            TransactionPipeline pipeline = new TransactionPipeline(client, new NonceManager(
+                client), Runnable::run, dispatcher, 50, hash -> CompletableFuture
+                    .completedFuture(null));
+
+            /* the second sender's nonce is seeded slowly, the first sender keeps sending */
+            final Future<PipelinedTransaction> slow = submitter.submit(() -> pipeline.submit(
+                wallet(1), new EthTransaction("12", BigInteger.valueOf(1000))));
+            assertTrue(seeding.await(10, TimeUnit.SECONDS));
+            PipelinedTransaction fast = pipeline.submit(wallet(0), new EthTransaction("12",
+                BigInteger.ZERO));
+            assertTrue(fast.getHash().toCompletableFuture().get(5, TimeUnit.SECONDS)
+                .isSuccessful());
+
+            seeded.countDown();
+            assertTrue(slow.get(10, TimeUnit.SECONDS).getHash().toCompletableFuture().get(10,
+                TimeUnit.SECONDS).isSuccessful());
+            assertEquals(BigInteger.valueOf(3), slow.get().getNonce());
+        } finally {
+            seeded.countDown();
+            dispatcher.shutdownNow();
+            submitter.shutdownNow();
+        }
+    }
+}
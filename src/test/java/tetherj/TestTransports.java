@@ -0,0 +1,274 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.api.ErrorType;
+import com.cegeka.tetherj.api.EthereumService;
+import com.cegeka.tetherj.api.TetherjResponse;
+import com.cegeka.tetherj.transport.NioHttpTransport;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TestTransports {
+
+    private static Object answer(String method, JsonNode params) {
+        switch (method) {
+            case "eth_blockNumber":
+                return "0x2a";
+            case "eth_getBalance":
+                return "0x" + params.get(0).asText().substring(2);
+            default:
+                throw new IllegalArgumentException("method not found");
+        }
+    }
+
+    @Test
+    public void testPooledTransportReusesBoundedConnections() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestTransports::answer);
+            PooledHttpTransport transport = new PooledHttpTransport(EthRpcClient.createUrl(
+                server.getHostname(), server.getPort()), 4, 1000, 5000)) {
+            EthRpcClient client = new EthRpcClient(transport);
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<BigInteger>> balances = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String address = "0x" + Integer.toHexString(i + 1);
+                balances.add(executor.submit(() -> client.getBalance(address)));
+            }
+
+            for (int i = 0; i < 200; i++) {
+                assertEquals(BigInteger.valueOf(i + 1), balances.get(i).get());
+            }
+            executor.shutdown();
+
+            assertEquals(200, server.getHttpRequests());
+            assertTrue(transport.getOpenConnections() <= 4);
+        }
+    }
+
+    @Test
+    public void testPooledTransportDecodesChunkedResponses() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestTransports::answer);
+            PooledHttpTransport transport = new PooledHttpTransport(EthRpcClient.createUrl(
+                server.getHostname(), server.getPort()))) {
+            server.setChunked(true);
+            EthRpcClient client = new EthRpcClient(transport);
+
+            assertEquals(BigInteger.valueOf(42), client.getLatestBlockNumber());
+            assertEquals(BigInteger.valueOf(42), client.getLatestBlockNumber());
+            assertEquals(1, transport.getOpenConnections());
+        }
+    }
+
+    @Test
+    public void testPooledStreamingReleasesPermitOnHttpError() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestTransports::answer);
+            PooledHttpTransport transport = new PooledHttpTransport(EthRpcClient.createUrl(
+                server.getHostname(), server.getPort()), 2, 1000, 5000)) {
+            byte[] request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_blockNumber\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+            server.setStatusCode(500);
+            for (int i = 0; i < 5; i++) {
+                try {
+                    transport.sendStreaming(request).close();
+                    fail("HTTP 500 accepted");
+                } catch (IOException ex) {
+                    assertTrue(ex.getMessage().startsWith("HTTP 500"));
+                }
+            }
+            assertEquals(2, transport.getAvailablePermits());
+
+            server.setStatusCode(200);
+            try (InputStream body = transport.sendStreaming(request)) {
+                assertEquals(1, transport.getAvailablePermits());
+                assertTrue(body.read() != -1);
+            }
+            assertEquals(2, transport.getAvailablePermits());
+            assertTrue(transport.getOpenConnections() <= 1);
+        }
+    }
+
+    /**
+     * Answer the first request on a connection, then read the next one and close without
+     * answering, as a node dropping an idle connection it just received a request on.
+     */
+    private static void answerOnceAndDrop(ServerSocket server, AtomicInteger requests) {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                InputStream input = socket.getInputStream();
+                for (int i = 0; i < 2 && readRequest(input); i++) {
+                    requests.incrementAndGet();
+                    if (i == 0) {
+                        byte[] body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x2a\"}"
+                            .getBytes(StandardCharsets.UTF_8);
+                        socket.getOutputStream().write(("HTTP/1.1 200 OK\r\nContent-Length: "
+                            + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                        socket.getOutputStream().write(body);
+                        socket.getOutputStream().flush();
+                    }
+                }
+            } catch (IOException ex) {
+                /* closed */
+            }
+        }
+    }
+
+    private static boolean readRequest(InputStream input) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int read = input.read();
+            if (read == -1) {
+                return false;
+            }
+            head.append((char) read);
+        }
+
+        String length = head.substring(head.indexOf("Content-Length: ") + 16);
+        int remaining = Integer.parseInt(length.substring(0, length.indexOf("\r\n")));
+        while (remaining > 0 && input.read() != -1) {
+            remaining--;
+        }
+        return true;
+    }
+
+    @Test
+    public void testPooledTransportResendsOnlyIdempotentRequests() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            Thread acceptor = new Thread(() -> answerOnceAndDrop(server, requests));
+            acceptor.setDaemon(true);
+            acceptor.start();
+            PooledHttpTransport transport = new PooledHttpTransport(EthRpcClient.createUrl(
+                "127.0.0.1", server.getLocalPort()), 1, 1000, 5000);
+            byte[] read = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_blockNumber\"}"
+                .getBytes(StandardCharsets.UTF_8);
+            byte[] send = ("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":"
+                + "\"eth_sendRawTransaction\",\"params\":[\"0x00\"]}").getBytes(
+                    StandardCharsets.UTF_8);
+
+            /* dropped on the pooled connection, a read is sent again on a new one */
+            transport.send(read);
+            transport.send(read);
+            assertEquals(3, requests.get());
+
+            /* a transaction may have been broadcast, it is not */
+            try {
+                transport.send(send);
+                fail("Resent a transaction");
+            } catch (IOException ex) {
+                assertTrue(ex.getMessage().contains("may have been processed"));
+            }
+            assertEquals(4, requests.get());
+            assertEquals(1, transport.getAvailablePermits());
+            transport.close();
+        }
+    }
+
+    @Test
+    public void testNioTransportResendsOnlyIdempotentRequests() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            NioHttpTransport transport = new NioHttpTransport(EthRpcClient.createUrl(
+                "127.0.0.1", server.getLocalPort()), 1, 1000, 5000)) {
+            Thread acceptor = new Thread(() -> answerOnceAndDrop(server, requests));
+            acceptor.setDaemon(true);
+            acceptor.start();
+            byte[] read = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_blockNumber\"}"
+                .getBytes(StandardCharsets.UTF_8);
+            byte[] send = ("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":"
+                + "\"eth_sendRawTransaction\",\"params\":[\"0x00\"]}").getBytes(
+                    StandardCharsets.UTF_8);
+
+            transport.send(read);
+            transport.send(read);
+            assertEquals(3, requests.get());
+
+            try {
+                transport.send(send);
+                fail("Resent a transaction");
+            } catch (IOException ex) {
+                assertTrue(ex.getMessage().contains("may have been processed"));
+            }
+            assertEquals(4, requests.get());
+        }
+    }
+
+    @Test
+    public void testServiceReportsRpcAndConnectionErrors() throws Exception {
+        int port;
+        try (StubRpcServer server = new StubRpcServer(TestTransports::answer)) {
+            port = server.getPort();
+            EthereumService service = new EthereumService(0, new EthRpcClient(
+                new PooledHttpTransport(EthRpcClient.createUrl(server.getHostname(), port))));
+
+            TetherjResponse<String[]> accounts = service.getAccounts();
+            assertEquals(ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR, accounts.getErrorType());
+        }
+
+        EthereumService service = new EthereumService(0, new EthRpcClient(
+            new PooledHttpTransport(EthRpcClient.createUrl("127.0.0.1", port))));
+        TetherjResponse<BigInteger> block = service.getLatestBlockNumber();
+        assertEquals(ErrorType.BLOCKCHAIN_CLIENT_BAD_CONNECTION, block.getErrorType());
+    }
+
+    @Test
+    public void testNioTransportCompletesHandlesFromIoLoop() throws Exception {
+        try (StubRpcServer server = new StubRpcServer(TestTransports::answer);
+            NioHttpTransport transport = new NioHttpTransport(EthRpcClient.createUrl(
+                server.getHostname(), server.getPort()), 4, 1000, 5000)) {
+            EthereumService service = new EthereumService(1, new EthRpcClient(transport));
+
+            int requests = 2000;
+            CountDownLatch done = new CountDownLatch(requests);
+            BigInteger[] balances = new BigInteger[requests];
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                service.getBalance("0x" + Integer.toHexString(i + 1), response -> {
+                    balances[index] = response.getValue();
+                    threads.add(Thread.currentThread().getName());
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            for (int i = 0; i < requests; i++) {
+                assertEquals(BigInteger.valueOf(i + 1), balances[i]);
+            }
+
+            assertEquals(1, threads.size());
+            assertTrue(threads.iterator().next().startsWith("tetherj-nio-"));
+            assertTrue(transport.getOpenConnections() <= 4);
+            assertEquals(0, transport.getPendingRequests());
+
+            TetherjResponse<String[]> accounts = service.getAccountsFuture().get();
+            assertEquals(ErrorType.BLOCKCHAIN_CLIENT_OPERATION_ERROR, accounts.getErrorType());
+            assertEquals(BigInteger.valueOf(42), service.getLatestBlockNumber().getValue());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package tetherj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.cegeka.tetherj.EthWallet;
+import com.cegeka.tetherj.crypto.WalletKeyCache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestWalletKeyCache {
+
+    @Test
+    public void testReloadedWalletSkipsDerivation() {
+        EthWallet created = EthWallet.createWallet("pass");
+        String json = created.getStorage().toJsonString();
+        created.unlock("pass");
+        WalletKeyCache cache = new WalletKeyCache(10, 1, TimeUnit.MINUTES, true);
+
+        for (int i = 0; i < 5; i++) {
+            EthWallet wallet = EthWallet.loadWalletFromString(json);
+            assertTrue(wallet.unlock("pass", cache));
+            assertEquals(created.getPrivateKey(), wallet.getPrivateKey());
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(4, cache.getHits());
+
+        /* wrong passphrases are derived every time and never cached */
+        EthWallet wallet = EthWallet.loadWalletFromString(json);
+        assertFalse(wallet.unlock("wrong", cache));
+        assertFalse(wallet.unlock("wrong", cache));
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(wallet.unlock("pass", cache));
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testExpiredKeysAreDerivedAgain() throws InterruptedException {
+        EthWallet wallet = EthWallet.createWallet("pass");
+        WalletKeyCache cache = new WalletKeyCache(10, 50, TimeUnit.MILLISECONDS, false);
+
+        assertTrue(wallet.unlock("pass", cache));
+        assertTrue(wallet.unlock("pass", cache));
+        Thread.sleep(100);
+        assertTrue(wallet.unlock("pass", cache));
+
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testExpiredKeysAreSweptWhileIdle() throws InterruptedException {
+        EthWallet wallet = EthWallet.createWallet("pass");
+        try (WalletKeyCache cache = new WalletKeyCache(10, 50, TimeUnit.MILLISECONDS, false)) {
+            assertTrue(wallet.unlock("pass", cache));
+            assertEquals(1, cache.size());
+
+            /* dropped, and its key zeroed, without another unlock */
+            Thread.sleep(200);
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testCloseDropsExpiredKeys() throws InterruptedException {
+        EthWallet wallet = EthWallet.createWallet("pass");
+        WalletKeyCache cache = new WalletKeyCache(10, 50, TimeUnit.MILLISECONDS, false, null);
+        assertTrue(wallet.unlock("pass", cache));
+
+        /* expired but not swept, still dropped and zeroed */
+        Thread.sleep(100);
+        assertEquals(1, cache.size());
+        cache.close();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLockForgetsPrivateKey() {
+        EthWallet wallet = EthWallet.createWallet("pass");
+        final String address = wallet.getAddress();
+        assertTrue(wallet.unlock("pass"));
+
+        wallet.lock();
+
+        assertFalse(wallet.isUnlocked());
+        assertNull(wallet.getPrivateKey());
+        assertEquals(address, wallet.getAddress());
+        assertTrue(wallet.unlock("pass"));
+    }
+}
@@ -0,0 +1,103 @@
+package tetherj;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cegeka.tetherj.EthRpcClient;
+import com.cegeka.tetherj.EthRpcInterface;
+import com.cegeka.tetherj.transport.HttpUrlConnectionTransport;
+import com.cegeka.tetherj.transport.PooledHttpTransport;
+import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
+import com.googlecode.jsonrpc4j.ProxyUtil;
+
+/**
+ * Compares rpc transports against a local stub json rpc server: the plain jsonrpc4j http
+ * client (previous implementation), the url connection transport and the pooled transport.
+ * Throughput mode reports requests/sec, sample time mode reports the latency percentiles (p99).
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tetherj.TransportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransportBenchmark {
+
+    @Param({ "jsonrpc4j", "urlConnection", "pooled" })
+    public String transport;
+
+    private StubRpcServer server;
+    private PooledHttpTransport pooled;
+    private Supplier<String> call;
+
+    /**
+     * Start the stub server and the client under test.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        server = new StubRpcServer((method, params) -> "0x2a");
+        URL url = EthRpcClient.createUrl(server.getHostname(), server.getPort());
+
+        switch (transport) {
+            case "jsonrpc4j":
+                EthRpcInterface rpc = ProxyUtil.createClientProxy(getClass().getClassLoader(),
+                    EthRpcInterface.class, new JsonRpcHttpClient(url));
+                call = rpc::eth_blockNumber;
+                break;
+            case "urlConnection":
+                EthRpcClient urlClient = new EthRpcClient(new HttpUrlConnectionTransport(url));
+                call = () -> urlClient.getLatestBlockNumber().toString();
+                break;
+            case "pooled":
+                pooled = new PooledHttpTransport(url, 16, 1000, 5000);
+                EthRpcClient pooledClient = new EthRpcClient(pooled);
+                call = () -> pooledClient.getLatestBlockNumber().toString();
+                break;
+            default:
+                throw new IllegalArgumentException(transport);
+        }
+    }
+
+    /**
+     * Stop the stub server and release connections.
+     */
+    @TearDown
+    public void tearDown() {
+        if (pooled != null) {
+            pooled.close();
+        }
+        server.close();
+    }
+
+    @Benchmark
+    public String blockNumber() {
+        return call.get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransportBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}